@@ -2,8 +2,8 @@
  *  @author adriandlph / airondlph
  */
 
-INSERT INTO householdeconomy.user (id, email_validated, username, password, first_name, email, last_name) VALUES (1, 1, 'system', 'system', 'SYSTEM', ' ', ' ');
-INSERT INTO householdeconomy.user (id, email_validated, username, password, first_name, email, last_name, parent_user_id) VALUES (2, 1, 'admin', 'admin', 'ADMIN', ' ', ' ', 1);
+INSERT INTO householdeconomy.user (id, email_validated, username, password, first_name, email, last_name, ancestor_path) VALUES (1, 1, 'system', 'system', 'SYSTEM', ' ', ' ', '/1/');
+INSERT INTO householdeconomy.user (id, email_validated, username, password, first_name, email, last_name, parent_user_id, ancestor_path) VALUES (2, 1, 'admin', 'admin', 'ADMIN', ' ', ' ', 1, '/1/2/');
 
 
 /* System permission */
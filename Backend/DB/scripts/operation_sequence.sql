@@ -0,0 +1,7 @@
+/* 
+ *  @author adriandlph / airondlph
+ */
+
+-- Operation ids are reserved in blocks of 50 from operation_seq instead of AUTO_INCREMENT.
+-- Run it once on databases with operations created before that change, after the application has created the table.
+UPDATE householdeconomy.operation_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 51 FROM householdeconomy.operation);
@@ -0,0 +1,68 @@
+package com.airondlph.economy.household.benchmark;
+
+import com.airondlph.economy.household.data.model.TokenVO;
+import com.airondlph.economy.household.logic.users.SecurityController;
+import com.airondlph.economy.household.logic.users.VerifiedTokenCache;
+import com.auth0.jwt.interfaces.Claim;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login and token verification:
+ *  - login: SecurityController.authenticateUser (user query, BCrypt check, token signature and refresh token
+ *    persistence). The token itself is created by the private createLoginToken, only reachable through the login.
+ *  - decodeToken: verified token cache hit and miss (RSA signature verification).
+ *
+ * @author adriandlph / airondlph
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthBenchmark {
+
+    private SecurityController securityController;
+    private VerifiedTokenCache verifiedTokenCache;
+    private String username;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        securityController = context.getBean(SecurityController.class);
+        verifiedTokenCache = context.getBean(VerifiedTokenCache.class);
+        username = context.getHierarchyUser(0).getUsername();
+        token = context.getToken();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public TokenVO login() throws Exception {
+        return securityController.authenticateUser(username, BenchmarkContext.PASSWORD);
+    }
+
+    @Benchmark
+    public Map<String, Claim> decodeTokenCached() throws Exception {
+        return securityController.decodeToken(token);
+    }
+
+    @Benchmark
+    public Map<String, Claim> decodeTokenNotCached() throws Exception {
+        verifiedTokenCache.clear();
+        return securityController.decodeToken(token);
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.airondlph.economy.household.benchmark;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests per second of a representative authenticated endpoint (GET /financial/bankAccount/owner/{id}/: filter,
+ * token, user and permissions, handler):
+ *  - token-cache: verified tokens cached, the filter only hashes the token
+ *  - no-token-cache: every request verifies the token signature, as every handler did before the filter
+ *
+ * The first request of each scenario must be answered with 200, so only authenticated requests are measured.
+ *
+ *      mvn -P benchmark test-compile exec:exec -Dbenchmark.main=com.airondlph.economy.household.benchmark.AuthenticationLoadTest -Dbenchmark.args="200 30 10"
+ *
+ * Arguments: clients (200), measured seconds (30), warm-up seconds (10).
+ *
+ * @author adriandlph / airondlph
+ */
+public class AuthenticationLoadTest {
+
+    private record Scenario(String name, String... properties) {}
+
+    private static final List<Scenario> SCENARIOS = List.of(
+        new Scenario("token-cache"),
+        new Scenario("no-token-cache", "token.cache.maxSize=0")
+    );
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int warmUpSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        List<String> results = new ArrayList<>();
+        for (Scenario scenario : SCENARIOS) {
+            BenchmarkContext context = new BenchmarkContext();
+            try {
+                context.start(scenario.properties());
+                results.add(LoadTest.format(scenario.name(), run(context, clients, warmUpSeconds, seconds), seconds));
+            } finally {
+                context.tearDown();
+            }
+        }
+
+        System.out.printf("%nClients: %d, measured: %d s%n", clients, seconds);
+        System.out.println(LoadTest.HEADER);
+        results.forEach(System.out::println);
+    }
+
+    private static LoadTest.Stats run(BenchmarkContext context, int clients, int warmUpSeconds, int seconds) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(LoadTest.uri(context, "/financial/bankAccount/owner/" + context.getHierarchyUser(0).getId() + "/"))
+            .header("Authorization", "Bearer " + context.getToken())
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmUpSeconds);
+        long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = LoadTest.createClient(executor)) {
+            LoadTest.checkOk(client, request);
+            return LoadTest.collect(LoadTest.startClients(executor, client, request, clients, measureFrom, measureTo));
+        }
+    }
+
+}
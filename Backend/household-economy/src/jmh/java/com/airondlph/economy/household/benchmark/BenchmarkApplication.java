@@ -0,0 +1,24 @@
+package com.airondlph.economy.household.benchmark;
+
+import com.airondlph.economy.household.HouseholdEconomyApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+/**
+ * Application context of the benchmarks: every component of the application without HouseholdEconomyApplication
+ * (console menu reading stdin, scheduled jobs) nor the test configurations.
+ *
+ * @author adriandlph / airondlph
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@AutoConfigurationPackage(basePackages = "com.airondlph.economy.household")
+@ComponentScan(basePackages = "com.airondlph.economy.household", excludeFilters = {
+    @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = HouseholdEconomyApplication.class),
+    @ComponentScan.Filter(type = FilterType.ANNOTATION, classes = SpringBootConfiguration.class)
+})
+public class BenchmarkApplication {
+}
@@ -0,0 +1,229 @@
+package com.airondlph.economy.household.benchmark;
+
+import com.airondlph.economy.household.data.entity.user.User;
+import com.airondlph.economy.household.data.enumeration.Permission;
+import com.airondlph.economy.household.logic.users.PermissionService;
+import com.airondlph.economy.household.logic.users.SecurityController;
+import com.airondlph.economy.household.logic.users.UserHierarchyService;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Application started against an in-memory H2 database (MySQL mode), shared by every benchmark of a trial.
+ *
+ * Data:
+ *  - System user (SYSTEM) and admin user (ADMIN)
+ *  - Hierarchy of {@link #HIERARCHY_DEPTH} + 1 users, each one the parent of the next one (basic permissions)
+ *  - Login token of the first user of the hierarchy
+ *
+ * Login keys are generated in a temporary directory. Tracing, login rate limits and scheduled jobs are disabled.
+ *
+ * @author adriandlph / airondlph
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    public static final int HIERARCHY_DEPTH = 50;
+    public static final String PASSWORD = "Benchmark-1234";
+
+    private Path keysDir;
+    private ConfigurableApplicationContext ctx;
+
+    private User systemUser;
+    private User adminUser;
+    // hierarchy.get(i) is the parent of hierarchy.get(i + 1)
+    private final List<User> hierarchy = new ArrayList<>();
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        start();
+    }
+
+    /**
+     * Starts the application and creates the data.
+     *
+     * @param properties Properties ("name=value") that replace the benchmark ones
+     */
+    public void start(String... properties) throws Exception {
+        keysDir = Files.createTempDirectory("household-benchmark");
+        writeLoginKeys();
+
+        List<String> args = new ArrayList<>(List.of(
+            "spring.main.banner-mode=off",
+            "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE,MONTH,YEAR,USER",
+            "spring.datasource.username=sa",
+            "spring.datasource.password=",
+            "spring.jpa.hibernate.ddl-auto=create-drop",
+            "spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+            "server.port=0",
+            "management.server.port=-1",
+            "tracing.enabled=false",
+            "login.rateLimit.enabled=false",
+            // The login token is created once and used by every benchmark
+            "token.login.validTimeSeconds=86400",
+            "logging.level.root=WARN",
+            "login.rsa.key.public.filename=" + keysDir.resolve("loginPubKey.pem"),
+            "login.rsa.key.private.filename=" + keysDir.resolve("loginPrvKey.pem"),
+            "statement.import.dir=" + keysDir,
+            "fx.import.dir=" + keysDir));
+        args.addAll(List.of(properties));
+
+        // Command line arguments, they take precedence over application.properties
+        ctx = new SpringApplicationBuilder(BenchmarkApplication.class)
+            .run(args.stream().map(arg -> "--" + arg).toArray(String[]::new));
+
+        seed();
+        token = getBean(SecurityController.class).authenticateUser(hierarchy.getFirst().getUsername(), PASSWORD).getToken();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (ctx != null) ctx.close();
+        ctx = null;
+        hierarchy.clear();
+        if (keysDir != null) {
+            try (Stream<Path> files = Files.walk(keysDir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(file);
+            }
+            keysDir = null;
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return ctx.getBean(type);
+    }
+
+    public User getSystemUser() {
+        return systemUser;
+    }
+
+    public User getAdminUser() {
+        return adminUser;
+    }
+
+    /**
+     * @param depth 0 for the top of the hierarchy, up to {@link #HIERARCHY_DEPTH}
+     * @return User of the hierarchy (detached, with ancestor path)
+     */
+    public User getHierarchyUser(int depth) {
+        return hierarchy.get(depth);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Creates users (without permissions) that are children of a user.
+     *
+     * @param parent Parent of the new users
+     * @param usernamePrefix Prefix of the usernames, unique in the trial
+     * @param count Number of users
+     * @return New users (detached, with ancestor path)
+     */
+    public List<User> createChildren(User parent, String usernamePrefix, int count) throws Exception {
+        EntityManager em = getBean(EntityManager.class);
+        UserHierarchyService userHierarchyService = getBean(UserHierarchyService.class);
+        String password = getBean(SecurityController.class).encodeUserPassword(PASSWORD);
+
+        List<User> children = new ArrayList<>(count);
+        new TransactionTemplate(getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            try {
+                for (int i = 0; i < count; i++) children.add(createUser(em, userHierarchyService, usernamePrefix + i, password, parent));
+            } catch (Exception ex) {
+                throw new IllegalStateException("Error creating benchmark users.", ex);
+            }
+        });
+        return children;
+    }
+
+    /**
+     * @return Port of the HTTP server
+     */
+    public int getServerPort() {
+        return ctx.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    private void writeLoginKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        writePEM(keysDir.resolve("loginPubKey.pem"), "PUBLIC KEY", keyPair.getPublic().getEncoded());
+        writePEM(keysDir.resolve("loginPrvKey.pem"), "PRIVATE KEY", keyPair.getPrivate().getEncoded());
+    }
+
+    private static void writePEM(Path file, String type, byte[] encoded) throws Exception {
+        String pem = new StringBuilder()
+            .append("-----BEGIN ").append(type).append("-----").append(System.lineSeparator())
+            .append(Base64.getEncoder().encodeToString(encoded)).append(System.lineSeparator())
+            .append("-----END ").append(type).append("-----").append(System.lineSeparator())
+            .toString();
+        Files.writeString(file, pem, StandardCharsets.US_ASCII);
+    }
+
+    private void seed() {
+        EntityManager em = getBean(EntityManager.class);
+        SecurityController securityController = getBean(SecurityController.class);
+        PermissionService permissionService = getBean(PermissionService.class);
+        UserHierarchyService userHierarchyService = getBean(UserHierarchyService.class);
+        String password = securityController.encodeUserPassword(PASSWORD);
+
+        new TransactionTemplate(getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            try {
+                // System user must be the first one (id 1)
+                systemUser = createUser(em, userHierarchyService, "system", password, null);
+                permissionService.grantPermissions(systemUser, Permission.SYSTEM);
+
+                adminUser = createUser(em, userHierarchyService, "admin", password, systemUser);
+                permissionService.grantPermissions(adminUser, Permission.ADMIN);
+
+                User parent = systemUser;
+                for (int i = 0; i <= HIERARCHY_DEPTH; i++) {
+                    User user = createUser(em, userHierarchyService, "user" + i, password, parent);
+                    permissionService.grantPermissions(user, Permission.GET_USER, Permission.EDIT_USER, Permission.DELETE_USER,
+                        Permission.SEND_USER_EMAIL_VALIDATION_CODE);
+                    hierarchy.add(user);
+                    parent = user;
+                }
+            } catch (Exception ex) {
+                throw new IllegalStateException("Error creating benchmark data.", ex);
+            }
+        });
+    }
+
+    private static User createUser(EntityManager em, UserHierarchyService userHierarchyService, String username, String password, User parent) throws Exception {
+        User user = User.builder()
+            .username(username)
+            .password(password)
+            .firstName(username)
+            .email(username + "@household.benchmark")
+            .emailValidated(true)
+            .parentUser(parent)
+            .build();
+        em.persist(user);
+        userHierarchyService.setAncestorPath(user);
+        return user;
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.airondlph.economy.household.benchmark;
+
+import com.airondlph.economy.household.data.entity.financial.ExchangeRate;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.logic.financial.ExchangeRateTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of amounts in several currencies (10 years of daily rates) to EUR, without database:
+ *  - bigDecimal: rate lookup and BigDecimal multiplication for every amount
+ *  - longTable: ExchangeRateTable.convert for every amount (long fixed point)
+ *  - longTableBatch: ExchangeRateTable batch convert, rate lookups reused for runs of the same currency and date
+ *
+ * Amounts are in date order (as a report reads them), with random currencies and values.
+ *
+ * @author adriandlph / airondlph
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExchangeRateBenchmark {
+
+    private static final int RATE_DAYS = 3650;
+    private static final Currency[] FROM_CURRENCIES = { Currency.EUR, Currency.USD, Currency.GBP, Currency.CHF };
+
+    @Param({"1000000"})
+    private int amounts;
+
+    private ExchangeRateTable table;
+    private long[] values;
+    private Currency[] currencies;
+    private LocalDate[] dates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LocalDate firstDay = LocalDate.now().minusDays(RATE_DAYS);
+        SplittableRandom random = new SplittableRandom(42);
+
+        List<ExchangeRate> rates = new ArrayList<>(RATE_DAYS * 3);
+        for (int day = 0; day < RATE_DAYS; day++) {
+            LocalDate date = firstDay.plusDays(day);
+            rates.add(rate(Currency.USD, date, 0.85 + random.nextDouble(0.1)));
+            rates.add(rate(Currency.GBP, date, 1.10 + random.nextDouble(0.1)));
+            rates.add(rate(Currency.CHF, date, 0.95 + random.nextDouble(0.1)));
+        }
+        table = new ExchangeRateTable(rates);
+
+        values = new long[amounts];
+        currencies = new Currency[amounts];
+        dates = new LocalDate[amounts];
+        for (int i = 0; i < amounts; i++) {
+            values[i] = random.nextLong(1, 10_000_000L);
+            currencies[i] = FROM_CURRENCIES[random.nextInt(FROM_CURRENCIES.length)];
+            dates[i] = firstDay.plusDays((long) i * RATE_DAYS / amounts);
+        }
+    }
+
+    private static ExchangeRate rate(Currency from, LocalDate date, double rate) {
+        return ExchangeRate.builder()
+            .fromCurrency(from)
+            .toCurrency(Currency.EUR)
+            .validFrom(date)
+            .rate(BigDecimal.valueOf(rate).setScale(ExchangeRate.RATE_SCALE, RoundingMode.HALF_EVEN))
+            .build();
+    }
+
+    @Benchmark
+    public long[] bigDecimal() {
+        long[] result = new long[amounts];
+        for (int i = 0; i < amounts; i++) {
+            BigDecimal rate = table.getRate(currencies[i], Currency.EUR, dates[i]);
+            result[i] = BigDecimal.valueOf(values[i]).multiply(rate).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long[] longTable() throws Exception {
+        long[] result = new long[amounts];
+        for (int i = 0; i < amounts; i++) result[i] = table.convert(values[i], currencies[i], Currency.EUR, dates[i]);
+        return result;
+    }
+
+    @Benchmark
+    public long[] longTableBatch() throws Exception {
+        return table.convert(values, currencies, dates, Currency.EUR);
+    }
+
+}
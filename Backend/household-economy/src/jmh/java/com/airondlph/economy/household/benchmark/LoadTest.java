@@ -0,0 +1,188 @@
+package com.airondlph.economy.household.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of authenticated requests (GET /user/: token, user and permissions, handler) with many concurrent clients,
+ * for each way of running the requests:
+ *  - platform: Tomcat platform thread pool
+ *  - virtual: virtual threads, without request limiter
+ *  - virtual-limited: virtual threads and request limiter (connection pool size)
+ *
+ * Every client sends a request as soon as it gets the response of the previous one. Requests rejected by the limiters
+ * (503, 429) are counted apart and not included in the latencies.
+ *
+ *      mvn -P benchmark test-compile exec:exec -Dbenchmark.main=com.airondlph.economy.household.benchmark.LoadTest -Dbenchmark.args="1000 30 10"
+ *
+ * Arguments: clients (1000), measured seconds (30), warm-up seconds (10).
+ *
+ * @author adriandlph / airondlph
+ */
+public class LoadTest {
+
+    private record Scenario(String name, String... properties) {}
+
+    record Stats(long ok, long rejected, long failed, long[] latencies) {}
+
+    private static final List<Scenario> SCENARIOS = List.of(
+        new Scenario("platform", "spring.threads.virtual.enabled=false", "request.limiter.enabled=false"),
+        new Scenario("virtual", "spring.threads.virtual.enabled=true", "request.limiter.enabled=false"),
+        new Scenario("virtual-limited", "spring.threads.virtual.enabled=true", "request.limiter.enabled=true")
+    );
+
+    static final String HEADER = String.format("%-16s %10s %10s %10s %10s %10s %10s %10s", "Scenario", "req/s", "ok", "503/429", "failed", "p50 ms", "p99 ms", "max ms");
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int warmUpSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        List<String> results = new ArrayList<>();
+        for (Scenario scenario : SCENARIOS) {
+            BenchmarkContext context = new BenchmarkContext();
+            try {
+                context.start(scenario.properties());
+                Stats stats = run(context, clients, warmUpSeconds, seconds);
+                results.add(format(scenario.name(), stats, seconds));
+            } finally {
+                context.tearDown();
+            }
+        }
+
+        System.out.printf("%nClients: %d, measured: %d s%n", clients, seconds);
+        System.out.println(HEADER);
+        results.forEach(System.out::println);
+    }
+
+    private static Stats run(BenchmarkContext context, int clients, int warmUpSeconds, int seconds) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(context, "/user/"))
+            .header("Authorization", "Bearer " + context.getToken())
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmUpSeconds);
+        long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = createClient(executor)) {
+            checkOk(client, request);
+            return collect(startClients(executor, client, request, clients, measureFrom, measureTo));
+        }
+    }
+
+    static URI uri(BenchmarkContext context, String path) {
+        return URI.create("http://127.0.0.1:" + context.getServerPort() + path);
+    }
+
+    static HttpClient createClient(ExecutorService executor) {
+        return HttpClient.newBuilder().executor(executor).version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    /**
+     * Sends the request once and fails if it is not answered with 200, so the error path is never measured.
+     */
+    static void checkOk(HttpClient client, HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    /**
+     * Starts the clients, each one sends the request until measureTo. Only the responses of requests sent after
+     * measureFrom are counted.
+     */
+    static List<Future<Stats>> startClients(ExecutorService executor, HttpClient client, HttpRequest request, int clients, long measureFrom, long measureTo) {
+        List<Future<Stats>> futures = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> runClient(client, request, measureFrom, measureTo)));
+        }
+        return futures;
+    }
+
+    /**
+     * Waits for the clients and merges their results (latencies sorted).
+     */
+    static Stats collect(List<Future<Stats>> futures) throws Exception {
+        long ok = 0, rejected = 0, failed = 0;
+        List<long[]> latencies = new ArrayList<>(futures.size());
+        int count = 0;
+        for (Future<Stats> future : futures) {
+            Stats stats = future.get();
+            ok += stats.ok();
+            rejected += stats.rejected();
+            failed += stats.failed();
+            latencies.add(stats.latencies());
+            count += stats.latencies().length;
+        }
+
+        long[] all = new long[count];
+        int i = 0;
+        for (long[] clientLatencies : latencies) {
+            System.arraycopy(clientLatencies, 0, all, i, clientLatencies.length);
+            i += clientLatencies.length;
+        }
+        Arrays.sort(all);
+        return new Stats(ok, rejected, failed, all);
+    }
+
+    private static Stats runClient(HttpClient client, HttpRequest request, long measureFrom, long measureTo) {
+        long ok = 0, rejected = 0, failed = 0;
+        long[] latencies = new long[1024];
+        int count = 0;
+
+        long now;
+        while ((now = System.nanoTime()) < measureTo) {
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception ex) {
+                status = -1;
+            }
+            long end = System.nanoTime();
+            if (now < measureFrom) continue;
+
+            if (status == 200) {
+                ok++;
+                if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                latencies[count++] = end - now;
+            } else if (status == 503 || status == 429) {
+                rejected++;
+            } else {
+                failed++;
+            }
+        }
+
+        return new Stats(ok, rejected, failed, Arrays.copyOf(latencies, count));
+    }
+
+    static String format(String scenario, Stats stats, int seconds) {
+        long[] latencies = stats.latencies();
+        return String.format("%-16s %10.0f %10d %10d %10d %10.1f %10.1f %10.1f", scenario,
+            (double) stats.ok() / seconds, stats.ok(), stats.rejected(), stats.failed(),
+            percentile(latencies, 0.50), percentile(latencies, 0.99),
+            latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0.0;
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.airondlph.economy.household.benchmark;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logins per second and their impact on the financial endpoints (GET /financial/bankAccount/owner/{id}/):
+ *  - financial: financial clients alone
+ *  - financial+login: financial clients while login clients send POST /user/login/ (BCrypt on the hashing pool)
+ *
+ * Login rate limits are disabled, every login checks the password.
+ *
+ *      mvn -P benchmark test-compile exec:exec -Dbenchmark.main=com.airondlph.economy.household.benchmark.LoginLoadTest -Dbenchmark.args="200 200 30 10"
+ *
+ * Arguments: financial clients (200), login clients (200), measured seconds (30), warm-up seconds (10).
+ *
+ * @author adriandlph / airondlph
+ */
+public class LoginLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int financialClients = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int loginClients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int warmUpSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        List<String> results = new ArrayList<>();
+        BenchmarkContext context = new BenchmarkContext();
+        try {
+            context.start();
+
+            LoadTest.Stats[] alone = run(context, financialClients, 0, warmUpSeconds, seconds);
+            results.add(LoadTest.format("financial", alone[0], seconds));
+
+            LoadTest.Stats[] withLogins = run(context, financialClients, loginClients, warmUpSeconds, seconds);
+            results.add(LoadTest.format("financial+login", withLogins[0], seconds));
+            results.add(LoadTest.format("login", withLogins[1], seconds));
+        } finally {
+            context.tearDown();
+        }
+
+        System.out.printf("%nFinancial clients: %d, login clients: %d, measured: %d s%n", financialClients, loginClients, seconds);
+        System.out.println(LoadTest.HEADER);
+        results.forEach(System.out::println);
+    }
+
+    /**
+     * @return Financial and login results
+     */
+    private static LoadTest.Stats[] run(BenchmarkContext context, int financialClients, int loginClients, int warmUpSeconds, int seconds) throws Exception {
+        HttpRequest financialRequest = HttpRequest.newBuilder(LoadTest.uri(context, "/financial/bankAccount/owner/" + context.getHierarchyUser(0).getId() + "/"))
+            .header("Authorization", "Bearer " + context.getToken())
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+        HttpRequest loginRequest = HttpRequest.newBuilder(LoadTest.uri(context, "/user/login/"))
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofSeconds(30))
+            .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + context.getHierarchyUser(0).getUsername() + "\",\"password\":\"" + BenchmarkContext.PASSWORD + "\"}"))
+            .build();
+
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmUpSeconds);
+        long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = LoadTest.createClient(executor)) {
+            LoadTest.checkOk(client, financialRequest);
+            List<Future<LoadTest.Stats>> financial = LoadTest.startClients(executor, client, financialRequest, financialClients, measureFrom, measureTo);
+            List<Future<LoadTest.Stats>> logins = LoadTest.startClients(executor, client, loginRequest, loginClients, measureFrom, measureTo);
+            return new LoadTest.Stats[] { LoadTest.collect(financial), LoadTest.collect(logins) };
+        }
+    }
+
+}
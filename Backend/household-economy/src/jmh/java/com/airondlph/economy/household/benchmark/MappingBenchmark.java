@@ -0,0 +1,180 @@
+package com.airondlph.economy.household.benchmark;
+
+import com.airondlph.economy.household.api.rest.DTOMapper;
+import com.airondlph.economy.household.api.rest.data.CreditCardDTO;
+import com.airondlph.economy.household.api.rest.data.DebitCardDTO;
+import com.airondlph.economy.household.api.rest.data.RestApiResult;
+import com.airondlph.economy.household.data.entity.financial.Bank;
+import com.airondlph.economy.household.data.entity.financial.BankAccount;
+import com.airondlph.economy.household.data.entity.financial.BankTransfer;
+import com.airondlph.economy.household.data.entity.financial.CreditCard;
+import com.airondlph.economy.household.data.entity.financial.DebitCard;
+import com.airondlph.economy.household.data.entity.user.User;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import com.airondlph.economy.household.data.model.BankTransferVO;
+import com.airondlph.economy.household.data.model.CreditCardVO;
+import com.airondlph.economy.household.data.model.DebitCardVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response building of a page of results, without database:
+ *  - getVO: entity to VO (bank transfers with both accounts, cards)
+ *  - DTOMapper: card VO to DTO and DTO to VO
+ *  - serialize: RestApiResult with the DTOs to JSON (Jackson)
+ *
+ * @author adriandlph / airondlph
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"1", "100"})
+    private int size;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private List<BankTransfer> bankTransfers;
+    private List<CreditCard> creditCards;
+    private List<DebitCard> debitCards;
+    private List<CreditCardVO> creditCardsVO;
+    private List<DebitCardVO> debitCardsVO;
+    private List<CreditCardDTO> creditCardsDTO;
+    private RestApiResult<List<CreditCardDTO>> restApiResult;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Bank bank = Bank.builder().id(1L).name("Benchmark bank").build();
+        User owner = User.builder().id(3L).username("user0").firstName("User").email("user0@household.benchmark").build();
+        BankAccount me = createBankAccount(1L, bank);
+        BankAccount other = createBankAccount(2L, bank);
+        LocalDateTime now = LocalDateTime.now();
+
+        bankTransfers = new ArrayList<>(size);
+        creditCards = new ArrayList<>(size);
+        debitCards = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bankTransfers.add(BankTransfer.builder()
+                .id((long) i)
+                .concept("Transfer " + i)
+                .description("Benchmark transfer " + i)
+                .value(1000L + i)
+                .fromCurrency(Currency.EUR)
+                .toCurrency(Currency.EUR)
+                .conversion(1F)
+                .madeWhen(now)
+                .applyWhen(now)
+                .lastModification(now)
+                .operationType(i % 2 == 0 ? OperationType.INCOME : OperationType.OUTCOME)
+                .me(me)
+                .other(other)
+                .build());
+
+            creditCards.add(CreditCard.builder()
+                .id((long) i)
+                .cardNumber(4000_0000_0000_0000L + i)
+                .ccv((short) 123)
+                .pin((short) 1234)
+                .expires(LocalDate.now().plusYears(3))
+                .owner(owner)
+                .bankAccount(me)
+                .build());
+
+            debitCards.add(DebitCard.builder()
+                .id((long) i)
+                .cardNumber(5000_0000_0000_0000L + i)
+                .ccv((short) 321)
+                .pin((short) 4321)
+                .expires(LocalDate.now().plusYears(3))
+                .owner(owner)
+                .bankAccount(me)
+                .build());
+        }
+
+        creditCardsVO = creditCards.stream().map(CreditCard::getVO).toList();
+        debitCardsVO = debitCards.stream().map(DebitCard::getVO).toList();
+        creditCardsDTO = creditCardsVO.stream().map(DTOMapper::creditCardVO2creditCardDTO).toList();
+        restApiResult = RestApiResult.Ok(creditCardsDTO);
+    }
+
+    private static BankAccount createBankAccount(Long id, Bank bank) {
+        return BankAccount.builder()
+            .id(id)
+            .bankAccountNumber("ES00000" + id)
+            .balance(100_000L)
+            .currency(Currency.EUR)
+            .lastUpdate(LocalDateTime.now())
+            .bank(bank)
+            .build();
+    }
+
+    @Benchmark
+    public List<BankTransferVO> bankTransferGetVO() {
+        List<BankTransferVO> result = new ArrayList<>(size);
+        for (BankTransfer bankTransfer : bankTransfers) result.add(bankTransfer.getVO());
+        return result;
+    }
+
+    @Benchmark
+    public List<CreditCardVO> creditCardGetVO() {
+        List<CreditCardVO> result = new ArrayList<>(size);
+        for (CreditCard creditCard : creditCards) result.add(creditCard.getVO());
+        return result;
+    }
+
+    @Benchmark
+    public List<CreditCardDTO> creditCardVO2DTO() {
+        List<CreditCardDTO> result = new ArrayList<>(size);
+        for (CreditCardVO creditCardVO : creditCardsVO) result.add(DTOMapper.creditCardVO2creditCardDTO(creditCardVO));
+        return result;
+    }
+
+    @Benchmark
+    public List<DebitCardDTO> debitCardVO2DTO() {
+        List<DebitCardDTO> result = new ArrayList<>(size);
+        for (DebitCardVO debitCardVO : debitCardsVO) result.add(DTOMapper.debitCardVO2debitCardDTO(debitCardVO));
+        return result;
+    }
+
+    @Benchmark
+    public List<CreditCardVO> creditCardDTO2VO() {
+        List<CreditCardVO> result = new ArrayList<>(size);
+        for (CreditCardDTO creditCardDTO : creditCardsDTO) result.add(DTOMapper.creditCardDTO2creditCardVO(creditCardDTO));
+        return result;
+    }
+
+    @Benchmark
+    public byte[] serializeRestApiResult() {
+        return jsonMapper.writeValueAsBytes(restApiResult);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() {
+        List<CreditCardDTO> result = new ArrayList<>(size);
+        for (CreditCard creditCard : creditCards) result.add(DTOMapper.creditCardVO2creditCardDTO(creditCard.getVO()));
+        return jsonMapper.writeValueAsBytes(RestApiResult.Ok(result));
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.airondlph.economy.household.benchmark;
+
+import com.airondlph.economy.household.data.entity.financial.Bank;
+import com.airondlph.economy.household.data.entity.financial.BankAccount;
+import com.airondlph.economy.household.data.entity.financial.BankTransfer;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationSource;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import com.airondlph.economy.household.data.model.BankTransferVO;
+import com.airondlph.economy.household.data.model.OperationHistoryItemVO;
+import com.airondlph.economy.household.logic.financial.OperationViewService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Listing every operation of a bank account (bank transfers, with both accounts and their banks):
+ *  - entityGraph: operation entities (operation and bank transfer tables, accounts, bank, financial business and
+ *    business) mapped to VOs
+ *  - projection: operation view columns mapped to operation history items, as the operation history does
+ *
+ * @author adriandlph / airondlph
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OperationListingBenchmark {
+
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    @Param({"100000"})
+    private int operations;
+
+    private EntityManager em;
+    private TransactionTemplate readOnly;
+    private Long bankAccountId;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        em = context.getBean(EntityManager.class);
+        OperationViewService operationViewService = context.getBean(OperationViewService.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        Long[] accountIds = transaction.execute(status -> {
+            Bank bank = Bank.builder().name("Benchmark bank").build();
+            em.persist(bank);
+            return new Long[] { createBankAccount(bank, "ES0001").getId(), createBankAccount(bank, "ES0002").getId() };
+        });
+        bankAccountId = accountIds[0];
+
+        LocalDateTime start = LocalDateTime.now().minusYears(10);
+        for (int from = 0; from < operations; from += SEED_BATCH_SIZE) {
+            int batchFrom = from;
+            transaction.executeWithoutResult(status -> {
+                BankAccount me = em.getReference(BankAccount.class, accountIds[0]);
+                BankAccount other = em.getReference(BankAccount.class, accountIds[1]);
+                List<BankTransfer> batch = new ArrayList<>(SEED_BATCH_SIZE);
+                for (int i = batchFrom; i < Math.min(operations, batchFrom + SEED_BATCH_SIZE); i++) {
+                    LocalDateTime when = start.plusMinutes(i * 30L);
+                    BankTransfer bankTransfer = BankTransfer.builder()
+                        .concept("Transfer " + (i % 50))
+                        .description("Benchmark transfer " + i)
+                        .value(1000L + i)
+                        .fromCurrency(Currency.EUR)
+                        .toCurrency(Currency.EUR)
+                        .conversion(1F)
+                        .madeWhen(when)
+                        .applyWhen(when)
+                        .lastModification(when)
+                        .operationType(i % 2 == 0 ? OperationType.INCOME : OperationType.OUTCOME)
+                        .me(me)
+                        .other(other)
+                        .build();
+                    em.persist(bankTransfer);
+                    batch.add(bankTransfer);
+                }
+                operationViewService.create(batch);
+            });
+        }
+    }
+
+    private BankAccount createBankAccount(Bank bank, String number) {
+        BankAccount bankAccount = BankAccount.builder()
+            .bankAccountNumber(number)
+            .balance(0L)
+            .currency(Currency.EUR)
+            .lastUpdate(LocalDateTime.now())
+            .bank(bank)
+            .build();
+        em.persist(bankAccount);
+        return bankAccount;
+    }
+
+    @Benchmark
+    public void entityGraph(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<BankTransfer> bankTransfers = em.createQuery(
+                    "SELECT bt FROM BankTransfer bt JOIN FETCH bt.me me JOIN FETCH me.bank JOIN FETCH bt.other other JOIN FETCH other.bank " +
+                    "WHERE me.id = :bankAccountId ORDER BY bt.applyWhen DESC, bt.id DESC", BankTransfer.class)
+                .setParameter("bankAccountId", bankAccountId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+                bankTransfers.forEach(bankTransfer -> {
+                    BankTransferVO bankTransferVO = bankTransfer.getVO();
+                    blackhole.consume(bankTransferVO);
+                });
+            }
+            em.clear();
+        });
+    }
+
+    @Benchmark
+    public void projection(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = em.createQuery(
+                    "SELECT v.id, v.concept, v.description, v.operationType, v.value, v.fromCurrency, v.toCurrency, v.conversion, v.madeWhen, v.applyWhen, " +
+                    "v.lastModification, v.bankAccountId, v.otherBankAccountId, v.cardId, v.source, v.bankName " +
+                    "FROM OperationView v WHERE v.bankAccountId = :bankAccountId ORDER BY v.applyWhen DESC, v.id DESC", Object[].class)
+                .setParameter("bankAccountId", bankAccountId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                .getResultStream()) {
+                rows.forEach(row -> blackhole.consume(OperationHistoryItemVO.builder()
+                    .id((Long) row[0])
+                    .concept((String) row[1])
+                    .description((String) row[2])
+                    .operationType((OperationType) row[3])
+                    .value((Long) row[4])
+                    .fromCurrency((Currency) row[5])
+                    .toCurrency((Currency) row[6])
+                    .conversion((Float) row[7])
+                    .madeWhen((LocalDateTime) row[8])
+                    .applyWhen((LocalDateTime) row[9])
+                    .lastModification((LocalDateTime) row[10])
+                    .bankAccountId((Long) row[11])
+                    .otherBankAccountId((Long) row[12])
+                    .cardId((Long) row[13])
+                    .source((OperationSource) row[14])
+                    .bankName((String) row[15])
+                    .build()));
+            }
+        });
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.airondlph.economy.household.benchmark;
+
+import com.airondlph.economy.household.data.entity.user.User;
+import com.airondlph.economy.household.logic.users.PermissionService;
+import com.airondlph.economy.household.logic.users.UserPermissions;
+import com.airondlph.economy.household.logic.users.UsersController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Permission checks of an operation:
+ *  - getUserPermissions: permission cache hit and miss (permissions query)
+ *  - userDepends: boss of the user (depth levels above it) and not boss (the user is below)
+ *  - userDependsOnOwners: check of a bank account with several owners (depth levels below the top of the hierarchy),
+ *    as FinancialControllerImpl does for every owner. The boss matches the first owner, a user that is not the boss
+ *    of any owner (sibling of the owners) checks all of them.
+ *
+ * @author adriandlph / airondlph
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermissionBenchmark {
+
+    @Param({"1", "8", "32", "50"})
+    private int depth;
+    @Param({"1", "10", "100"})
+    private int owners;
+
+    private UsersController usersController;
+    private PermissionService permissionService;
+    private User boss;
+    private User employee;
+    private List<User> accountOwners;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) throws Exception {
+        usersController = context.getBean(UsersController.class);
+        permissionService = context.getBean(PermissionService.class);
+        boss = context.getHierarchyUser(0);
+        employee = context.getHierarchyUser(depth);
+        // Siblings of the employee
+        accountOwners = context.createChildren(context.getHierarchyUser(depth - 1), "owner", owners);
+    }
+
+    @Benchmark
+    public UserPermissions getUserPermissionsCached() throws Exception {
+        return usersController.getUserPermissions(employee);
+    }
+
+    @Benchmark
+    public UserPermissions getUserPermissionsNotCached() throws Exception {
+        permissionService.invalidate(employee.getId());
+        return usersController.getUserPermissions(employee);
+    }
+
+    @Benchmark
+    public boolean userDepends() {
+        return usersController.userDepends(boss, employee);
+    }
+
+    @Benchmark
+    public boolean userDoesNotDepend() {
+        return usersController.userDepends(employee, boss);
+    }
+
+    @Benchmark
+    public boolean userDependsOnOwners() {
+        return accountOwners.stream().anyMatch(owner -> usersController.userDepends(boss, owner));
+    }
+
+    @Benchmark
+    public boolean userDoesNotDependOnOwners() {
+        return accountOwners.stream().anyMatch(owner -> usersController.userDepends(employee, owner));
+    }
+
+}
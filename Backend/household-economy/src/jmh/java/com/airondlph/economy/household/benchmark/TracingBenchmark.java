@@ -0,0 +1,79 @@
+package com.airondlph.economy.household.benchmark;
+
+import com.airondlph.economy.household.util.Tracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Tracing overhead of a request (LogUtils.Enter / Exit of {@link #SPANS} nested methods), without database:
+ *  - tracing: "off" (disabled) or the sample rate ("0" traces without spans, "0.1" production, "1" every request)
+ *  - sameThread: every request on the benchmark thread (platform threads of a pool)
+ *  - virtualThread: every request on a new virtual thread (spring.threads.virtual.enabled), span arrays included
+ *
+ * The trace buffer is not exported, writers overwrite the oldest records.
+ *
+ * @author adriandlph / airondlph
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TracingBenchmark {
+
+    public static final int SPANS = 10;
+    private static final Logger log = NOPLogger.NOP_LOGGER;
+    private static final String[] NAMES = new String[SPANS];
+    static {
+        for (int i = 0; i < SPANS; i++) NAMES[i] = "method" + i;
+    }
+
+    @Param({"off", "0", "0.1", "1"})
+    private String tracing;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean enabled = !"off".equals(tracing);
+        Tracer.configure(enabled, 65536, enabled ? Double.parseDouble(tracing) : 0.0, org.slf4j.event.Level.DEBUG);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Tracer.configure(false, 2, 1.0, org.slf4j.event.Level.DEBUG);
+    }
+
+    @Benchmark
+    public void sameThread() {
+        request();
+    }
+
+    @Benchmark
+    public void virtualThread() throws InterruptedException {
+        Thread.ofVirtual().start(TracingBenchmark::request).join();
+    }
+
+    private static void request() {
+        Tracer.reset();
+        for (String name : NAMES) Enter(log, name);
+        for (int i = SPANS - 1; i >= 0; i--) Exit(log, NAMES[i]);
+    }
+
+}
@@ -10,6 +10,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
@@ -20,6 +21,7 @@ import java.util.TimeZone;
  * @author adriandlph / airondlph
  */
 @SpringBootApplication
+@EnableScheduling
 @Slf4j
 public class HouseholdEconomyApplication implements CommandLineRunner {
 	private static ConfigurableApplicationContext ctx;
@@ -50,8 +52,7 @@ public class HouseholdEconomyApplication implements CommandLineRunner {
 			SpringApplication.exit(ctx, () -> 0);
 
 		} catch (Exception ex) {
-			log.error("Error with input...");
-			log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
+			log.error("Error with input...", ex);
 
 			SpringApplication.exit(ctx, () -> 1);
 		}
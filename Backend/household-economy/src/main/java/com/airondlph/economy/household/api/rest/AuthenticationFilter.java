@@ -0,0 +1,81 @@
+package com.airondlph.economy.household.api.rest;
+
+import com.airondlph.economy.household.api.rest.exception.SecurityException;
+import com.airondlph.economy.household.exception.ServerErrorException;
+import com.airondlph.economy.household.logic.users.AuthenticationContext;
+import com.airondlph.economy.household.logic.users.SecurityController;
+import com.airondlph.economy.household.logic.users.UsersController;
+import com.airondlph.economy.household.util.Tracer;
+import com.auth0.jwt.interfaces.Claim;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static com.airondlph.economy.household.util.LogUtils.Error;
+
+/**
+ * Authenticates the user of every request that has a bearer token.
+ *
+ * The token is verified and the user and its permissions are loaded once, before any handler runs. Handlers get the
+ * result from {@link SecurityRESTController#getLoggedUser()}. Requests without a token are not rejected here, so
+ * public endpoints (login, user creation...) keep working.
+ *
+ * @author adriandlph / airondlph
+ */
+@Component
+@Order(AuthenticationFilter.ORDER)
+@Slf4j
+public class AuthenticationFilter extends OncePerRequestFilter {
+
+    // Before the filters that need the authenticated user. It may run before Spring's RequestContextFilter, so the
+    // result is stored in the request (AuthenticationContext).
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+
+    @Autowired
+    private SecurityController securityController;
+    @Autowired
+    private UsersController usersController;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        // Spans left open by a previous request of this thread
+        Tracer.reset();
+
+        String token = SecurityRESTController.getBearerToken(request);
+        if (token != null) authenticate(request, token);
+
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request, String token) {
+        try {
+            Map<String, Claim> claims = securityController.decodeToken(token);
+
+            Claim userIdClaim = claims.get("userId");
+            Long userId;
+            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((userId = userIdClaim.asLong()) == null)) {
+                throw new SecurityException("Not Authorized.");
+            }
+
+            AuthenticationContext.setAuthenticatedUser(request, usersController.getAuthenticatedUser(userId));
+
+        } catch (SecurityException | ServerErrorException ex) {
+            log.warn("User not authenticated: {}", ex.getMessage());
+            AuthenticationContext.setError(request, ex);
+        } catch (RuntimeException ex) {
+            Error(log, "Error authenticating user", null, ex.getMessage());
+            AuthenticationContext.setError(request, new ServerErrorException(1, "Error authenticating user.", ex));
+        }
+    }
+
+}
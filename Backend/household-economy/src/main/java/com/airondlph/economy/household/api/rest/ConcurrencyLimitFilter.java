@@ -0,0 +1,130 @@
+package com.airondlph.economy.household.api.rest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * Limits the requests running at the same time, so they do not queue on the database connection pool.
+ *
+ * With virtual threads (spring.threads.virtual.enabled) Tomcat does not limit the requests running anymore, every
+ * request gets its own thread. Every request waits up to request.limiter.maxWaitMs for a permit and is rejected with
+ * 503 (Service Unavailable) and Retry-After if it does not get one. Permits are the size of the connection pool
+ * unless request.limiter.maxConcurrent is defined.
+ *
+ * Paths with their own limits (request.limiter.excludedPaths, e.g. login: rate limit and password hashing pool) do
+ * not take permits, so they do not keep them while they wait for the CPU. They match with or without the trailing
+ * slash, like the controller mappings.
+ *
+ * @author adriandlph / airondlph
+ */
+@Component
+@Order(ConcurrencyLimitFilter.ORDER)
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    // Before authentication, it already uses the database
+    public static final int ORDER = AuthenticationFilter.ORDER - 1;
+    public static final String RETRY_AFTER_SECONDS = "1";
+
+    @Value("${request.limiter.enabled:true}")
+    private boolean enabled;
+    @Value("${request.limiter.maxConcurrent:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int maxConcurrent;
+    @Value("${request.limiter.maxWaitMs:100}")
+    private long maxWaitMs;
+    @Value("${request.limiter.excludedPaths:}")
+    private Set<String> excludedPaths;
+
+    // Excluded paths without trailing slash
+    private Set<String> normalizedExcludedPaths;
+    private Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        normalizedExcludedPaths = excludedPaths.stream().map(ConcurrencyLimitFilter::removeTrailingSlash).collect(Collectors.toUnmodifiableSet());
+        permits = new Semaphore(Math.max(1, maxConcurrent), true);
+        log.info("Request limiter {}, max concurrent requests: {}, max wait: {} ms", enabled ? "enabled" : "disabled", permits.availablePermits(), maxWaitMs);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || normalizedExcludedPaths.contains(removeTrailingSlash(request.getServletPath()));
+    }
+
+    private static String removeTrailingSlash(String path) {
+        return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejected.increment();
+            writeUnavailable(response);
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void writeUnavailable(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.setContentType(APPLICATION_JSON_VALUE);
+        response.getOutputStream().write("{\"code\":-1,\"message\":\"Server busy, try again later.\"}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return Requests rejected because there were no permits available.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return Requests running.
+     */
+    public int getActive() {
+        return Math.max(1, maxConcurrent) - permits.availablePermits();
+    }
+
+    /**
+     * @return Requests waiting for a permit.
+     */
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+}
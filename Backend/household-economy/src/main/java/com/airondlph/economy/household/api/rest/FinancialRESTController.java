@@ -2,21 +2,27 @@ package com.airondlph.economy.household.api.rest;
 
 import com.airondlph.economy.household.api.rest.data.*;
 import com.airondlph.economy.household.api.rest.exception.SecurityException;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
 import com.airondlph.economy.household.data.model.*;
 import com.airondlph.economy.household.logic.financial.FinancialController;
 import com.airondlph.economy.household.logic.data.Result;
-import com.airondlph.economy.household.logic.users.SecurityController;
 import com.airondlph.economy.household.exception.ServerErrorException;
-import com.auth0.jwt.interfaces.Claim;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.web.bind.annotation.RequestMethod.*;
@@ -27,8 +33,6 @@ import static org.springframework.web.bind.annotation.RequestMethod.*;
 @Slf4j
 public class FinancialRESTController {
 
-    @Autowired
-    private SecurityController securityController;
     @Autowired
     private FinancialController businessController;
 
@@ -40,14 +44,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<BankDTO>> getBank(@PathVariable("id") String id) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -92,14 +89,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<BankDTO>> createBank(@RequestBody BankDTO bankData) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -147,14 +137,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<BankDTO>> deleteBank(@PathVariable("id") String id) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -202,14 +185,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<BankDTO>> setBank(@PathVariable("id") String id, @RequestBody BankDTO bankData) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -260,14 +236,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<BankAccountCompleteDTO>> getBankAccountComplete(@PathVariable("id") String id) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -292,8 +261,10 @@ public class FinancialRESTController {
             return ResponseEntity.badRequest().body(RestApiResult.Error(getBankAccountCompleteResult.getErrCode(), errMessage));
         }
 
-        BankAccountCompleteVO bankAccountCompleteVO = getBankAccountCompleteResult.getResult();
+        return ResponseEntity.ok().body(RestApiResult.Ok(getBankAccountCompleteDTO(getBankAccountCompleteResult.getResult())));
+    }
 
+    private static BankAccountCompleteDTO getBankAccountCompleteDTO(BankAccountCompleteVO bankAccountCompleteVO) {
         ArrayList<UserDTO> ownersDTO = new ArrayList<>();
         bankAccountCompleteVO.getOwnersVO().forEach((ownerVO) -> ownersDTO.add(UserDTO.builder()
                                                                                                 .id(ownerVO.getId())
@@ -302,7 +273,7 @@ public class FinancialRESTController {
                                                                                                 .lastName(ownerVO.getLastName())
                                                                                                 .build()));
 
-        BankAccountCompleteDTO response = BankAccountCompleteDTO.builder()
+        return BankAccountCompleteDTO.builder()
             .id(bankAccountCompleteVO.getId())
             .bankAccountNumber(bankAccountCompleteVO.getBankAccountNumber())
             .balance(bankAccountCompleteVO.getBalance())
@@ -313,10 +284,282 @@ public class FinancialRESTController {
                 .build())
             .owners(ownersDTO)
             .build();
+    }
+
+    @RequestMapping(
+            value = "/bankAccount/{id}/operations",
+            method = GET,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<OperationHistoryPageDTO>> getBankAccountOperations(@PathVariable("id") String id,
+                                                                                          @RequestParam(value = "operationType", required = false) OperationType operationType,
+                                                                                          @RequestParam(value = "currency", required = false) Currency currency,
+                                                                                          @RequestParam(value = "from", required = false) String from,
+                                                                                          @RequestParam(value = "to", required = false) String to,
+                                                                                          @RequestParam(value = "cardId", required = false) Long cardId,
+                                                                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                                                                          @RequestParam(value = "limit", required = false) Integer limit) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        OperationHistoryFilterVO filterVO = OperationHistoryFilterVO.builder()
+            .operationType(operationType)
+            .currency(currency)
+            .cardId(cardId)
+            .limit(limit)
+            .build();
+        try {
+            if (from != null) filterVO.setFrom(LocalDateTime.parse(from));
+            if (to != null) filterVO.setTo(LocalDateTime.parse(to));
+            if (cursor != null) {
+                // Cursor: "applyWhen,id" of the last operation of the previous page
+                String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+                filterVO.setAfterApplyWhen(LocalDateTime.parse(position[0]));
+                filterVO.setAfterId(Long.valueOf(position[1]));
+            }
+        } catch (RuntimeException ex) {
+            return ResponseEntity.badRequest().body(RestApiResult.Error(11, "Filters not valid."));
+        }
+
+        Result<OperationHistoryPageVO> getOperationsResult;
+        Long bankAccountId = Long.valueOf(id);
+        getOperationsResult = businessController.getBankAccountOperationsVO(UserVO.builder().id(loggedUserId).build(), BankAccountVO.builder().id(bankAccountId).build(), filterVO);
+
+        if (!getOperationsResult.isValid()) {
+            // Server error
+            if (getOperationsResult.getErrCode() < 0) return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(getOperationsResult.getErrCode(), "Server error."));
+            // Permission error
+            if (getOperationsResult.getErrCode() == 3) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(getOperationsResult.getErrCode(), "User does not have access to get these operations."));
+            if (getOperationsResult.getErrCode() == 2) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(getOperationsResult.getErrCode(), "Not user logged."));
+
+            String errMessage = switch (getOperationsResult.getErrCode()) {
+                case 10 -> "Bank account not defined or does not exist.";
+                case 11 -> "Filters not valid.";
+                default -> "Error.";
+            };
+            return ResponseEntity.badRequest().body(RestApiResult.Error(getOperationsResult.getErrCode(), errMessage));
+        }
+
+        OperationHistoryPageVO pageVO = getOperationsResult.getResult();
+
+        List<OperationHistoryDTO> operationsDTO = new ArrayList<>(pageVO.getOperations().size());
+        pageVO.getOperations().forEach((operationVO) -> operationsDTO.add(OperationHistoryDTO.builder()
+            .id(operationVO.getId())
+            .source(operationVO.getSource())
+            .concept(operationVO.getConcept())
+            .description(operationVO.getDescription())
+            .operationType(operationVO.getOperationType())
+            .value(operationVO.getValue())
+            .fromCurrency(operationVO.getFromCurrency())
+            .toCurrency(operationVO.getToCurrency())
+            .conversion(operationVO.getConversion())
+            .madeWhen(operationVO.getMadeWhen())
+            .applyWhen(operationVO.getApplyWhen())
+            .bankAccountId(operationVO.getBankAccountId())
+            .otherBankAccountId(operationVO.getOtherBankAccountId())
+            .cardId(operationVO.getCardId())
+            .bankName(operationVO.getBankName())
+            .build()));
+
+        String nextCursor = null;
+        if (pageVO.getNextId() != null) {
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((pageVO.getNextApplyWhen() + "," + pageVO.getNextId()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        OperationHistoryPageDTO response = OperationHistoryPageDTO.builder()
+            .operations(operationsDTO)
+            .nextCursor(nextCursor)
+            .build();
 
         return ResponseEntity.ok().body(RestApiResult.Ok(response));
     }
 
+    @RequestMapping(
+            value = "/bankAccount/{id}/monthlyTotals",
+            method = GET,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<List<MonthlyTotalDTO>>> getBankAccountMonthlyTotals(@PathVariable("id") String id,
+                                                                                           @RequestParam(value = "from", required = false) String from,
+                                                                                           @RequestParam(value = "to", required = false) String to) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        YearMonth fromMonth;
+        YearMonth toMonth;
+        try {
+            fromMonth = from == null ? null : YearMonth.parse(from);
+            toMonth = to == null ? null : YearMonth.parse(to);
+        } catch (RuntimeException ex) {
+            return ResponseEntity.badRequest().body(RestApiResult.Error(11, "Month range not valid."));
+        }
+
+        Result<List<MonthlyTotalVO>> getTotalsResult = businessController.getBankAccountMonthlyTotalsVO(UserVO.builder().id(loggedUserId).build(),
+            BankAccountVO.builder().id(Long.valueOf(id)).build(), fromMonth, toMonth);
+
+        if (!getTotalsResult.isValid()) {
+            // Server error
+            if (getTotalsResult.getErrCode() < 0) return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(getTotalsResult.getErrCode(), "Server error."));
+            // Permission error
+            if (getTotalsResult.getErrCode() == 3) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(getTotalsResult.getErrCode(), "User does not have access to get these operations."));
+            if (getTotalsResult.getErrCode() == 2) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(getTotalsResult.getErrCode(), "Not user logged."));
+
+            String errMessage = switch (getTotalsResult.getErrCode()) {
+                case 10 -> "Bank account not defined or does not exist.";
+                case 11 -> "Month range not valid.";
+                default -> "Error.";
+            };
+            return ResponseEntity.badRequest().body(RestApiResult.Error(getTotalsResult.getErrCode(), errMessage));
+        }
+
+        return ResponseEntity.ok().body(RestApiResult.Ok(getMonthlyTotalsDTO(getTotalsResult.getResult())));
+    }
+
+    @RequestMapping(
+            value = "/owner/{ownerId}/monthlyTotals",
+            method = GET,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<List<MonthlyTotalDTO>>> getOwnerMonthlyTotals(@PathVariable("ownerId") String ownerId,
+                                                                                     @RequestParam(value = "from", required = false) String from,
+                                                                                     @RequestParam(value = "to", required = false) String to) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        YearMonth fromMonth;
+        YearMonth toMonth;
+        try {
+            fromMonth = from == null ? null : YearMonth.parse(from);
+            toMonth = to == null ? null : YearMonth.parse(to);
+        } catch (RuntimeException ex) {
+            return ResponseEntity.badRequest().body(RestApiResult.Error(11, "Month range not valid."));
+        }
+
+        Result<List<MonthlyTotalVO>> getTotalsResult = businessController.getOwnerMonthlyTotalsVO(UserVO.builder().id(loggedUserId).build(),
+            UserVO.builder().id(Long.valueOf(ownerId)).build(), fromMonth, toMonth);
+
+        if (!getTotalsResult.isValid()) {
+            // Server error
+            if (getTotalsResult.getErrCode() < 0) return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(getTotalsResult.getErrCode(), "Server error."));
+            // Permission error
+            if (getTotalsResult.getErrCode() == 3) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(getTotalsResult.getErrCode(), "User does not have access to get these operations."));
+            if (getTotalsResult.getErrCode() == 2) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(getTotalsResult.getErrCode(), "Not user logged."));
+
+            String errMessage = switch (getTotalsResult.getErrCode()) {
+                case 10 -> "Owner not defined or does not exist.";
+                case 11 -> "Month range not valid.";
+                default -> "Error.";
+            };
+            return ResponseEntity.badRequest().body(RestApiResult.Error(getTotalsResult.getErrCode(), errMessage));
+        }
+
+        return ResponseEntity.ok().body(RestApiResult.Ok(getMonthlyTotalsDTO(getTotalsResult.getResult())));
+    }
+
+    @RequestMapping(
+            value = "/owner/{ownerId}/spending",
+            method = GET,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<SpendingReportDTO>> getOwnerSpendingReport(@PathVariable("ownerId") String ownerId,
+                                                                                 @RequestParam(value = "currency", required = false) Currency currency,
+                                                                                 @RequestParam(value = "operationType", required = false) OperationType operationType,
+                                                                                 @RequestParam(value = "from", required = false) String from,
+                                                                                 @RequestParam(value = "to", required = false) String to,
+                                                                                 @RequestParam(value = "limit", required = false) Integer limit) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        YearMonth fromMonth;
+        YearMonth toMonth;
+        try {
+            fromMonth = from == null ? null : YearMonth.parse(from);
+            toMonth = to == null ? null : YearMonth.parse(to);
+        } catch (RuntimeException ex) {
+            return ResponseEntity.badRequest().body(RestApiResult.Error(11, "Month range not valid."));
+        }
+
+        Result<SpendingReportVO> getReportResult = businessController.getOwnerSpendingReportVO(UserVO.builder().id(loggedUserId).build(),
+            UserVO.builder().id(Long.valueOf(ownerId)).build(), currency, operationType, fromMonth, toMonth, limit);
+
+        if (!getReportResult.isValid()) {
+            // Server error
+            if (getReportResult.getErrCode() < 0) return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(getReportResult.getErrCode(), "Server error."));
+            // Permission error
+            if (getReportResult.getErrCode() == 3) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(getReportResult.getErrCode(), "User does not have access to get these operations."));
+            if (getReportResult.getErrCode() == 2) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(getReportResult.getErrCode(), "Not user logged."));
+
+            String errMessage = switch (getReportResult.getErrCode()) {
+                case 10 -> "Owner not defined or does not exist.";
+                case 11 -> "Month range not valid.";
+                case 12 -> "Currency not defined.";
+                default -> "Error.";
+            };
+            return ResponseEntity.badRequest().body(RestApiResult.Error(getReportResult.getErrCode(), errMessage));
+        }
+
+        SpendingReportVO reportVO = getReportResult.getResult();
+        return ResponseEntity.ok().body(RestApiResult.Ok(SpendingReportDTO.builder()
+            .from(reportVO.getFrom().toString())
+            .to(reportVO.getTo().toString())
+            .currency(reportVO.getCurrency())
+            .operationType(reportVO.getOperationType())
+            .total(reportVO.getTotal())
+            .operationCount(reportVO.getOperationCount())
+            .concepts(getSpendingItemsDTO(reportVO.getConcepts()))
+            .counterparties(getSpendingItemsDTO(reportVO.getCounterparties()))
+            .cards(getSpendingItemsDTO(reportVO.getCards()))
+            .build()));
+    }
+
+    private static List<SpendingItemDTO> getSpendingItemsDTO(List<SpendingItemVO> itemsVO) {
+        List<SpendingItemDTO> itemsDTO = new ArrayList<>(itemsVO.size());
+        itemsVO.forEach((itemVO) -> itemsDTO.add(SpendingItemDTO.builder()
+            .concept(itemVO.getConcept())
+            .id(itemVO.getId())
+            .total(itemVO.getTotal())
+            .operationCount(itemVO.getOperationCount())
+            .build()));
+        return itemsDTO;
+    }
+
+    private static List<MonthlyTotalDTO> getMonthlyTotalsDTO(List<MonthlyTotalVO> totalsVO) {
+        List<MonthlyTotalDTO> totalsDTO = new ArrayList<>(totalsVO.size());
+        totalsVO.forEach((totalVO) -> totalsDTO.add(MonthlyTotalDTO.builder()
+            .month(totalVO.getMonth().toString())
+            .currency(totalVO.getCurrency())
+            .operationType(totalVO.getOperationType())
+            .total(totalVO.getTotal())
+            .operationCount(totalVO.getOperationCount())
+            .build()));
+        return totalsDTO;
+    }
+
     @RequestMapping(
             value = "/bankAccount/",
             method = POST,
@@ -325,14 +568,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<BankAccountCreationResultDTO>> createBankAccount(@RequestBody BankAccountCreationDTO bankAccountData) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -391,14 +627,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<List<BankAccountDTO>>> getOwnerBankAccounts(@PathVariable("ownerId") String ownerIdStr) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -446,6 +675,60 @@ public class FinancialRESTController {
         return ResponseEntity.ok().body(RestApiResult.Ok(response));
     }
 
+    @RequestMapping(
+            value = "/user/{id}/netWorth",
+            method = GET,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<NetWorthDTO>> getUserNetWorth(@PathVariable("id") String ownerIdStr,
+                                                                      @RequestParam(value = "currency", required = false) Currency currency) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        Long ownerId = (ownerIdStr == null) ? loggedUserId : Long.valueOf(ownerIdStr);
+        Result<NetWorthVO> getNetWorthResult = businessController.getOwnerNetWorthVO(UserVO.builder().id(loggedUserId).build(), UserVO.builder().id(ownerId).build(), currency);
+
+        if (!getNetWorthResult.isValid()) {
+            // Server error
+            if (getNetWorthResult.getErrCode() < 0) return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(getNetWorthResult.getErrCode(), "Server error."));
+            // Permission error
+            if (getNetWorthResult.getErrCode() == 4) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(getNetWorthResult.getErrCode(), "User does not have access to get this bank account data."));
+            if (getNetWorthResult.getErrCode() == 2) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(getNetWorthResult.getErrCode(), "Not user logged."));
+
+            String errMessage = switch (getNetWorthResult.getErrCode()) {
+                case 3 -> "Bank account owner not defined or does not exist.";
+                case 10 -> "Exchange rate not found.";
+                default -> "Error.";
+            };
+            return ResponseEntity.badRequest().body(RestApiResult.Error(getNetWorthResult.getErrCode(), errMessage));
+        }
+
+        NetWorthVO netWorthVO = getNetWorthResult.getResult();
+
+        List<CurrencyBalanceDTO> balancesDTO = new ArrayList<>(netWorthVO.getBalances().size());
+        netWorthVO.getBalances().forEach((balanceVO) -> balancesDTO.add(CurrencyBalanceDTO.builder()
+            .currency(balanceVO.getCurrency())
+            .balance(balanceVO.getBalance())
+            .bankAccountCount(balanceVO.getBankAccountCount())
+            .build()));
+
+        NetWorthDTO response = NetWorthDTO.builder()
+            .ownerId(netWorthVO.getOwnerId())
+            .balances(balancesDTO)
+            .currency(netWorthVO.getCurrency())
+            .total(netWorthVO.getTotal())
+            .rateDate(netWorthVO.getRateDate())
+            .build();
+
+        return ResponseEntity.ok().body(RestApiResult.Ok(response));
+    }
+
     @RequestMapping(
             value = "/bankAccount/{id}/",
             method = DELETE,
@@ -454,14 +737,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<BankAccountDTO>> deleteBankAccount(@PathVariable("id") String id) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -517,14 +793,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<List<UserDTO>>> getBankAccountOwners(@PathVariable("id") String id) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -570,14 +839,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<Void>> addBankAccountOwner(@PathVariable("id") String id, @RequestBody UserDTO newOwnerDTO) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -619,14 +881,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<Void>> deleteBankAccountOwner(@PathVariable("bankAccountId") String bankAccountIdStr, @PathVariable("ownerId") String ownerIdStr) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -669,14 +924,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<BankTransferDTO>> getBankTransferById(@PathVariable("id") String id) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -701,9 +949,11 @@ public class FinancialRESTController {
             return ResponseEntity.badRequest().body(RestApiResult.Error(getBankTransferResult.getErrCode(), errMessage));
         }
 
-        BankTransferVO bankTransferVO = getBankTransferResult.getResult();
+        return ResponseEntity.ok().body(RestApiResult.Ok(getBankTransferDTO(getBankTransferResult.getResult())));
+    }
 
-        BankTransferDTO bankTransferDTO = BankTransferDTO.builder()
+    private static BankTransferDTO getBankTransferDTO(BankTransferVO bankTransferVO) {
+        return BankTransferDTO.builder()
             .id(bankTransferVO.getId())
             .concept(bankTransferVO.getConcept())
             .description(bankTransferVO.getDescription())
@@ -739,8 +989,6 @@ public class FinancialRESTController {
                         .build()
             )
             .build();
-
-        return ResponseEntity.ok().body(RestApiResult.Ok(bankTransferDTO));
     }
 
     @RequestMapping(
@@ -751,14 +999,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<BankTransferDTO>> createBankTransfer(@RequestBody BankTransferDTO bankTransferDTO) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -797,20 +1038,9 @@ public class FinancialRESTController {
             // Permission error
             if (createBankTransferResult.getErrCode() == 2) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(createBankTransferResult.getErrCode(), "Not user logged."));
             if (createBankTransferResult.getErrCode() == 3) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(createBankTransferResult.getErrCode(), "User does not have access to create a bank transfer."));
+            if (createBankTransferResult.getErrCode() == 22) return ResponseEntity.status(HttpStatus.CONFLICT).body(RestApiResult.Error(createBankTransferResult.getErrCode(), getBankTransferCreationErrorMessage(22)));
 
-            String errMessage = switch (createBankTransferResult.getErrCode()) {
-                case 10 -> "Bank account transfer data not defined.";
-                case 11 -> "Bank account 'me' not defined.";
-                case 12 -> "Bank account 'other' not defined.";
-                case 13 -> "Bank transfer concept not valid or not defined.";
-                case 14 -> "Bank transfer value not defined.";
-                case 15 -> "Bank transfer from currency not defined.";
-                case 16 -> "Bank transfer conversion of different currencies not defined.";
-                case 17 -> "Bank transfer conversion not valid.";
-                case 18 -> "Bank transfer operation date not defined.";
-                case 19 -> "Bank transfer operation type not defined.";
-                default -> "Error.";
-            };
+            String errMessage = getBankTransferCreationErrorMessage(createBankTransferResult.getErrCode());
             return ResponseEntity.badRequest().body(RestApiResult.Error(createBankTransferResult.getErrCode(), errMessage));
         }
 
@@ -857,21 +1087,193 @@ public class FinancialRESTController {
     }
 
     @RequestMapping(
-            value = "/creditCard/{creditCardId}/",
-            method = GET,
+            value = "/bankTransfer/bulk/",
+            method = POST,
             produces = APPLICATION_JSON_VALUE
     )
-    public ResponseEntity<RestApiResult<CreditCardDTO>> getCreditCardById(@PathVariable("creditCardId") String id) {
+    public ResponseEntity<RestApiResult<List<BankTransferBulkResultDTO>>> createBankTransfers(@RequestBody List<BankTransferDTO> bankTransfersDTO) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
 
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
+        List<BankTransferVO> bankTransfersVO = null;
+        if (bankTransfersDTO != null) {
+            bankTransfersVO = new ArrayList<>(bankTransfersDTO.size());
+            for (BankTransferDTO bankTransferDTO : bankTransfersDTO) {
+                bankTransfersVO.add(bankTransferDTO == null ? null : BankTransferVO.builder()
+                    .concept(bankTransferDTO.getConcept())
+                    .description(bankTransferDTO.getDescription())
+                    .operationType(bankTransferDTO.getOperationType())
+                    .value(bankTransferDTO.getValue())
+                    .fromCurrency(bankTransferDTO.getFromCurrency())
+                    .toCurrency(bankTransferDTO.getToCurrency())
+                    .conversion(bankTransferDTO.getConversion())
+                    .madeWhen(bankTransferDTO.getMadeWhen())
+                    .applyWhen(bankTransferDTO.getApplyWhen())
+                    .me(bankTransferDTO.getMe() == null ? null : BankAccountVO.builder().id(bankTransferDTO.getMe().getId()).build())
+                    .other(bankTransferDTO.getOther() == null ? null : BankAccountVO.builder().id(bankTransferDTO.getOther().getId()).build())
+                    .build());
             }
+        }
+
+        Result<List<BankTransferBulkItemVO>> createBankTransfersResult = businessController.createBankTransfersVO(UserVO.builder().id(loggedUserId).build(), bankTransfersVO);
+
+        if (!createBankTransfersResult.isValid()) {
+            // Server error
+            if (createBankTransfersResult.getErrCode() < 0) return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(createBankTransfersResult.getErrCode(), "Server error."));
+            // Permission error
+            if (createBankTransfersResult.getErrCode() == 2) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(createBankTransfersResult.getErrCode(), "Not user logged."));
+            // Created at the same time by another request, it can be retried
+            if (createBankTransfersResult.getErrCode() == 22) return ResponseEntity.status(HttpStatus.CONFLICT).body(RestApiResult.Error(createBankTransfersResult.getErrCode(), getBankTransferCreationErrorMessage(22)));
+
+            String errMessage = switch (createBankTransfersResult.getErrCode()) {
+                case 10 -> "Bank transfers not defined.";
+                case 21 -> "Too many bank transfers.";
+                default -> "Error.";
+            };
+            return ResponseEntity.badRequest().body(RestApiResult.Error(createBankTransfersResult.getErrCode(), errMessage));
+        }
+
+        List<BankTransferBulkResultDTO> response = new ArrayList<>(createBankTransfersResult.getResult().size());
+        createBankTransfersResult.getResult().forEach((item) -> response.add(BankTransferBulkResultDTO.builder()
+            .index(item.getIndex())
+            .id(item.getId())
+            .errCode(item.getErrCode())
+            .duplicate(item.isDuplicate())
+            .errMsg(item.getErrCode() == null ? null : getBankTransferCreationErrorMessage(item.getErrCode()))
+            .build()));
+
+        return ResponseEntity.ok().body(RestApiResult.Ok(response));
+    }
+
+    private static String getBankTransferCreationErrorMessage(int errCode) {
+        return switch (errCode) {
+            case 3 -> "User does not have access to create a bank transfer.";
+            case 10 -> "Bank account transfer data not defined.";
+            case 11 -> "Bank account 'me' not defined.";
+            case 12 -> "Bank account 'other' not defined.";
+            case 13 -> "Bank transfer concept not valid or not defined.";
+            case 14 -> "Bank transfer value not defined.";
+            case 15 -> "Bank transfer from currency not defined.";
+            case 16 -> "Bank transfer conversion of different currencies not defined.";
+            case 17 -> "Bank transfer conversion not valid.";
+            case 18 -> "Bank transfer operation date not defined.";
+            case 19 -> "Bank transfer operation type not defined.";
+            case 20 -> "Bank transfer currencies do not match the bank account currency.";
+            case 22 -> "Bank transfer already exists.";
+            default -> "Error.";
+        };
+    }
+
+    @RequestMapping(
+            value = "/exchangeRate/",
+            method = GET,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<ExchangeRateDTO>> getExchangeRate(@RequestParam(value = "from") Currency from,
+                                                                          @RequestParam(value = "to") Currency to,
+                                                                          @RequestParam(value = "date", required = false) String date) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        ExchangeRateVO exchangeRateVO = ExchangeRateVO.builder()
+            .fromCurrency(from)
+            .toCurrency(to)
+            .build();
+        try {
+            if (date != null) exchangeRateVO.setValidFrom(LocalDate.parse(date));
+        } catch (RuntimeException ex) {
+            return ResponseEntity.badRequest().body(RestApiResult.Error(10, "Date not valid."));
+        }
+
+        Result<ExchangeRateVO> getRateResult = businessController.getExchangeRateVO(UserVO.builder().id(loggedUserId).build(), exchangeRateVO);
+
+        if (!getRateResult.isValid()) {
+            // Server error
+            if (getRateResult.getErrCode() < 0) return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(getRateResult.getErrCode(), "Server error."));
+            if (getRateResult.getErrCode() == 2) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(getRateResult.getErrCode(), "Not user logged."));
+            if (getRateResult.getErrCode() == 11) return ResponseEntity.status(HttpStatus.NOT_FOUND).body(RestApiResult.Error(getRateResult.getErrCode(), "Exchange rate not found."));
+
+            String errMessage = switch (getRateResult.getErrCode()) {
+                case 10 -> "Currencies not defined.";
+                default -> "Error.";
+            };
+            return ResponseEntity.badRequest().body(RestApiResult.Error(getRateResult.getErrCode(), errMessage));
+        }
 
+        ExchangeRateVO rateVO = getRateResult.getResult();
+        ExchangeRateDTO response = ExchangeRateDTO.builder()
+            .fromCurrency(rateVO.getFromCurrency())
+            .toCurrency(rateVO.getToCurrency())
+            .date(rateVO.getValidFrom())
+            .rate(rateVO.getRate())
+            .build();
+
+        return ResponseEntity.ok().body(RestApiResult.Ok(response));
+    }
+
+    @RequestMapping(
+            value = "/exchangeRate/import/",
+            method = POST,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<ExchangeRateImportDTO>> importExchangeRates(@RequestBody ExchangeRateImportDTO importDTO) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        String file = importDTO == null ? null : importDTO.getFile();
+        Result<Integer> importResult = businessController.importExchangeRatesVO(UserVO.builder().id(loggedUserId).build(), file);
+
+        if (!importResult.isValid()) {
+            // Server error
+            if (importResult.getErrCode() < 0) return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(importResult.getErrCode(), "Server error."));
+            // Permission error
+            if (importResult.getErrCode() == 3) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(importResult.getErrCode(), "User does not have permission to import exchange rates."));
+            if (importResult.getErrCode() == 2) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(importResult.getErrCode(), "Not user logged."));
+
+            String errMessage = switch (importResult.getErrCode()) {
+                case 10 -> "File not defined.";
+                case 11 -> "File not found.";
+                case 12 -> "File not valid.";
+                default -> "Error.";
+            };
+            return ResponseEntity.badRequest().body(RestApiResult.Error(importResult.getErrCode(), errMessage));
+        }
+
+        ExchangeRateImportDTO response = ExchangeRateImportDTO.builder()
+            .file(file)
+            .imported(importResult.getResult())
+            .build();
+
+        return ResponseEntity.ok().body(RestApiResult.Ok(response));
+    }
+
+    @RequestMapping(
+            value = "/creditCard/{creditCardId}/",
+            method = GET,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<CreditCardDTO>> getCreditCardById(@PathVariable("creditCardId") String id) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -909,14 +1311,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<CreditCardDTO>> createCreditCard(@RequestBody CreditCardDTO creditCardDTO) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -976,14 +1371,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<CreditCardDTO>> deleteCreditCard(@PathVariable("creditCardId") String id) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -1021,14 +1409,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<CreditCardDTO>> editCreditCard(@PathVariable("creditCardId") String id, @RequestBody CreditCardDTO creditCardDTO) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -1072,14 +1453,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<DebitCardDTO>> getDebitCardById(@PathVariable("debitCardId") String id) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -1117,14 +1491,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<DebitCardDTO>> createDebitCard(@RequestBody DebitCardDTO debitCardDTO) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -1185,14 +1552,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<DebitCardDTO>> deleteDebitCard(@PathVariable("debitCardId") String id) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -1230,14 +1590,7 @@ public class FinancialRESTController {
     public ResponseEntity<RestApiResult<DebitCardDTO>> editDebitCard(@PathVariable("debitCardId") String id, @RequestBody DebitCardDTO debitCardDTO) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -1273,5 +1626,148 @@ public class FinancialRESTController {
         return ResponseEntity.ok().body(RestApiResult.Ok(DTOMapper.debitCardVO2debitCardDTO(editDebitCardResult.getResult())));
     }
 
+    // Batch get: one item per requested id, in the same order
+
+    @RequestMapping(
+            value = "/bank/batchGet/",
+            method = POST,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<List<BatchGetItemDTO<BankDTO>>>> getBanks(@RequestBody List<Long> ids) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        Result<List<Result<BankVO>>> getBanksResult = businessController.getBanksByIdVO(UserVO.builder().id(loggedUserId).build(), ids);
+
+        return getBatchGetResponse(ids, getBanksResult,
+            (bankVO) -> BankDTO.builder()
+                .id(bankVO.getId())
+                .name(bankVO.getName())
+                .build(),
+            (errCode) -> switch (errCode) {
+                case 2 -> "Bank id not defined.";
+                case 3 -> "Bank does not exist.";
+                case 4 -> "User does not have access to get this bank data.";
+                default -> "Error.";
+            });
+    }
+
+    @RequestMapping(
+            value = "/bankAccount/batchGet/",
+            method = POST,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<List<BatchGetItemDTO<BankAccountCompleteDTO>>>> getBankAccountsComplete(@RequestBody List<Long> ids) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        Result<List<Result<BankAccountCompleteVO>>> getBankAccountsResult = businessController.getBankAccountsCompleteVO(UserVO.builder().id(loggedUserId).build(), ids);
+
+        return getBatchGetResponse(ids, getBankAccountsResult, FinancialRESTController::getBankAccountCompleteDTO,
+            (errCode) -> switch (errCode) {
+                case 3 -> "Bank account not defined or does not exist.";
+                case 4 -> "User does not have access to get this bank account data.";
+                default -> "Error.";
+            });
+    }
+
+    @RequestMapping(
+            value = "/bankTransfer/batchGet/",
+            method = POST,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<List<BatchGetItemDTO<BankTransferDTO>>>> getBankTransfers(@RequestBody List<Long> ids) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        Result<List<Result<BankTransferVO>>> getBankTransfersResult = businessController.getBankTransfersByIdVO(UserVO.builder().id(loggedUserId).build(), ids);
+
+        return getBatchGetResponse(ids, getBankTransfersResult, FinancialRESTController::getBankTransferDTO,
+            (errCode) -> switch (errCode) {
+                case 3 -> "User does not have access to get this bank transfer data.";
+                case 10 -> "Bank transfer id not defined or bank transfer does not exist.";
+                default -> "Error.";
+            });
+    }
+
+    @RequestMapping(
+            value = "/creditCard/batchGet/",
+            method = POST,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<List<BatchGetItemDTO<CreditCardDTO>>>> getCreditCards(@RequestBody List<Long> ids) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        Result<List<Result<CreditCardVO>>> getCreditCardsResult = businessController.getCreditCardsByIdVO(UserVO.builder().id(loggedUserId).build(), ids);
+
+        return getBatchGetResponse(ids, getCreditCardsResult, DTOMapper::creditCardVO2creditCardDTO,
+            (errCode) -> switch (errCode) {
+                case 3 -> "User does not have access to get this credit card data.";
+                case 10 -> "Credit card ID not defined.";
+                case 11 -> "Credit card does not exists.";
+                default -> "Error.";
+            });
+    }
+
+    /**
+     * @param ids Requested ids
+     * @param batchGetResult Result of the batch get, one item per id
+     * @param toDTO Maps a got item
+     * @param errMessage Message of an item error code
+     */
+    private static <V, D> ResponseEntity<RestApiResult<List<BatchGetItemDTO<D>>>> getBatchGetResponse(List<Long> ids, Result<List<Result<V>>> batchGetResult, Function<V, D> toDTO, IntFunction<String> errMessage) {
+        if (!batchGetResult.isValid()) {
+            // Server error
+            if (batchGetResult.getErrCode() < 0) return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(batchGetResult.getErrCode(), "Server error."));
+            // Permission error
+            if (batchGetResult.getErrCode() == 2) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(batchGetResult.getErrCode(), "Not user logged."));
+
+            String errMessageBatch = switch (batchGetResult.getErrCode()) {
+                case 30 -> "Ids not defined.";
+                case 31 -> "Too many ids.";
+                default -> "Error.";
+            };
+            return ResponseEntity.badRequest().body(RestApiResult.Error(batchGetResult.getErrCode(), errMessageBatch));
+        }
+
+        List<Result<V>> results = batchGetResult.getResult();
+        List<BatchGetItemDTO<D>> response = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Result<V> result = results.get(i);
+            response.add(BatchGetItemDTO.<D>builder()
+                .id(ids.get(i))
+                .result(result.isValid() ? toDTO.apply(result.getResult()) : null)
+                .errCode(result.isValid() ? null : result.getErrCode())
+                .errMsg(result.isValid() ? null : errMessage.apply(result.getErrCode()))
+                .build());
+        }
+
+        return ResponseEntity.ok().body(RestApiResult.Ok(response));
+    }
 
 }
@@ -10,6 +10,8 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
+import static com.airondlph.economy.household.util.LogUtils.Error;
+
 /**
  * @author adriandlph / airondlph
  */
@@ -25,7 +27,7 @@ public class Handler {
     @ExceptionHandler(Exception.class)
     public ResponseEntity<RestApiResult<Void>> exceptionHandle(Exception ex, HttpServletRequest request, HttpServletResponse response) {
         // TODO: check bad request for error in json or not founds when uri not found
-        log.error("{}\n{}", ex.getMessage(), ex);
+        Error(log, "Unhandled error.", null, ex);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
     }
 
@@ -0,0 +1,188 @@
+package com.airondlph.economy.household.api.rest;
+
+import com.airondlph.economy.household.data.entity.user.IdempotencyKey;
+import com.airondlph.economy.household.logic.data.Result;
+import com.airondlph.economy.household.logic.request.IdempotencyService;
+import com.airondlph.economy.household.logic.users.AuthenticatedUser;
+import com.airondlph.economy.household.logic.users.AuthenticationContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static com.airondlph.economy.household.util.LogUtils.Error;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * Makes POST requests with an Idempotency-Key header idempotent: the first response of each key (and user) is stored
+ * and sent again to the retries of the same request, without running it again.
+ *
+ * Server errors (5xx) are not stored, so those requests can be retried.
+ *
+ * @author adriandlph / airondlph
+ */
+@Component
+@Order(AuthenticationFilter.ORDER + 1)
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        AuthenticatedUser user = AuthenticationContext.getAuthenticatedUser(request);
+        if (user == null) {
+            // Not authenticated, the handler rejects it
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readAllBytes();
+        String endpoint = request.getMethod() + " " + request.getRequestURI();
+        Result<IdempotencyKey> beginResult = idempotencyService.begin(user.getId(), request.getHeader(IDEMPOTENCY_KEY_HEADER), endpoint, hash(body));
+
+        if (!beginResult.isValid()) {
+            switch (beginResult.getErrCode()) {
+                case 10 -> writeError(response, HttpStatus.BAD_REQUEST, beginResult.getErrCode(), "Idempotency key not valid.");
+                case 11 -> writeError(response, HttpStatus.UNPROCESSABLE_CONTENT, beginResult.getErrCode(), "Idempotency key already used with another request.");
+                case 12 -> writeError(response, HttpStatus.CONFLICT, beginResult.getErrCode(), "Request with this idempotency key still running.");
+                default -> writeError(response, HttpStatus.INTERNAL_SERVER_ERROR, -1, "Server error.");
+            }
+            return;
+        }
+
+        IdempotencyKey idempotencyKey = beginResult.getResult();
+        if (idempotencyKey.getResponseStatus() != null) {
+            // Already done, same response
+            response.setStatus(idempotencyKey.getResponseStatus());
+            if (idempotencyKey.getResponseContentType() != null) response.setContentType(idempotencyKey.getResponseContentType());
+            if (idempotencyKey.getResponseBody() != null) response.getOutputStream().write(idempotencyKey.getResponseBody().getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), cachingResponse);
+
+            int status = cachingResponse.getStatus();
+            if (status < 500) {
+                idempotencyService.complete(idempotencyKey.getId(), status, cachingResponse.getContentType(),
+                    new String(cachingResponse.getContentAsByteArray(), StandardCharsets.UTF_8));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                try {
+                    idempotencyService.release(idempotencyKey.getId());
+                } catch (RuntimeException ex) {
+                    Error(log, "Error releasing idempotency key", null, ex.getMessage());
+                }
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private static void writeError(HttpServletResponse response, HttpStatus status, int code, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(APPLICATION_JSON_VALUE);
+        // Fixed messages, no escaping needed
+        response.getOutputStream().write(("{\"code\":" + code + ",\"message\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hash(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JVM has SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Request whose body has already been read, so it can be read again by the handler.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // The whole body is already in memory: it can be read at once
+                    try {
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        } else {
+                            readListener.onDataAvailable();
+                            if (isFinished()) readListener.onAllDataRead();
+                        }
+                    } catch (IOException ex) {
+                        readListener.onError(ex);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(), encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+
+    }
+
+}
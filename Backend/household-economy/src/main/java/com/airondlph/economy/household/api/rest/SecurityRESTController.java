@@ -1,5 +1,9 @@
 package com.airondlph.economy.household.api.rest;
 
+import com.airondlph.economy.household.exception.ServerErrorException;
+import com.airondlph.economy.household.logic.users.AuthenticatedUser;
+import com.airondlph.economy.household.logic.users.AuthenticationContext;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -20,15 +24,34 @@ public class SecurityRESTController {
     public static String getBearerTokenHeader() throws SecurityException {
         Enter(log, "getBearerTokenHeader", "");
         try {
-            String token = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest().getHeader(AUTHORIZATION_HEADER);
-            return token == null ? null : token.replace("Bearer ", "");
+            return getBearerToken(((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest());
         } catch (Exception ex) {
-            Error(log, "Error getting user authorization token", null, ex.getMessage());
-            log.error("{}",  ex.getStackTrace().toString());
+            Error(log, "Error getting user authorization token", null, ex);
             throw new SecurityException("Token not defined.");
         } finally {
             Exit(log, "getBearerTokenHeader");
         }
     }
 
+    public static String getBearerToken(HttpServletRequest request) {
+        String token = request.getHeader(AUTHORIZATION_HEADER);
+        return token == null ? null : token.replace("Bearer ", "");
+    }
+
+    /**
+     * @return User of the current request, authenticated by {@link AuthenticationFilter}.
+     *
+     * @throws SecurityException If the request has no valid token
+     * @throws ServerErrorException If there was any error authenticating the user
+     */
+    public static AuthenticatedUser getLoggedUser() throws SecurityException, ServerErrorException {
+        Exception error = AuthenticationContext.getError();
+        if (error instanceof ServerErrorException ex) throw ex;
+        if (error instanceof SecurityException ex) throw ex;
+
+        AuthenticatedUser user = AuthenticationContext.getAuthenticatedUser();
+        if (user == null) throw new SecurityException("Token not defined.");
+        return user;
+    }
+
 }
@@ -0,0 +1,149 @@
+package com.airondlph.economy.household.api.rest;
+
+import com.airondlph.economy.household.api.rest.data.RestApiResult;
+import com.airondlph.economy.household.api.rest.data.StatementImportJobDTO;
+import com.airondlph.economy.household.api.rest.exception.SecurityException;
+import com.airondlph.economy.household.data.model.StatementImportJobVO;
+import com.airondlph.economy.household.data.model.UserVO;
+import com.airondlph.economy.household.exception.ServerErrorException;
+import com.airondlph.economy.household.logic.data.Result;
+import com.airondlph.economy.household.logic.importer.StatementImportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.web.bind.annotation.RequestMethod.*;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@RestController
+@RequestMapping(value = "financial/import")
+@CrossOrigin(origins = "http://localhost:5173")
+@Slf4j
+public class StatementImportRESTController {
+
+    @Autowired
+    private StatementImportService statementImportService;
+
+    @RequestMapping(
+            value = "/",
+            method = POST,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<StatementImportJobDTO>> startImport(@RequestBody StatementImportJobDTO importDTO) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        StatementImportJobVO importVO = importDTO == null ? null : StatementImportJobVO.builder()
+            .file(importDTO.getFile())
+            .format(importDTO.getFormat())
+            .bankAccountId(importDTO.getBankAccountId())
+            .otherBankAccountId(importDTO.getOtherBankAccountId())
+            .build();
+
+        Result<StatementImportJobVO> startImportResult = statementImportService.startImport(UserVO.builder().id(loggedUserId).build(), importVO);
+
+        if (!startImportResult.isValid()) {
+            // Server error
+            if (startImportResult.getErrCode() < 0) return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(startImportResult.getErrCode(), "Server error."));
+            // Permission error
+            if (startImportResult.getErrCode() == 2) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(startImportResult.getErrCode(), "Not user logged."));
+            if (startImportResult.getErrCode() == 3) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(startImportResult.getErrCode(), "User does not have access to this bank account."));
+            if (startImportResult.getErrCode() == 15) return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(RestApiResult.Error(startImportResult.getErrCode(), "Too many imports running."));
+
+            String errMessage = switch (startImportResult.getErrCode()) {
+                case 10 -> "File not defined.";
+                case 11 -> "File not found.";
+                case 12 -> "Format not defined.";
+                case 13 -> "Bank account not defined or does not exist.";
+                case 14 -> "Counterpart bank account not defined.";
+                default -> "Error.";
+            };
+            return ResponseEntity.badRequest().body(RestApiResult.Error(startImportResult.getErrCode(), errMessage));
+        }
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(RestApiResult.Ok(toDTO(startImportResult.getResult())));
+    }
+
+    @RequestMapping(
+            value = "/{jobId}/",
+            method = GET,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<StatementImportJobDTO>> getImport(@PathVariable("jobId") String jobId) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        Result<StatementImportJobVO> getImportResult = statementImportService.getImport(UserVO.builder().id(loggedUserId).build(), jobId);
+        if (!getImportResult.isValid()) return jobError(getImportResult.getErrCode());
+
+        return ResponseEntity.ok().body(RestApiResult.Ok(toDTO(getImportResult.getResult())));
+    }
+
+    @RequestMapping(
+            value = "/{jobId}/",
+            method = DELETE,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<StatementImportJobDTO>> cancelImport(@PathVariable("jobId") String jobId) {
+        Long loggedUserId;
+        try {
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        Result<StatementImportJobVO> cancelImportResult = statementImportService.cancelImport(UserVO.builder().id(loggedUserId).build(), jobId);
+        if (!cancelImportResult.isValid()) return jobError(cancelImportResult.getErrCode());
+
+        return ResponseEntity.ok().body(RestApiResult.Ok(toDTO(cancelImportResult.getResult())));
+    }
+
+    private static ResponseEntity<RestApiResult<StatementImportJobDTO>> jobError(int errCode) {
+        return switch (errCode) {
+            case 2 -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(errCode, "Not user logged."));
+            case 3 -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(errCode, "User does not have access to this import."));
+            case 10 -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(RestApiResult.Error(errCode, "Import does not exist."));
+            default -> ResponseEntity.badRequest().body(RestApiResult.Error(errCode, "Error."));
+        };
+    }
+
+    private static StatementImportJobDTO toDTO(StatementImportJobVO jobVO) {
+        return StatementImportJobDTO.builder()
+            .id(jobVO.getId())
+            .file(jobVO.getFile())
+            .format(jobVO.getFormat())
+            .bankAccountId(jobVO.getBankAccountId())
+            .otherBankAccountId(jobVO.getOtherBankAccountId())
+            .status(jobVO.getStatus())
+            .rowsRead(jobVO.getRowsRead())
+            .rowsCreated(jobVO.getRowsCreated())
+            .rowsDuplicated(jobVO.getRowsDuplicated())
+            .rowsFailed(jobVO.getRowsFailed())
+            .bytesRead(jobVO.getBytesRead())
+            .totalBytes(jobVO.getTotalBytes())
+            .errors(jobVO.getErrors())
+            .startedWhen(jobVO.getStartedWhen())
+            .finishedWhen(jobVO.getFinishedWhen())
+            .build();
+    }
+
+}
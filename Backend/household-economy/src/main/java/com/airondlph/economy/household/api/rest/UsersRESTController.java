@@ -4,15 +4,18 @@ import com.airondlph.economy.household.api.rest.data.RestApiResult;
 import com.airondlph.economy.household.api.rest.data.TokenStrDTO;
 import com.airondlph.economy.household.api.rest.data.UserDTO;
 import com.airondlph.economy.household.logic.data.Result;
+import com.airondlph.economy.household.logic.users.PasswordHashingService;
 import com.airondlph.economy.household.logic.users.SecurityController;
 import com.airondlph.economy.household.logic.users.UsersController;
 import com.airondlph.economy.household.data.model.TokenVO;
 import com.airondlph.economy.household.data.model.UserVO;
 import com.airondlph.economy.household.api.rest.exception.SecurityException;
 import com.airondlph.economy.household.exception.ServerErrorException;
-import com.auth0.jwt.interfaces.Claim;
+import com.airondlph.economy.household.exception.TooManyRequestsException;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -20,8 +23,6 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Map;
-
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.web.bind.annotation.RequestMethod.*;
 
@@ -52,14 +53,7 @@ public class UsersRESTController {
     public ResponseEntity<RestApiResult<UserDTO>> getLoggedUser() {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -102,14 +96,7 @@ public class UsersRESTController {
     public ResponseEntity<RestApiResult<UserDTO>> getUser(@PathVariable("id") String id) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -202,14 +189,7 @@ public class UsersRESTController {
     public ResponseEntity<RestApiResult<UserDTO>> setUser(@PathVariable("id") String id, @RequestBody UserDTO userData) {
         Long loggedUserId;
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -269,14 +249,7 @@ public class UsersRESTController {
         Long loggedUserId;
 
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
-
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (ServerErrorException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (SecurityException ex) {
@@ -315,13 +288,7 @@ public class UsersRESTController {
         Long loggedUserId;
 
         try {
-            String token = SecurityRESTController.getBearerTokenHeader();
-            Map<String, Claim> claims = securityController.decodeToken(token);
-
-            Claim userIdClaim = claims.get("userId");
-            if (userIdClaim == null || userIdClaim.isMissing() || userIdClaim.isNull() || ((loggedUserId = userIdClaim.asLong()) == null)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
-            }
+            loggedUserId = SecurityRESTController.getLoggedUser().getId();
         } catch (SecurityException ex) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Not Authorized."));
         } catch (ServerErrorException ex) {
@@ -389,16 +356,66 @@ public class UsersRESTController {
             method = POST,
             produces = APPLICATION_JSON_VALUE
     )
-    public ResponseEntity<RestApiResult<TokenStrDTO>> login(@RequestBody UserDTO userData) {
+    public ResponseEntity<RestApiResult<TokenStrDTO>> login(@RequestBody UserDTO userData, HttpServletRequest request) {
 
         try {
-            TokenVO tokenVO = securityController.authenticateUser(userData.getUsername(), userData.getPassword());
-            return ResponseEntity.ok().body(RestApiResult.Ok(TokenStrDTO.builder().token(tokenVO.getToken()).build()));
+            TokenVO tokenVO = securityController.authenticateUser(userData.getUsername(), userData.getPassword(), request.getRemoteAddr());
+            return ResponseEntity.ok().body(RestApiResult.Ok(getTokenStrDTO(tokenVO)));
+        } catch (TooManyRequestsException ex) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(RestApiResult.Error(2, ex.getMessage()));
         } catch (ServerErrorException ex) {
+            if (ex.getCode() == PasswordHashingService.BUSY) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, ConcurrencyLimitFilter.RETRY_AFTER_SECONDS)
+                    .body(RestApiResult.Error(-1, "Server busy, try again later."));
+            }
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(RestApiResult.Error(1, ex.getMessage()));
         }
     }
 
+    @RequestMapping(
+            value = "/logout/",
+            method = POST,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<Void>> logout(@RequestBody(required = false) TokenStrDTO tokenData) {
+        try {
+            Long loggedUserId = SecurityRESTController.getLoggedUser().getId();
+            securityController.logout(loggedUserId, SecurityRESTController.getBearerTokenHeader(), tokenData == null ? null : tokenData.getRefreshToken());
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, "Invalid token."));
+        }
+
+        return ResponseEntity.ok().body(RestApiResult.Ok(null));
+    }
+
+    @RequestMapping(
+            value = "/token/refresh/",
+            method = POST,
+            produces = APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<RestApiResult<TokenStrDTO>> refreshToken(@RequestBody TokenStrDTO tokenData) {
+        try {
+            TokenVO tokenVO = securityController.refreshToken(tokenData.getRefreshToken());
+            return ResponseEntity.ok().body(RestApiResult.Ok(getTokenStrDTO(tokenVO)));
+        } catch (ServerErrorException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(RestApiResult.Error(-1, "Server error."));
+        } catch (SecurityException ex) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(RestApiResult.Error(2, ex.getMessage()));
+        }
+    }
+
+    private static TokenStrDTO getTokenStrDTO(TokenVO tokenVO) {
+        return TokenStrDTO.builder()
+            .token(tokenVO.getToken())
+            .refreshToken(tokenVO.getRefreshTokenVO() == null ? null : tokenVO.getRefreshTokenVO().getToken())
+            .build();
+    }
+
 }
@@ -0,0 +1,23 @@
+package com.airondlph.economy.household.api.rest.data;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class BankTransferBulkResultDTO implements Serializable {
+
+    protected int index; // Position of the row in the request
+    protected Long id; // null if it was not created
+    protected Integer errCode; // null if it was created
+    protected boolean duplicate; // It already existed, id is the existing bank transfer
+    protected String errMsg;
+
+}
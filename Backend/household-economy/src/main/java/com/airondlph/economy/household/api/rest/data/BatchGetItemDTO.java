@@ -0,0 +1,24 @@
+package com.airondlph.economy.household.api.rest.data;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Result of one id of a batch get, in the same position as the id in the request.
+ *
+ * @author adriandlph / airondlph
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class BatchGetItemDTO<T> implements Serializable {
+
+    protected Long id; // Requested id
+    protected T result; // null if it could not be got
+    protected Integer errCode; // Same codes as a single get, null if it was got
+    protected String errMsg;
+
+}
@@ -0,0 +1,22 @@
+package com.airondlph.economy.household.api.rest.data;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class CurrencyBalanceDTO implements Serializable {
+
+    protected Currency currency;
+    protected Long balance; // in deciCurrency (value = currencyValue / 100)
+    protected Long bankAccountCount;
+
+}
@@ -0,0 +1,25 @@
+package com.airondlph.economy.household.api.rest.data;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class ExchangeRateDTO implements Serializable {
+
+    protected Currency fromCurrency;
+    protected Currency toCurrency;
+    protected LocalDate date;
+    protected BigDecimal rate; // toValue = fromValue * rate
+
+}
@@ -0,0 +1,20 @@
+package com.airondlph.economy.household.api.rest.data;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class ExchangeRateImportDTO implements Serializable {
+
+    protected String file; // Relative to the import directory
+    protected Integer imported; // Number of rates imported
+
+}
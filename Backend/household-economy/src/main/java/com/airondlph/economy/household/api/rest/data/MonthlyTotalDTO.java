@@ -0,0 +1,25 @@
+package com.airondlph.economy.household.api.rest.data;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class MonthlyTotalDTO implements Serializable {
+
+    protected String month; // yyyy-MM
+    protected Currency currency;
+    protected OperationType operationType;
+    protected Long total; // in deciCurrency (value = currencyValue / 100)
+    protected Long operationCount;
+
+}
@@ -0,0 +1,26 @@
+package com.airondlph.economy.household.api.rest.data;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class NetWorthDTO implements Serializable {
+
+    protected Long ownerId;
+    protected List<CurrencyBalanceDTO> balances;
+    protected Currency currency; // null if no target currency was requested
+    protected Long total; // in deciCurrency (value = currencyValue / 100)
+    protected LocalDate rateDate;
+
+}
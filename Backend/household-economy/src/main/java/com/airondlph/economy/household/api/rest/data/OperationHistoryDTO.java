@@ -0,0 +1,37 @@
+package com.airondlph.economy.household.api.rest.data;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationSource;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class OperationHistoryDTO implements Serializable {
+
+    protected Long id;
+    protected OperationSource source;
+    protected String concept;
+    protected String description;
+    protected OperationType operationType;
+    protected Long value; // in deciCurrency (value = currencyValue / 100)
+    protected Currency fromCurrency;
+    protected Currency toCurrency;
+    protected Float conversion;
+    protected LocalDateTime madeWhen;
+    protected LocalDateTime applyWhen;
+    protected Long bankAccountId;
+    protected Long otherBankAccountId;
+    protected Long cardId;
+    protected String bankName;
+
+}
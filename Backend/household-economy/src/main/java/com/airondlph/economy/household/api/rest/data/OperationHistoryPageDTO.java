@@ -0,0 +1,21 @@
+package com.airondlph.economy.household.api.rest.data;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class OperationHistoryPageDTO implements Serializable {
+
+    protected List<OperationHistoryDTO> operations;
+    protected String nextCursor; // null if there are no more pages
+
+}
@@ -0,0 +1,22 @@
+package com.airondlph.economy.household.api.rest.data;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class SpendingItemDTO implements Serializable {
+
+    protected String concept; // Only in the concepts breakdown
+    protected Long id; // Counterparty bank account or card id, only in their breakdowns
+    protected Long total; // in deciCurrency (value = currencyValue / 100)
+    protected Long operationCount;
+
+}
@@ -0,0 +1,30 @@
+package com.airondlph.economy.household.api.rest.data;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class SpendingReportDTO implements Serializable {
+
+    protected String from; // yyyy-MM
+    protected String to; // yyyy-MM
+    protected Currency currency;
+    protected OperationType operationType;
+    protected Long total; // in deciCurrency (value = currencyValue / 100)
+    protected Long operationCount;
+    protected List<SpendingItemDTO> concepts;
+    protected List<SpendingItemDTO> counterparties;
+    protected List<SpendingItemDTO> cards;
+
+}
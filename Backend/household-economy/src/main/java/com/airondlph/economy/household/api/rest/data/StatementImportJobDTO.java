@@ -0,0 +1,37 @@
+package com.airondlph.economy.household.api.rest.data;
+
+import com.airondlph.economy.household.data.enumeration.ImportJobStatus;
+import com.airondlph.economy.household.data.enumeration.StatementFormat;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class StatementImportJobDTO implements Serializable {
+
+    protected String id;
+    protected String file; // Relative to the import directory
+    protected StatementFormat format;
+    protected Long bankAccountId;
+    protected Long otherBankAccountId;
+    protected ImportJobStatus status;
+    protected Long rowsRead;
+    protected Long rowsCreated;
+    protected Long rowsDuplicated;
+    protected Long rowsFailed;
+    protected Long bytesRead;
+    protected Long totalBytes;
+    protected List<String> errors;
+    protected LocalDateTime startedWhen;
+    protected LocalDateTime finishedWhen;
+
+}
@@ -16,5 +16,6 @@ import java.io.Serializable;
 public class TokenStrDTO implements Serializable {
 
     private String token;
+    private String refreshToken;
 
 }
@@ -38,6 +38,10 @@ public class BankAccount implements HasVO, Serializable {
     @Column(name = "last_update", nullable = false)
     @Getter @Setter
     private LocalDateTime lastUpdate;
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    @Getter @Setter
+    private Long version;
     @JoinColumn(name = "bank_id", referencedColumnName = "id", nullable = false)
     @ManyToOne(fetch = FetchType.LAZY)
     @Getter @Setter
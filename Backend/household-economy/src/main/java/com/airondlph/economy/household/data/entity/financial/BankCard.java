@@ -15,7 +15,9 @@ import java.time.LocalDate;
  * @author adriandlph / airondlph
  */
 @Entity(name = "BankCard")
-@Table(name = "bank_card")
+@Table(name = "bank_card", indexes = {
+    @Index(name = "bank_card_bank_account_id_idx", columnList = "bank_account_id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
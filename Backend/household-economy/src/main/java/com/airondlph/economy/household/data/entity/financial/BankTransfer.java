@@ -12,13 +12,19 @@ import lombok.experimental.SuperBuilder;
  * @author adriandlph / airondlph
  */
 @Entity(name = "BankTransfer")
-@Table(name = "bank_transfer")
+@Table(name = "bank_transfer", indexes = {
+    @Index(name = "bank_transfer_me_id_idx", columnList = "me_id")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "bank_transfer_fingerprint_uk", columnNames = "fingerprint")
+})
 @NoArgsConstructor
 @SuperBuilder
 @ToString(callSuper = true)
 @Inheritance(strategy = InheritanceType.JOINED)
 public class BankTransfer extends Operation {
 
+    public static final int FINGERPRINT_LENGTH = 64;
+
     @JoinColumn(name = "me_id", referencedColumnName = "id", nullable = false)
     @ManyToOne
     @Getter @Setter
@@ -27,6 +33,10 @@ public class BankTransfer extends Operation {
     @ManyToOne
     @Getter @Setter
     protected BankAccount other;
+    // Identifies the same transfer created twice (see BankTransferFingerprintService)
+    @Column(name = "fingerprint", length = FINGERPRINT_LENGTH)
+    @Getter @Setter
+    protected String fingerprint;
 
     @Override
     public BankTransferVO getVO() {
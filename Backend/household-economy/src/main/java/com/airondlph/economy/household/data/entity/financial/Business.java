@@ -4,21 +4,30 @@ import com.airondlph.economy.household.data.HasVO;
 import com.airondlph.economy.household.data.model.BusinessVO;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 
 /**
+ * Businesses (and banks) are created rarely and read with almost every bank account, so the whole hierarchy is kept
+ * in the second level cache (region {@link #CACHE_REGION}). Edits and removals through the entity manager update the
+ * cache when the transaction is committed.
+ *
  * @author adriandlph / airondlph
  */
 @Entity(name = "Business")
 @Table(name = "business")
 @Inheritance(strategy = InheritanceType.JOINED)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Business.CACHE_REGION)
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Business implements HasVO, Serializable {
 
     public static final int NAME_MAX_LENGTH = 255;
+    public static final String CACHE_REGION = "business";
 
     @Column(name = "id")
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
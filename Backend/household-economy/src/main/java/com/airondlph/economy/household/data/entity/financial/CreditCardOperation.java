@@ -11,7 +11,9 @@ import lombok.experimental.SuperBuilder;
  * @author adriandlph / airondlph
  */
 @Entity(name = "CreditCardOperation")
-@Table(name = "credit_card_operation")
+@Table(name = "credit_card_operation", indexes = {
+    @Index(name = "credit_card_operation_me_idx", columnList = "me")
+})
 @SuperBuilder
 @ToString(callSuper = true)
 @Inheritance(strategy = InheritanceType.JOINED)
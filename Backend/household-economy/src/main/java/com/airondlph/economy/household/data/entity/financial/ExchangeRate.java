@@ -0,0 +1,69 @@
+package com.airondlph.economy.household.data.entity.financial;
+
+import com.airondlph.economy.household.data.HasVO;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.model.ExchangeRateVO;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Exchange rate of a currency pair from a date (until the next rate of the pair).
+ *
+ * @author adriandlph / airondlph
+ */
+@Entity(name = "ExchangeRate")
+@Table(name = "exchange_rate", uniqueConstraints = {
+    @UniqueConstraint(name = "exchange_rate_pair_valid_from_uk", columnNames = {"from_currency", "to_currency", "valid_from"})
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExchangeRate implements HasVO, Serializable {
+
+    public static final int RATE_PRECISION = 19;
+    public static final int RATE_SCALE = 10;
+
+    @Column(name = "id")
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Getter @Setter
+    private Long id;
+    @Column(name = "from_currency", nullable = false)
+    @Getter @Setter
+    private Currency fromCurrency;
+    @Column(name = "to_currency", nullable = false)
+    @Getter @Setter
+    private Currency toCurrency;
+    @Column(name = "valid_from", nullable = false)
+    @Getter @Setter
+    private LocalDate validFrom;
+    @Column(name = "rate", nullable = false, precision = RATE_PRECISION, scale = RATE_SCALE)
+    @Getter @Setter
+    private BigDecimal rate; // toValue = fromValue * rate
+
+    @Override
+    public ExchangeRateVO getVO() {
+        return ExchangeRateVO.builder()
+            .fromCurrency(getFromCurrency())
+            .toCurrency(getToCurrency())
+            .validFrom(getValidFrom())
+            .rate(getRate())
+            .build();
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("ExchangeRate{")
+            .append("id=").append(getId())
+            .append(", fromCurrency=").append(getFromCurrency())
+            .append(", toCurrency=").append(getToCurrency())
+            .append(", validFrom=").append(getValidFrom())
+            .append(", rate=").append(getRate())
+            .append('}')
+            .toString();
+    }
+
+}
@@ -18,7 +18,9 @@ import java.time.LocalDateTime;
  * @author adriandlph / airondlph
  */
 @Entity(name = "Operation")
-@Table(name = "operation")
+@Table(name = "operation", indexes = {
+    @Index(name = "operation_apply_when_id_idx", columnList = "apply_when, id")
+})
 @SuperBuilder
 @NoArgsConstructor
 @ToString(callSuper = true)
@@ -27,9 +29,12 @@ public class Operation implements HasVO, Serializable {
 
     public static final int CONCEPT_MAX_LENGTH = 255;
     public static final int DESCRIPTION_MAX_LENGTH = 2048;
+    // Ids are reserved in blocks, so inserts can be batched (IDENTITY needs one insert per round-trip to get the id)
+    public static final int ID_ALLOCATION_SIZE = 50;
 
     @Column(name = "id")
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "operation_seq")
+    @SequenceGenerator(name = "operation_seq", sequenceName = "operation_seq", allocationSize = ID_ALLOCATION_SIZE)
     @Getter @Setter
     protected Long id;
     @Column(name = "concept", length = CONCEPT_MAX_LENGTH)
@@ -63,6 +68,10 @@ public class Operation implements HasVO, Serializable {
     @Column(name = "last_modification", nullable = false)
     @Getter @Setter
     protected LocalDateTime lastModification;
+    // Signed value added to the account balance (in account currency). Null while the operation is not applied yet.
+    @Column(name = "applied_amount")
+    @Getter @Setter
+    protected Long appliedAmount;
 
 
     @Override
@@ -0,0 +1,41 @@
+package com.airondlph.economy.household.data.entity.financial;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Pre-computed totals of the operations of a bank account in a month, per currency and operation type. Monthly
+ * totals are read from here, so they cost the same no matter how many operations the account has.
+ *
+ * It is written by OperationRollupService from the operation view, never directly.
+ *
+ * @author adriandlph / airondlph
+ */
+@Entity(name = "OperationMonthlyRollup")
+@Table(name = "operation_monthly_rollup")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter @Setter
+public class OperationMonthlyRollup implements Serializable {
+
+    @EmbeddedId
+    private OperationMonthlyRollupPK id;
+    @Column(name = "total", nullable = false)
+    private Long total; // Sum of the operation values, in deciCurrency (value = currencyValue / 100)
+    @Column(name = "operation_count", nullable = false)
+    private Long operationCount;
+
+    @Override
+    public String toString() {
+        return new StringBuilder("OperationMonthlyRollup{")
+            .append("id=").append(getId())
+            .append(", total=").append(getTotal())
+            .append(", operationCount=").append(getOperationCount())
+            .append('}')
+            .toString();
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.airondlph.economy.household.data.entity.financial;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@Getter @Setter
+public class OperationMonthlyRollupPK implements Serializable {
+
+    @Column(name = "bank_account_id", nullable = false)
+    private Long bankAccountId;
+    @Column(name = "month", nullable = false)
+    private Integer month; // yyyyMM of the apply date
+    @Column(name = "currency", nullable = false)
+    private Currency currency; // Operation (from) currency
+    @Column(name = "operation_type", nullable = false)
+    @Enumerated(EnumType.ORDINAL)
+    private OperationType operationType;
+
+    @Override
+    public String toString() {
+        return new StringBuilder("OperationMonthlyRollupPK{")
+            .append("bankAccountId=").append(getBankAccountId())
+            .append(", month=").append(getMonth())
+            .append(", currency=").append(getCurrency())
+            .append(", operationType=").append(getOperationType())
+            .append('}')
+            .toString();
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.airondlph.economy.household.data.entity.financial;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationSource;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Read model of the operations. It has one row per operation (same id) with the columns of the operation, its
+ * subtype and its bank, so operations histories are read from a single table without joins.
+ *
+ * It is written by OperationViewService every time an operation changes, never directly.
+ *
+ * @author adriandlph / airondlph
+ */
+@Entity(name = "OperationView")
+@Table(name = "operation_view", indexes = {
+    @Index(name = "operation_view_bank_account_apply_when_id_idx", columnList = "bank_account_id, apply_when, id"),
+    @Index(name = "operation_view_card_id_idx", columnList = "card_id"),
+    @Index(name = "operation_view_bank_id_idx", columnList = "bank_id")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class OperationView implements Serializable {
+
+    @Column(name = "id")
+    @Id
+    @Getter @Setter
+    private Long id; // Operation id
+    @Column(name = "source", nullable = false)
+    @Enumerated(EnumType.ORDINAL)
+    @Getter @Setter
+    private OperationSource source;
+    @Column(name = "bank_account_id", nullable = false)
+    @Getter @Setter
+    private Long bankAccountId;
+    @Column(name = "other_bank_account_id")
+    @Getter @Setter
+    private Long otherBankAccountId;
+    @Column(name = "card_id")
+    @Getter @Setter
+    private Long cardId;
+    @Column(name = "bank_id")
+    @Getter @Setter
+    private Long bankId;
+    @Column(name = "bank_name", length = Business.NAME_MAX_LENGTH)
+    @Getter @Setter
+    private String bankName;
+    @Column(name = "concept", length = Operation.CONCEPT_MAX_LENGTH)
+    @Getter @Setter
+    private String concept;
+    @Column(name = "description", length = Operation.DESCRIPTION_MAX_LENGTH)
+    @Getter @Setter
+    private String description;
+    @Column(name = "operation_type", nullable = false)
+    @Enumerated(EnumType.ORDINAL)
+    @Getter @Setter
+    private OperationType operationType;
+    @Column(name = "value")
+    @Getter @Setter
+    private Long value; // in deciCurrency (value = currencyValue / 100)
+    @Column(name = "from_currency")
+    @Getter @Setter
+    private Currency fromCurrency;
+    @Column(name = "to_currency")
+    @Getter @Setter
+    private Currency toCurrency;
+    @Column(name = "conversion")
+    @Getter @Setter
+    private Float conversion;
+    @Column(name = "made_when", nullable = false)
+    @Getter @Setter
+    private LocalDateTime madeWhen;
+    @Column(name = "apply_when", nullable = false)
+    @Getter @Setter
+    private LocalDateTime applyWhen;
+    @Column(name = "last_modification", nullable = false)
+    @Getter @Setter
+    private LocalDateTime lastModification;
+    @Column(name = "applied_amount")
+    @Getter @Setter
+    private Long appliedAmount;
+
+}
@@ -0,0 +1,76 @@
+package com.airondlph.economy.household.data.entity.user;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Response of a request sent with an Idempotency-Key header, so the same request sent again (a client retry) gets
+ * the same response instead of being executed twice.
+ *
+ * Keys are per user. The user is not a foreign key: keys expire and must not block removing users.
+ *
+ * @author adriandlph / airondlph
+ */
+@Entity(name = "IdempotencyKey")
+@Table(name = "idempotency_key", uniqueConstraints = {
+    @UniqueConstraint(name = "idempotency_key_user_key_uk", columnNames = {"user_id", "idempotency_key"})
+}, indexes = {
+    @Index(name = "idempotency_key_created_idx", columnList = "created")
+})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyKey implements Serializable {
+
+    public static final int KEY_MAX_LENGTH = 255;
+    public static final int ENDPOINT_MAX_LENGTH = 255;
+    public static final int REQUEST_HASH_LENGTH = 64;
+
+    @Column(name = "id")
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Getter @Setter
+    private Long id;
+    @Column(name = "user_id", nullable = false)
+    @Getter @Setter
+    private Long userId;
+    @Column(name = "idempotency_key", length = KEY_MAX_LENGTH, nullable = false)
+    @Getter @Setter
+    private String key;
+    @Column(name = "endpoint", length = ENDPOINT_MAX_LENGTH, nullable = false)
+    @Getter @Setter
+    private String endpoint; // Method and path
+    @Column(name = "request_hash", length = REQUEST_HASH_LENGTH, nullable = false)
+    @Getter @Setter
+    private String requestHash; // SHA-256 of the body
+    @Column(name = "response_status")
+    @Getter @Setter
+    private Integer responseStatus; // Null while the request is running
+    @Lob
+    @Column(name = "response_body", columnDefinition = "longtext")
+    @Getter @Setter
+    private String responseBody;
+    @Column(name = "response_content_type", length = ENDPOINT_MAX_LENGTH)
+    @Getter @Setter
+    private String responseContentType;
+    @Column(name = "created", nullable = false)
+    @Getter @Setter
+    private LocalDateTime created;
+
+    @Override
+    public String toString() {
+        return new StringBuilder("IdempotencyKey{")
+            .append("id=").append(id)
+            .append(", userId=").append(userId)
+            .append(", key=").append(key)
+            .append(", endpoint=").append(endpoint)
+            .append(", responseStatus=").append(responseStatus)
+            .append(", created=").append(created)
+            .append('}')
+            .toString();
+    }
+
+}
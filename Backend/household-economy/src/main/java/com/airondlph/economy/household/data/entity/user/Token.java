@@ -13,19 +13,30 @@ import java.util.Calendar;
  * @author adriandlph / airondlph
  */
 @Entity(name = "Token")
-@Table(name = "token")
+@Table(name = "token", indexes = {
+    @Index(name = "token_user_id_expires_idx", columnList = "user_id, expires"),
+    // Lookups by user and token hash (revoke, refresh)
+    @Index(name = "token_user_id_token_idx", columnList = "user_id, token"),
+    @Index(name = "token_expires_idx", columnList = "expires"),
+    @Index(name = "token_revoked_at_idx", columnList = "revoked_at")
+})
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Token implements Serializable, HasVO {
-    public static final int TOKEN_MAX_LENGTH = 2048;
+    public static final int TOKEN_HASH_LENGTH = 64;
 
     @Column(name = "id")
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Getter @Setter
     private Long id;
-    @Column(name = "token", length = TOKEN_MAX_LENGTH, nullable = false)
+    // SHA-256 (hex) of the token, the token itself is only sent to the user. Same column as when the token was stored.
+    @Column(name = "token", length = TOKEN_HASH_LENGTH, nullable = false)
+    @Getter @Setter
+    private String tokenHash;
+    // Only known when the token is created
+    @Transient
     @Getter @Setter
     private String token;
     @Column(name = "expires")
@@ -39,6 +50,9 @@ public class Token implements Serializable, HasVO {
     @ManyToOne
     @Getter @Setter
     private User user;
+    @Column(name = "revoked_at")
+    @Getter @Setter
+    private Calendar revokedAt;
 
     @Override
     public TokenVO getVO() {
@@ -54,9 +68,9 @@ public class Token implements Serializable, HasVO {
     public String toString() {
         return new StringBuilder("Token{")
             .append("id=").append(id)
-            .append(", token=").append(token)
             .append(", expires=").append(expires)
             .append(", type=").append(type)
+            .append(", revokedAt=").append(revokedAt)
             .append('}')
             .toString();
     }
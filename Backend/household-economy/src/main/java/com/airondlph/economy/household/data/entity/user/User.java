@@ -18,6 +18,7 @@ import java.util.Objects;
 @NoArgsConstructor
 @AllArgsConstructor
 public class User implements HasVO, Serializable {
+    public static final int ANCESTOR_PATH_MAX_LENGTH = 1000;
 
     @Column(name = "id")
     @Id
@@ -44,20 +45,24 @@ public class User implements HasVO, Serializable {
     @Builder.Default // Avoids builder to set null this argument
     private Boolean emailValidated = false;
     @JoinColumn(name = "parent_user_id", nullable = true, referencedColumnName = "id")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @Getter @Setter
     private User parentUser;
+    // Ids from the root user to this user, both included ("/1/2/5/"). Hierarchy checks use it instead of loading parents.
+    @Column(name = "ancestor_path", length = ANCESTOR_PATH_MAX_LENGTH)
+    @Getter @Setter
+    private String ancestorPath;
 
     @Override
     public boolean equals(Object o) {
-        if (o == null || getClass() != o.getClass()) return false;
-        User user = (User) o;
-        return Objects.equals(id, user.id);
+        // instanceof and getters so a lazy proxy equals its loaded entity
+        if (!(o instanceof User user)) return false;
+        return Objects.equals(getId(), user.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(id);
+        return Objects.hashCode(getId());
     }
 
     @Override
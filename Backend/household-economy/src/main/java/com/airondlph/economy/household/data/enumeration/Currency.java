@@ -7,6 +7,8 @@ public enum Currency {
 
     EUR,            // 0
     USD,            // 1
+    GBP,            // 2
+    CHF,            // 3
 
     ;
 
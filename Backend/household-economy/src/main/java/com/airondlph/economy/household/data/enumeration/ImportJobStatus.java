@@ -0,0 +1,16 @@
+package com.airondlph.economy.household.data.enumeration;
+
+/**
+ * @author adriandlph / airondlph
+ */
+public enum ImportJobStatus {
+
+    PENDING,        // 0
+    RUNNING,        // 1
+    FINISHED,       // 2
+    FAILED,         // 3
+    CANCELLED,      // 4
+
+    ;
+
+}
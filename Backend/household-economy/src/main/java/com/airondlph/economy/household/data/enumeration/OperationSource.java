@@ -0,0 +1,16 @@
+package com.airondlph.economy.household.data.enumeration;
+
+/**
+ * Entity that stores an operation.
+ *
+ * @author adriandlph / airondlph
+ */
+public enum OperationSource {
+
+    BANK_TRANSFER,          // 0
+    CREDIT_CARD_OPERATION,  // 1
+    DEBIT_CARD_OPERATION,   // 2
+
+    ;
+
+}
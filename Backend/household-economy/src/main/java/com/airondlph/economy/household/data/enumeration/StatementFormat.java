@@ -0,0 +1,16 @@
+package com.airondlph.economy.household.data.enumeration;
+
+/**
+ * Bank statement export formats that can be imported.
+ *
+ * @author adriandlph / airondlph
+ */
+public enum StatementFormat {
+
+    CSV,            // 0
+    OFX,            // 1 (OFX 2.x, XML)
+    CAMT053,        // 2 (ISO 20022 camt.053)
+
+    ;
+
+}
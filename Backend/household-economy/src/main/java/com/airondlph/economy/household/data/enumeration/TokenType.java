@@ -5,6 +5,7 @@ package com.airondlph.economy.household.data.enumeration;
  */
 public enum TokenType {
     LOGIN_TOKEN,    // 1
+    REFRESH_TOKEN,  // 2
 
     ;
 
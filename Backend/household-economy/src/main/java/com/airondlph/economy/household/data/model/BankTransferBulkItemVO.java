@@ -0,0 +1,26 @@
+package com.airondlph.economy.household.data.model;
+
+import com.airondlph.economy.household.data.VO;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Result of one row of a bulk bank transfers creation.
+ *
+ * @author adriandlph / airondlph
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@ToString
+public class BankTransferBulkItemVO implements VO, Serializable {
+
+    private int index; // Position of the row in the request
+    private Long id; // Bank transfer id, null if it was not created
+    private Integer errCode; // Same codes as a single bank transfer creation, null if it was created
+    private boolean duplicate; // It already existed, id is the existing bank transfer
+
+}
@@ -0,0 +1,26 @@
+package com.airondlph.economy.household.data.model;
+
+import com.airondlph.economy.household.data.VO;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Sum of the balances of some bank accounts with the same currency.
+ *
+ * @author adriandlph / airondlph
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@ToString
+public class CurrencyBalanceVO implements VO, Serializable {
+
+    private Currency currency;
+    private Long balance; // in deciCurrency (value = currencyValue / 100)
+    private Long bankAccountCount;
+
+}
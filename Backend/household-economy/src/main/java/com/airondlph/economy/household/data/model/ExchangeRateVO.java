@@ -0,0 +1,27 @@
+package com.airondlph.economy.household.data.model;
+
+import com.airondlph.economy.household.data.VO;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * @author adriandlph / airondlph
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@ToString
+public class ExchangeRateVO implements VO, Serializable {
+
+    private Currency fromCurrency;
+    private Currency toCurrency;
+    private LocalDate validFrom;
+    private BigDecimal rate; // toValue = fromValue * rate
+
+}
@@ -0,0 +1,30 @@
+package com.airondlph.economy.household.data.model;
+
+import com.airondlph.economy.household.data.VO;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.YearMonth;
+
+/**
+ * Total of the operations of a month, currency and operation type.
+ *
+ * @author adriandlph / airondlph
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@ToString
+public class MonthlyTotalVO implements VO, Serializable {
+
+    private YearMonth month; // Apply date month
+    private Currency currency;
+    private OperationType operationType;
+    private Long total; // in deciCurrency (value = currencyValue / 100)
+    private Long operationCount;
+
+}
@@ -0,0 +1,31 @@
+package com.airondlph.economy.household.data.model;
+
+import com.airondlph.economy.household.data.VO;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Balances of every bank account of an owner, per currency and (optionally) converted to one currency.
+ *
+ * @author adriandlph / airondlph
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@ToString
+public class NetWorthVO implements VO, Serializable {
+
+    private Long ownerId;
+    private List<CurrencyBalanceVO> balances;
+    // Only if a target currency was requested
+    private Currency currency;
+    private Long total; // in deciCurrency (value = currencyValue / 100)
+    private LocalDate rateDate;
+
+}
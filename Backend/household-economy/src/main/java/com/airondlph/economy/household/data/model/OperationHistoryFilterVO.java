@@ -0,0 +1,34 @@
+package com.airondlph.economy.household.data.model;
+
+import com.airondlph.economy.household.data.VO;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Filters of a bank account history page. Operations are sorted by apply date and id, newest first.
+ *
+ * @author adriandlph / airondlph
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@ToString
+public class OperationHistoryFilterVO implements VO, Serializable {
+
+    private OperationType operationType;
+    private Currency currency; // From or to currency
+    private LocalDateTime from; // Apply date, included
+    private LocalDateTime to; // Apply date, excluded
+    private Long cardId; // Only operations of this card
+    // Last operation of the previous page (both null for the first page)
+    private LocalDateTime afterApplyWhen;
+    private Long afterId;
+    private Integer limit;
+
+}
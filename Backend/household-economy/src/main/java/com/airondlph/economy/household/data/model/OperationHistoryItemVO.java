@@ -0,0 +1,26 @@
+package com.airondlph.economy.household.data.model;
+
+import com.airondlph.economy.household.data.enumeration.OperationSource;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Operation of a bank account history.
+ *
+ * @author adriandlph / airondlph
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+@Getter
+@Setter
+@ToString(callSuper = true)
+public class OperationHistoryItemVO extends OperationVO {
+
+    protected OperationSource source;
+    protected Long bankAccountId;
+    protected Long otherBankAccountId;
+    protected Long cardId; // Only card operations
+    protected String bankName;
+
+}
@@ -0,0 +1,28 @@
+package com.airondlph.economy.household.data.model;
+
+import com.airondlph.economy.household.data.VO;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Page of a bank account history.
+ *
+ * @author adriandlph / airondlph
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@ToString
+public class OperationHistoryPageVO implements VO, Serializable {
+
+    private List<OperationHistoryItemVO> operations;
+    // Last operation of this page, null if there are no more pages
+    private LocalDateTime nextApplyWhen;
+    private Long nextId;
+
+}
@@ -0,0 +1,26 @@
+package com.airondlph.economy.household.data.model;
+
+import com.airondlph.economy.household.data.VO;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Total of the operations of a concept, a counterparty bank account or a card in a spending report.
+ *
+ * @author adriandlph / airondlph
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@ToString
+public class SpendingItemVO implements VO, Serializable {
+
+    private String concept; // Only in the concepts breakdown
+    private Long id; // Counterparty bank account or card id, only in their breakdowns
+    private Long total; // in deciCurrency (value = currencyValue / 100)
+    private Long operationCount;
+
+}
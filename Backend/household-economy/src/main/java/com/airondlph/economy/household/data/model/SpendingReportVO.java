@@ -0,0 +1,36 @@
+package com.airondlph.economy.household.data.model;
+
+import com.airondlph.economy.household.data.VO;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Operations of the bank accounts of an owner grouped by concept, by counterparty bank account and by card. Every
+ * breakdown only has the items with the highest totals, highest first.
+ *
+ * @author adriandlph / airondlph
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@ToString
+public class SpendingReportVO implements VO, Serializable {
+
+    private YearMonth from; // Apply date months
+    private YearMonth to;
+    private Currency currency;
+    private OperationType operationType;
+    private Long total; // in deciCurrency (value = currencyValue / 100)
+    private Long operationCount;
+    private List<SpendingItemVO> concepts;
+    private List<SpendingItemVO> counterparties;
+    private List<SpendingItemVO> cards;
+
+}
@@ -0,0 +1,41 @@
+package com.airondlph.economy.household.data.model;
+
+import com.airondlph.economy.household.data.VO;
+import com.airondlph.economy.household.data.enumeration.ImportJobStatus;
+import com.airondlph.economy.household.data.enumeration.StatementFormat;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Status of a bank statement import.
+ *
+ * @author adriandlph / airondlph
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@ToString
+public class StatementImportJobVO implements VO, Serializable {
+
+    private String id;
+    private String file; // Relative to the import directory
+    private StatementFormat format;
+    private Long bankAccountId;
+    private Long otherBankAccountId; // Counterpart account of the imported transfers
+    private ImportJobStatus status;
+    private long rowsRead;
+    private long rowsCreated;
+    private long rowsDuplicated; // Rows that already existed, not created again
+    private long rowsFailed;
+    private long bytesRead;
+    private long totalBytes;
+    private List<String> errors; // First errors of the rows that were not imported
+    private LocalDateTime startedWhen;
+    private LocalDateTime finishedWhen;
+
+}
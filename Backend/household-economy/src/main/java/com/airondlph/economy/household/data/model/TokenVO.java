@@ -21,6 +21,8 @@ public class TokenVO implements VO {
     private Calendar expires;
     private TokenType type;
     private UserVO userVO;
+    // Refresh token created with a login token
+    private TokenVO refreshTokenVO;
 
     @Override
     public String toString() {
@@ -0,0 +1,17 @@
+package com.airondlph.economy.household.exception;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * @author adriandlph / airondlph
+ */
+public class TooManyRequestsException extends Exception {
+    @Getter @Setter
+    private long retryAfterSeconds;
+
+    public TooManyRequestsException(long retryAfterSeconds, String message) {
+        this.retryAfterSeconds = retryAfterSeconds;
+        super(message);
+    }
+}
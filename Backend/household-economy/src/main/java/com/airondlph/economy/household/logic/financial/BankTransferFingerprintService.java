@@ -0,0 +1,258 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.data.entity.financial.BankTransfer;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import com.airondlph.economy.household.util.BloomFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Detects bank transfers that already exist, so creating (or importing) the same transfer twice returns the first
+ * one instead of duplicating it.
+ *
+ * Every bank transfer has a fingerprint: the SHA-256 of its normalized account, type, value, currency, apply date
+ * and concept. It is stored in a unique column, so the database rejects duplicates. Before looking it up, the
+ * fingerprint is checked against a Bloom filter of the account fingerprints: most new transfers are discarded there
+ * without any query.
+ *
+ * Two real transfers with the same values, date and concept are considered the same transfer.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Transactional
+@Slf4j
+public class BankTransferFingerprintService {
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final int MIN_CAPACITY = 1024;
+    private static final int QUERY_BATCH_SIZE = 1000;
+
+    @Autowired
+    private EntityManager em;
+
+    @Value("${fingerprint.bloom.maxAccounts:1000}")
+    private int maxAccounts;
+    @Value("${ledger.batchSize:500}")
+    private int batchSize;
+
+    // Filters of the last used accounts
+    private final LinkedHashMap<Long, BloomFilter> filters = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BloomFilter> eldest) {
+            return size() > maxAccounts;
+        }
+    };
+
+    private final LongAdder filterRejections = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+
+    /**
+     * @return Fingerprint (64 hex chars) of a bank transfer of an account.
+     */
+    public static String getFingerprint(Long accountId, OperationType operationType, Long value, Currency currency,
+                                        LocalDateTime applyWhen, String concept) {
+        String normalizedConcept = concept == null ? "" : Normalizer.normalize(concept, Normalizer.Form.NFC)
+            .trim()
+            .replaceAll("\\s+", " ")
+            .toLowerCase(Locale.ROOT);
+
+        String data = new StringBuilder()
+            .append(accountId).append('|')
+            .append(operationType).append('|')
+            .append(value).append('|')
+            .append(currency).append('|')
+            .append(applyWhen == null ? "" : applyWhen.truncatedTo(ChronoUnit.SECONDS)).append('|')
+            .append(normalizedConcept)
+            .toString();
+
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JVM has SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @param accountId Bank account 'me' of the transfers
+     * @param fingerprints Fingerprints of new transfers of that account
+     * @return Id of the existing bank transfer of every fingerprint that already exists.
+     */
+    public Map<String, Long> findExisting(Long accountId, Collection<String> fingerprints) {
+        BloomFilter filter = getFilter(accountId);
+
+        List<String> candidates = new ArrayList<>();
+        for (String fingerprint : fingerprints) {
+            if (filter.mightContain(hash1(fingerprint), hash2(fingerprint))) candidates.add(fingerprint);
+            else filterRejections.increment();
+        }
+        if (candidates.isEmpty()) return Map.of();
+
+        Map<String, Long> existing = new HashMap<>();
+        for (int from = 0; from < candidates.size(); from += QUERY_BATCH_SIZE) {
+            lookups.increment();
+            em.createQuery("SELECT bt.fingerprint, bt.id FROM BankTransfer bt WHERE bt.fingerprint IN :fingerprints", Object[].class)
+                .setParameter("fingerprints", candidates.subList(from, Math.min(candidates.size(), from + QUERY_BATCH_SIZE)))
+                .getResultList()
+                .forEach(row -> existing.put((String) row[0], (Long) row[1]));
+        }
+        return existing;
+    }
+
+    /**
+     * @return Existing bank transfer with that fingerprint or null.
+     */
+    public BankTransfer findExisting(Long accountId, String fingerprint) {
+        Long id = findExisting(accountId, List.of(fingerprint)).get(fingerprint);
+        return id == null ? null : em.find(BankTransfer.class, id);
+    }
+
+    /**
+     * Adds the fingerprint of a new bank transfer to its account filter. If the transaction is rolled back the
+     * filter keeps it, which only costs a query when the same transfer is created again.
+     */
+    public void register(Long accountId, String fingerprint) {
+        BloomFilter filter;
+        synchronized (filters) {
+            filter = filters.get(accountId);
+        }
+        if (filter == null) return; // Loaded from the database when needed
+
+        filter.add(hash1(fingerprint), hash2(fingerprint));
+        if (filter.isFull()) {
+            // Rebuilt with a bigger capacity the next time
+            synchronized (filters) {
+                filters.remove(accountId, filter);
+            }
+        }
+    }
+
+    private BloomFilter getFilter(Long accountId) {
+        synchronized (filters) {
+            BloomFilter filter = filters.get(accountId);
+            if (filter != null) return filter;
+        }
+
+        Long count = em.createQuery("SELECT COUNT(bt) FROM BankTransfer bt WHERE bt.me.id = :accountId AND bt.fingerprint IS NOT NULL", Long.class)
+            .setParameter("accountId", accountId)
+            .getSingleResult();
+        BloomFilter filter = new BloomFilter((int) Math.min(Integer.MAX_VALUE / 2, Math.max(MIN_CAPACITY, 2 * count)), FALSE_POSITIVE_PROBABILITY);
+
+        try (Stream<String> fingerprints = em.createQuery("SELECT bt.fingerprint FROM BankTransfer bt WHERE bt.me.id = :accountId AND bt.fingerprint IS NOT NULL", String.class)
+                .setParameter("accountId", accountId)
+                .getResultStream()) {
+            fingerprints.forEach(fingerprint -> filter.add(hash1(fingerprint), hash2(fingerprint)));
+        }
+
+        synchronized (filters) {
+            BloomFilter current = filters.putIfAbsent(accountId, filter);
+            return current == null ? filter : current;
+        }
+    }
+
+    public void clear() {
+        synchronized (filters) {
+            filters.clear();
+        }
+    }
+
+    private static long hash1(String fingerprint) {
+        return Long.parseUnsignedLong(fingerprint, 0, 16, 16);
+    }
+
+    private static long hash2(String fingerprint) {
+        return Long.parseUnsignedLong(fingerprint, 16, 32, 16);
+    }
+
+    /**
+     * @return Number of fingerprints discarded by the filters without querying the database.
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public long getFilterRejections() {
+        return filterRejections.sum();
+    }
+
+    /**
+     * @return Number of fingerprint queries.
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * Sets the fingerprint of the bank transfers created before it existed. If several old transfers have the same
+     * fingerprint only the first one gets it (the others are kept, they are not removed).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillMissingFingerprints() {
+        Enter(log, "fillMissingFingerprints");
+
+        long updated = 0;
+        long duplicated = 0;
+        try {
+            Long lastId = 0L;
+            List<BankTransfer> bankTransfers;
+            do {
+                bankTransfers = em.createQuery("SELECT bt FROM BankTransfer bt JOIN FETCH bt.me JOIN FETCH bt.other WHERE bt.fingerprint IS NULL AND bt.id > :lastId ORDER BY bt.id", BankTransfer.class)
+                    .setParameter("lastId", lastId)
+                    .setMaxResults(batchSize)
+                    .getResultList();
+
+                Map<String, BankTransfer> byFingerprint = new LinkedHashMap<>();
+                for (BankTransfer bankTransfer : bankTransfers) {
+                    String fingerprint = getFingerprint(bankTransfer.getMe().getId(), bankTransfer.getOperationType(), bankTransfer.getValue(),
+                        bankTransfer.getFromCurrency(), bankTransfer.getApplyWhen(), bankTransfer.getConcept());
+                    if (byFingerprint.putIfAbsent(fingerprint, bankTransfer) != null) duplicated++;
+                }
+
+                if (!byFingerprint.isEmpty()) {
+                    Set<String> existing = new HashSet<>(em.createQuery("SELECT bt.fingerprint FROM BankTransfer bt WHERE bt.fingerprint IN :fingerprints", String.class)
+                        .setParameter("fingerprints", byFingerprint.keySet())
+                        .getResultList());
+                    for (Map.Entry<String, BankTransfer> entry : byFingerprint.entrySet()) {
+                        if (existing.contains(entry.getKey())) {
+                            duplicated++;
+                            continue;
+                        }
+                        entry.getValue().setFingerprint(entry.getKey());
+                        updated++;
+                    }
+                }
+
+                if (!bankTransfers.isEmpty()) lastId = bankTransfers.getLast().getId();
+                em.flush();
+                em.clear();
+            } while (bankTransfers.size() == batchSize);
+
+            if (updated > 0 || duplicated > 0) log.info("Bank transfer fingerprints set: {}, duplicated transfers: {}", updated, duplicated);
+
+        } catch (Exception ex) {
+            Error(log, "Error setting bank transfer fingerprints", null, ex.getMessage());
+
+        } finally {
+            Exit(log, "fillMissingFingerprints");
+        }
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.data.entity.financial.ExchangeRate;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.exception.ServerErrorException;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Exchange rates between currencies.
+ *
+ * Rates are stored in the exchange_rate table and kept in memory ({@link ExchangeRateTable}), so conversions never
+ * query the database. The table in memory is replaced after every import is committed.
+ *
+ * Rates are imported from CSV files of the import directory, one rate per line:
+ *      fromCurrency,toCurrency,validFrom,rate
+ *      EUR,USD,2024-01-31,1.0845
+ * Empty lines and lines starting with '#' are ignored, and so is a first line starting with "from" (header). A rate
+ * that already exists for the same pair and date is replaced.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Transactional
+@Slf4j
+public class ExchangeRateService {
+
+    @Autowired
+    private EntityManager em;
+
+    @Value("${fx.import.dir:./private/imports}")
+    private String importDir;
+    @Value("${fx.rates.file:}")
+    private String ratesFile;
+    @Value("${ledger.batchSize:500}")
+    private int batchSize;
+
+    private volatile ExchangeRateTable table = ExchangeRateTable.EMPTY;
+
+    /**
+     * Loads the rates in memory, importing first the rates file if it is defined.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Enter(log, "load");
+
+        try {
+            if (ratesFile != null && !ratesFile.isBlank()) {
+                Path file = resolveFile(ratesFile);
+                if (file == null) {
+                    ErrorWarning(log, "Exchange rates file not found or outside the import directory", null, ratesFile);
+                } else {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        log.info("Exchange rates imported from {}: {}", ratesFile, importRates(in));
+                    }
+                }
+            }
+
+            reload();
+            log.info("Exchange rates loaded: {}", table.size());
+
+        } catch (ServerErrorException ex) {
+            Error(log, "Error loading exchange rates", ex.getCode(), ex.getMessage());
+        } catch (IOException | RuntimeException ex) {
+            Error(log, "Error loading exchange rates", null, ex.getMessage());
+
+        } finally {
+            Exit(log, "load");
+        }
+    }
+
+    /**
+     * @return Rates in memory. The same instance must be used for all the conversions of one result, so they all use
+     * the same rates.
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public ExchangeRateTable getTable() {
+        return table;
+    }
+
+    /**
+     * @return Rate of a pair on a date or null if there is none.
+     */
+    public BigDecimal getRate(Currency from, Currency to, LocalDate date) {
+        return table.getRate(from, to, date);
+    }
+
+    /**
+     * @see ExchangeRateTable#convert(long, Currency, Currency, LocalDate)
+     */
+    public long convert(long value, Currency from, Currency to, LocalDate date) throws ServerErrorException {
+        return table.convert(value, from, to, date);
+    }
+
+    /**
+     * @see ExchangeRateTable#convert(long[], Currency[], LocalDate[], Currency)
+     */
+    public long[] convert(long[] values, Currency[] currencies, LocalDate[] dates, Currency to) throws ServerErrorException {
+        return table.convert(values, currencies, dates, to);
+    }
+
+    /**
+     * Imports a rates file of the import directory.
+     *
+     * @param fileName File (relative to the import directory)
+     * @return Number of rates imported.
+     *
+     * @throws ServerErrorException
+     *  1 -> File not found or outside the import directory
+     *  2 -> File not valid
+     *  3 -> Error reading the file
+     */
+    public int importFile(String fileName) throws ServerErrorException {
+        try {
+            Path file = resolveFile(fileName);
+            if (file == null) throw new ServerErrorException(1, "File not found or outside the import directory.");
+
+            try (InputStream in = Files.newInputStream(file)) {
+                return importRates(in);
+            }
+        } catch (IOException ex) {
+            throw new ServerErrorException(3, "Error reading exchange rates file.", ex);
+        }
+    }
+
+    /**
+     * @return Number of rates imported.
+     *
+     * @throws ServerErrorException
+     *  2 -> File not valid
+     *  3 -> Error reading the file
+     */
+    public int importRates(InputStream in) throws ServerErrorException {
+        Map<String, ExchangeRate> rates = new LinkedHashMap<>();
+        LocalDate minDate = null;
+        LocalDate maxDate = null;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            long number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                line = line.strip();
+                if (number == 1 && !line.isEmpty() && line.charAt(0) == '\uFEFF') line = line.substring(1);
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                if (number == 1 && line.toLowerCase(Locale.ROOT).startsWith("from")) continue;
+
+                ExchangeRate rate = parseLine(line, number);
+                rates.put(getKey(rate.getFromCurrency(), rate.getToCurrency(), rate.getValidFrom()), rate);
+                if (minDate == null || rate.getValidFrom().isBefore(minDate)) minDate = rate.getValidFrom();
+                if (maxDate == null || rate.getValidFrom().isAfter(maxDate)) maxDate = rate.getValidFrom();
+            }
+        } catch (IOException ex) {
+            throw new ServerErrorException(3, "Error reading exchange rates file.", ex);
+        }
+
+        if (rates.isEmpty()) return 0;
+
+        Map<String, ExchangeRate> existing = new HashMap<>();
+        em.createQuery("SELECT r FROM ExchangeRate r WHERE r.validFrom BETWEEN :minDate AND :maxDate", ExchangeRate.class)
+            .setParameter("minDate", minDate)
+            .setParameter("maxDate", maxDate)
+            .getResultList()
+            .forEach(rate -> existing.put(getKey(rate.getFromCurrency(), rate.getToCurrency(), rate.getValidFrom()), rate));
+
+        int n = 0;
+        for (Map.Entry<String, ExchangeRate> entry : rates.entrySet()) {
+            ExchangeRate current = existing.get(entry.getKey());
+            if (current == null) em.persist(entry.getValue());
+            else current.setRate(entry.getValue().getRate());
+
+            if (++n % batchSize == 0) em.flush();
+        }
+        em.flush();
+
+        reloadAfterCommit();
+        return rates.size();
+    }
+
+    private static ExchangeRate parseLine(String line, long number) throws ServerErrorException {
+        String[] values = line.split("[,;]");
+        if (values.length != 4) throw new ServerErrorException(2, "Line " + number + ": 4 values expected.");
+
+        try {
+            Currency from = Currency.valueOf(values[0].strip().toUpperCase(Locale.ROOT));
+            Currency to = Currency.valueOf(values[1].strip().toUpperCase(Locale.ROOT));
+            LocalDate validFrom = LocalDate.parse(values[2].strip());
+            BigDecimal rate = new BigDecimal(values[3].strip());
+
+            if (from == to) throw new ServerErrorException(2, "Line " + number + ": same currency.");
+            if (rate.signum() <= 0) throw new ServerErrorException(2, "Line " + number + ": rate must be positive.");
+            if (rate.precision() - rate.scale() > ExchangeRate.RATE_PRECISION - ExchangeRate.RATE_SCALE) throw new ServerErrorException(2, "Line " + number + ": rate too big.");
+
+            return ExchangeRate.builder()
+                .fromCurrency(from)
+                .toCurrency(to)
+                .validFrom(validFrom)
+                .rate(rate)
+                .build();
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new ServerErrorException(2, "Line " + number + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    private static String getKey(Currency from, Currency to, LocalDate validFrom) {
+        return from.name() + '/' + to.name() + '/' + validFrom;
+    }
+
+    /**
+     * Reads every rate again into memory.
+     */
+    public void reload() {
+        table = new ExchangeRateTable(em.createQuery("SELECT r FROM ExchangeRate r", ExchangeRate.class).getResultList());
+    }
+
+    private void reloadAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reload();
+            return;
+        }
+
+        // Rates are read again once committed, so the table never has rates that could be rolled back
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    reload();
+                } catch (RuntimeException ex) {
+                    Error(log, "Error reloading exchange rates", null, ex.getMessage());
+                }
+            }
+        });
+    }
+
+    private Path resolveFile(String fileName) throws IOException {
+        Path dir = Path.of(importDir).toAbsolutePath().normalize();
+        Path file = dir.resolve(fileName).normalize();
+        if (!file.startsWith(dir) || !Files.isRegularFile(file)) return null;
+
+        // Symbolic links must not leave the directory either
+        if (!file.toRealPath().startsWith(dir.toRealPath())) return null;
+        return file;
+    }
+
+}
@@ -0,0 +1,179 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.data.entity.financial.ExchangeRate;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.exception.ServerErrorException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Immutable in-memory copy of the exchange rates, indexed by currency pair and date. It is shared by every thread
+ * without locks: ExchangeRateService replaces it when the rates change.
+ *
+ * Values are minor units (long) and are converted exactly: rates are fixed point decimals (10 digits) and the result
+ * is rounded half even to minor units. While the product fits in a long the conversion only uses long arithmetic.
+ *
+ * If a pair has no rates, the inverse of the opposite pair is used.
+ *
+ * @author adriandlph / airondlph
+ */
+public final class ExchangeRateTable {
+
+    public static final ExchangeRateTable EMPTY = new ExchangeRateTable(List.of());
+
+    private static final int CURRENCIES = Currency.values().length;
+    private static final long RATE_UNIT = BigDecimal.ONE.movePointRight(ExchangeRate.RATE_SCALE).longValueExact();
+
+    // [from * CURRENCIES + to] -> valid from date -> rate. Null if the pair has no rates.
+    private final NavigableMap<LocalDate, Rate>[] rates;
+    private final int size;
+
+    /**
+     * Rate as decimal and as long with {@link ExchangeRate#RATE_SCALE} decimals.
+     */
+    private record Rate(BigDecimal value, long unscaled) {
+
+        static Rate of(BigDecimal value) {
+            BigDecimal scaled = value.setScale(ExchangeRate.RATE_SCALE, RoundingMode.HALF_EVEN);
+            return new Rate(scaled, scaled.unscaledValue().longValueExact());
+        }
+
+    }
+
+    @SuppressWarnings("unchecked")
+    public ExchangeRateTable(Collection<ExchangeRate> exchangeRates) {
+        rates = new NavigableMap[CURRENCIES * CURRENCIES];
+
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            int pair = pair(exchangeRate.getFromCurrency(), exchangeRate.getToCurrency());
+            if (rates[pair] == null) rates[pair] = new TreeMap<>();
+            rates[pair].put(exchangeRate.getValidFrom(), Rate.of(exchangeRate.getRate()));
+        }
+        size = exchangeRates.size();
+
+        // Inverse rates of the pairs without own rates
+        for (Currency from : Currency.values()) {
+            for (Currency to : Currency.values()) {
+                NavigableMap<LocalDate, Rate> direct = rates[pair(from, to)];
+                if (from == to || direct == null || rates[pair(to, from)] != null || direct.values().stream().anyMatch(rate -> rate.unscaled() == 0)) continue;
+
+                NavigableMap<LocalDate, Rate> inverse = new TreeMap<>();
+                direct.forEach((date, rate) -> inverse.put(date, Rate.of(BigDecimal.ONE.divide(rate.value(), ExchangeRate.RATE_SCALE, RoundingMode.HALF_EVEN))));
+                rates[pair(to, from)] = inverse;
+            }
+        }
+        for (int i = 0; i < rates.length; i++) {
+            if (rates[i] != null) rates[i] = Collections.unmodifiableNavigableMap(rates[i]);
+        }
+    }
+
+    private static int pair(Currency from, Currency to) {
+        return from.ordinal() * CURRENCIES + to.ordinal();
+    }
+
+    /**
+     * @return Number of stored rates (without inverses).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Rate of a pair on a date (the last one valid from that date or before) or null if there is none.
+     */
+    public BigDecimal getRate(Currency from, Currency to, LocalDate date) {
+        if (from == to) return BigDecimal.ONE;
+
+        Rate rate = findRate(from, to, date);
+        return rate == null ? null : rate.value();
+    }
+
+    private Rate findRate(Currency from, Currency to, LocalDate date) {
+        NavigableMap<LocalDate, Rate> pairRates = rates[pair(from, to)];
+        if (pairRates == null) return null;
+
+        Map.Entry<LocalDate, Rate> entry = pairRates.floorEntry(date);
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * @param value Value in minor units of the from currency
+     * @return Value in minor units of the to currency.
+     *
+     * @throws ServerErrorException
+     *  1 -> No rate for the pair on that date
+     *  2 -> Result overflow
+     */
+    public long convert(long value, Currency from, Currency to, LocalDate date) throws ServerErrorException {
+        if (from == to || value == 0) return value;
+
+        Rate rate = findRate(from, to, date);
+        if (rate == null) throw new ServerErrorException(1, "Exchange rate not found: " + from + "/" + to + " " + date);
+        return convert(value, rate);
+    }
+
+    /**
+     * Converts many values to one currency in a single pass. Consecutive values of the same currency and date reuse
+     * the rate lookup.
+     *
+     * @param values Values in minor units
+     * @param currencies Currency of every value
+     * @param dates Date of every value
+     * @param to Currency of the results
+     * @return Values in minor units of the to currency (same order).
+     *
+     * @throws ServerErrorException
+     *  1 -> No rate for a pair on a date
+     *  2 -> Result overflow
+     */
+    public long[] convert(long[] values, Currency[] currencies, LocalDate[] dates, Currency to) throws ServerErrorException {
+        if (values.length != currencies.length || values.length != dates.length) throw new IllegalArgumentException("Arrays of different length.");
+
+        long[] result = new long[values.length];
+        Currency lastCurrency = null;
+        LocalDate lastDate = null;
+        Rate rate = null;
+
+        for (int i = 0; i < values.length; i++) {
+            Currency from = currencies[i];
+            if (from == to || values[i] == 0) {
+                result[i] = values[i];
+                continue;
+            }
+
+            if (from != lastCurrency || !dates[i].equals(lastDate)) {
+                rate = findRate(from, to, dates[i]);
+                if (rate == null) throw new ServerErrorException(1, "Exchange rate not found: " + from + "/" + to + " " + dates[i]);
+                lastCurrency = from;
+                lastDate = dates[i];
+            }
+            result[i] = convert(values[i], rate);
+        }
+
+        return result;
+    }
+
+    private static long convert(long value, Rate rate) throws ServerErrorException {
+        long unscaled = rate.unscaled();
+        long high = Math.multiplyHigh(value, unscaled);
+        long low = value * unscaled;
+
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            // Product fits in a long: divide by the rate unit rounding half even
+            long quotient = low / RATE_UNIT;
+            long twiceRemainder = Math.abs(low % RATE_UNIT) * 2;
+            if (twiceRemainder > RATE_UNIT || (twiceRemainder == RATE_UNIT && (quotient & 1) != 0)) quotient += low < 0 ? -1 : 1;
+            return quotient;
+        }
+
+        try {
+            return BigDecimal.valueOf(value).multiply(rate.value()).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+        } catch (ArithmeticException ex) {
+            throw new ServerErrorException(2, "Converted value overflow.", ex);
+        }
+    }
+
+}
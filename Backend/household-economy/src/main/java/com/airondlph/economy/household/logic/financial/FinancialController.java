@@ -1,8 +1,11 @@
 package com.airondlph.economy.household.logic.financial;
 
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
 import com.airondlph.economy.household.logic.data.Result;
 import com.airondlph.economy.household.data.model.*;
 
+import java.time.YearMonth;
 import java.util.List;
 
 public interface FinancialController {
@@ -12,6 +15,7 @@ public interface FinancialController {
     public Result<BankVO> getBankByIdVO(UserVO userVO, BankVO bankVO);
     public Result<BankVO> deleteBankByIdVO(UserVO userVO, BankVO bankVO);
     public Result<BankVO> editBankVO(UserVO userVO, BankVO bankVO);
+    public Result<List<Result<BankVO>>> getBanksByIdVO(UserVO userVO, List<Long> ids);
 
     // Bank Account
     public Result<BankAccountVO> createBankAccountVO(UserVO userVO, BankAccountVO bankAccountVO, List<UserVO> ownersVO);
@@ -22,13 +26,27 @@ public interface FinancialController {
     public Result<Void> removeBankAccountOwnerVO(UserVO userVO, BankAccountVO bankAccountVO, UserVO ownerVO); // TODO
 
     public Result<BankAccountCompleteVO> getBankAccountCompleteVO(UserVO userVO, BankAccountVO bankAccountVO);
+    public Result<List<Result<BankAccountCompleteVO>>> getBankAccountsCompleteVO(UserVO userVO, List<Long> ids);
     public Result<List<BankAccountVO>> getOwnerBankAccountsVO(UserVO userVO, UserVO ownerVO);
+    public Result<NetWorthVO> getOwnerNetWorthVO(UserVO userVO, UserVO ownerVO, Currency currency);
 
     public Result<BankTransferVO> getBankTransferByIdVO(UserVO userVO, BankTransferVO bankTransferVO);
+    public Result<List<Result<BankTransferVO>>> getBankTransfersByIdVO(UserVO userVO, List<Long> ids);
     public Result<BankTransferVO> createBankTransferVO(UserVO userVO, BankTransferVO bankTransferVO);
+    public Result<List<BankTransferBulkItemVO>> createBankTransfersVO(UserVO userVO, List<BankTransferVO> bankTransfersVO);
+
+    public Result<OperationHistoryPageVO> getBankAccountOperationsVO(UserVO userVO, BankAccountVO bankAccountVO, OperationHistoryFilterVO filterVO);
+    public Result<List<MonthlyTotalVO>> getBankAccountMonthlyTotalsVO(UserVO userVO, BankAccountVO bankAccountVO, YearMonth from, YearMonth to);
+    public Result<List<MonthlyTotalVO>> getOwnerMonthlyTotalsVO(UserVO userVO, UserVO ownerVO, YearMonth from, YearMonth to);
+    public Result<SpendingReportVO> getOwnerSpendingReportVO(UserVO userVO, UserVO ownerVO, Currency currency, OperationType operationType, YearMonth from, YearMonth to, Integer limit);
+
+    // Exchange rates
+    public Result<ExchangeRateVO> getExchangeRateVO(UserVO userVO, ExchangeRateVO exchangeRateVO);
+    public Result<Integer> importExchangeRatesVO(UserVO userVO, String file);
 
     // Credit Card
     public Result<CreditCardVO> getCreditCardByIdVO(UserVO userVO, CreditCardVO creditCardVO);
+    public Result<List<Result<CreditCardVO>>> getCreditCardsByIdVO(UserVO userVO, List<Long> ids);
     public Result<CreditCardVO> createCreditCardVO(UserVO userVO, CreditCardVO creditCardVO);
     public Result<CreditCardVO> deleteCreditCardVO(UserVO userVO, CreditCardVO creditCardVO);
     public Result<CreditCardVO> editCreditCardVO(UserVO userVO, CreditCardVO creditCardVO);
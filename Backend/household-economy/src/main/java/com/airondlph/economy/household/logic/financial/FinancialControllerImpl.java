@@ -1,7 +1,11 @@
 package com.airondlph.economy.household.logic.financial;
 
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationSource;
 import com.airondlph.economy.household.data.enumeration.OperationType;
 import com.airondlph.economy.household.logic.data.Result;
+import com.airondlph.economy.household.logic.users.AuthenticationContext;
+import com.airondlph.economy.household.logic.users.UserPermissions;
 import com.airondlph.economy.household.logic.users.UsersController;
 import com.airondlph.economy.household.data.entity.financial.*;
 import com.airondlph.economy.household.data.entity.user.User;
@@ -11,15 +15,31 @@ import com.airondlph.economy.household.exception.ServerErrorException;
 import com.airondlph.economy.household.util.ValidationResult;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
+import jakarta.persistence.PersistenceException;
 import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static com.airondlph.economy.household.util.LogUtils.*;
 
@@ -36,6 +56,48 @@ public class FinancialControllerImpl implements FinancialController {
 
     @Autowired
     private UsersController usersController;
+    @Autowired
+    private LedgerService ledgerService;
+    @Autowired
+    private OperationViewService operationViewService;
+    @Autowired
+    private OperationRollupService operationRollupService;
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+    @Autowired
+    private NetWorthService netWorthService;
+    @Autowired
+    private BankTransferFingerprintService fingerprintService;
+    @Autowired
+    private SpendingReportService spendingReportService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${bankTransfer.bulk.maxSize:5000}")
+    private int bulkMaxSize;
+    @Value("${bankTransfer.bulk.batchSize:50}")
+    private int bulkBatchSize;
+    @Value("${batchGet.maxSize:100}")
+    private int batchGetMaxSize;
+
+    private static final int OPERATION_HISTORY_DEFAULT_LIMIT = 50;
+    private static final int OPERATION_HISTORY_MAX_LIMIT = 200;
+    private static final int MONTHLY_TOTALS_DEFAULT_MONTHS = 12;
+    private static final int MONTHLY_TOTALS_MAX_MONTHS = 120;
+    private static final int SPENDING_REPORT_DEFAULT_LIMIT = 10;
+    private static final int SPENDING_REPORT_MAX_LIMIT = 100;
+    private static final long OPERATION_HISTORY_PERMISSIONS = UserPermissions.mask(Permission.GET_INCOME_OPERATION, Permission.GET_OUTCOME_OPERATION);
+
+    /**
+     * @param userVO User that does the operation
+     * @return User that does the operation or null if it is not defined. The user of the request was already
+     * loaded by the authentication filter, so only a reference is returned for it instead of querying it again.
+     */
+    private User getOperationUser(UserVO userVO) {
+        if (userVO == null || userVO.getId() == null) return null;
+        if (AuthenticationContext.getAuthenticatedUser(userVO.getId()) != null) return em.getReference(User.class, userVO.getId());
+        return em.find(User.class, userVO.getId());
+    }
 
     /**
      *
@@ -58,7 +120,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<BankVO> createBankVO(UserVO userVO, BankVO bankVO) {
         Enter(log, "createBankVO");
 
-        User user = em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<Bank> creationResult = createBank(user, bankVO);
 
         try {
@@ -109,8 +171,7 @@ public class FinancialControllerImpl implements FinancialController {
                 return Result.create(3);
             }
         } catch (ServerErrorException ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
-            Error(log, "Error getting user permissions.", ex.getCode(), ex.getMessage());
+            Error(log, "Error getting user permissions.", ex.getCode(), ex);
             Exit(log, "createBank");
             return Result.create(-1);
         }
@@ -142,9 +203,8 @@ public class FinancialControllerImpl implements FinancialController {
         return ValidationResult.ok();
     }
 
-    private boolean userCanCreateBank(List<Permission> permissions) {
-        if (permissions.contains(Permission.SYSTEM)) return true;
-        if (permissions.contains(Permission.ADMIN)) return true;
+    private boolean userCanCreateBank(UserPermissions permissions) {
+        if (permissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
         if (permissions.contains(Permission.ADD_BANK)) return true;
 
         return false;
@@ -171,7 +231,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<BankVO> getBankByIdVO(UserVO userVO, BankVO bankVO) {
         Enter(log, "getBankByIdVO");
 
-        User user = em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<Bank> getResult = getBankById(user, bankVO);
 
         try {
@@ -219,8 +279,7 @@ public class FinancialControllerImpl implements FinancialController {
                 return Result.create(4);
             }
         } catch (ServerErrorException ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
-            Error(log, "Error getting user permissions.", ex.getCode(), ex.getMessage());
+            Error(log, "Error getting user permissions.", ex.getCode(), ex);
             Exit(log, "getBankById");
             return Result.create(-1);
         }
@@ -235,9 +294,8 @@ public class FinancialControllerImpl implements FinancialController {
         return Result.create(bank);
     }
 
-    private boolean userCanGetBank(List<Permission> permissions) {
-        if (permissions.contains(Permission.SYSTEM)) return true;
-        if (permissions.contains(Permission.ADMIN)) return true;
+    private boolean userCanGetBank(UserPermissions permissions) {
+        if (permissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
         if (permissions.contains(Permission.GET_BANK)) return true;
 
         return false;
@@ -264,7 +322,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<BankVO> deleteBankByIdVO(UserVO userVO, BankVO bankVO) {
         Enter(log, "deleteBankByIdVO");
 
-        User user = em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         try {
             return deleteBankById(user, bankVO);
         } finally {
@@ -309,8 +367,7 @@ public class FinancialControllerImpl implements FinancialController {
                 return Result.create(4);
             }
         } catch (ServerErrorException ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
-            Error(log, "Error getting user permissions.", ex.getCode(), ex.getMessage());
+            Error(log, "Error getting user permissions.", ex.getCode(), ex);
             Exit(log, "deleteBankById");
             return Result.create(-1);
         }
@@ -327,17 +384,15 @@ public class FinancialControllerImpl implements FinancialController {
             deleteBank(bank);
             log.info("Bank deleted!");
         } catch (Exception ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
-            Error(log, "Error deleting bank.", null, ex.getMessage());
+            Error(log, "Error deleting bank.", null, ex);
         }
 
         Exit(log, "deleteBankById");
         return Result.create(deletedBankVO);
     }
 
-    private boolean userCanDeleteBank(List<Permission> permissions) {
-        if (permissions.contains(Permission.SYSTEM)) return true;
-        if (permissions.contains(Permission.ADMIN)) return true;
+    private boolean userCanDeleteBank(UserPermissions permissions) {
+        if (permissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
         if (permissions.contains(Permission.DELETE_BANK)) return true;
 
         return false;
@@ -377,7 +432,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<BankVO> editBankVO(UserVO userVO, BankVO bankVO) {
         Enter(log, "editBankVO");
 
-        User user = em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         try {
             Result<Bank> editionResult = editBank(user, bankVO);
             if (!editionResult.isValid()) return Result.create(editionResult.getErrCode());
@@ -428,8 +483,7 @@ public class FinancialControllerImpl implements FinancialController {
                 return Result.create(3);
             }
         } catch (ServerErrorException ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
-            Error(log, "Error getting user permissions.", ex.getCode(), ex.getMessage());
+            Error(log, "Error getting user permissions.", ex.getCode(), ex);
             Exit(log, "editBank");
             return Result.create(-1);
         }
@@ -442,11 +496,13 @@ public class FinancialControllerImpl implements FinancialController {
 
         try {
             log.info("Editing bank...");
-            if (bankVO.getName() != null) bank.setName(bankVO.getName());
+            if (bankVO.getName() != null && !bankVO.getName().equals(bank.getName())) {
+                bank.setName(bankVO.getName());
+                operationViewService.updateBankName(bank.getId(), bank.getName());
+            }
             log.info("Bank edited!");
         } catch (Exception ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
-            Error(log, "Error editing bank.", null, ex.getMessage());
+            Error(log, "Error editing bank.", null, ex);
         }
 
         Exit(log, "editBank");
@@ -465,9 +521,8 @@ public class FinancialControllerImpl implements FinancialController {
         return ValidationResult.ok();
     }
 
-    private boolean userCanEditBank(List<Permission> permissions) {
-        if (permissions.contains(Permission.SYSTEM)) return true;
-        if (permissions.contains(Permission.ADMIN)) return true;
+    private boolean userCanEditBank(UserPermissions permissions) {
+        if (permissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
         if (permissions.contains(Permission.EDIT_BANK)) return true;
 
         return false;
@@ -477,7 +532,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<BankAccountVO> createBankAccountVO(UserVO userVO, BankAccountVO bankAccountVO, List<UserVO> ownersVO) {
         Enter(log, "createBankAccountVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<BankAccount> creationResult = createBankAccount(user, bankAccountVO, ownersVO);
 
         Exit(log, "createBankAccountVO");
@@ -526,8 +581,7 @@ public class FinancialControllerImpl implements FinancialController {
                 return Result.create(10);
             }
         } catch (ServerErrorException ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
-            Error(log, "Error getting user permissions.", ex.getCode(), ex.getMessage());
+            Error(log, "Error getting user permissions.", ex.getCode(), ex);
             Exit(log, "createBankAccount");
             return Result.create(-1);
         }
@@ -542,8 +596,7 @@ public class FinancialControllerImpl implements FinancialController {
         } catch (NoResultException ex) {
             owners = null;
         } catch (Exception ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
-            Error(log, "Error searching bank account owners.", null, ex.getMessage());
+            Error(log, "Error searching bank account owners.", null, ex);
             Exit(log, "createBankAccount");
             return Result.create(-1);
         }
@@ -556,8 +609,7 @@ public class FinancialControllerImpl implements FinancialController {
         try {
             bank = em.find(Bank.class, bankAccountVO.getBankVO().getId());
         } catch (Exception ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
-            Error(log, "Error getting bank account's bank.", null, ex.getMessage());
+            Error(log, "Error getting bank account's bank.", null, ex);
             Exit(log, "createBankAccount");
             return Result.create(-1);
         }
@@ -574,8 +626,7 @@ public class FinancialControllerImpl implements FinancialController {
             em.persist(bankAccount);
             log.info("Bank account created!");
         } catch (Exception ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
-            Error(log, "Error creating bank account.", null, ex.getMessage());
+            Error(log, "Error creating bank account.", null, ex);
             Exit(log, "createBankAccount");
             return Result.create(-1);
         }
@@ -585,12 +636,12 @@ public class FinancialControllerImpl implements FinancialController {
             for (User owner : owners) {
                 BankAccountOwner bankAccountOwner = BankAccountOwner.builder().id(new BankAccountOwnerPK(bankAccount, owner)).build();
                 em.persist(bankAccountOwner);
+                netWorthService.invalidateOwner(owner.getId());
             }
             log.info("All bank account owners created!");
 
         } catch (Exception ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
-            Error(log, "Error creating bank account owner.", null, ex.getMessage());
+            Error(log, "Error creating bank account owner.", null, ex);
 
             log.info("Rolling back...");
             // TODO: ROLLBACK
@@ -629,9 +680,8 @@ public class FinancialControllerImpl implements FinancialController {
         return ValidationResult.ok();
     }
 
-    private boolean userCanCreateBankAccount(List<Permission> permissions) {
-        if (permissions.contains(Permission.SYSTEM)) return true;
-        if (permissions.contains(Permission.ADMIN)) return true;
+    private boolean userCanCreateBankAccount(UserPermissions permissions) {
+        if (permissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
         if (permissions.contains(Permission.ADD_BANK_ACCOUNT)) return true;
 
         return false;
@@ -640,7 +690,7 @@ public class FinancialControllerImpl implements FinancialController {
     @Override
     public Result<BankAccountCompleteVO> getBankAccountCompleteVO(UserVO userVO, BankAccountVO bankAccountVO) {
         Enter(log, "getBankAccountCompleteVO");
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<BankAccountCompleteVO> getResult = getBankAccountComplete(user, bankAccountVO);
         Exit(log, "getBankAccountCompleteVO");
         return getResult;
@@ -675,10 +725,10 @@ public class FinancialControllerImpl implements FinancialController {
         }
 
         BankAccount bankAccount;
+        List<User> owners = new ArrayList<>();
         try {
-            bankAccount = em.find(BankAccount.class, bankAccountVO.getId());
+            bankAccount = findBankAccountComplete(bankAccountVO.getId(), owners);
         } catch (Exception ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
             Error(log, "Error getting bank account.", null, ex.getMessage());
             Exit(log, "getBankAccountComplete");
             return Result.create(-1);
@@ -690,16 +740,7 @@ public class FinancialControllerImpl implements FinancialController {
             return Result.create(3);
         }
 
-        List<User> owners;
-        try {
-            owners = getBankAccountOwners(bankAccount);
-        } catch (Exception ex) {
-            Error(log, "Error getting bank account owners.", null, ex.getMessage());
-            Exit(log, "getBankAccountComplete");
-            return Result.create(-1);
-        }
-
-        List<Permission> userPermissions;
+        UserPermissions userPermissions;
         try {
             userPermissions = usersController.getUserPermissions(user);
         } catch (ServerErrorException ex) {
@@ -724,9 +765,31 @@ public class FinancialControllerImpl implements FinancialController {
         return Result.create(bankAccountCompleteVO);
     }
 
-    private boolean userHasPermissionToGetBankAccounts(List<Permission> userPermissions, User user, List<User> bankAccountOwners) {
-        if (userPermissions.contains(Permission.SYSTEM)) return true;
-        if (userPermissions.contains(Permission.ADMIN)) return true;
+    /**
+     * Loads a bank account with its bank and its owners in a single query (one row per owner), so the number of
+     * statements does not grow with the owners.
+     *
+     * @param owners List where the owners are added
+     * @return Bank account or null if it does not exist.
+     */
+    private BankAccount findBankAccountComplete(Long bankAccountId, List<User> owners) {
+        List<Object[]> rows = em.createQuery(
+                "SELECT ba, o FROM BankAccount ba JOIN FETCH ba.bank " +
+                "LEFT JOIN BankAccountOwner bao ON bao.id.bankAccount = ba LEFT JOIN bao.id.owner o " +
+                "WHERE ba.id = :bankAccountId", Object[].class)
+            .setParameter("bankAccountId", bankAccountId)
+            .getResultList();
+
+        BankAccount bankAccount = null;
+        for (Object[] row : rows) {
+            bankAccount = (BankAccount) row[0];
+            if (row[1] != null) owners.add((User) row[1]);
+        }
+        return bankAccount;
+    }
+
+    private boolean userHasPermissionToGetBankAccounts(UserPermissions userPermissions, User user, List<User> bankAccountOwners) {
+        if (userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         // Direct owner
         if (userPermissions.contains(Permission.GET_BANK_ACCOUNT) && bankAccountOwners.contains(user)) return true;
@@ -749,7 +812,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<List<BankAccountVO>> getOwnerBankAccountsVO(UserVO userVO, UserVO ownerVO) {
         Enter(log, "getOwnerBankAccountsVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         User owner = (ownerVO == null || ownerVO.getId() == null) ? null : em.find(User.class, ownerVO.getId());
         Result<List<BankAccount>> resultAccounts = getOwnerBankAccounts(user, owner);
 
@@ -796,8 +859,7 @@ public class FinancialControllerImpl implements FinancialController {
                 return Result.create(4);
             }
         } catch (ServerErrorException ex) {
-            log.error("{}\n{}");
-            Error(log, "Error geting user permission to check if user can get owner bank accounts.", ex.getCode(), ex.getMessage());
+            Error(log, "Error geting user permission to check if user can get owner bank accounts.", ex.getCode(), ex);
             Exit(log, "getOwnerBankAccounts");
             return Result.create(-1);
         }
@@ -805,18 +867,108 @@ public class FinancialControllerImpl implements FinancialController {
         try {
             return Result.create((List<BankAccount>)query.getResultList());
         } catch (Exception ex) {
-            log.error("{}\n{}", ex.getMessage(), ex.getStackTrace());
-            Error(log, "Error while getting owner bank accounts.", null, ex.getMessage());
+            Error(log, "Error while getting owner bank accounts.", null, ex);
             return Result.create(-1);
         } finally {
             Exit(log, "getOwnerBankAccounts");
         }
     }
 
+    @Override
+    public Result<NetWorthVO> getOwnerNetWorthVO(UserVO userVO, UserVO ownerVO, Currency currency) {
+        Enter(log, "getOwnerNetWorthVO");
+
+        User user = getOperationUser(userVO);
+        User owner = (ownerVO == null || ownerVO.getId() == null) ? null : em.find(User.class, ownerVO.getId());
+        try {
+            return getOwnerNetWorth(user, owner, currency);
+        } finally {
+            Exit(log, "getOwnerNetWorthVO");
+        }
+    }
+
+    /**
+     * Get the balances of every bank account of an owner grouped by currency, optionally converted to one currency
+     * with today's exchange rates.
+     *
+     * @param user User that wants to get the balances
+     * @param owner Owner of the bank accounts
+     * @param currency Currency of the total (no total if null)
+     *
+     * @return Balances or error code.
+     * Error codes:
+     *      -1 -> Server error
+     *       0 -> Undefined
+     *       1 -> General error
+     *       2 -> User not defined or does not exist
+     *       3 -> Owner not defined or does not exist
+     *       4 -> User does not have permission to get this data
+     *      10 -> Exchange rate not found
+     */
+    private Result<NetWorthVO> getOwnerNetWorth(User user, User owner, Currency currency) {
+        if (user == null) return Result.create(2);
+        if (owner == null) return Result.create(3);
+
+        try {
+            if (!userCanGetOwnerBankAccounts(user, owner)) {
+                log.warn("User does not have permission to get owner net worth.");
+                return Result.create(4);
+            }
+        } catch (ServerErrorException ex) {
+            Error(log, "Error geting user permission to check if user can get owner net worth.", ex.getCode(), ex.getMessage());
+            return Result.create(-1);
+        }
+
+        List<CurrencyBalanceVO> balances;
+        try {
+            balances = netWorthService.getOwnerBalances(owner.getId());
+        } catch (Exception ex) {
+            Error(log, "Error while getting owner net worth.", null, ex.getMessage());
+            return Result.create(-1);
+        }
+
+        NetWorthVO netWorth = NetWorthVO.builder()
+            .ownerId(owner.getId())
+            .balances(balances)
+            .build();
+        if (currency == null) return Result.create(netWorth);
+
+        // One pass with the same rates for every currency
+        LocalDate today = LocalDate.now();
+        long[] values = new long[balances.size()];
+        Currency[] currencies = new Currency[balances.size()];
+        LocalDate[] dates = new LocalDate[balances.size()];
+        for (int i = 0; i < balances.size(); i++) {
+            values[i] = balances.get(i).getBalance();
+            currencies[i] = balances.get(i).getCurrency();
+            dates[i] = today;
+        }
+
+        try {
+            long total = 0L;
+            for (long value : exchangeRateService.getTable().convert(values, currencies, dates, currency)) total = Math.addExact(total, value);
+
+            netWorth.setCurrency(currency);
+            netWorth.setTotal(total);
+            netWorth.setRateDate(today);
+        } catch (ServerErrorException ex) {
+            if (ex.getCode() == 1) {
+                log.info("Exchange rate not found: {}", ex.getMessage());
+                return Result.create(10);
+            }
+            Error(log, "Error converting owner net worth.", ex);
+            return Result.create(-1);
+        } catch (ArithmeticException ex) {
+            Error(log, "Error converting owner net worth.", null, ex.getMessage());
+            return Result.create(-1);
+        }
+
+        return Result.create(netWorth);
+    }
+
     private boolean userCanGetOwnerBankAccounts(User user, User owner) throws ServerErrorException {
-        List<Permission> permissions = usersController.getUserPermissions(user);
-        if (permissions.contains(Permission.SYSTEM)) return true;
-        if (permissions.contains(Permission.ADMIN)) return true;
+        UserPermissions permissions = usersController.getUserPermissions(user);
+        if (permissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
         if (user.equals(owner) && permissions.contains(Permission.GET_BANK_ACCOUNT)) return true;
 
         return false;
@@ -826,7 +978,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<BankAccountVO> deleteBankAccountByIdVO(UserVO userVO, BankAccountVO bankAccountVO) {
         Enter(log, "deleteBankAccountVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<BankAccountVO> deletionResult = deleteBankAccountById(user, bankAccountVO);
 
         Exit(log, "deleteBankAccountVO");
@@ -870,8 +1022,7 @@ public class FinancialControllerImpl implements FinancialController {
                 return Result.create(5);
             }
         } catch (ServerErrorException ex) {
-            log.error("{}", ex);
-            Error(log, "Error checking if user can delete this bank account.", ex.getCode(), ex.getMessage());
+            Error(log, "Error checking if user can delete this bank account.", ex.getCode(), ex);
             Exit(log, "deleteBankAccountById");
             return Result.create(-1);
         }
@@ -893,10 +1044,9 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanDeleteBankAccount(User user, BankAccount bankAccount) throws ServerErrorException {
-        List<Permission> userPermissions = usersController.getUserPermissions(user);
+        UserPermissions userPermissions = usersController.getUserPermissions(user);
 
-        if (userPermissions.contains(Permission.SYSTEM)) return true;
-        if (userPermissions.contains(Permission.ADMIN)) return true;
+        if (userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         // Direct owner
         if (userPermissions.contains(Permission.DELETE_BANK_ACCOUNT)) {
@@ -925,11 +1075,17 @@ public class FinancialControllerImpl implements FinancialController {
         // Dependencies
         log.info("Deleting bank account dependencies...");
 
+            // While the owners still exist
+            netWorthService.invalidateBankAccount(bankAccount.getId());
+
             rowsDeleted = em.createQuery("DELETE FROM BankAccountOwner bao WHERE bao.id.bankAccount=:bankAccount")
                 .setParameter("bankAccount", bankAccount)
                 .executeUpdate();
             log.info("\t- Bank account owners deleted: {}", rowsDeleted);
 
+            operationRollupService.deleteBankAccount(bankAccount.getId());
+            log.info("\t- Bank account monthly totals deleted");
+
         log.info("All bank account dependencies deleted!");
 
         // Bank Account
@@ -944,7 +1100,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<List<UserVO>> getBankAccountOwnersVO(UserVO userVO, BankAccountVO bankAccountVO) {
         Enter(log, "getBankAccountOwnersVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<List<User>> bankAccountOwners = getBankAccountOwners(user, bankAccountVO);
 
         if (!bankAccountOwners.isValid()) {
@@ -1003,7 +1159,7 @@ public class FinancialControllerImpl implements FinancialController {
         // This user is not one of the owners
         if (!owners.contains(user)) {
 
-            List<Permission> userPermissions;
+            UserPermissions userPermissions;
             try {
                 userPermissions = usersController.getUserPermissions(user);
             } catch (ServerErrorException ex) {
@@ -1013,8 +1169,7 @@ public class FinancialControllerImpl implements FinancialController {
             }
 
             // If this user is not system and is not admin
-            if (!userPermissions.contains(Permission.SYSTEM)
-                && !userPermissions.contains(Permission.ADMIN)) {
+            if (!userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) {
 
                 log.warn("This user cannot get bank account owner.");
                 Exit(log, "getBankAccountOwners");
@@ -1030,7 +1185,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<Void> addBankAccountOwnerVO(UserVO userVO, BankAccountVO bankAccountVO, UserVO newOwnerVO) {
         Enter(log, "addBankAccountOwnerVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         BankAccount bankAccount = (bankAccountVO == null || bankAccountVO.getId() == null) ? null : em.find(BankAccount.class, bankAccountVO.getId());
         User newOwner = (newOwnerVO == null || newOwnerVO.getId() == null) ? null : em.find(User.class, newOwnerVO.getId());
 
@@ -1106,6 +1261,7 @@ public class FinancialControllerImpl implements FinancialController {
 
             log.info("Adding bank account owner...");
             em.persist(bao);
+            netWorthService.invalidateOwner(newOwner.getId());
             log.info("Bank account owner added!");
         } catch (Exception ex) {
             Error(log, "Error adding new owner to a bank account.", ex);
@@ -1118,10 +1274,9 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanAddBankAccountOwner(User user, BankAccount bankAccount) throws ServerErrorException {
-        List<Permission> userPermissions = usersController.getUserPermissions(user);
+        UserPermissions userPermissions = usersController.getUserPermissions(user);
 
-        if (userPermissions.contains(Permission.SYSTEM)) return true;
-        if (userPermissions.contains(Permission.ADMIN)) return true;
+        if (userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         List<User> owners = null;
         if (userPermissions.contains(Permission.ADD_BANK_ACCOUNT_OWNER)) {
@@ -1139,7 +1294,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<Void> removeBankAccountOwnerVO(UserVO userVO, BankAccountVO bankAccountVO, UserVO ownerVO) {
         Enter(log, "removeBankAccountOwnerVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         BankAccount bankAccount = (bankAccountVO == null || bankAccountVO.getId() == null) ? null : em.find(BankAccount.class, bankAccountVO.getId());
         User owner = (ownerVO == null || ownerVO.getId() == null) ? null : em.find(User.class, ownerVO.getId());
 
@@ -1212,6 +1367,7 @@ public class FinancialControllerImpl implements FinancialController {
 
             log.info("Removing bank account owner...");
             em.remove(bao);
+            netWorthService.invalidateOwner(owner.getId());
             log.info("Bank account owner removed!");
         } catch (Exception ex) {
             Error(log, "Error removing owner of the bank account.", ex);
@@ -1224,10 +1380,9 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanRemoveBankAccountOwner(User user, BankAccount bankAccount) throws ServerErrorException {
-        List<Permission> userPermissions = usersController.getUserPermissions(user);
+        UserPermissions userPermissions = usersController.getUserPermissions(user);
 
-        if (userPermissions.contains(Permission.SYSTEM)) return true;
-        if (userPermissions.contains(Permission.ADMIN)) return true;
+        if (userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         List<User> owners = null;
         if (userPermissions.contains(Permission.REMOVE_BANK_ACCOUNT_OWNER)) {
@@ -1245,7 +1400,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<BankTransferVO> getBankTransferByIdVO(UserVO userVO, BankTransferVO bankTransferVO) {
         Enter(log, "getBankTransferByIdVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<BankTransfer> bankTransferResult = getBankTransferById(user, bankTransferVO);
 
         Exit(log, "getBankTransferByIdVO");
@@ -1309,10 +1464,9 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanGetBankTransfer(User user, BankTransfer bankTransfer) throws ServerErrorException {
-        List<Permission> userPermission = usersController.getUserPermissions(user);
+        UserPermissions userPermission = usersController.getUserPermissions(user);
 
-        if (userPermission.contains(Permission.SYSTEM)) return true;
-        if (userPermission.contains(Permission.ADMIN)) return true;
+        if (userPermission.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         if (userPermission.contains(Permission.GET_INCOME_OPERATION)) {
             List<User> ownersMe = getBankAccountOwners(bankTransfer.getMe());
@@ -1326,7 +1480,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<BankTransferVO> createBankTransferVO(UserVO userVO, BankTransferVO bankTransferVO) {
         Enter(log, "createBankTransferVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<BankTransfer> bankTransferResult = createBankTransfer(user, bankTransferVO);
 
         Exit(log, "createBankTransferVO");
@@ -1365,6 +1519,11 @@ public class FinancialControllerImpl implements FinancialController {
      *       17 -> Bank transfer conversion not valid.
      *       18 -> Bank transfer operation date not defined.
      *       19 -> Bank transfer operation type not defined.
+     *       20 -> Bank transfer currencies do not match the bank account 'me' currency.
+     *       22 -> Bank transfer created at the same time by another request.
+     *
+     * If the same bank transfer already exists (same account, type, value, currency, apply date and concept), it is
+     * returned instead of creating another one.
      *
      */
     public Result<BankTransfer> createBankTransfer(User user, BankTransferVO bankTransferVO) {
@@ -1397,6 +1556,12 @@ public class FinancialControllerImpl implements FinancialController {
             return Result.create(11);
         }
 
+        if (!ledgerService.isCurrencyValid(me, bankTransferVO.getFromCurrency(), bankTransferVO.getToCurrency())) {
+            log.info("Bank transfer currencies do not match bank account 'me' currency.");
+            Exit(log, "createBankTransfer");
+            return Result.create(20);
+        }
+
         try {
             if (!userCanCreateBankTransfer(user, me, bankTransferVO)) {
                 log.warn("User does not have permission to add this bank transfer.");
@@ -1409,6 +1574,20 @@ public class FinancialControllerImpl implements FinancialController {
             return Result.create(-1);
         }
 
+        String fingerprint = BankTransferFingerprintService.getFingerprint(me.getId(), bankTransferVO.getOperationType(), bankTransferVO.getValue(),
+            bankTransferVO.getFromCurrency(), bankTransferVO.getApplyWhen(), bankTransferVO.getConcept());
+        try {
+            BankTransfer existing = fingerprintService.findExisting(me.getId(), fingerprint);
+            if (existing != null) {
+                log.info("Bank transfer already exists: {}", existing.getId());
+                Exit(log, "createBankTransfer");
+                return Result.create(existing);
+            }
+        } catch (Exception ex) {
+            Error(log, "Error looking for existing bank transfer.", null, ex.getMessage());
+            Exit(log, "createBankTransfer");
+            return Result.create(-1);
+        }
 
         BankTransfer bankTransfer = BankTransfer.builder()
             .concept(bankTransferVO.getConcept())
@@ -1422,17 +1601,49 @@ public class FinancialControllerImpl implements FinancialController {
             .applyWhen(bankTransferVO.getApplyWhen())
             .me(me)
             .other(other)
+            .fingerprint(fingerprint)
             .lastModification(LocalDateTime.now())
             .build();
 
         try {
             em.persist(bankTransfer);
+            em.flush();
+        } catch (PersistenceException ex) {
+            if (!isConstraintViolation(ex)) {
+                Error(log, "Error saving bank transfer in DB.", ex);
+                Exit(log, "createBankTransfer");
+                return Result.create(-1);
+            }
+            // Created at the same time by another request
+            log.info("Bank transfer already exists (concurrent creation).");
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            Exit(log, "createBankTransfer");
+            return Result.create(22);
         } catch (Exception ex) {
             Error(log, "Error saving bank transfer in DB.", ex);
             Exit(log, "createBankTransfer");
             return Result.create(-1);
         }
 
+        try {
+            ledgerService.applyIfDue(bankTransfer);
+        } catch (ServerErrorException ex) {
+            Error(log, "Error applying bank transfer to bank account balance.", ex);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            Exit(log, "createBankTransfer");
+            return Result.create(-1);
+        }
+
+        try {
+            operationViewService.save(bankTransfer);
+        } catch (Exception ex) {
+            Error(log, "Error saving bank transfer in operation view.", null, ex.getMessage());
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            Exit(log, "createBankTransfer");
+            return Result.create(-1);
+        }
+        fingerprintService.register(me.getId(), fingerprint);
+
         Exit(log, "createBankTransfer");
         return Result.create(bankTransfer);
     }
@@ -1482,10 +1693,9 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanCreateBankTransfer(User user, BankAccount bankAccountMe, BankTransferVO bankTransferVO) throws ServerErrorException {
-        List<Permission> userPermission = usersController.getUserPermissions(user);
+        UserPermissions userPermission = usersController.getUserPermissions(user);
 
-        if (userPermission.contains(Permission.SYSTEM)) return true;
-        if (userPermission.contains(Permission.ADMIN)) return true;
+        if (userPermission.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         List<User> ownersMe = null;
         if (OperationType.INCOME.equals(bankTransferVO.getOperationType()) && userPermission.contains(Permission.ADD_INCOME_OPERATION)) {
@@ -1501,11 +1711,280 @@ public class FinancialControllerImpl implements FinancialController {
         return false;
     }
 
+    @Override
+    public Result<List<BankTransferBulkItemVO>> createBankTransfersVO(UserVO userVO, List<BankTransferVO> bankTransfersVO) {
+        Enter(log, "createBankTransfersVO");
+
+        User user = getOperationUser(userVO);
+        try {
+            return createBankTransfers(user, bankTransfersVO);
+        } finally {
+            Exit(log, "createBankTransfersVO");
+        }
+    }
+
+    /**
+     * Creates many bank transfers at once. Every row is validated like a single bank transfer creation and the rows
+     * that are not valid are skipped, so the result has one item per row with the created id or its error code.
+     *
+     * Accounts are loaded with one query and permissions are checked once per account. Bank transfers are inserted
+     * in JDBC batches, clearing the persistence context after each one so memory does not grow with the request.
+     *
+     * @param user User that wants to do this operation.
+     * @param bankTransfersVO Bank transfers data
+     *
+     * @return Result of each row or error code.
+     *
+     * Error codes:
+     *       -1 -> Server error.
+     *        0 -> Undefined.
+     *        1 -> General error.
+     *        2 -> User does not exist or not defined.
+     *       10 -> Bank transfers not defined.
+     *       21 -> Too many bank transfers.
+     *       22 -> A bank transfer was created at the same time by another request (nothing is created).
+     *
+     * Row error codes: same as {@link #createBankTransfer(User, BankTransferVO)}. Rows that already exist (or are
+     * repeated in the request) are not created again, they get the id of the existing bank transfer.
+     *
+     */
+    public Result<List<BankTransferBulkItemVO>> createBankTransfers(User user, List<BankTransferVO> bankTransfersVO) {
+        long start = System.nanoTime();
+
+        if (user == null) {
+            log.info("User not defined.");
+            return Result.create(2);
+        }
+
+        if (bankTransfersVO == null || bankTransfersVO.isEmpty()) {
+            log.info("Bank transfers not defined.");
+            return Result.create(10);
+        }
+
+        if (bankTransfersVO.size() > bulkMaxSize) {
+            log.info("Too many bank transfers: {}", bankTransfersVO.size());
+            return Result.create(21);
+        }
+
+        List<BankTransferBulkItemVO> results = new ArrayList<>(bankTransfersVO.size());
+        Set<Long> accountIds = new HashSet<>();
+        for (int i = 0; i < bankTransfersVO.size(); i++) {
+            BankTransferVO bankTransferVO = bankTransfersVO.get(i);
+            BankTransferBulkItemVO item = BankTransferBulkItemVO.builder().index(i).build();
+            results.add(item);
+
+            ValidationResult validationResult = isBankTransferCreationValid(bankTransferVO);
+            if (!validationResult.isValid()) {
+                item.setErrCode(9 + validationResult.getErrCode());
+                continue;
+            }
+            accountIds.add(bankTransferVO.getMe().getId());
+            accountIds.add(bankTransferVO.getOther().getId());
+        }
+
+        Map<Long, BankAccount> accounts = new HashMap<>();
+        UserPermissions userPermissions;
+        Set<Long> ownedAccountIds;
+        try {
+            if (!accountIds.isEmpty()) {
+                em.createQuery("SELECT ba FROM BankAccount ba JOIN FETCH ba.bank WHERE ba.id IN :ids", BankAccount.class)
+                    .setParameter("ids", accountIds)
+                    .getResultList()
+                    .forEach(ba -> accounts.put(ba.getId(), ba));
+            }
+
+            userPermissions = usersController.getUserPermissions(user);
+            ownedAccountIds = userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)
+                ? Set.of()
+                : getAccountsUserDependsOnOwner(user, results, bankTransfersVO, accounts);
+        } catch (ServerErrorException ex) {
+            Error(log, "Error checking if user can create bank transfers.", ex);
+            return Result.create(-1);
+        } catch (Exception ex) {
+            Error(log, "Error loading bank transfers accounts.", null, ex.getMessage());
+            return Result.create(-1);
+        }
+
+        String[] fingerprints = new String[bankTransfersVO.size()];
+        Map<String, Long> existing;
+        try {
+            existing = findExistingBankTransfers(results, bankTransfersVO, accounts, fingerprints);
+        } catch (Exception ex) {
+            Error(log, "Error looking for existing bank transfers.", null, ex.getMessage());
+            return Result.create(-1);
+        }
+
+        // Rows repeated in the request are created once
+        Map<String, BankTransferBulkItemVO> createdByFingerprint = new HashMap<>();
+        List<BankTransfer> batch = new ArrayList<>(bulkBatchSize);
+        int created = 0;
+        int duplicated = 0;
+        try {
+            for (BankTransferBulkItemVO item : results) {
+                if (item.getErrCode() != null) continue;
+
+                BankTransferVO bankTransferVO = bankTransfersVO.get(item.getIndex());
+                BankAccount me = accounts.get(bankTransferVO.getMe().getId());
+                BankAccount other = accounts.get(bankTransferVO.getOther().getId());
+                if (me == null) {
+                    item.setErrCode(11);
+                    continue;
+                }
+                if (other == null) {
+                    item.setErrCode(12);
+                    continue;
+                }
+                if (!ledgerService.isCurrencyValid(me, bankTransferVO.getFromCurrency(), bankTransferVO.getToCurrency())) {
+                    item.setErrCode(20);
+                    continue;
+                }
+                if (!userCanCreateBankTransfer(userPermissions, ownedAccountIds, me, bankTransferVO.getOperationType())) {
+                    item.setErrCode(3);
+                    continue;
+                }
+
+                String fingerprint = fingerprints[item.getIndex()];
+                Long existingId = existing.get(fingerprint);
+                BankTransferBulkItemVO first = createdByFingerprint.get(fingerprint);
+                if (existingId != null || first != null) {
+                    item.setId(existingId != null ? existingId : first.getId());
+                    item.setDuplicate(true);
+                    duplicated++;
+                    continue;
+                }
+
+                BankTransfer bankTransfer = BankTransfer.builder()
+                    .concept(bankTransferVO.getConcept())
+                    .description(bankTransferVO.getDescription())
+                    .operationType(bankTransferVO.getOperationType())
+                    .value(bankTransferVO.getValue())
+                    .fromCurrency(bankTransferVO.getFromCurrency())
+                    .toCurrency(bankTransferVO.getToCurrency())
+                    .conversion(bankTransferVO.getConversion())
+                    .madeWhen(bankTransferVO.getMadeWhen())
+                    .applyWhen(bankTransferVO.getApplyWhen())
+                    .me(me)
+                    .other(other)
+                    .fingerprint(fingerprint)
+                    .lastModification(LocalDateTime.now())
+                    .build();
+
+                em.persist(bankTransfer);
+                item.setId(bankTransfer.getId());
+                createdByFingerprint.put(fingerprint, item);
+                batch.add(bankTransfer);
+                created++;
+
+                if (batch.size() == bulkBatchSize) flushBankTransfers(batch);
+            }
+            flushBankTransfers(batch);
+
+        } catch (ServerErrorException ex) {
+            Error(log, "Error applying bank transfers to bank accounts balances.", ex);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return Result.create(-1);
+        } catch (PersistenceException ex) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            if (!isConstraintViolation(ex)) {
+                Error(log, "Error saving bank transfers in DB.", null, ex.getMessage());
+                return Result.create(-1);
+            }
+            // A row was created at the same time by another request
+            log.info("Bank transfer already exists (concurrent creation).");
+            return Result.create(22);
+        } catch (Exception ex) {
+            Error(log, "Error saving bank transfers in DB.", null, ex.getMessage());
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return Result.create(-1);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        log.info("Bulk bank transfers: {} rows, {} created, {} duplicated in {} s ({} rows/s).",
+            bankTransfersVO.size(), created, duplicated, String.format("%.3f", seconds), String.format("%.0f", bankTransfersVO.size() / Math.max(seconds, 0.001)));
+
+        return Result.create(results);
+    }
+
+    /**
+     * @return True if the error is a unique constraint violation (Hibernate's one is wrapped by the entity manager).
+     */
+    private static boolean isConstraintViolation(PersistenceException ex) {
+        return (ex instanceof ConstraintViolationException) || (ex.getCause() instanceof ConstraintViolationException);
+    }
+
+    /**
+     * Inserts a batch of bank transfers (with their view rows) and detaches them.
+     */
+    private void flushBankTransfers(List<BankTransfer> batch) throws ServerErrorException {
+        if (batch.isEmpty()) return;
+
+        ledgerService.applyIfDue(batch);
+        operationViewService.create(batch);
+        em.flush();
+        batch.forEach(bankTransfer -> fingerprintService.register(bankTransfer.getMe().getId(), bankTransfer.getFingerprint()));
+        em.clear();
+        batch.clear();
+    }
+
+    /**
+     * Sets the fingerprint of every valid row and looks for the ones that already exist (one lookup per account).
+     *
+     * @return Id of the existing bank transfer of each fingerprint that already exists.
+     */
+    private Map<String, Long> findExistingBankTransfers(List<BankTransferBulkItemVO> results, List<BankTransferVO> bankTransfersVO,
+                                                        Map<Long, BankAccount> accounts, String[] fingerprints) {
+        Map<Long, List<String>> fingerprintsByAccount = new HashMap<>();
+        for (BankTransferBulkItemVO item : results) {
+            if (item.getErrCode() != null) continue;
+
+            BankTransferVO bankTransferVO = bankTransfersVO.get(item.getIndex());
+            Long meId = bankTransferVO.getMe().getId();
+            if (!accounts.containsKey(meId)) continue;
+
+            String fingerprint = BankTransferFingerprintService.getFingerprint(meId, bankTransferVO.getOperationType(), bankTransferVO.getValue(),
+                bankTransferVO.getFromCurrency(), bankTransferVO.getApplyWhen(), bankTransferVO.getConcept());
+            fingerprints[item.getIndex()] = fingerprint;
+            fingerprintsByAccount.computeIfAbsent(meId, id -> new ArrayList<>()).add(fingerprint);
+        }
+
+        Map<String, Long> existing = new HashMap<>();
+        fingerprintsByAccount.forEach((accountId, accountFingerprints) -> existing.putAll(fingerprintService.findExisting(accountId, accountFingerprints)));
+        return existing;
+    }
+
+    /**
+     * @return Ids of the 'me' accounts of the rows that have an owner the user depends on.
+     */
+    private Set<Long> getAccountsUserDependsOnOwner(User user, List<BankTransferBulkItemVO> results, List<BankTransferVO> bankTransfersVO,
+                                                   Map<Long, BankAccount> accounts) throws ServerErrorException {
+        Set<Long> meIds = new HashSet<>();
+        for (BankTransferBulkItemVO item : results) {
+            if (item.getErrCode() == null) meIds.add(bankTransfersVO.get(item.getIndex()).getMe().getId());
+        }
+
+        Set<Long> ownedAccountIds = new HashSet<>();
+        for (Long meId : meIds) {
+            BankAccount me = accounts.get(meId);
+            if (me == null) continue;
+            if (getBankAccountOwners(me).stream().anyMatch((owner) -> usersController.userDepends(user, owner))) ownedAccountIds.add(meId);
+        }
+        return ownedAccountIds;
+    }
+
+    private boolean userCanCreateBankTransfer(UserPermissions userPermissions, Set<Long> ownedAccountIds, BankAccount bankAccountMe, OperationType operationType) {
+        if (userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
+        if (!ownedAccountIds.contains(bankAccountMe.getId())) return false;
+
+        if (OperationType.INCOME.equals(operationType)) return userPermissions.contains(Permission.ADD_INCOME_OPERATION);
+        if (OperationType.OUTCOME.equals(operationType)) return userPermissions.contains(Permission.ADD_OUTCOME_OPERATION);
+        return false;
+    }
+
     @Override
     public Result<CreditCardVO> getCreditCardByIdVO(UserVO userVO, CreditCardVO creditCardVO) {
         Enter(log, "getCreditCardByIdVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<CreditCard> creationResult = getCreditCardById(user, creditCardVO);
 
         Exit(log, "getCreditCardByIdVO");
@@ -1572,10 +2051,11 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanGetCreditCard(User operationUser, CreditCard creditCard) throws ServerErrorException {
-        List<Permission> userPermission = usersController.getUserPermissions(operationUser);
+        return userCanGetCreditCard(usersController.getUserPermissions(operationUser), operationUser, creditCard);
+    }
 
-        if (userPermission.contains(Permission.SYSTEM)) return true;
-        if (userPermission.contains(Permission.ADMIN)) return true;
+    private boolean userCanGetCreditCard(UserPermissions userPermission, User operationUser, CreditCard creditCard) {
+        if (userPermission.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         if (userPermission.contains(Permission.GET_CREDIT_CARD)) {
             if (creditCard.getOwner().equals(operationUser)) return true;
@@ -1588,7 +2068,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<CreditCardVO> createCreditCardVO(UserVO userVO, CreditCardVO creditCardVO) {
         Enter(log, "createCreditCardVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<CreditCard> creationResult = createCreditCard(user, creditCardVO);
 
         Exit(log, "createCreditCardVO");
@@ -1675,8 +2155,7 @@ public class FinancialControllerImpl implements FinancialController {
             em.persist(creditCard);
             log.info("Credit card created!");
         } catch (Exception ex) {
-            log.error("{}\n{}");
-            Error(log, "Error creating credit card.", null, ex.getMessage());
+            Error(log, "Error creating credit card.", null, ex);
             return Result.create(-1);
         }
 
@@ -1705,10 +2184,9 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanCreateCreditCard(User operationUser, BankAccount bankAccount) throws ServerErrorException {
-        List<Permission> userPermissions = usersController.getUserPermissions(operationUser);
+        UserPermissions userPermissions = usersController.getUserPermissions(operationUser);
 
-        if (userPermissions.contains(Permission.SYSTEM)) return true;
-        if (userPermissions.contains(Permission.ADMIN)) return true;
+        if (userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         if (userPermissions.contains(Permission.CREATE_CREDIT_CARD)) {
             List<User> owners = getBankAccountOwners(bankAccount);
@@ -1722,7 +2200,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<CreditCardVO> deleteCreditCardVO(UserVO userVO, CreditCardVO creditCardVO) {
         Enter(log, "deleteCreditCardVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<CreditCardVO> deletionResult = deleteCreditCard(user, creditCardVO);
 
         Exit(log, "deleteCreditCardVO");
@@ -1783,8 +2261,10 @@ public class FinancialControllerImpl implements FinancialController {
             deleteCreditCard(creditCard);
         } catch (ServerErrorException ex) {
             Error(log, "Error deleting credit card.", ex);
+            // Do not keep the balance reverted if its operations could not be removed
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             Exit(log, "deleteCreditCard");
-            Result.create(-1);
+            return Result.create(-1);
         }
 
         Exit(log, "deleteCreditCard");
@@ -1792,10 +2272,9 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanDeleteCreditCard(User operationUser, CreditCard creditCard) throws ServerErrorException {
-        List<Permission> userPermission = usersController.getUserPermissions(operationUser);
+        UserPermissions userPermission = usersController.getUserPermissions(operationUser);
 
-        if (userPermission.contains(Permission.SYSTEM)) return true;
-        if (userPermission.contains(Permission.ADMIN)) return true;
+        if (userPermission.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         if (userPermission.contains(Permission.DELETE_CREDIT_CARD)) {
             if (creditCard.getOwner().equals(operationUser)) return true;
@@ -1822,12 +2301,14 @@ public class FinancialControllerImpl implements FinancialController {
 
         // Delete credit card operation
         try {
+            ledgerService.revertOperations(creditCard);
             query = em.createQuery("DELETE FROM CreditCardOperation op WHERE op.me =:creditCard")
                     .setParameter("creditCard", creditCard);
 
             log.info("Deleting credit card operations...");
             n = query.executeUpdate();
             log.info("{} credit card operations deleted.", n);
+            operationViewService.deleteCardOperations(OperationSource.CREDIT_CARD_OPERATION, creditCard.getId());
         } catch (Exception ex) {
             Exit(log, "deleteCreditCard");
             throw new ServerErrorException(2, "Error deleting credit card operations.", ex);
@@ -1849,7 +2330,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<CreditCardVO> editCreditCardVO(UserVO userVO, CreditCardVO creditCardVO) {
         Enter(log, "editCreditCardVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<CreditCard> editionResult = editCreditCard(user, creditCardVO);
 
         Exit(log, "editCreditCardVO");
@@ -1952,10 +2433,9 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanEditCreditCard(User operationUser, CreditCard creditCard) throws ServerErrorException {
-        List<Permission> userPermissions = usersController.getUserPermissions(operationUser);
+        UserPermissions userPermissions = usersController.getUserPermissions(operationUser);
 
-        if (userPermissions.contains(Permission.SYSTEM)) return true;
-        if (userPermissions.contains(Permission.ADMIN)) return true;
+        if (userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         if (userPermissions.contains(Permission.EDIT_CREDIT_CARD)) {
             List<User> owners = getBankAccountOwners(creditCard.getBankAccount());
@@ -1969,7 +2449,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<DebitCardVO> getDebitCardByIdVO(UserVO userVO, DebitCardVO debitCardVO) {
         Enter(log, "getDebitCardByIdVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<DebitCard> creationResult = getDebitCardById(user, debitCardVO);
 
         Exit(log, "getDebitCardByIdVO");
@@ -2036,10 +2516,9 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanGetDebitCard(User operationUser, DebitCard debitCard) throws ServerErrorException {
-        List<Permission> userPermission = usersController.getUserPermissions(operationUser);
+        UserPermissions userPermission = usersController.getUserPermissions(operationUser);
 
-        if (userPermission.contains(Permission.SYSTEM)) return true;
-        if (userPermission.contains(Permission.ADMIN)) return true;
+        if (userPermission.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         if (userPermission.contains(Permission.GET_DEBIT_CARD)) {
             if (debitCard.getOwner().equals(operationUser)) return true;
@@ -2052,7 +2531,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<DebitCardVO> createDebitCardVO(UserVO userVO, DebitCardVO debitCardVO) {
         Enter(log, "createDebitCardVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<DebitCard> creationResult = createDebitCard(user, debitCardVO);
 
         Exit(log, "createDebitCardVO");
@@ -2139,8 +2618,7 @@ public class FinancialControllerImpl implements FinancialController {
             em.persist(debitCard);
             log.info("Debit card created!");
         } catch (Exception ex) {
-            log.error("{}\n{}");
-            Error(log, "Error creating debit card.", null, ex.getMessage());
+            Error(log, "Error creating debit card.", null, ex);
             return Result.create(-1);
         }
 
@@ -2160,10 +2638,9 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanCreateDebitCard(User operationUser, BankAccount bankAccount) throws ServerErrorException {
-        List<Permission> userPermissions = usersController.getUserPermissions(operationUser);
+        UserPermissions userPermissions = usersController.getUserPermissions(operationUser);
 
-        if (userPermissions.contains(Permission.SYSTEM)) return true;
-        if (userPermissions.contains(Permission.ADMIN)) return true;
+        if (userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         if (userPermissions.contains(Permission.CREATE_DEBIT_CARD)) {
             List<User> owners = getBankAccountOwners(bankAccount);
@@ -2177,7 +2654,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<DebitCardVO> deleteDebitCardVO(UserVO userVO, DebitCardVO debitCardVO) {
         Enter(log, "deleteDebitCardVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<DebitCardVO> deletionResult = deleteDebitCard(user, debitCardVO);
 
         Exit(log, "deleteDebitCardVO");
@@ -2238,8 +2715,10 @@ public class FinancialControllerImpl implements FinancialController {
             deleteDebitCard(debitCard);
         } catch (ServerErrorException ex) {
             Error(log, "Error deleting debit card.", ex);
+            // Do not keep the balance reverted if its operations could not be removed
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             Exit(log, "deleteDebitCard");
-            Result.create(-1);
+            return Result.create(-1);
         }
 
         Exit(log, "deleteDebitCard");
@@ -2247,10 +2726,9 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanDeleteDebitCard(User operationUser, DebitCard debitCard) throws ServerErrorException {
-        List<Permission> userPermission = usersController.getUserPermissions(operationUser);
+        UserPermissions userPermission = usersController.getUserPermissions(operationUser);
 
-        if (userPermission.contains(Permission.SYSTEM)) return true;
-        if (userPermission.contains(Permission.ADMIN)) return true;
+        if (userPermission.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         if (userPermission.contains(Permission.DELETE_DEBIT_CARD)) {
             if (debitCard.getOwner().equals(operationUser)) return true;
@@ -2277,12 +2755,14 @@ public class FinancialControllerImpl implements FinancialController {
 
         // Delete debit card operation
         try {
+            ledgerService.revertOperations(debitCard);
             query = em.createQuery("DELETE FROM DebitCardOperation op WHERE op.me =:debitCard")
                     .setParameter("debitCard", debitCard);
 
             log.info("Deleting debit card operations...");
             n = query.executeUpdate();
             log.info("{} debit card operations deleted.", n);
+            operationViewService.deleteCardOperations(OperationSource.DEBIT_CARD_OPERATION, debitCard.getId());
         } catch (Exception ex) {
             Exit(log, "deleteDebitCard");
             throw new ServerErrorException(2, "Error deleting debit card operations.", ex);
@@ -2304,7 +2784,7 @@ public class FinancialControllerImpl implements FinancialController {
     public Result<DebitCardVO> editDebitCardVO(UserVO userVO, DebitCardVO debitCardVO) {
         Enter(log, "editDebitCardVO");
 
-        User user = (userVO == null || userVO.getId() == null) ? null : em.find(User.class, userVO.getId());
+        User user = getOperationUser(userVO);
         Result<DebitCard> editionResult = editDebitCard(user, debitCardVO);
 
         Exit(log, "editDebitCardVO");
@@ -2389,10 +2869,9 @@ public class FinancialControllerImpl implements FinancialController {
     }
 
     private boolean userCanEditDebitCard(User operationUser, DebitCard debitCard) throws ServerErrorException {
-        List<Permission> userPermissions = usersController.getUserPermissions(operationUser);
+        UserPermissions userPermissions = usersController.getUserPermissions(operationUser);
 
-        if (userPermissions.contains(Permission.SYSTEM)) return true;
-        if (userPermissions.contains(Permission.ADMIN)) return true;
+        if (userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         if (userPermissions.contains(Permission.EDIT_DEBIT_CARD)) {
             List<User> owners = getBankAccountOwners(debitCard.getBankAccount());
@@ -2402,4 +2881,979 @@ public class FinancialControllerImpl implements FinancialController {
         return false;
     }
 
+    // Operations history
+
+    @Override
+    public Result<OperationHistoryPageVO> getBankAccountOperationsVO(UserVO userVO, BankAccountVO bankAccountVO, OperationHistoryFilterVO filterVO) {
+        Enter(log, "getBankAccountOperationsVO");
+
+        User user = getOperationUser(userVO);
+        try {
+            return getBankAccountOperations(user, bankAccountVO, filterVO);
+        } finally {
+            Exit(log, "getBankAccountOperationsVO");
+        }
+    }
+
+    /**
+     * Get a page of the operations of a bank account (bank transfers and operations of its cards), newest first.
+     *
+     * Pagination uses the apply date and id of the last operation of the previous page (keyset), so every page costs
+     * the same no matter how old it is.
+     *
+     * @param user User that wants to get the operations
+     * @param bankAccountVO Bank account id
+     * @param filterVO Filters and position of the page
+     *
+     * @return Page of operations or error code.
+     * Error codes:
+     *      -1 -> Server error
+     *       0 -> Undefined
+     *       1 -> General error
+     *       2 -> User not defined
+     *       3 -> User does not have permission to get these operations
+     *      10 -> Bank account not defined or does not exist
+     *      11 -> Filters not valid
+     *
+     */
+    private Result<OperationHistoryPageVO> getBankAccountOperations(User user, BankAccountVO bankAccountVO, OperationHistoryFilterVO filterVO) {
+        if (user == null) {
+            log.warn("User not defined.");
+            return Result.create(2);
+        }
+
+        if (bankAccountVO == null || bankAccountVO.getId() == null) {
+            log.warn("Bank account not defined.");
+            return Result.create(10);
+        }
+
+        if (filterVO == null) filterVO = new OperationHistoryFilterVO();
+        ValidationResult validationResult = isOperationHistoryFilterValid(filterVO);
+        if (!validationResult.isValid()) {
+            log.info("Operations history filters not valid: {}", validationResult.getErrMsg());
+            return Result.create(11);
+        }
+
+        BankAccount bankAccount = em.find(BankAccount.class, bankAccountVO.getId());
+        if (bankAccount == null) {
+            log.warn("Bank account does not exists.");
+            return Result.create(10);
+        }
+
+        List<OperationType> operationTypes;
+        try {
+            operationTypes = getOperationTypesUserCanGet(user, bankAccount);
+        } catch (ServerErrorException ex) {
+            Error(log, "Error checking if user can get bank account operations.", ex);
+            return Result.create(-1);
+        }
+
+        if (filterVO.getOperationType() != null) {
+            operationTypes = operationTypes.contains(filterVO.getOperationType()) ? List.of(filterVO.getOperationType()) : List.of();
+        }
+
+        if (operationTypes.isEmpty()) {
+            log.warn("User does not have permission to get these operations.");
+            return Result.create(3);
+        }
+
+        try {
+            return Result.create(findBankAccountOperations(bankAccount, operationTypes, filterVO));
+        } catch (Exception ex) {
+            Error(log, "Error getting bank account operations.", null, ex.getMessage());
+            return Result.create(-1);
+        }
+    }
+
+    /**
+     * 1 -> Page size not valid
+     * 2 -> Page position not valid (apply date and id must be both defined or both null)
+     * 3 -> Date range not valid
+     */
+    private ValidationResult isOperationHistoryFilterValid(OperationHistoryFilterVO filterVO) {
+        if (filterVO.getLimit() == null) filterVO.setLimit(OPERATION_HISTORY_DEFAULT_LIMIT);
+        if (filterVO.getLimit() < 1 || filterVO.getLimit() > OPERATION_HISTORY_MAX_LIMIT) return ValidationResult.error(1, "Page size must be between 1 and " + OPERATION_HISTORY_MAX_LIMIT + ".");
+        if ((filterVO.getAfterApplyWhen() == null) != (filterVO.getAfterId() == null)) return ValidationResult.error(2, "Page position not valid.");
+        if (filterVO.getFrom() != null && filterVO.getTo() != null && !filterVO.getFrom().isBefore(filterVO.getTo())) return ValidationResult.error(3, "Date range not valid.");
+
+        return ValidationResult.ok();
+    }
+
+    /**
+     * @return Operation types of the bank account that the user can get.
+     */
+    private List<OperationType> getOperationTypesUserCanGet(User user, BankAccount bankAccount) throws ServerErrorException {
+        UserPermissions userPermissions = usersController.getUserPermissions(user);
+
+        if (userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return List.of(OperationType.values());
+        if (!userPermissions.hasAny(OPERATION_HISTORY_PERMISSIONS)) return List.of();
+
+        List<User> owners = getBankAccountOwners(bankAccount);
+        if (owners.stream().noneMatch((owner) -> usersController.userDepends(user, owner))) return List.of();
+
+        return getOperationTypes(userPermissions);
+    }
+
+    /**
+     * @return Operation types of the bank accounts of an owner that the user can get.
+     */
+    private List<OperationType> getOwnerOperationTypesUserCanGet(User user, User owner) throws ServerErrorException {
+        UserPermissions userPermissions = usersController.getUserPermissions(user);
+
+        if (userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return List.of(OperationType.values());
+        if (!userPermissions.hasAny(OPERATION_HISTORY_PERMISSIONS)) return List.of();
+        if (!usersController.userDepends(user, owner)) return List.of();
+
+        return getOperationTypes(userPermissions);
+    }
+
+    private static List<OperationType> getOperationTypes(UserPermissions userPermissions) {
+        List<OperationType> operationTypes = new ArrayList<>(2);
+        if (userPermissions.contains(Permission.GET_INCOME_OPERATION)) operationTypes.add(OperationType.INCOME);
+        if (userPermissions.contains(Permission.GET_OUTCOME_OPERATION)) operationTypes.add(OperationType.OUTCOME);
+        return operationTypes;
+    }
+
+    /**
+     * Operations are read from the operation view, so the page is a single query on the
+     * (bank account, apply date, id) index that only reads the needed columns.
+     */
+    private OperationHistoryPageVO findBankAccountOperations(BankAccount bankAccount, List<OperationType> operationTypes, OperationHistoryFilterVO filterVO) {
+        int limit = filterVO.getLimit();
+
+        StringBuilder jpql = new StringBuilder(
+            "SELECT v.id, v.concept, v.description, v.operationType, v.value, v.fromCurrency, v.toCurrency, v.conversion, v.madeWhen, v.applyWhen, " +
+            "v.lastModification, v.bankAccountId, v.otherBankAccountId, v.cardId, v.source, v.bankName " +
+            "FROM OperationView v WHERE v.bankAccountId = :bankAccountId AND v.operationType IN :operationTypes");
+        if (filterVO.getCurrency() != null) jpql.append(" AND (v.fromCurrency = :currency OR v.toCurrency = :currency)");
+        if (filterVO.getFrom() != null) jpql.append(" AND v.applyWhen >= :from");
+        if (filterVO.getTo() != null) jpql.append(" AND v.applyWhen < :to");
+        if (filterVO.getCardId() != null) jpql.append(" AND v.cardId = :cardId");
+        if (filterVO.getAfterId() != null) jpql.append(" AND (v.applyWhen < :afterApplyWhen OR (v.applyWhen = :afterApplyWhen AND v.id < :afterId))");
+        jpql.append(" ORDER BY v.applyWhen DESC, v.id DESC");
+
+        TypedQuery<Object[]> query = em.createQuery(jpql.toString(), Object[].class)
+            .setParameter("bankAccountId", bankAccount.getId())
+            .setParameter("operationTypes", operationTypes)
+            .setMaxResults(limit + 1); // The extra row tells if there is a next page
+        if (filterVO.getCurrency() != null) query.setParameter("currency", filterVO.getCurrency());
+        if (filterVO.getFrom() != null) query.setParameter("from", filterVO.getFrom());
+        if (filterVO.getTo() != null) query.setParameter("to", filterVO.getTo());
+        if (filterVO.getCardId() != null) query.setParameter("cardId", filterVO.getCardId());
+        if (filterVO.getAfterId() != null) {
+            query.setParameter("afterApplyWhen", filterVO.getAfterApplyWhen());
+            query.setParameter("afterId", filterVO.getAfterId());
+        }
+
+        List<OperationHistoryItemVO> operations = new ArrayList<>(limit);
+        boolean hasNext = false;
+        try (Stream<Object[]> rows = query.getResultStream()) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                if (operations.size() == limit) {
+                    hasNext = true;
+                    break;
+                }
+                operations.add(OperationHistoryItemVO.builder()
+                    .id((Long) row[0])
+                    .concept((String) row[1])
+                    .description((String) row[2])
+                    .operationType((OperationType) row[3])
+                    .value((Long) row[4])
+                    .fromCurrency((Currency) row[5])
+                    .toCurrency((Currency) row[6])
+                    .conversion((Float) row[7])
+                    .madeWhen((LocalDateTime) row[8])
+                    .applyWhen((LocalDateTime) row[9])
+                    .lastModification((LocalDateTime) row[10])
+                    .bankAccountId((Long) row[11])
+                    .otherBankAccountId((Long) row[12])
+                    .cardId((Long) row[13])
+                    .source((OperationSource) row[14])
+                    .bankName((String) row[15])
+                    .build());
+            }
+        }
+
+        OperationHistoryPageVO page = new OperationHistoryPageVO();
+        page.setOperations(operations);
+        if (hasNext) {
+            OperationHistoryItemVO last = operations.getLast();
+            page.setNextApplyWhen(last.getApplyWhen());
+            page.setNextId(last.getId());
+        }
+
+        return page;
+    }
+
+    // Monthly totals
+
+    @Override
+    public Result<List<MonthlyTotalVO>> getBankAccountMonthlyTotalsVO(UserVO userVO, BankAccountVO bankAccountVO, YearMonth from, YearMonth to) {
+        Enter(log, "getBankAccountMonthlyTotalsVO");
+
+        User user = getOperationUser(userVO);
+        try {
+            return getBankAccountMonthlyTotals(user, bankAccountVO, from, to);
+        } finally {
+            Exit(log, "getBankAccountMonthlyTotalsVO");
+        }
+    }
+
+    /**
+     * Get the income and outcome totals of a bank account per month and currency. Totals are pre-computed, so the
+     * cost only depends on the number of months.
+     *
+     * @param user User that wants to get the totals
+     * @param bankAccountVO Bank account id
+     * @param from First month (12 months before the last one if null)
+     * @param to Last month (current month if null)
+     *
+     * @return Totals (only of the operation types the user can get) or error code.
+     * Error codes:
+     *      -1 -> Server error
+     *       0 -> Undefined
+     *       1 -> General error
+     *       2 -> User not defined
+     *       3 -> User does not have permission to get these operations
+     *      10 -> Bank account not defined or does not exist
+     *      11 -> Month range not valid
+     *
+     */
+    private Result<List<MonthlyTotalVO>> getBankAccountMonthlyTotals(User user, BankAccountVO bankAccountVO, YearMonth from, YearMonth to) {
+        if (user == null) {
+            log.warn("User not defined.");
+            return Result.create(2);
+        }
+
+        if (bankAccountVO == null || bankAccountVO.getId() == null) {
+            log.warn("Bank account not defined.");
+            return Result.create(10);
+        }
+
+        if (to == null) to = YearMonth.now();
+        if (from == null) from = to.minusMonths(MONTHLY_TOTALS_DEFAULT_MONTHS - 1);
+        if (!isMonthRangeValid(from, to)) {
+            log.info("Monthly totals range not valid: {} - {}", from, to);
+            return Result.create(11);
+        }
+
+        BankAccount bankAccount = em.find(BankAccount.class, bankAccountVO.getId());
+        if (bankAccount == null) {
+            log.warn("Bank account does not exists.");
+            return Result.create(10);
+        }
+
+        List<OperationType> operationTypes;
+        try {
+            operationTypes = getOperationTypesUserCanGet(user, bankAccount);
+        } catch (ServerErrorException ex) {
+            Error(log, "Error checking if user can get bank account operations.", ex);
+            return Result.create(-1);
+        }
+
+        if (operationTypes.isEmpty()) {
+            log.warn("User does not have permission to get these operations.");
+            return Result.create(3);
+        }
+
+        try {
+            return Result.create(operationRollupService.getBankAccountTotals(bankAccount.getId(), from, to, operationTypes));
+        } catch (Exception ex) {
+            Error(log, "Error getting bank account monthly totals.", null, ex.getMessage());
+            return Result.create(-1);
+        }
+    }
+
+    @Override
+    public Result<List<MonthlyTotalVO>> getOwnerMonthlyTotalsVO(UserVO userVO, UserVO ownerVO, YearMonth from, YearMonth to) {
+        Enter(log, "getOwnerMonthlyTotalsVO");
+
+        User user = getOperationUser(userVO);
+        User owner = (ownerVO == null || ownerVO.getId() == null) ? null : em.find(User.class, ownerVO.getId());
+        try {
+            return getOwnerMonthlyTotals(user, owner, from, to);
+        } finally {
+            Exit(log, "getOwnerMonthlyTotalsVO");
+        }
+    }
+
+    /**
+     * Get the income and outcome totals of every bank account of an owner per month and currency.
+     *
+     * @param user User that wants to get the totals
+     * @param owner Owner of the bank accounts
+     * @param from First month (12 months before the last one if null)
+     * @param to Last month (current month if null)
+     *
+     * @return Totals (only of the operation types the user can get) or error code.
+     * Error codes:
+     *      -1 -> Server error
+     *       0 -> Undefined
+     *       1 -> General error
+     *       2 -> User not defined
+     *       3 -> User does not have permission to get these operations
+     *      10 -> Owner not defined or does not exist
+     *      11 -> Month range not valid
+     *
+     */
+    private Result<List<MonthlyTotalVO>> getOwnerMonthlyTotals(User user, User owner, YearMonth from, YearMonth to) {
+        if (user == null) {
+            log.warn("User not defined.");
+            return Result.create(2);
+        }
+
+        if (owner == null) {
+            log.warn("Owner not defined or does not exist.");
+            return Result.create(10);
+        }
+
+        if (to == null) to = YearMonth.now();
+        if (from == null) from = to.minusMonths(MONTHLY_TOTALS_DEFAULT_MONTHS - 1);
+        if (!isMonthRangeValid(from, to)) {
+            log.info("Monthly totals range not valid: {} - {}", from, to);
+            return Result.create(11);
+        }
+
+        List<OperationType> operationTypes;
+        try {
+            operationTypes = getOwnerOperationTypesUserCanGet(user, owner);
+        } catch (ServerErrorException ex) {
+            Error(log, "Error checking if user can get owner operations.", ex);
+            return Result.create(-1);
+        }
+
+        if (operationTypes.isEmpty()) {
+            log.warn("User does not have permission to get these operations.");
+            return Result.create(3);
+        }
+
+        try {
+            return Result.create(operationRollupService.getOwnerTotals(owner, from, to, operationTypes));
+        } catch (Exception ex) {
+            Error(log, "Error getting owner monthly totals.", null, ex.getMessage());
+            return Result.create(-1);
+        }
+    }
+
+    private boolean isMonthRangeValid(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) return false;
+        return from.plusMonths(MONTHLY_TOTALS_MAX_MONTHS).isAfter(to);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Result<SpendingReportVO> getOwnerSpendingReportVO(UserVO userVO, UserVO ownerVO, Currency currency, OperationType operationType, YearMonth from, YearMonth to, Integer limit) {
+        Enter(log, "getOwnerSpendingReportVO");
+
+        try {
+            return getOwnerSpendingReport(userVO, ownerVO, currency, operationType, from, to, limit);
+        } finally {
+            Exit(log, "getOwnerSpendingReportVO");
+        }
+    }
+
+    /**
+     * Get the top concepts, counterparty bank accounts and cards of the operations of every bank account of an owner.
+     *
+     * It does not run in a transaction: the user and permissions are checked in a short read-only transaction and the
+     * operations are aggregated by {@link SpendingReportService} without holding the request's connection.
+     *
+     * @param userVO User that wants to get the report
+     * @param ownerVO Owner of the bank accounts
+     * @param currency Currency of the operations
+     * @param operationType Type of the operations (outcome if null)
+     * @param from First month (12 months before the last one if null)
+     * @param to Last month (current month if null)
+     * @param limit Maximum items of every breakdown (10 if null, 100 at most)
+     *
+     * @return Report or error code.
+     * Error codes:
+     *      -1 -> Server error
+     *       0 -> Undefined
+     *       1 -> General error
+     *       2 -> User not defined
+     *       3 -> User does not have permission to get these operations
+     *      10 -> Owner not defined or does not exist
+     *      11 -> Month range not valid
+     *      12 -> Currency not defined
+     *
+     */
+    private Result<SpendingReportVO> getOwnerSpendingReport(UserVO userVO, UserVO ownerVO, Currency currency, OperationType operationType, YearMonth from, YearMonth to, Integer limit) {
+        if (userVO == null || userVO.getId() == null) {
+            log.warn("User not defined.");
+            return Result.create(2);
+        }
+
+        if (ownerVO == null || ownerVO.getId() == null) {
+            log.warn("Owner not defined.");
+            return Result.create(10);
+        }
+
+        if (currency == null) {
+            log.warn("Currency not defined.");
+            return Result.create(12);
+        }
+
+        if (to == null) to = YearMonth.now();
+        if (from == null) from = to.minusMonths(MONTHLY_TOTALS_DEFAULT_MONTHS - 1);
+        if (!isMonthRangeValid(from, to)) {
+            log.info("Spending report range not valid: {} - {}", from, to);
+            return Result.create(11);
+        }
+
+        OperationType type = operationType == null ? OperationType.OUTCOME : operationType;
+        int maxItems = limit == null ? SPENDING_REPORT_DEFAULT_LIMIT : Math.clamp(limit, 1, SPENDING_REPORT_MAX_LIMIT);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Integer errCode;
+        try {
+            errCode = readOnly.execute(status -> {
+                User user = getOperationUser(userVO);
+                if (user == null) {
+                    log.warn("User does not exist.");
+                    return 2;
+                }
+
+                User owner = em.find(User.class, ownerVO.getId());
+                if (owner == null) {
+                    log.warn("Owner does not exist.");
+                    return 10;
+                }
+
+                try {
+                    if (!getOwnerOperationTypesUserCanGet(user, owner).contains(type)) {
+                        log.warn("User does not have permission to get these operations.");
+                        return 3;
+                    }
+                } catch (ServerErrorException ex) {
+                    Error(log, "Error checking if user can get owner operations.", ex);
+                    return -1;
+                }
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            Error(log, "Error checking spending report permissions.", null, ex.getMessage());
+            return Result.create(-1);
+        }
+        if (errCode != null) return Result.create(errCode.intValue());
+
+        try {
+            return Result.create(spendingReportService.getOwnerReport(ownerVO.getId(), currency, type, from, to, maxItems));
+        } catch (Exception ex) {
+            Error(log, "Error getting owner spending report.", null, ex.getMessage());
+            return Result.create(-1);
+        }
+    }
+
+    // Batch get
+
+    /**
+     * Checks a batch get request.
+     *
+     * @return Error code or null if it is valid:
+     *       2 -> User not defined.
+     *      30 -> Ids not defined.
+     *      31 -> Too many ids.
+     */
+    private Integer validateBatchGet(User user, List<Long> ids) {
+        if (user == null) {
+            log.warn("User not defined.");
+            return 2;
+        }
+        if (ids == null || ids.isEmpty()) {
+            log.warn("Ids not defined.");
+            return 30;
+        }
+        if (ids.size() > batchGetMaxSize) {
+            log.warn("Too many ids: {} (max {}).", ids.size(), batchGetMaxSize);
+            return 31;
+        }
+        return null;
+    }
+
+    private static Set<Long> getDefinedIds(List<Long> ids) {
+        Set<Long> definedIds = new HashSet<>();
+        ids.forEach((id) -> { if (id != null) definedIds.add(id); });
+        return definedIds;
+    }
+
+    @Override
+    public Result<List<Result<BankVO>>> getBanksByIdVO(UserVO userVO, List<Long> ids) {
+        Enter(log, "getBanksByIdVO");
+
+        User user = getOperationUser(userVO);
+        try {
+            return getBanksById(user, ids);
+        } finally {
+            Exit(log, "getBanksByIdVO");
+        }
+    }
+
+    /**
+     * Gets many banks at once, with one query. The result has one item per id, in the same order.
+     *
+     * @param user User that will get the banks' data
+     * @param ids Banks' ids
+     * @return Result of each id or error code.
+     *
+     * Error codes:
+     *  -1 -> Server error
+     *   0 -> Ok
+     *   1 -> General error
+     *   2 -> User not defined
+     *  30 -> Ids not defined
+     *  31 -> Too many ids
+     *
+     * Item error codes: same as {@link #getBankById(User, BankVO)}.
+     */
+    private Result<List<Result<BankVO>>> getBanksById(User user, List<Long> ids) {
+        Integer errCode = validateBatchGet(user, ids);
+        if (errCode != null) return Result.create(errCode.intValue());
+
+        boolean canGetBanks;
+        try {
+            canGetBanks = userCanGetBank(usersController.getUserPermissions(user));
+        } catch (ServerErrorException ex) {
+            Error(log, "Error getting user permissions.", ex.getCode(), ex);
+            return Result.create(-1);
+        }
+        if (!canGetBanks) log.warn("User has not permission to get bank info.");
+
+        Set<Long> definedIds = getDefinedIds(ids);
+        Map<Long, Bank> banks = new HashMap<>();
+        if (canGetBanks && !definedIds.isEmpty()) {
+            try {
+                em.createQuery("SELECT b FROM Bank b WHERE b.id IN :ids", Bank.class)
+                    .setParameter("ids", definedIds)
+                    .getResultList()
+                    .forEach((bank) -> banks.put(bank.getId(), bank));
+            } catch (Exception ex) {
+                Error(log, "Error getting banks.", null, ex.getMessage());
+                return Result.create(-1);
+            }
+        }
+
+        List<Result<BankVO>> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id == null) results.add(Result.create(2));
+            else if (!canGetBanks) results.add(Result.create(4));
+            else if (!banks.containsKey(id)) results.add(Result.create(3));
+            else results.add(Result.create(banks.get(id).getVO()));
+        }
+        return Result.create(results);
+    }
+
+    @Override
+    public Result<List<Result<BankAccountCompleteVO>>> getBankAccountsCompleteVO(UserVO userVO, List<Long> ids) {
+        Enter(log, "getBankAccountsCompleteVO");
+
+        User user = getOperationUser(userVO);
+        try {
+            return getBankAccountsComplete(user, ids);
+        } finally {
+            Exit(log, "getBankAccountsCompleteVO");
+        }
+    }
+
+    /**
+     * Gets many bank accounts (with their bank and owners) at once, with one query. Permissions are checked once per
+     * distinct set of owners. The result has one item per id, in the same order.
+     *
+     * @param user User that wants to get the bank accounts
+     * @param ids Bank accounts' ids
+     * @return Result of each id or error code.
+     *
+     * Error codes:
+     *  -1 -> Server error
+     *   0 -> Ok
+     *   1 -> General error
+     *   2 -> User not defined
+     *  30 -> Ids not defined
+     *  31 -> Too many ids
+     *
+     * Item error codes: same as {@link #getBankAccountComplete(User, BankAccountVO)}.
+     */
+    private Result<List<Result<BankAccountCompleteVO>>> getBankAccountsComplete(User user, List<Long> ids) {
+        Integer errCode = validateBatchGet(user, ids);
+        if (errCode != null) return Result.create(errCode.intValue());
+
+        Set<Long> definedIds = getDefinedIds(ids);
+        Map<Long, BankAccount> bankAccounts = new HashMap<>();
+        Map<Long, List<User>> owners = new HashMap<>();
+        try {
+            List<Object[]> rows = definedIds.isEmpty() ? List.of() : em.createQuery(
+                    "SELECT ba, o FROM BankAccount ba JOIN FETCH ba.bank " +
+                    "LEFT JOIN BankAccountOwner bao ON bao.id.bankAccount = ba LEFT JOIN bao.id.owner o " +
+                    "WHERE ba.id IN :ids", Object[].class)
+                .setParameter("ids", definedIds)
+                .getResultList();
+            for (Object[] row : rows) {
+                BankAccount bankAccount = (BankAccount) row[0];
+                bankAccounts.put(bankAccount.getId(), bankAccount);
+                List<User> bankAccountOwners = owners.computeIfAbsent(bankAccount.getId(), (id) -> new ArrayList<>());
+                if (row[1] != null) bankAccountOwners.add((User) row[1]);
+            }
+        } catch (Exception ex) {
+            Error(log, "Error getting bank accounts.", null, ex.getMessage());
+            return Result.create(-1);
+        }
+
+        UserPermissions userPermissions;
+        try {
+            userPermissions = usersController.getUserPermissions(user);
+        } catch (ServerErrorException ex) {
+            Error(log, "Error getting user permissions.", ex.getCode(), ex.getMessage());
+            return Result.create(-1);
+        }
+
+        // Owners' ids -> user can get the bank accounts
+        Map<Set<Long>, Boolean> canGetByOwners = new HashMap<>();
+
+        List<Result<BankAccountCompleteVO>> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BankAccount bankAccount = id == null ? null : bankAccounts.get(id);
+            if (bankAccount == null) {
+                results.add(Result.create(3));
+                continue;
+            }
+
+            List<User> bankAccountOwners = owners.get(id);
+            Set<Long> ownerIds = new HashSet<>();
+            bankAccountOwners.forEach((owner) -> ownerIds.add(owner.getId()));
+            if (!canGetByOwners.computeIfAbsent(ownerIds, (key) -> userHasPermissionToGetBankAccounts(userPermissions, user, bankAccountOwners))) {
+                results.add(Result.create(4));
+                continue;
+            }
+
+            BankAccountVO aux = bankAccount.getVO();
+            aux.setBankVO(bankAccount.getBank().getVO());
+            BankAccountCompleteVO bankAccountCompleteVO = new BankAccountCompleteVO(aux);
+            bankAccountCompleteVO.setOwnersVO(new ArrayList<>());
+            bankAccountOwners.forEach((owner) -> bankAccountCompleteVO.getOwnersVO().add(owner.getVO()));
+            results.add(Result.create(bankAccountCompleteVO));
+        }
+        return Result.create(results);
+    }
+
+    @Override
+    public Result<List<Result<BankTransferVO>>> getBankTransfersByIdVO(UserVO userVO, List<Long> ids) {
+        Enter(log, "getBankTransfersByIdVO");
+
+        User user = getOperationUser(userVO);
+        try {
+            return getBankTransfersById(user, ids);
+        } finally {
+            Exit(log, "getBankTransfersByIdVO");
+        }
+    }
+
+    /**
+     * Gets many bank transfers (with their bank accounts and banks) at once. Bank transfers are loaded with one query
+     * and the owners of their accounts with another one, and permissions are checked once per distinct set of owners.
+     * The result has one item per id, in the same order.
+     *
+     * @param user User that wants to do this operation.
+     * @param ids Bank transfers' ids
+     * @return Result of each id or error code.
+     *
+     * Error codes:
+     *  -1 -> Server error
+     *   0 -> Ok
+     *   1 -> General error
+     *   2 -> User not defined
+     *  30 -> Ids not defined
+     *  31 -> Too many ids
+     *
+     * Item error codes: same as {@link #getBankTransferById(User, BankTransferVO)}.
+     */
+    private Result<List<Result<BankTransferVO>>> getBankTransfersById(User user, List<Long> ids) {
+        Integer errCode = validateBatchGet(user, ids);
+        if (errCode != null) return Result.create(errCode.intValue());
+
+        Set<Long> definedIds = getDefinedIds(ids);
+        Map<Long, BankTransfer> bankTransfers = new HashMap<>();
+        Map<Long, Set<User>> owners = new HashMap<>();
+        try {
+            if (!definedIds.isEmpty()) {
+                em.createQuery(
+                        "SELECT bt FROM BankTransfer bt JOIN FETCH bt.me btMe JOIN FETCH btMe.bank JOIN FETCH bt.other btOther JOIN FETCH btOther.bank " +
+                        "WHERE bt.id IN :ids", BankTransfer.class)
+                    .setParameter("ids", definedIds)
+                    .getResultList()
+                    .forEach((bankTransfer) -> bankTransfers.put(bankTransfer.getId(), bankTransfer));
+            }
+
+            Set<Long> accountIds = new HashSet<>();
+            bankTransfers.values().forEach((bankTransfer) -> accountIds.add(bankTransfer.getMe().getId()));
+            if (!accountIds.isEmpty()) {
+                em.createQuery("SELECT bao.id.bankAccount.id, bao.id.owner FROM BankAccountOwner bao WHERE bao.id.bankAccount.id IN :accountIds", Object[].class)
+                    .setParameter("accountIds", accountIds)
+                    .getResultList()
+                    .forEach((row) -> owners.computeIfAbsent((Long) row[0], (id) -> new HashSet<>()).add((User) row[1]));
+            }
+        } catch (Exception ex) {
+            Error(log, "Error getting bank transfers.", null, ex.getMessage());
+            return Result.create(-1);
+        }
+
+        UserPermissions userPermissions;
+        try {
+            userPermissions = usersController.getUserPermissions(user);
+        } catch (ServerErrorException ex) {
+            Error(log, "Error getting user permissions.", ex.getCode(), ex.getMessage());
+            return Result.create(-1);
+        }
+
+        // Owners' ids of the account 'me' -> user can get the bank transfers
+        Map<Set<Long>, Boolean> canGetByOwners = new HashMap<>();
+
+        List<Result<BankTransferVO>> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BankTransfer bankTransfer = id == null ? null : bankTransfers.get(id);
+            if (bankTransfer == null) {
+                results.add(Result.create(10));
+                continue;
+            }
+
+            Set<User> ownersMe = owners.getOrDefault(bankTransfer.getMe().getId(), Set.of());
+            Set<Long> ownerIds = new HashSet<>();
+            ownersMe.forEach((owner) -> ownerIds.add(owner.getId()));
+            if (!canGetByOwners.computeIfAbsent(ownerIds, (key) -> userCanGetBankTransfer(userPermissions, user, ownersMe))) {
+                results.add(Result.create(3));
+                continue;
+            }
+
+            BankTransferVO result = bankTransfer.getVO();
+            result.getMe().setBankVO(bankTransfer.getMe().getBank().getVO());
+            result.getOther().setBankVO(bankTransfer.getOther().getBank().getVO());
+            results.add(Result.create(result));
+        }
+        return Result.create(results);
+    }
+
+    private boolean userCanGetBankTransfer(UserPermissions userPermissions, User user, Set<User> ownersMe) {
+        if (userPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
+
+        if (userPermissions.contains(Permission.GET_INCOME_OPERATION)) {
+            if (ownersMe.stream().anyMatch((owner) -> usersController.userDepends(user, owner))) return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public Result<List<Result<CreditCardVO>>> getCreditCardsByIdVO(UserVO userVO, List<Long> ids) {
+        Enter(log, "getCreditCardsByIdVO");
+
+        User user = getOperationUser(userVO);
+        try {
+            return getCreditCardsById(user, ids);
+        } finally {
+            Exit(log, "getCreditCardsByIdVO");
+        }
+    }
+
+    /**
+     * Gets many credit cards at once, with one query. Permissions are checked once per owner. The result has one item
+     * per id, in the same order.
+     *
+     * @param operationUser User that wants to do this operation
+     * @param ids Credit cards' ids
+     * @return Result of each id or error code.
+     *
+     * Error codes:
+     *  -1 -> Server error
+     *   0 -> Ok
+     *   1 -> General error
+     *   2 -> Operation user not defined
+     *  30 -> Ids not defined
+     *  31 -> Too many ids
+     *
+     * Item error codes: same as {@link #getCreditCardById(User, CreditCardVO)}.
+     */
+    private Result<List<Result<CreditCardVO>>> getCreditCardsById(User operationUser, List<Long> ids) {
+        Integer errCode = validateBatchGet(operationUser, ids);
+        if (errCode != null) return Result.create(errCode.intValue());
+
+        Set<Long> definedIds = getDefinedIds(ids);
+        Map<Long, CreditCard> creditCards = new HashMap<>();
+        try {
+            if (!definedIds.isEmpty()) {
+                em.createQuery("SELECT cc FROM CreditCard cc JOIN FETCH cc.owner JOIN FETCH cc.bankAccount WHERE cc.id IN :ids", CreditCard.class)
+                    .setParameter("ids", definedIds)
+                    .getResultList()
+                    .forEach((creditCard) -> creditCards.put(creditCard.getId(), creditCard));
+            }
+        } catch (Exception ex) {
+            Error(log, "Error getting credit cards.", null, ex.getMessage());
+            return Result.create(-1);
+        }
+
+        UserPermissions userPermissions;
+        try {
+            userPermissions = usersController.getUserPermissions(operationUser);
+        } catch (ServerErrorException ex) {
+            Error(log, "Error getting user permissions.", ex.getCode(), ex.getMessage());
+            return Result.create(-1);
+        }
+
+        List<Result<CreditCardVO>> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id == null) {
+                results.add(Result.create(10));
+                continue;
+            }
+
+            CreditCard creditCard = creditCards.get(id);
+            if (creditCard == null) {
+                results.add(Result.create(11));
+                continue;
+            }
+
+            if (!userCanGetCreditCard(userPermissions, operationUser, creditCard)) {
+                results.add(Result.create(3));
+                continue;
+            }
+
+            CreditCardVO result = creditCard.getVO();
+            result.setOwnerVO(creditCard.getOwner().getVO());
+            result.setBankAccountVO(creditCard.getBankAccount().getVO());
+            results.add(Result.create(result));
+        }
+        return Result.create(results);
+    }
+
+    // Exchange rates
+
+    @Override
+    public Result<ExchangeRateVO> getExchangeRateVO(UserVO userVO, ExchangeRateVO exchangeRateVO) {
+        Enter(log, "getExchangeRateVO");
+
+        User user = getOperationUser(userVO);
+        try {
+            return getExchangeRate(user, exchangeRateVO);
+        } finally {
+            Exit(log, "getExchangeRateVO");
+        }
+    }
+
+    /**
+     * Get the exchange rate of a currency pair on a date. Every user can get them.
+     *
+     * @param user User that wants to get the rate
+     * @param exchangeRateVO Currencies and date (today if null)
+     *
+     * @return Rate or error code.
+     * Error codes:
+     *      -1 -> Server error
+     *       0 -> Undefined
+     *       1 -> General error
+     *       2 -> User not defined
+     *      10 -> Currencies not defined
+     *      11 -> Rate not found
+     *
+     */
+    private Result<ExchangeRateVO> getExchangeRate(User user, ExchangeRateVO exchangeRateVO) {
+        if (user == null) {
+            log.warn("User not defined.");
+            return Result.create(2);
+        }
+
+        if (exchangeRateVO == null || exchangeRateVO.getFromCurrency() == null || exchangeRateVO.getToCurrency() == null) {
+            log.warn("Currencies not defined.");
+            return Result.create(10);
+        }
+
+        LocalDate date = exchangeRateVO.getValidFrom() == null ? LocalDate.now() : exchangeRateVO.getValidFrom();
+        BigDecimal rate = exchangeRateService.getRate(exchangeRateVO.getFromCurrency(), exchangeRateVO.getToCurrency(), date);
+        if (rate == null) {
+            log.info("Exchange rate not found: {}/{} {}", exchangeRateVO.getFromCurrency(), exchangeRateVO.getToCurrency(), date);
+            return Result.create(11);
+        }
+
+        return Result.create(ExchangeRateVO.builder()
+            .fromCurrency(exchangeRateVO.getFromCurrency())
+            .toCurrency(exchangeRateVO.getToCurrency())
+            .validFrom(date)
+            .rate(rate)
+            .build());
+    }
+
+    @Override
+    public Result<Integer> importExchangeRatesVO(UserVO userVO, String file) {
+        Enter(log, "importExchangeRatesVO");
+
+        User user = getOperationUser(userVO);
+        try {
+            return importExchangeRates(user, file);
+        } finally {
+            Exit(log, "importExchangeRatesVO");
+        }
+    }
+
+    /**
+     * Imports the exchange rates of a file of the import directory. Only system and admin users can do it.
+     *
+     * @param user User that wants to import the rates
+     * @param file File (relative to the import directory)
+     *
+     * @return Number of rates imported or error code.
+     * Error codes:
+     *      -1 -> Server error
+     *       0 -> Undefined
+     *       1 -> General error
+     *       2 -> User not defined
+     *       3 -> User does not have permission to import rates
+     *      10 -> File not defined
+     *      11 -> File not found or outside the import directory
+     *      12 -> File not valid
+     *
+     */
+    private Result<Integer> importExchangeRates(User user, String file) {
+        if (user == null) {
+            log.warn("User not defined.");
+            return Result.create(2);
+        }
+
+        if (file == null || file.isBlank()) {
+            log.warn("File not defined.");
+            return Result.create(10);
+        }
+
+        try {
+            if (!usersController.getUserPermissions(user).hasAny(Permission.SYSTEM, Permission.ADMIN)) {
+                log.warn("User does not have permission to import exchange rates.");
+                return Result.create(3);
+            }
+        } catch (ServerErrorException ex) {
+            Error(log, "Error checking if user can import exchange rates.", ex);
+            return Result.create(-1);
+        }
+
+        try {
+            int imported = exchangeRateService.importFile(file);
+            log.info("Exchange rates imported from {}: {}", file, imported);
+            return Result.create(imported);
+        } catch (ServerErrorException ex) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return switch (ex.getCode()) {
+                case 1 -> {
+                    log.warn("Exchange rates file not found or outside the import directory: {}", file);
+                    yield Result.create(11);
+                }
+                case 2 -> {
+                    log.info("Exchange rates file not valid: {}", ex.getMessage());
+                    yield Result.create(12);
+                }
+                default -> {
+                    Error(log, "Error importing exchange rates.", ex);
+                    yield Result.create(-1);
+                }
+            };
+        }
+    }
+
 }
@@ -0,0 +1,33 @@
+package com.airondlph.economy.household.logic.financial;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Bank account whose balance does not match its operations.
+ *
+ * @author adriandlph / airondlph
+ */
+@Getter
+@AllArgsConstructor
+public class LedgerDrift {
+
+    private final Long bankAccountId;
+    private final long balance;
+    // Balance computed from the operations values
+    private final long expectedBalance;
+    // Balance computed from the values applied to the account
+    private final long appliedBalance;
+
+    @Override
+    public String toString() {
+        return new StringBuilder("LedgerDrift{")
+            .append("bankAccountId=").append(bankAccountId)
+            .append(", balance=").append(balance)
+            .append(", expectedBalance=").append(expectedBalance)
+            .append(", appliedBalance=").append(appliedBalance)
+            .append('}')
+            .toString();
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.exception.ServerErrorException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Scheduled ledger jobs:
+ *  - Applies operations whose apply date has been reached.
+ *  - Verifies that balances match the operations history.
+ *
+ * Every batch runs in its own transaction, so a long run never keeps many rows locked.
+ *
+ * @author adriandlph / airondlph
+ */
+@Component
+@Slf4j
+public class LedgerJobs {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Value("${ledger.batchSize:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${ledger.applier.fixedDelayMs:60000}", initialDelayString = "${ledger.applier.initialDelayMs:60000}")
+    public void applyPendingOperations() {
+        LocalDateTime now = LocalDateTime.now();
+        int applied = 0;
+        int failed = 0;
+
+        List<LedgerService.PendingOperation> operations;
+        LedgerService.PendingOperation last = null;
+        do {
+            operations = ledgerService.getPendingOperations(now, last, batchSize);
+            for (LedgerService.PendingOperation operation : operations) {
+                try {
+                    if (ledgerService.applyPendingOperation(operation.id())) applied++;
+                } catch (ServerErrorException ex) {
+                    Error(log, "Error applying operation " + operation.id(), ex.getCode(), ex.getMessage());
+                    failed++;
+                } catch (RuntimeException ex) {
+                    Error(log, "Error applying operation " + operation.id(), null, ex.getMessage());
+                    failed++;
+                }
+            }
+            // Failed operations are still pending, the next batch starts after them
+            if (!operations.isEmpty()) last = operations.getLast();
+        } while (operations.size() == batchSize);
+
+        if (applied > 0 || failed > 0) log.info("Pending operations applied: {}, failed: {}", applied, failed);
+    }
+
+    @Scheduled(cron = "${ledger.verification.cron:0 0 3 * * *}")
+    public void verifyBalances() {
+        verifyAllBalances();
+    }
+
+    /**
+     * @return Every bank account whose balance does not match its operations.
+     */
+    public List<LedgerDrift> verifyAllBalances() {
+        Enter(log, "verifyAllBalances");
+
+        List<LedgerDrift> drifts = new ArrayList<>();
+        long checked = 0;
+        Long lastId = 0L;
+
+        List<Long> ids;
+        do {
+            ids = ledgerService.getBankAccountIds(lastId, batchSize);
+            if (ids.isEmpty()) break;
+
+            drifts.addAll(ledgerService.verifyBalances(ids));
+            checked += ids.size();
+            lastId = ids.getLast();
+        } while (ids.size() == batchSize);
+
+        drifts.forEach(drift -> ErrorWarning(log, "Bank account balance drift", null, drift.toString()));
+        log.info("Balances verified: {} accounts, {} with drift.", checked, drifts.size());
+
+        Exit(log, "verifyAllBalances");
+        return drifts;
+    }
+
+}
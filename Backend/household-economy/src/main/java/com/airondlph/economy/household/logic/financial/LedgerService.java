@@ -0,0 +1,325 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.data.entity.financial.*;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import com.airondlph.economy.household.exception.ServerErrorException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Keeps bank account balances up to date with their operations.
+ *
+ * Every operation adds its signed value to the balance of its account once its apply date is reached. The applied
+ * value is stored in the operation ({@link Operation#getAppliedAmount()}), so an operation is never applied twice
+ * and can be reverted. The account row is locked while its balance changes, so concurrent operations of the same
+ * account are serialized instead of overwriting each other.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Transactional
+@Slf4j
+public class LedgerService {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private OperationViewService operationViewService;
+    @Autowired
+    private NetWorthService netWorthService;
+
+    /**
+     * @param account Bank account
+     * @param fromCurrency Operation from currency
+     * @param toCurrency Operation to currency
+     * @return True if an operation with these currencies can be applied to the account.
+     */
+    public boolean isCurrencyValid(BankAccount account, Currency fromCurrency, Currency toCurrency) {
+        Currency accountCurrency = account.getCurrency();
+        if (fromCurrency == null || accountCurrency == null) return true;
+        return accountCurrency.equals(fromCurrency) || accountCurrency.equals(toCurrency);
+    }
+
+    /**
+     * Applies an operation to its account if its apply date has been reached.
+     *
+     * @param operation Operation already persisted
+     * @return True if the operation has been applied now.
+     *
+     * @throws ServerErrorException
+     *  1 -> Operation without account
+     *  2 -> Operation currency is not the account currency
+     *  3 -> Balance overflow
+     */
+    public boolean applyIfDue(Operation operation) throws ServerErrorException {
+        if (operation.getAppliedAmount() != null) return false;
+        if (operation.getApplyWhen() != null && operation.getApplyWhen().isAfter(LocalDateTime.now())) return false;
+
+        apply(operation);
+        return true;
+    }
+
+    /**
+     * Applies the operations whose apply date has been reached, adding them to each account balance at once (one
+     * locked update per account instead of one per operation).
+     *
+     * @param operations Operations already persisted. Their view rows must be created after calling it.
+     * @return Number of operations applied now.
+     *
+     * @throws ServerErrorException
+     *  2 -> Operation currency is not the account currency
+     *  3 -> Balance overflow
+     */
+    public int applyIfDue(List<? extends Operation> operations) throws ServerErrorException {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Long> amounts = new HashMap<>();
+        int applied = 0;
+
+        for (Operation operation : operations) {
+            if (operation.getAppliedAmount() != null) continue;
+            if (operation.getApplyWhen() != null && operation.getApplyWhen().isAfter(now)) continue;
+
+            BankAccount account = getAccount(operation);
+            if (account == null) {
+                operation.setAppliedAmount(0L);
+                continue;
+            }
+
+            long amount = getSignedAmount(operation, account.getCurrency());
+            operation.setAppliedAmount(amount);
+            try {
+                amounts.merge(account.getId(), amount, Math::addExact);
+            } catch (ArithmeticException ex) {
+                throw new ServerErrorException(3, "Bank account balance overflow.", ex);
+            }
+            applied++;
+        }
+
+        for (Map.Entry<Long, Long> entry : amounts.entrySet()) {
+            // Accounts may be detached by the caller batches, use the managed instance
+            addToBalance(em.find(BankAccount.class, entry.getKey()), entry.getValue());
+        }
+
+        return applied;
+    }
+
+    /**
+     * Applies a pending operation. The operation row is locked, so it is safe to call it from several nodes.
+     *
+     * @param operationId Operation id
+     * @return True if the operation has been applied, false if it does not exist or was already applied.
+     */
+    public boolean applyPendingOperation(Long operationId) throws ServerErrorException {
+        Operation operation = em.find(Operation.class, operationId, LockModeType.PESSIMISTIC_WRITE);
+        if (operation == null || operation.getAppliedAmount() != null) return false;
+
+        apply(operation);
+        return true;
+    }
+
+    /**
+     * @param now Current date
+     * @param after Last operation of the previous batch (null to start)
+     * @param batchSize Max number of operations
+     * @return Operations whose apply date has been reached and are not applied yet, after the given one (older first).
+     * Operations that could not be applied stay pending, so a run pages past them instead of reading them again.
+     */
+    public List<PendingOperation> getPendingOperations(LocalDateTime now, PendingOperation after, int batchSize) {
+        String afterCondition = after == null ? "" : "AND (o.applyWhen > :afterApplyWhen OR (o.applyWhen = :afterApplyWhen AND o.id > :afterId)) ";
+        TypedQuery<Object[]> query = em.createQuery("SELECT o.id, o.applyWhen FROM Operation o " +
+                "WHERE o.appliedAmount IS NULL AND o.applyWhen <= :now " + afterCondition + "ORDER BY o.applyWhen, o.id", Object[].class)
+            .setParameter("now", now)
+            .setMaxResults(batchSize);
+        if (after != null) {
+            query.setParameter("afterApplyWhen", after.applyWhen());
+            query.setParameter("afterId", after.id());
+        }
+        return query.getResultList().stream()
+            .map(row -> new PendingOperation((Long) row[0], (LocalDateTime) row[1]))
+            .toList();
+    }
+
+    /**
+     * Operation not applied yet.
+     */
+    public record PendingOperation(Long id, LocalDateTime applyWhen) {}
+
+    private void apply(Operation operation) throws ServerErrorException {
+        BankAccount account = getAccount(operation);
+        if (account == null) {
+            // Nothing to update, mark it so it is not processed again
+            ErrorWarning(log, "Operation without bank account", 1, "Operation: " + operation.getId());
+            operation.setAppliedAmount(0L);
+            operationViewService.setAppliedAmount(operation.getId(), 0L);
+            return;
+        }
+
+        long amount = getSignedAmount(operation, account.getCurrency());
+        addToBalance(account, amount);
+        operation.setAppliedAmount(amount);
+        operationViewService.setAppliedAmount(operation.getId(), amount);
+        log.info("Operation {} applied to bank account {}: {}", operation.getId(), account.getId(), amount);
+    }
+
+    /**
+     * Reverts every applied operation of a credit card. Must be called before removing its operations.
+     */
+    public void revertOperations(CreditCard creditCard) throws ServerErrorException {
+        Long applied = em.createQuery("SELECT COALESCE(SUM(op.appliedAmount), 0) FROM CreditCardOperation op WHERE op.me = :card AND op.appliedAmount IS NOT NULL", Long.class)
+            .setParameter("card", creditCard)
+            .getSingleResult();
+        if (applied != 0L) addToBalance(creditCard.getBankAccount(), -applied);
+    }
+
+    /**
+     * Reverts every applied operation of a debit card. Must be called before removing its operations.
+     */
+    public void revertOperations(DebitCard debitCard) throws ServerErrorException {
+        Long applied = em.createQuery("SELECT COALESCE(SUM(op.appliedAmount), 0) FROM DebitCardOperation op WHERE op.me = :card AND op.appliedAmount IS NOT NULL", Long.class)
+            .setParameter("card", debitCard)
+            .getSingleResult();
+        if (applied != 0L) addToBalance(debitCard.getBankAccount(), -applied);
+    }
+
+    private void addToBalance(BankAccount account, long amount) throws ServerErrorException {
+        // First change of the account in this transaction: reload the row locked, so the balance is the last committed
+        // one and nobody changes it until commit. Pending changes are flushed first so the reload keeps them. Once it
+        // is locked the managed balance is current, and reloading it would lose the changes of this transaction.
+        if (em.getLockMode(account) != LockModeType.PESSIMISTIC_WRITE) {
+            em.flush();
+            em.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+        }
+
+        long balance = account.getBalance() == null ? 0L : account.getBalance();
+        try {
+            account.setBalance(Math.addExact(balance, amount));
+        } catch (ArithmeticException ex) {
+            throw new ServerErrorException(3, "Bank account balance overflow.", ex);
+        }
+        account.setLastUpdate(LocalDateTime.now());
+        netWorthService.invalidateBankAccount(account.getId());
+    }
+
+    private BankAccount getAccount(Operation operation) {
+        if (operation instanceof BankTransfer bankTransfer) return bankTransfer.getMe();
+        if (operation instanceof CreditCardOperation cardOperation) return cardOperation.getMe().getBankAccount();
+        if (operation instanceof DebitCardOperation cardOperation) return cardOperation.getMe().getBankAccount();
+        return null;
+    }
+
+    /**
+     * @return Signed value of the operation in the account currency.
+     *
+     * @throws ServerErrorException
+     *  2 -> Operation currency is not the account currency
+     */
+    public long getSignedAmount(Operation operation, Currency accountCurrency) throws ServerErrorException {
+        return getSignedAmount(operation.getValue(), operation.getFromCurrency(), operation.getToCurrency(),
+            operation.getConversion(), operation.getOperationType(), accountCurrency);
+    }
+
+    private long getSignedAmount(Long value, Currency fromCurrency, Currency toCurrency, Float conversion,
+                                 OperationType operationType, Currency accountCurrency) throws ServerErrorException {
+        long amount = value == null ? 0L : value;
+
+        if (fromCurrency != null && accountCurrency != null && !accountCurrency.equals(fromCurrency)) {
+            if (!accountCurrency.equals(toCurrency)) throw new ServerErrorException(2, "Operation currency is not the bank account currency.");
+            amount = Math.round(amount * (double) (conversion == null ? 1F : conversion));
+        }
+
+        return OperationType.OUTCOME.equals(operationType) ? -amount : amount;
+    }
+
+    /**
+     * @param afterId Last account id of the previous batch (0 to start)
+     * @param batchSize Max number of accounts to check
+     * @return Ids of the next batch of accounts, in id order.
+     */
+    public List<Long> getBankAccountIds(Long afterId, int batchSize) {
+        return em.createQuery("SELECT ba.id FROM BankAccount ba WHERE ba.id > :afterId ORDER BY ba.id", Long.class)
+            .setParameter("afterId", afterId)
+            .setMaxResults(batchSize)
+            .getResultList();
+    }
+
+    /**
+     * Recomputes the balance of some accounts from their applied operations and compares it with the stored one.
+     *
+     * @param accountIds Ids of the accounts to check
+     * @return Accounts whose balance does not match their operations.
+     */
+    public List<LedgerDrift> verifyBalances(List<Long> accountIds) {
+        if (accountIds.isEmpty()) return List.of();
+
+        Map<Long, BankAccount> accounts = new HashMap<>();
+        em.createQuery("SELECT ba FROM BankAccount ba WHERE ba.id IN :ids", BankAccount.class)
+            .setParameter("ids", accountIds)
+            .getResultList()
+            .forEach(ba -> accounts.put(ba.getId(), ba));
+
+        Map<Long, Long> expected = new HashMap<>();
+        Map<Long, Long> applied = new HashMap<>();
+
+        sumOperations(expected, applied, accounts, em.createQuery(
+            "SELECT bt.me.id, bt.value, bt.fromCurrency, bt.toCurrency, bt.conversion, bt.operationType, bt.appliedAmount " +
+            "FROM BankTransfer bt WHERE bt.me.id IN :ids AND bt.appliedAmount IS NOT NULL", Object[].class)
+            .setParameter("ids", accountIds)
+            .getResultStream());
+        sumOperations(expected, applied, accounts, em.createQuery(
+            "SELECT op.me.bankAccount.id, op.value, op.fromCurrency, op.toCurrency, op.conversion, op.operationType, op.appliedAmount " +
+            "FROM CreditCardOperation op WHERE op.me.bankAccount.id IN :ids AND op.appliedAmount IS NOT NULL", Object[].class)
+            .setParameter("ids", accountIds)
+            .getResultStream());
+        sumOperations(expected, applied, accounts, em.createQuery(
+            "SELECT op.me.bankAccount.id, op.value, op.fromCurrency, op.toCurrency, op.conversion, op.operationType, op.appliedAmount " +
+            "FROM DebitCardOperation op WHERE op.me.bankAccount.id IN :ids AND op.appliedAmount IS NOT NULL", Object[].class)
+            .setParameter("ids", accountIds)
+            .getResultStream());
+
+        List<LedgerDrift> drifts = new ArrayList<>();
+        for (BankAccount account : accounts.values()) {
+            long balance = account.getBalance() == null ? 0L : account.getBalance();
+            long expectedBalance = expected.getOrDefault(account.getId(), 0L);
+            long appliedBalance = applied.getOrDefault(account.getId(), 0L);
+            if (balance != expectedBalance || balance != appliedBalance) {
+                drifts.add(new LedgerDrift(account.getId(), balance, expectedBalance, appliedBalance));
+            }
+        }
+
+        // Entities are only read, do not keep them for the next batch
+        em.clear();
+        return drifts;
+    }
+
+    private void sumOperations(Map<Long, Long> expected, Map<Long, Long> applied, Map<Long, BankAccount> accounts, Stream<Object[]> rows) {
+        try (rows) {
+            rows.forEach(row -> {
+                Long accountId = (Long) row[0];
+                BankAccount account = accounts.get(accountId);
+                long amount;
+                try {
+                    amount = getSignedAmount((Long) row[1], (Currency) row[2], (Currency) row[3], (Float) row[4],
+                        (OperationType) row[5], account == null ? null : account.getCurrency());
+                } catch (ServerErrorException ex) {
+                    // Cannot be recomputed, it will be reported as drift
+                    amount = 0L;
+                }
+                expected.merge(accountId, amount, Long::sum);
+                applied.merge(accountId, (Long) row[6], Long::sum);
+            });
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.model.CurrencyBalanceVO;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Balances of the bank accounts of an owner grouped by currency.
+ *
+ * They are computed with a single aggregate query and cached per owner for a while. Every balance change of an
+ * account (ledger writes) and every owner change invalidates the owners of the account, right away and again when
+ * the transaction ends, so readers never keep balances of a rolled back transaction.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Transactional
+@Slf4j
+public class NetWorthService {
+
+    @Autowired
+    private EntityManager em;
+
+    @Value("${netWorth.cache.ttlSeconds:300}")
+    private long ttlSeconds;
+    @Value("${netWorth.cache.maxSize:10000}")
+    private int maxSize;
+
+    private final ConcurrentHashMap<Long, Entry> cache = new ConcurrentHashMap<>();
+    // Changes on every invalidation, balances read before an invalidation are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param ownerId Owner of the bank accounts
+     * @return Sum of the balances of the owner accounts per currency.
+     */
+    public List<CurrencyBalanceVO> getOwnerBalances(Long ownerId) {
+        Entry entry = cache.get(ownerId);
+        if (entry != null && entry.expiresAt > System.nanoTime()) {
+            hits.increment();
+            return entry.balances;
+        }
+        misses.increment();
+
+        long currentGeneration = generation.get();
+        List<CurrencyBalanceVO> balances = new ArrayList<>();
+        em.createQuery("SELECT ba.currency, SUM(ba.balance), COUNT(ba) FROM BankAccountOwner bao JOIN bao.id.bankAccount ba " +
+                "WHERE bao.id.owner.id = :ownerId GROUP BY ba.currency ORDER BY ba.currency", Object[].class)
+            .setParameter("ownerId", ownerId)
+            .getResultList()
+            .forEach(row -> balances.add(CurrencyBalanceVO.builder()
+                .currency((Currency) row[0])
+                .balance(((Number) row[1]).longValue())
+                .bankAccountCount(((Number) row[2]).longValue())
+                .build()));
+
+        List<CurrencyBalanceVO> result = List.copyOf(balances);
+        if (generation.get() == currentGeneration) {
+            if (cache.size() >= maxSize) clear();
+            cache.put(ownerId, new Entry(result, System.nanoTime() + ttlSeconds * 1_000_000_000L));
+        }
+        return result;
+    }
+
+    /**
+     * Removes the cached balances of the owners of a bank account. Must be called when its balance changes.
+     */
+    public void invalidateBankAccount(Long bankAccountId) {
+        if (bankAccountId == null) return;
+
+        List<Long> ownerIds = em.createQuery("SELECT bao.id.owner.id FROM BankAccountOwner bao WHERE bao.id.bankAccount.id = :bankAccountId", Long.class)
+            .setParameter("bankAccountId", bankAccountId)
+            .getResultList();
+        ownerIds.forEach(this::invalidateOwner);
+    }
+
+    /**
+     * Removes the cached balances of an owner. Must be called when its bank accounts change.
+     */
+    public void invalidateOwner(Long ownerId) {
+        if (ownerId == null) return;
+        removeOwner(ownerId);
+        onCompletion(() -> removeOwner(ownerId));
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    private void removeOwner(Long ownerId) {
+        generation.incrementAndGet();
+        cache.remove(ownerId);
+    }
+
+    private void onCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public int getSize() {
+        return cache.size();
+    }
+
+    private static final class Entry {
+        private final List<CurrencyBalanceVO> balances;
+        private final long expiresAt;
+
+        private Entry(List<CurrencyBalanceVO> balances, long expiresAt) {
+            this.balances = balances;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
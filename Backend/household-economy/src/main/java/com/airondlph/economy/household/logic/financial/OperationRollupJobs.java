@@ -0,0 +1,126 @@
+package com.airondlph.economy.household.logic.financial;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Rebuilds the monthly totals of the operations from the operation view:
+ *  - On startup, if they have never been built.
+ *  - On schedule (disabled by default, totals are kept in sync incrementally).
+ *
+ * Bank accounts are split in batches of consecutive ids and the batches are rebuilt in parallel, every one in its
+ * own transaction.
+ *
+ * @author adriandlph / airondlph
+ */
+@Component
+@Slf4j
+public class OperationRollupJobs {
+
+    @Autowired
+    private OperationRollupService operationRollupService;
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Value("${ledger.batchSize:500}")
+    private int batchSize;
+    @Value("${rollup.rebuild.threads:4}")
+    private int threads;
+
+    private final AtomicInteger threadNumber = new AtomicInteger();
+    private ExecutorService executor;
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    // After the missing view rows are created
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void buildIfEmpty() {
+        try {
+            if (operationRollupService.isEmpty()) rebuildAll();
+        } catch (RuntimeException ex) {
+            Error(log, "Error building monthly totals", null, ex.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${rollup.rebuild.cron:-}")
+    public void rebuild() {
+        rebuildAll();
+    }
+
+    /**
+     * @return Number of totals created.
+     */
+    public int rebuildAll() {
+        Enter(log, "rebuildAll");
+        long start = System.nanoTime();
+
+        List<Future<Integer>> batches = new ArrayList<>();
+        int created = 0;
+        int failed = 0;
+        try {
+            Long lastId = 0L;
+            List<Long> ids;
+            do {
+                ids = ledgerService.getBankAccountIds(lastId, batchSize);
+                if (ids.isEmpty()) break;
+
+                Long fromId = ids.getFirst();
+                Long toId = ids.getLast();
+                batches.add(getExecutor().submit(() -> operationRollupService.rebuild(fromId, toId)));
+                lastId = toId;
+            } while (ids.size() == batchSize);
+
+            for (Future<Integer> batch : batches) {
+                try {
+                    created += batch.get();
+                } catch (ExecutionException ex) {
+                    Error(log, "Error rebuilding monthly totals batch", null, ex.getCause().getMessage());
+                    failed++;
+                }
+            }
+
+            log.info("Monthly totals rebuilt: {} batches ({} failed), {} totals in {} ms.",
+                batches.size(), failed, created, (System.nanoTime() - start) / 1_000_000);
+
+        } catch (InterruptedException ex) {
+            batches.forEach(batch -> batch.cancel(true));
+            Thread.currentThread().interrupt();
+
+        } finally {
+            Exit(log, "rebuildAll");
+        }
+
+        return created;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "rollup-rebuild-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.data.entity.financial.OperationMonthlyRollupPK;
+import com.airondlph.economy.household.data.entity.financial.OperationView;
+import com.airondlph.economy.household.data.entity.user.User;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationSource;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import com.airondlph.economy.household.data.model.MonthlyTotalVO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Keeps the monthly totals of the operations ({@link com.airondlph.economy.household.data.entity.financial.OperationMonthlyRollup})
+ * in sync with the operation view.
+ *
+ * Totals are updated incrementally by OperationViewService in the same transaction as the view row, adding (or
+ * subtracting) the changes with an upsert per (account, month, currency, type), so concurrent changes of the same
+ * month never overwrite each other. Operations without currency are not counted.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Transactional
+@Slf4j
+public class OperationRollupService {
+
+    private static final String ROLLUP_TABLE = "operation_monthly_rollup";
+    private static final String ROLLUP_COLUMNS = "INSERT INTO " + ROLLUP_TABLE + " (bank_account_id, month, currency, operation_type, total, operation_count) ";
+    private static final String VIEW_TOTALS = "SELECT bank_account_id, YEAR(apply_when) * 100 + MONTH(apply_when), from_currency, operation_type, %1$sCOALESCE(SUM(value), 0), %1$sCOUNT(*) " +
+        "FROM operation_view WHERE from_currency IS NOT NULL AND %2$s GROUP BY bank_account_id, YEAR(apply_when) * 100 + MONTH(apply_when), from_currency, operation_type";
+    private static final String ADD_ON_DUPLICATE = " ON DUPLICATE KEY UPDATE total = total + VALUES(total), operation_count = operation_count + VALUES(operation_count)";
+
+    @Autowired
+    private EntityManager em;
+
+    /**
+     * Adds operations to the totals. It must be called after their view rows are created (or updated).
+     */
+    public void add(Collection<OperationView> views) {
+        update(views, 1);
+    }
+
+    /**
+     * Removes operations from the totals. It must be called before their view rows are removed (or updated).
+     */
+    public void remove(Collection<OperationView> views) {
+        update(views, -1);
+    }
+
+    private void update(Collection<OperationView> views, int sign) {
+        // One upsert per month, currency and type, not per operation
+        Map<OperationMonthlyRollupPK, long[]> changes = new HashMap<>();
+        for (OperationView view : views) {
+            if (view.getFromCurrency() == null || view.getApplyWhen() == null) continue;
+
+            long[] change = changes.computeIfAbsent(new OperationMonthlyRollupPK(view.getBankAccountId(), getMonth(view.getApplyWhen()),
+                view.getFromCurrency(), view.getOperationType()), key -> new long[2]);
+            change[0] += sign * (view.getValue() == null ? 0L : view.getValue());
+            change[1] += sign;
+        }
+
+        for (Map.Entry<OperationMonthlyRollupPK, long[]> entry : changes.entrySet()) {
+            OperationMonthlyRollupPK key = entry.getKey();
+            createRollupUpdate(ROLLUP_COLUMNS + "VALUES (:bankAccountId, :month, :currency, :operationType, :total, :operationCount)" + ADD_ON_DUPLICATE)
+                .setParameter("bankAccountId", key.getBankAccountId())
+                .setParameter("month", key.getMonth())
+                .setParameter("currency", key.getCurrency().ordinal())
+                .setParameter("operationType", key.getOperationType().ordinal())
+                .setParameter("total", entry.getValue()[0])
+                .setParameter("operationCount", entry.getValue()[1])
+                .executeUpdate();
+        }
+
+        if (sign < 0) removeEmpty(changes.keySet().stream().map(OperationMonthlyRollupPK::getBankAccountId).distinct().toList());
+    }
+
+    /**
+     * Removes the operations of a card from the totals. It must be called before their view rows are removed.
+     */
+    public void removeCardOperations(OperationSource source, Long cardId) {
+        // Derived table, MySQL does not allow VALUES() with a grouped select
+        createRollupUpdate(ROLLUP_COLUMNS + "SELECT * FROM (" + String.format(VIEW_TOTALS, "-", "source = :source AND card_id = :cardId") + ") t" + ADD_ON_DUPLICATE)
+            .setParameter("source", source.ordinal())
+            .setParameter("cardId", cardId)
+            .executeUpdate();
+
+        List<Long> bankAccountIds = em.createQuery("SELECT DISTINCT v.bankAccountId FROM OperationView v WHERE v.source = :source AND v.cardId = :cardId", Long.class)
+            .setParameter("source", source)
+            .setParameter("cardId", cardId)
+            .getResultList();
+        removeEmpty(bankAccountIds);
+    }
+
+    /**
+     * Removes every total of a bank account.
+     */
+    public void deleteBankAccount(Long bankAccountId) {
+        em.createQuery("DELETE FROM OperationMonthlyRollup r WHERE r.id.bankAccountId = :bankAccountId")
+            .setParameter("bankAccountId", bankAccountId)
+            .executeUpdate();
+    }
+
+    /**
+     * Native updates of the totals. Only the totals table changes, without it Hibernate would clear the whole second
+     * level cache on every update.
+     */
+    private Query createRollupUpdate(String sql) {
+        return em.createNativeQuery(sql)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace(ROLLUP_TABLE);
+    }
+
+    private void removeEmpty(List<Long> bankAccountIds) {
+        if (bankAccountIds.isEmpty()) return;
+
+        em.createQuery("DELETE FROM OperationMonthlyRollup r WHERE r.id.bankAccountId IN :bankAccountIds AND r.operationCount <= 0")
+            .setParameter("bankAccountIds", bankAccountIds)
+            .executeUpdate();
+    }
+
+    /**
+     * Computes again the totals of the bank accounts of an id range from the operation view. Rows are locked by the
+     * database while they are read, so operations created meanwhile are not lost nor counted twice.
+     *
+     * @param fromId First bank account id (included)
+     * @param toId Last bank account id (included)
+     * @return Number of totals created.
+     */
+    public int rebuild(Long fromId, Long toId) {
+        em.createQuery("DELETE FROM OperationMonthlyRollup r WHERE r.id.bankAccountId BETWEEN :fromId AND :toId")
+            .setParameter("fromId", fromId)
+            .setParameter("toId", toId)
+            .executeUpdate();
+
+        return createRollupUpdate(ROLLUP_COLUMNS + String.format(VIEW_TOTALS, "", "bank_account_id BETWEEN :fromId AND :toId"))
+            .setParameter("fromId", fromId)
+            .setParameter("toId", toId)
+            .executeUpdate();
+    }
+
+    /**
+     * @return True if there are no totals but there are operations (totals have never been built).
+     */
+    public boolean isEmpty() {
+        boolean noTotals = em.createQuery("SELECT r.id.bankAccountId FROM OperationMonthlyRollup r", Long.class)
+            .setMaxResults(1)
+            .getResultList()
+            .isEmpty();
+        if (!noTotals) return false;
+
+        return !em.createQuery("SELECT v.id FROM OperationView v", Long.class)
+            .setMaxResults(1)
+            .getResultList()
+            .isEmpty();
+    }
+
+    /**
+     * @return Totals of a bank account, oldest month first.
+     */
+    public List<MonthlyTotalVO> getBankAccountTotals(Long bankAccountId, YearMonth from, YearMonth to, Collection<OperationType> operationTypes) {
+        List<Object[]> rows = em.createQuery(
+                "SELECT r.id.month, r.id.currency, r.id.operationType, r.total, r.operationCount FROM OperationMonthlyRollup r " +
+                "WHERE r.id.bankAccountId = :bankAccountId AND r.id.month BETWEEN :from AND :to AND r.id.operationType IN :operationTypes " +
+                "ORDER BY r.id.month, r.id.currency, r.id.operationType", Object[].class)
+            .setParameter("bankAccountId", bankAccountId)
+            .setParameter("from", getMonth(from))
+            .setParameter("to", getMonth(to))
+            .setParameter("operationTypes", operationTypes)
+            .getResultList();
+
+        return toVOs(rows);
+    }
+
+    /**
+     * @return Totals of every bank account of an owner, oldest month first.
+     */
+    public List<MonthlyTotalVO> getOwnerTotals(User owner, YearMonth from, YearMonth to, Collection<OperationType> operationTypes) {
+        List<Object[]> rows = em.createQuery(
+                "SELECT r.id.month, r.id.currency, r.id.operationType, SUM(r.total), SUM(r.operationCount) FROM OperationMonthlyRollup r " +
+                "WHERE r.id.bankAccountId IN (SELECT bao.id.bankAccount.id FROM BankAccountOwner bao WHERE bao.id.owner = :owner) " +
+                "AND r.id.month BETWEEN :from AND :to AND r.id.operationType IN :operationTypes " +
+                "GROUP BY r.id.month, r.id.currency, r.id.operationType " +
+                "ORDER BY r.id.month, r.id.currency, r.id.operationType", Object[].class)
+            .setParameter("owner", owner)
+            .setParameter("from", getMonth(from))
+            .setParameter("to", getMonth(to))
+            .setParameter("operationTypes", operationTypes)
+            .getResultList();
+
+        return toVOs(rows);
+    }
+
+    private static List<MonthlyTotalVO> toVOs(List<Object[]> rows) {
+        List<MonthlyTotalVO> totals = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            int month = (Integer) row[0];
+            totals.add(MonthlyTotalVO.builder()
+                .month(YearMonth.of(month / 100, month % 100))
+                .currency((Currency) row[1])
+                .operationType((OperationType) row[2])
+                .total(((Number) row[3]).longValue())
+                .operationCount(((Number) row[4]).longValue())
+                .build());
+        }
+        return totals;
+    }
+
+    private static int getMonth(LocalDateTime date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    private static int getMonth(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+}
@@ -0,0 +1,191 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.data.entity.financial.*;
+import com.airondlph.economy.household.data.enumeration.OperationSource;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Keeps {@link OperationView} in sync with the operations.
+ *
+ * Every change of an operation (or of a value copied into the view, like the bank name) must go through this
+ * service in the same transaction, so the view is committed or rolled back together with the operation. The monthly
+ * totals are updated from the view rows here too.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Transactional
+@Slf4j
+public class OperationViewService {
+
+    private static final String INSERT_COLUMNS = "INSERT INTO OperationView (id, source, bankAccountId, otherBankAccountId, %s" +
+        "bankId, bankName, concept, description, operationType, value, fromCurrency, toCurrency, conversion, madeWhen, applyWhen, lastModification, appliedAmount) ";
+    private static final String SELECT_COLUMNS = "SELECT o.id, com.airondlph.economy.household.data.enumeration.OperationSource.%s, ba.id, o.other.id, %s" +
+        "b.id, b.name, o.concept, o.description, o.operationType, o.value, o.fromCurrency, o.toCurrency, o.conversion, o.madeWhen, o.applyWhen, o.lastModification, o.appliedAmount ";
+    private static final String NOT_IN_VIEW = " WHERE NOT EXISTS (SELECT v.id FROM OperationView v WHERE v.id = o.id)";
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private OperationRollupService operationRollupService;
+
+    /**
+     * Creates or updates the view row of an operation. It must be called after persisting the operation.
+     *
+     * @param operation Operation (bank transfer or card operation) with id
+     */
+    public void save(Operation operation) {
+        OperationView view = em.find(OperationView.class, operation.getId());
+        if (view == null) {
+            create(operation);
+            return;
+        }
+
+        operationRollupService.remove(List.of(view));
+        setValues(view, operation);
+        operationRollupService.add(List.of(view));
+    }
+
+    /**
+     * Creates the view row of a new operation, without looking for an existing one (so it can be batched with the
+     * operation insert).
+     *
+     * @param operation New operation (bank transfer or card operation) with id
+     */
+    public void create(Operation operation) {
+        create(List.of(operation));
+    }
+
+    /**
+     * Creates the view rows of new operations, updating the monthly totals once for all of them.
+     *
+     * @param operations New operations (bank transfers or card operations) with id
+     */
+    public void create(List<? extends Operation> operations) {
+        List<OperationView> views = new ArrayList<>(operations.size());
+        for (Operation operation : operations) {
+            OperationView view = OperationView.builder().id(operation.getId()).build();
+            setValues(view, operation);
+            em.persist(view);
+            views.add(view);
+        }
+        operationRollupService.add(views);
+    }
+
+    private void setValues(OperationView view, Operation operation) {
+        BankAccount bankAccount;
+        if (operation instanceof BankTransfer bankTransfer) {
+            view.setSource(OperationSource.BANK_TRANSFER);
+            bankAccount = bankTransfer.getMe();
+            view.setOtherBankAccountId(bankTransfer.getOther().getId());
+        } else if (operation instanceof CreditCardOperation cardOperation) {
+            view.setSource(OperationSource.CREDIT_CARD_OPERATION);
+            bankAccount = cardOperation.getMe().getBankAccount();
+            view.setOtherBankAccountId(cardOperation.getOther().getId());
+            view.setCardId(cardOperation.getMe().getId());
+        } else if (operation instanceof DebitCardOperation cardOperation) {
+            view.setSource(OperationSource.DEBIT_CARD_OPERATION);
+            bankAccount = cardOperation.getMe().getBankAccount();
+            view.setOtherBankAccountId(cardOperation.getOther().getId());
+            view.setCardId(cardOperation.getMe().getId());
+        } else {
+            throw new IllegalArgumentException("Operation without bank account: " + operation.getId());
+        }
+
+        view.setBankAccountId(bankAccount.getId());
+        Bank bank = bankAccount.getBank();
+        view.setBankId(bank == null ? null : bank.getId());
+        view.setBankName(bank == null ? null : bank.getName());
+        view.setConcept(operation.getConcept());
+        view.setDescription(operation.getDescription());
+        view.setOperationType(operation.getOperationType());
+        view.setValue(operation.getValue());
+        view.setFromCurrency(operation.getFromCurrency());
+        view.setToCurrency(operation.getToCurrency());
+        view.setConversion(operation.getConversion());
+        view.setMadeWhen(operation.getMadeWhen());
+        view.setApplyWhen(operation.getApplyWhen());
+        view.setLastModification(operation.getLastModification());
+        view.setAppliedAmount(operation.getAppliedAmount());
+    }
+
+    /**
+     * @param operationId Operation id
+     * @param appliedAmount Value applied to the account balance
+     */
+    public void setAppliedAmount(Long operationId, Long appliedAmount) {
+        em.createQuery("UPDATE OperationView v SET v.appliedAmount = :appliedAmount WHERE v.id = :id")
+            .setParameter("appliedAmount", appliedAmount)
+            .setParameter("id", operationId)
+            .executeUpdate();
+    }
+
+    /**
+     * Removes the view rows of every operation of a card. Must be called when its operations are removed.
+     *
+     * @return Number of rows removed.
+     */
+    public int deleteCardOperations(OperationSource source, Long cardId) {
+        operationRollupService.removeCardOperations(source, cardId);
+        return em.createQuery("DELETE FROM OperationView v WHERE v.source = :source AND v.cardId = :cardId")
+            .setParameter("source", source)
+            .setParameter("cardId", cardId)
+            .executeUpdate();
+    }
+
+    /**
+     * Copies the new name of a bank to the operations of its accounts.
+     *
+     * @return Number of rows updated.
+     */
+    public int updateBankName(Long bankId, String bankName) {
+        return em.createQuery("UPDATE OperationView v SET v.bankName = :bankName WHERE v.bankId = :bankId")
+            .setParameter("bankName", bankName)
+            .setParameter("bankId", bankId)
+            .executeUpdate();
+    }
+
+    /**
+     * Creates the view rows of the operations created before the view existed (or while it was not kept in sync).
+     * It is done in the database with one statement per operation kind.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE) // Before the monthly totals are built
+    public void fillMissingRows() {
+        Enter(log, "fillMissingRows");
+
+        try {
+            int n = em.createQuery(String.format(INSERT_COLUMNS, "") + String.format(SELECT_COLUMNS, "BANK_TRANSFER", "") +
+                    "FROM BankTransfer o JOIN o.me ba JOIN ba.bank b" + NOT_IN_VIEW)
+                .executeUpdate();
+            n += em.createQuery(String.format(INSERT_COLUMNS, "cardId, ") + String.format(SELECT_COLUMNS, "CREDIT_CARD_OPERATION", "o.me.id, ") +
+                    "FROM CreditCardOperation o JOIN o.me.bankAccount ba JOIN ba.bank b" + NOT_IN_VIEW)
+                .executeUpdate();
+            n += em.createQuery(String.format(INSERT_COLUMNS, "cardId, ") + String.format(SELECT_COLUMNS, "DEBIT_CARD_OPERATION", "o.me.id, ") +
+                    "FROM DebitCardOperation o JOIN o.me.bankAccount ba JOIN ba.bank b" + NOT_IN_VIEW)
+                .executeUpdate();
+
+            if (n > 0) log.info("Operation view rows created: {}", n);
+
+        } catch (Exception ex) {
+            Error(log, "Error filling operation view", null, ex.getMessage());
+
+        } finally {
+            Exit(log, "fillMissingRows");
+        }
+    }
+
+}
@@ -0,0 +1,265 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import com.airondlph.economy.household.data.model.SpendingItemVO;
+import com.airondlph.economy.household.data.model.SpendingReportVO;
+import com.airondlph.economy.household.exception.ServerErrorException;
+import com.airondlph.economy.household.util.LongTotalsMap;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Spending reports ("where did my money go"): totals of the operations of the bank accounts of an owner by concept,
+ * by counterparty bank account and by card.
+ *
+ * Operations are read from the operation view one bank account at a time. Only the needed columns are streamed, with
+ * a JDBC fetch size (or row by row with MySQL, report.streamRows), and added to totals per key (ids in
+ * {@link LongTotalsMap}), so memory depends on the distinct concepts, counterparties and cards and not on the number
+ * of operations. Bank accounts are read in parallel on a bounded pool, each one in its own read-only transaction, and
+ * their totals are merged at the end.
+ *
+ * The report does not run in a transaction: the calling thread holds no database connection while it waits, and
+ * reports never use more connections than threads in the pool. Every query has the report timeout, the report of
+ * several bank accounts also stops waiting when it expires.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Transactional
+@Slf4j
+public class SpendingReportService {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${report.threads:4}")
+    private int threads;
+    @Value("${report.fetchSize:1000}")
+    private int fetchSize;
+    // MySQL only: Connector/J streams the rows of a statement with fetch size Integer.MIN_VALUE, without cursor fetch
+    @Value("${report.streamRows:false}")
+    private boolean streamRows;
+    @Value("${report.timeoutMs:30000}")
+    private long timeoutMs;
+
+    private final AtomicInteger threadNumber = new AtomicInteger();
+    private ExecutorService executor;
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    /**
+     * @param ownerId Owner of the bank accounts
+     * @param from First month
+     * @param to Last month
+     * @param limit Maximum items of every breakdown
+     * @return Report of the operations of the owner's bank accounts of a currency and operation type.
+     * @throws ServerErrorException Error reading the operations or report timeout
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public SpendingReportVO getOwnerReport(Long ownerId, Currency currency, OperationType operationType, YearMonth from, YearMonth to, int limit) throws ServerErrorException {
+        Enter(log, "getOwnerReport");
+        long start = System.nanoTime();
+
+        LocalDateTime fromDate = from.atDay(1).atStartOfDay();
+        LocalDateTime toDate = to.plusMonths(1).atDay(1).atStartOfDay();
+
+        try {
+            List<Long> bankAccountIds = readOnly().execute(status -> em.createQuery(
+                    "SELECT bao.id.bankAccount.id FROM BankAccountOwner bao WHERE bao.id.owner.id = :ownerId", Long.class)
+                .setParameter("ownerId", ownerId)
+                .getResultList());
+
+            SpendingTotals totals;
+            if (bankAccountIds.size() == 1) {
+                totals = aggregate(bankAccountIds.getFirst(), currency, operationType, fromDate, toDate);
+            } else {
+                List<Callable<SpendingTotals>> tasks = new ArrayList<>(bankAccountIds.size());
+                for (Long bankAccountId : bankAccountIds) {
+                    tasks.add(() -> aggregate(bankAccountId, currency, operationType, fromDate, toDate));
+                }
+                totals = merge(tasks);
+            }
+
+            SpendingReportVO report = SpendingReportVO.builder()
+                .from(from)
+                .to(to)
+                .currency(currency)
+                .operationType(operationType)
+                .total(totals.total)
+                .operationCount(totals.count)
+                .concepts(totals.getTopConcepts(limit))
+                .counterparties(getTop(totals.counterparties, limit))
+                .cards(getTop(totals.cards, limit))
+                .build();
+
+            log.debug("Spending report of {} bank accounts and {} operations in {} ms.",
+                bankAccountIds.size(), totals.count, (System.nanoTime() - start) / 1_000_000);
+            return report;
+
+        } finally {
+            Exit(log, "getOwnerReport");
+        }
+    }
+
+    private SpendingTotals merge(List<Callable<SpendingTotals>> tasks) throws ServerErrorException {
+        List<Future<SpendingTotals>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<SpendingTotals> task : tasks) futures.add(getExecutor().submit(task));
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            SpendingTotals totals = new SpendingTotals();
+            for (Future<SpendingTotals> future : futures) {
+                totals.addAll(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            return totals;
+
+        } catch (ExecutionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            Error(log, "Error aggregating operations", null, ex.getCause().getMessage());
+            throw new ServerErrorException(1, "Error aggregating operations.", ex);
+        } catch (TimeoutException ex) {
+            futures.forEach(future -> future.cancel(true));
+            ErrorWarning(log, "Spending report timeout", null, timeoutMs + " ms");
+            throw new ServerErrorException(1, "Spending report timeout.", ex);
+        } catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ServerErrorException(1, "Spending report interrupted.", ex);
+        }
+    }
+
+    private SpendingTotals aggregate(Long bankAccountId, Currency currency, OperationType operationType, LocalDateTime from, LocalDateTime to) {
+        return readOnly().execute(status -> {
+            SpendingTotals totals = new SpendingTotals();
+            // Scalar columns: no entities are kept in the persistence context
+            try (Stream<Object[]> rows = em.createQuery(
+                    "SELECT v.concept, v.otherBankAccountId, v.cardId, v.value FROM OperationView v " +
+                    "WHERE v.bankAccountId = :bankAccountId AND v.applyWhen >= :from AND v.applyWhen < :to " +
+                    "AND v.operationType = :operationType AND v.fromCurrency = :currency", Object[].class)
+                .setParameter("bankAccountId", bankAccountId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("operationType", operationType)
+                .setParameter("currency", currency)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, streamRows ? Integer.MIN_VALUE : fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, (int) Math.min(timeoutMs, Integer.MAX_VALUE))
+                .getResultStream()) {
+                rows.forEach(row -> totals.add((String) row[0], (Long) row[1], (Long) row[2], row[3] == null ? 0L : (Long) row[3]));
+            }
+            return totals;
+        });
+    }
+
+    private TransactionTemplate readOnly() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private static List<SpendingItemVO> getTop(LongTotalsMap totals, int limit) {
+        // Min-heap of the highest totals: {key, total, count}
+        PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1, Comparator.comparingLong((long[] item) -> item[1]).thenComparingLong(item -> item[2]));
+        totals.forEach((key, total, count) -> {
+            top.add(new long[] { key, total, count });
+            if (top.size() > limit) top.poll();
+        });
+
+        List<SpendingItemVO> items = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            long[] item = top.poll();
+            items.add(SpendingItemVO.builder().id(item[0]).total(item[1]).operationCount(item[2]).build());
+        }
+        Collections.reverse(items);
+        return items;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "spending-report-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Totals of the operations of one or more bank accounts. Not thread safe.
+     */
+    private static final class SpendingTotals {
+        private long total;
+        private long count;
+        // Concept -> {total, count}
+        private final Map<String, long[]> concepts = new HashMap<>();
+        private final LongTotalsMap counterparties = new LongTotalsMap();
+        private final LongTotalsMap cards = new LongTotalsMap();
+
+        private void add(String concept, Long otherBankAccountId, Long cardId, long value) {
+            total += value;
+            count++;
+
+            long[] conceptTotals = concepts.computeIfAbsent(concept, key -> new long[2]);
+            conceptTotals[0] += value;
+            conceptTotals[1]++;
+
+            if (otherBankAccountId != null) counterparties.add(otherBankAccountId, value);
+            if (cardId != null) cards.add(cardId, value);
+        }
+
+        private void addAll(SpendingTotals other) {
+            total += other.total;
+            count += other.count;
+            other.concepts.forEach((concept, otherTotals) -> {
+                long[] conceptTotals = concepts.computeIfAbsent(concept, key -> new long[2]);
+                conceptTotals[0] += otherTotals[0];
+                conceptTotals[1] += otherTotals[1];
+            });
+            counterparties.addAll(other.counterparties);
+            cards.addAll(other.cards);
+        }
+
+        private List<SpendingItemVO> getTopConcepts(int limit) {
+            PriorityQueue<Map.Entry<String, long[]>> top = new PriorityQueue<>(limit + 1,
+                Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[0]).thenComparingLong(entry -> entry.getValue()[1]));
+            for (Map.Entry<String, long[]> entry : concepts.entrySet()) {
+                top.add(entry);
+                if (top.size() > limit) top.poll();
+            }
+
+            List<SpendingItemVO> items = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Map.Entry<String, long[]> entry = top.poll();
+                items.add(SpendingItemVO.builder().concept(entry.getKey()).total(entry.getValue()[0]).operationCount(entry.getValue()[1]).build());
+            }
+            Collections.reverse(items);
+            return items;
+        }
+    }
+
+}
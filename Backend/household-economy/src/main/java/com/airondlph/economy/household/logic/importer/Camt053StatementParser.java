@@ -0,0 +1,107 @@
+package com.airondlph.economy.household.logic.importer;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.exception.ServerErrorException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads ISO 20022 camt.053 statements. Every Ntry (entry) element is a row:
+ *  - Amt (with Ccy attribute): amount
+ *  - CdtDbtInd: CRDT (income) or DBIT (outcome)
+ *  - BookgDt: operation date
+ *  - ValDt: apply date (operation date if not defined)
+ *  - AddtlNtryInf: concept
+ *  - Ustrd (remittance information): description (concept if there is no AddtlNtryInf)
+ * Only the first amount of the entry is used (the amounts of its transaction details are not).
+ *
+ * @author adriandlph / airondlph
+ */
+public class Camt053StatementParser extends XmlStatementParser {
+
+    private final Currency defaultCurrency;
+
+    /**
+     * @param defaultCurrency Currency of the rows without Ccy attribute (may be null)
+     */
+    public Camt053StatementParser(Currency defaultCurrency) {
+        this.defaultCurrency = defaultCurrency;
+    }
+
+    @Override
+    protected void parse(XMLStreamReader reader, RowHandler handler) throws XMLStreamException, ServerErrorException, InterruptedException {
+        long number = 0;
+
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamReader.START_ELEMENT && "Ntry".equals(reader.getLocalName())) {
+                number++;
+                handler.handle(readEntry(reader, number));
+            }
+        }
+    }
+
+    private StatementRow readEntry(XMLStreamReader reader, long number) throws XMLStreamException {
+        String amount = null, currency = null, indicator = null, booking = null, value = null, concept = null, description = null;
+        String parent = null; // Date elements have the date in a child (Dt or DtTm)
+
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamReader.END_ELEMENT) {
+                depth--;
+                if ("BookgDt".equals(reader.getLocalName()) || "ValDt".equals(reader.getLocalName())) parent = null;
+                continue;
+            }
+            if (event != XMLStreamReader.START_ELEMENT) continue;
+
+            String name = reader.getLocalName();
+            switch (name) {
+                case "Amt" -> {
+                    if (amount == null) {
+                        currency = reader.getAttributeValue(null, "Ccy");
+                        amount = readText(reader);
+                    } else {
+                        readText(reader);
+                    }
+                }
+                case "CdtDbtInd" -> {
+                    String text = readText(reader);
+                    if (indicator == null) indicator = text;
+                }
+                case "BookgDt", "ValDt" -> {
+                    parent = name;
+                    depth++;
+                }
+                case "Dt", "DtTm" -> {
+                    String text = readText(reader);
+                    if ("BookgDt".equals(parent)) booking = text;
+                    else if ("ValDt".equals(parent)) value = text;
+                }
+                case "AddtlNtryInf" -> concept = readText(reader);
+                case "Ustrd" -> {
+                    String text = readText(reader);
+                    description = description == null ? text : description + " " + text;
+                }
+                default -> depth++;
+            }
+        }
+
+        try {
+            if (!"CRDT".equals(indicator) && !"DBIT".equals(indicator)) throw new IllegalArgumentException("Credit/debit indicator not valid: " + indicator);
+            long signedAmount = Math.abs(StatementValues.parseAmount(amount));
+            if ("DBIT".equals(indicator)) signedAmount = -signedAmount;
+
+            return StatementRow.ok(number, StatementValues.toBankTransfer(
+                StatementValues.parseDate(booking == null ? value : booking),
+                value == null ? null : StatementValues.parseDate(value),
+                concept == null ? description : concept,
+                concept == null ? null : description,
+                signedAmount,
+                currency == null ? defaultCurrency : StatementValues.parseCurrency(currency)));
+        } catch (IllegalArgumentException ex) {
+            return StatementRow.error(number, ex.getMessage());
+        }
+    }
+
+}
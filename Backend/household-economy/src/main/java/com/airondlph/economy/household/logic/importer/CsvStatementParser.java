@@ -0,0 +1,139 @@
+package com.airondlph.economy.household.logic.importer;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import com.airondlph.economy.household.data.model.BankTransferVO;
+import com.airondlph.economy.household.exception.ServerErrorException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads CSV statements line by line.
+ *
+ * The first line is the header. Columns are found by name (case insensitive, any order):
+ *  - date (required): operation date
+ *  - applyDate / valueDate: apply date (operation date if not defined)
+ *  - concept (required)
+ *  - description
+ *  - amount (required): signed decimal, negative for outcomes
+ *  - currency: default currency if not defined
+ *  - type: INCOME / OUTCOME, the amount sign is ignored if defined
+ * The separator (',' or ';') is taken from the header. Values may be quoted ("a ""b""; c"), but they cannot have
+ * line breaks.
+ *
+ * @author adriandlph / airondlph
+ */
+public class CsvStatementParser implements StatementParser {
+
+    private final Currency defaultCurrency;
+
+    /**
+     * @param defaultCurrency Currency of the rows without currency column (may be null)
+     */
+    public CsvStatementParser(Currency defaultCurrency) {
+        this.defaultCurrency = defaultCurrency;
+    }
+
+    @Override
+    public void parse(InputStream in, RowHandler handler) throws ServerErrorException, InterruptedException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) throw new ServerErrorException(2, "Empty file.");
+            if (!header.isEmpty() && header.charAt(0) == '\uFEFF') header = header.substring(1);
+
+            char separator = header.indexOf(';') >= 0 ? ';' : ',';
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> names = split(header, separator, new ArrayList<>());
+            for (int i = 0; i < names.size(); i++) columns.put(names.get(i).trim().toLowerCase(), i);
+
+            int date = column(columns, "date");
+            int applyDate = columns.getOrDefault("applydate", columns.getOrDefault("valuedate", -1));
+            int concept = column(columns, "concept");
+            int description = columns.getOrDefault("description", -1);
+            int amount = column(columns, "amount");
+            int currency = columns.getOrDefault("currency", -1);
+            int type = columns.getOrDefault("type", -1);
+            if (currency < 0 && defaultCurrency == null) throw new ServerErrorException(3, "Column currency not defined.");
+
+            List<String> values = new ArrayList<>(names.size());
+            String line;
+            long number = 1;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isBlank()) continue;
+
+                values.clear();
+                split(line, separator, values);
+                try {
+                    long value = StatementValues.parseAmount(get(values, amount));
+                    String typeValue = get(values, type);
+                    if (typeValue != null && !typeValue.isBlank()) {
+                        OperationType operationType = OperationType.valueOf(typeValue.trim().toUpperCase());
+                        value = OperationType.OUTCOME.equals(operationType) ? -Math.abs(value) : Math.abs(value);
+                    }
+                    String applyDateValue = get(values, applyDate);
+
+                    BankTransferVO bankTransfer = StatementValues.toBankTransfer(
+                        StatementValues.parseDate(get(values, date)),
+                        applyDateValue == null || applyDateValue.isBlank() ? null : StatementValues.parseDate(applyDateValue),
+                        get(values, concept),
+                        get(values, description),
+                        value,
+                        currency < 0 ? defaultCurrency : StatementValues.parseCurrency(get(values, currency)));
+                    handler.handle(StatementRow.ok(number, bankTransfer));
+                } catch (IllegalArgumentException ex) {
+                    handler.handle(StatementRow.error(number, ex.getMessage()));
+                }
+            }
+
+        } catch (IOException ex) {
+            throw new ServerErrorException(1, "Error reading CSV statement.", ex);
+        }
+    }
+
+    private static int column(Map<String, Integer> columns, String name) throws ServerErrorException {
+        Integer index = columns.get(name);
+        if (index == null) throw new ServerErrorException(3, "Column " + name + " not defined.");
+        return index;
+    }
+
+    private static String get(List<String> values, int index) {
+        return (index < 0 || index >= values.size()) ? null : values.get(index);
+    }
+
+    /**
+     * Splits a CSV line, removing quotes.
+     */
+    private static List<String> split(String line, char separator, List<String> values) {
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') value.append(c);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"') value.append(line.charAt(++i));
+                else quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+
+        return values;
+    }
+
+}
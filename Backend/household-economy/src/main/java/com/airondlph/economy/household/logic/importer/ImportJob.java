@@ -0,0 +1,136 @@
+package com.airondlph.economy.household.logic.importer;
+
+import com.airondlph.economy.household.data.enumeration.ImportJobStatus;
+import com.airondlph.economy.household.data.enumeration.StatementFormat;
+import com.airondlph.economy.household.data.model.StatementImportJobVO;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bank statement import in progress or finished. Counters are updated by the import threads and read by the status
+ * requests.
+ *
+ * @author adriandlph / airondlph
+ */
+@Getter
+public class ImportJob {
+
+    public static final int MAX_ERRORS = 100;
+
+    private final String id;
+    private final Long userId;
+    private final Path file;
+    private final String fileName; // Relative to the import directory
+    private final StatementFormat format;
+    private final Long bankAccountId;
+    private final Long otherBankAccountId;
+    private final long totalBytes;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsCreated = new AtomicLong();
+    private final AtomicLong rowsDuplicated = new AtomicLong(); // Already existing, not created again
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+
+    private volatile ImportJobStatus status = ImportJobStatus.PENDING;
+    private volatile LocalDateTime startedWhen;
+    private volatile LocalDateTime finishedWhen;
+    private volatile Future<?> producer;
+    private volatile Future<?> consumer;
+
+    public ImportJob(String id, Long userId, Path file, String fileName, StatementFormat format, Long bankAccountId,
+                     Long otherBankAccountId, long totalBytes) {
+        this.id = id;
+        this.userId = userId;
+        this.file = file;
+        this.fileName = fileName;
+        this.format = format;
+        this.bankAccountId = bankAccountId;
+        this.otherBankAccountId = otherBankAccountId;
+        this.totalBytes = totalBytes;
+    }
+
+    void start(Future<?> producer, Future<?> consumer) {
+        this.producer = producer;
+        this.consumer = consumer;
+    }
+
+    void setRunning() {
+        startedWhen = LocalDateTime.now();
+        status = ImportJobStatus.RUNNING;
+    }
+
+    /**
+     * Sets the final status, unless the job has already finished (a cancelled job stays cancelled).
+     */
+    synchronized void finish(ImportJobStatus finalStatus) {
+        if (isFinished()) return;
+        status = finalStatus;
+        finishedWhen = LocalDateTime.now();
+    }
+
+    void cancel() {
+        finish(ImportJobStatus.CANCELLED);
+        if (producer != null) producer.cancel(true);
+        if (consumer != null) consumer.cancel(true);
+    }
+
+    public boolean isFinished() {
+        return status == ImportJobStatus.FINISHED || status == ImportJobStatus.FAILED || status == ImportJobStatus.CANCELLED;
+    }
+
+    void addError(String error) {
+        rowsFailed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) errors.add(error);
+        }
+    }
+
+    public StatementImportJobVO getVO() {
+        List<String> errorsCopy;
+        synchronized (errors) {
+            errorsCopy = List.copyOf(errors);
+        }
+
+        return StatementImportJobVO.builder()
+            .id(id)
+            .file(fileName)
+            .format(format)
+            .bankAccountId(bankAccountId)
+            .otherBankAccountId(otherBankAccountId)
+            .status(status)
+            .rowsRead(rowsRead.get())
+            .rowsCreated(rowsCreated.get())
+            .rowsDuplicated(rowsDuplicated.get())
+            .rowsFailed(rowsFailed.get())
+            .bytesRead(bytesRead.get())
+            .totalBytes(totalBytes)
+            .errors(errorsCopy)
+            .startedWhen(startedWhen)
+            .finishedWhen(finishedWhen)
+            .build();
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("ImportJob{")
+            .append("id=").append(id)
+            .append(", file=").append(fileName)
+            .append(", format=").append(format)
+            .append(", status=").append(status)
+            .append(", rowsRead=").append(rowsRead.get())
+            .append(", rowsCreated=").append(rowsCreated.get())
+            .append(", rowsDuplicated=").append(rowsDuplicated.get())
+            .append(", rowsFailed=").append(rowsFailed.get())
+            .append('}')
+            .toString();
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.airondlph.economy.household.logic.importer;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.exception.ServerErrorException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads OFX 2.x (XML) statements. Every STMTTRN element is a row:
+ *  - DTPOSTED: apply date
+ *  - DTUSER: operation date (apply date if not defined)
+ *  - TRNAMT: signed amount
+ *  - NAME: concept
+ *  - MEMO: description
+ * The currency is the statement CURDEF (or the CURRENCY/ORIGCURRENCY of the transaction).
+ *
+ * OFX 1.x files are SGML (tags without closing tag) and must be converted to XML before importing them.
+ *
+ * @author adriandlph / airondlph
+ */
+public class OfxStatementParser extends XmlStatementParser {
+
+    private final Currency defaultCurrency;
+
+    /**
+     * @param defaultCurrency Currency of the rows if the statement does not define it (may be null)
+     */
+    public OfxStatementParser(Currency defaultCurrency) {
+        this.defaultCurrency = defaultCurrency;
+    }
+
+    @Override
+    protected void parse(XMLStreamReader reader, RowHandler handler) throws XMLStreamException, ServerErrorException, InterruptedException {
+        String statementCurrency = null;
+        long number = 0;
+
+        while (reader.hasNext()) {
+            if (reader.next() != XMLStreamReader.START_ELEMENT) continue;
+
+            String name = reader.getLocalName();
+            if ("CURDEF".equals(name)) {
+                statementCurrency = readText(reader);
+            } else if ("STMTTRN".equals(name)) {
+                number++;
+                handler.handle(readTransaction(reader, number, statementCurrency));
+            }
+        }
+    }
+
+    private StatementRow readTransaction(XMLStreamReader reader, long number, String statementCurrency) throws XMLStreamException {
+        String posted = null, user = null, amount = null, concept = null, description = null, currency = statementCurrency;
+
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamReader.END_ELEMENT) {
+                depth--;
+                continue;
+            }
+            if (event != XMLStreamReader.START_ELEMENT) continue;
+
+            switch (reader.getLocalName()) {
+                case "DTPOSTED" -> posted = readText(reader);
+                case "DTUSER" -> user = readText(reader);
+                case "TRNAMT" -> amount = readText(reader);
+                case "NAME" -> concept = readText(reader);
+                case "MEMO" -> description = readText(reader);
+                case "CURSYM" -> currency = readText(reader);
+                default -> depth++;
+            }
+        }
+
+        try {
+            return StatementRow.ok(number, StatementValues.toBankTransfer(
+                StatementValues.parseDate(user == null ? posted : user),
+                posted == null ? null : StatementValues.parseDate(posted),
+                concept == null ? description : concept,
+                concept == null ? null : description,
+                StatementValues.parseAmount(amount),
+                currency == null ? defaultCurrency : StatementValues.parseCurrency(currency)));
+        } catch (IllegalArgumentException ex) {
+            return StatementRow.error(number, ex.getMessage());
+        }
+    }
+
+}
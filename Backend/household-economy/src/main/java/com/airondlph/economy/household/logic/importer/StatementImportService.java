@@ -0,0 +1,313 @@
+package com.airondlph.economy.household.logic.importer;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.ImportJobStatus;
+import com.airondlph.economy.household.data.enumeration.StatementFormat;
+import com.airondlph.economy.household.data.model.*;
+import com.airondlph.economy.household.exception.ServerErrorException;
+import com.airondlph.economy.household.logic.data.Result;
+import com.airondlph.economy.household.logic.financial.FinancialController;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Imports bank statements from local files as bank transfers.
+ *
+ * Every import runs two threads connected by a bounded queue: the producer parses the file as a stream and the
+ * consumer creates the bank transfers in chunks (one transaction per chunk, through the bulk creation). When the
+ * database is slower than the parser the queue fills up and the parser waits, so memory stays flat whatever the
+ * file size.
+ *
+ * Files can only be read from the import directory.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Slf4j
+public class StatementImportService {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final StatementRow END = StatementRow.error(-1, "End of statement.");
+
+    @Autowired
+    private FinancialController financialController;
+
+    @Value("${statement.import.dir:./private/imports}")
+    private String importDir;
+    @Value("${statement.import.queueSize:1000}")
+    private int queueSize;
+    @Value("${statement.import.chunkSize:500}")
+    private int chunkSize;
+    @Value("${statement.import.maxRunningJobs:2}")
+    private int maxRunningJobs;
+    @Value("${statement.import.retentionMinutes:1440}")
+    private long retentionMinutes;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "statement-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void destroy() {
+        jobs.values().forEach(ImportJob::cancel);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts importing a statement.
+     *
+     * @param userVO User that wants to do this operation
+     * @param importVO File (relative to the import directory), format and accounts of the bank transfers
+     *
+     * @return Import job or error code.
+     * Error codes:
+     *      -1 -> Server error
+     *       0 -> Undefined
+     *       1 -> General error
+     *       2 -> User not defined
+     *       3 -> User does not have access to the bank account
+     *      10 -> File not defined
+     *      11 -> File not found or outside the import directory
+     *      12 -> Format not defined
+     *      13 -> Bank account not defined or does not exist
+     *      14 -> Counterpart bank account not defined
+     *      15 -> Too many imports running
+     */
+    public Result<StatementImportJobVO> startImport(UserVO userVO, StatementImportJobVO importVO) {
+        Enter(log, "startImport");
+        try {
+            if (userVO == null || userVO.getId() == null) return Result.create(2);
+            if (importVO == null || importVO.getFile() == null || importVO.getFile().isBlank()) return Result.create(10);
+            if (importVO.getFormat() == null) return Result.create(12);
+            if (importVO.getBankAccountId() == null) return Result.create(13);
+            if (importVO.getOtherBankAccountId() == null) return Result.create(14);
+
+            Path file = resolveFile(importVO.getFile());
+            if (file == null) {
+                log.warn("Statement file not found or outside the import directory: {}", importVO.getFile());
+                return Result.create(11);
+            }
+
+            Result<BankAccountCompleteVO> bankAccountResult = financialController.getBankAccountCompleteVO(userVO, BankAccountVO.builder().id(importVO.getBankAccountId()).build());
+            if (!bankAccountResult.isValid()) {
+                return switch (bankAccountResult.getErrCode()) {
+                    case 2 -> Result.create(2);
+                    case 3 -> Result.create(13);
+                    case 4 -> Result.create(3);
+                    default -> Result.create(-1);
+                };
+            }
+
+            removeExpiredJobs();
+            if (jobs.values().stream().filter(job -> !job.isFinished()).count() >= maxRunningJobs) {
+                log.warn("Too many statement imports running.");
+                return Result.create(15);
+            }
+
+            ImportJob job = new ImportJob(UUID.randomUUID().toString(), userVO.getId(), file, importVO.getFile(), importVO.getFormat(),
+                importVO.getBankAccountId(), importVO.getOtherBankAccountId(), Files.size(file));
+            jobs.put(job.getId(), job);
+
+            StatementParser parser = createParser(importVO.getFormat(), bankAccountResult.getResult().getCurrency());
+            BlockingQueue<StatementRow> queue = new ArrayBlockingQueue<>(queueSize);
+            Future<?> consumer = executor.submit(() -> consume(job, queue));
+            Future<?> producer = executor.submit(() -> produce(job, parser, queue));
+            job.start(producer, consumer);
+
+            log.info("Statement import started: {}", job);
+            return Result.create(job.getVO());
+
+        } catch (IOException | RejectedExecutionException ex) {
+            Error(log, "Error starting statement import.", null, ex.getMessage());
+            return Result.create(-1);
+
+        } finally {
+            Exit(log, "startImport");
+        }
+    }
+
+    /**
+     * @return Import job or error code.
+     * Error codes:
+     *       2 -> User not defined
+     *       3 -> Import job of another user
+     *      10 -> Import job does not exist
+     */
+    public Result<StatementImportJobVO> getImport(UserVO userVO, String jobId) {
+        Result<ImportJob> jobResult = getUserJob(userVO, jobId);
+        if (!jobResult.isValid()) return Result.create(jobResult.getErrCode());
+        return Result.create(jobResult.getResult().getVO());
+    }
+
+    /**
+     * Cancels an import. Bank transfers of the chunks already saved are kept.
+     *
+     * @return Import job or error code (same as {@link #getImport(UserVO, String)}).
+     */
+    public Result<StatementImportJobVO> cancelImport(UserVO userVO, String jobId) {
+        Result<ImportJob> jobResult = getUserJob(userVO, jobId);
+        if (!jobResult.isValid()) return Result.create(jobResult.getErrCode());
+
+        ImportJob job = jobResult.getResult();
+        job.cancel();
+        log.info("Statement import cancelled: {}", job);
+        return Result.create(job.getVO());
+    }
+
+    private Result<ImportJob> getUserJob(UserVO userVO, String jobId) {
+        if (userVO == null || userVO.getId() == null) return Result.create(2);
+
+        ImportJob job = jobId == null ? null : jobs.get(jobId);
+        if (job == null) return Result.create(10);
+        if (!job.getUserId().equals(userVO.getId())) return Result.create(3);
+
+        return Result.create(job);
+    }
+
+    private Path resolveFile(String fileName) throws IOException {
+        Path dir = Path.of(importDir).toAbsolutePath().normalize();
+        Path file = dir.resolve(fileName).normalize();
+        if (!file.startsWith(dir) || !Files.isRegularFile(file)) return null;
+
+        // Symbolic links must not leave the directory either
+        if (!file.toRealPath().startsWith(dir.toRealPath())) return null;
+        return file;
+    }
+
+    private StatementParser createParser(StatementFormat format, Currency currency) {
+        return switch (format) {
+            case CSV -> new CsvStatementParser(currency);
+            case OFX -> new OfxStatementParser(currency);
+            case CAMT053 -> new Camt053StatementParser(currency);
+        };
+    }
+
+    private void removeExpiredJobs() {
+        LocalDateTime limit = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedWhen() != null && job.getFinishedWhen().isBefore(limit));
+    }
+
+    /**
+     * Parses the file into the queue. It always ends the queue, so the consumer never waits forever.
+     */
+    private void produce(ImportJob job, StatementParser parser, BlockingQueue<StatementRow> queue) {
+        job.setRunning();
+        boolean interrupted = false;
+
+        try (FileChannel channel = FileChannel.open(job.getFile(), StandardOpenOption.READ);
+             InputStream in = new BufferedInputStream(new CountingInputStream(Channels.newInputStream(channel), job.getBytesRead()), READ_BUFFER_SIZE)) {
+
+            parser.parse(in, row -> {
+                job.getRowsRead().incrementAndGet();
+                queue.put(row);
+            });
+
+        } catch (InterruptedException ex) {
+            interrupted = true;
+        } catch (ServerErrorException ex) {
+            Error(log, "Error parsing statement " + job.getId(), ex.getCode(), ex.getMessage());
+            job.addError("File: " + ex.getMessage());
+            job.finish(ImportJobStatus.FAILED);
+        } catch (IOException | RuntimeException ex) {
+            Error(log, "Error reading statement " + job.getId(), null, ex.getMessage());
+            job.addError("File: " + ex.getMessage());
+            job.finish(ImportJobStatus.FAILED);
+        }
+
+        if (interrupted || job.isFinished()) {
+            // Consumer is cancelled or must stop, make room for the end mark
+            queue.clear();
+        }
+        if (!queue.offer(END)) {
+            queue.clear();
+            queue.offer(END);
+        }
+    }
+
+    /**
+     * Creates the bank transfers of the queue rows, one chunk at a time.
+     */
+    private void consume(ImportJob job, BlockingQueue<StatementRow> queue) {
+        List<BankTransferVO> chunk = new ArrayList<>(chunkSize);
+        List<Long> numbers = new ArrayList<>(chunkSize);
+        UserVO userVO = UserVO.builder().id(job.getUserId()).build();
+
+        try {
+            while (true) {
+                StatementRow row = queue.take();
+                if (row == END) break;
+                if (job.isFinished()) continue; // Failed or cancelled, wait for the end mark
+
+                if (!row.isValid()) {
+                    job.addError("Row " + row.getNumber() + ": " + row.getError());
+                    continue;
+                }
+
+                BankTransferVO bankTransfer = row.getBankTransfer();
+                bankTransfer.setMe(BankAccountVO.builder().id(job.getBankAccountId()).build());
+                bankTransfer.setOther(BankAccountVO.builder().id(job.getOtherBankAccountId()).build());
+                chunk.add(bankTransfer);
+                numbers.add(row.getNumber());
+
+                if (chunk.size() == chunkSize) saveChunk(job, userVO, chunk, numbers);
+            }
+
+            if (!job.isFinished()) {
+                saveChunk(job, userVO, chunk, numbers);
+                job.finish(ImportJobStatus.FINISHED);
+            }
+            log.info("Statement import ended: {}", job);
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ServerErrorException ex) {
+            Error(log, "Error saving statement " + job.getId(), ex.getCode(), ex.getMessage());
+            job.finish(ImportJobStatus.FAILED);
+            if (job.getProducer() != null) job.getProducer().cancel(true);
+        } catch (RuntimeException ex) {
+            Error(log, "Error saving statement " + job.getId(), null, ex.getMessage());
+            job.finish(ImportJobStatus.FAILED);
+            if (job.getProducer() != null) job.getProducer().cancel(true);
+        }
+    }
+
+    private void saveChunk(ImportJob job, UserVO userVO, List<BankTransferVO> chunk, List<Long> numbers) throws ServerErrorException {
+        if (chunk.isEmpty()) return;
+
+        Result<List<BankTransferBulkItemVO>> result = financialController.createBankTransfersVO(userVO, chunk);
+        if (!result.isValid()) throw new ServerErrorException(result.getErrCode(), "Error creating bank transfers.");
+
+        for (BankTransferBulkItemVO item : result.getResult()) {
+            if (item.getErrCode() != null) job.addError("Row " + numbers.get(item.getIndex()) + ": error " + item.getErrCode());
+            else if (item.isDuplicate()) job.getRowsDuplicated().incrementAndGet();
+            else job.getRowsCreated().incrementAndGet();
+        }
+
+        chunk.clear();
+        numbers.clear();
+    }
+
+}
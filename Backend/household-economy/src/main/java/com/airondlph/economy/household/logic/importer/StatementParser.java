@@ -0,0 +1,30 @@
+package com.airondlph.economy.household.logic.importer;
+
+import com.airondlph.economy.household.exception.ServerErrorException;
+
+import java.io.InputStream;
+
+/**
+ * Reads a bank statement export as a stream. Rows are handed over one by one while they are read, so the memory
+ * used does not depend on the file size.
+ *
+ * @author adriandlph / airondlph
+ */
+public interface StatementParser {
+
+    /**
+     * @param in Statement content
+     * @param handler Receives every row, in file order. It may block (the parser waits for it).
+     *
+     * @throws ServerErrorException If the file cannot be read or its structure is not valid (rows with wrong
+     * values are handed over as errors instead)
+     * @throws InterruptedException If the handler was interrupted while waiting
+     */
+    public void parse(InputStream in, RowHandler handler) throws ServerErrorException, InterruptedException;
+
+    @FunctionalInterface
+    public interface RowHandler {
+        public void handle(StatementRow row) throws InterruptedException;
+    }
+
+}
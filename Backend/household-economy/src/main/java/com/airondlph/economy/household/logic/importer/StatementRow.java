@@ -0,0 +1,36 @@
+package com.airondlph.economy.household.logic.importer;
+
+import com.airondlph.economy.household.data.model.BankTransferVO;
+import lombok.Getter;
+
+/**
+ * Row read from a bank statement: the bank transfer it describes, or why it could not be read.
+ *
+ * @author adriandlph / airondlph
+ */
+@Getter
+public class StatementRow {
+
+    private final long number; // Line (CSV) or entry (XML) number, from 1
+    private final BankTransferVO bankTransfer;
+    private final String error;
+
+    private StatementRow(long number, BankTransferVO bankTransfer, String error) {
+        this.number = number;
+        this.bankTransfer = bankTransfer;
+        this.error = error;
+    }
+
+    public static StatementRow ok(long number, BankTransferVO bankTransfer) {
+        return new StatementRow(number, bankTransfer, null);
+    }
+
+    public static StatementRow error(long number, String error) {
+        return new StatementRow(number, null, error);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+}
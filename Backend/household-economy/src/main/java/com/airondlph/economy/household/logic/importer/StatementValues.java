@@ -0,0 +1,101 @@
+package com.airondlph.economy.household.logic.importer;
+
+import com.airondlph.economy.household.data.entity.financial.Operation;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import com.airondlph.economy.household.data.model.BankTransferVO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Conversions shared by the statement parsers.
+ *
+ * @author adriandlph / airondlph
+ */
+final class StatementValues {
+
+    private static final DateTimeFormatter COMPACT_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter COMPACT_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private StatementValues() {}
+
+    /**
+     * @param amount Decimal amount ("-12.34", "12,34")
+     * @return Signed amount in deciCurrency (currency value * 100).
+     * @throws IllegalArgumentException If it is not a valid amount
+     */
+    static long parseAmount(String amount) {
+        if (amount == null || amount.isBlank()) throw new IllegalArgumentException("Amount not defined.");
+
+        String value = amount.trim().replace(" ", "");
+        if (value.indexOf('.') < 0) value = value.replace(',', '.');
+        else value = value.replace(",", ""); // Thousands separator
+
+        try {
+            return new BigDecimal(value).movePointRight(2).longValueExact();
+        } catch (ArithmeticException | NumberFormatException ex) {
+            throw new IllegalArgumentException("Amount not valid: " + amount);
+        }
+    }
+
+    /**
+     * @param date ISO date or date time ("2024-01-31", "2024-01-31T10:00:00") or compact OFX date ("20240131",
+     *             "20240131100000.000[-5:EST]")
+     * @throws IllegalArgumentException If it is not a valid date
+     */
+    static LocalDateTime parseDate(String date) {
+        if (date == null || date.isBlank()) throw new IllegalArgumentException("Date not defined.");
+
+        String value = date.trim();
+        try {
+            if (value.length() >= 8 && Character.isDigit(value.charAt(4))) {
+                if (value.length() >= 14 && Character.isDigit(value.charAt(13))) return LocalDateTime.parse(value.substring(0, 14), COMPACT_DATE_TIME);
+                return LocalDate.parse(value.substring(0, 8), COMPACT_DATE).atStartOfDay();
+            }
+            if (value.length() == 10) return LocalDate.parse(value).atStartOfDay();
+            if (value.length() > 19) value = value.substring(0, 19); // Offset or fraction
+            return LocalDateTime.parse(value);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Date not valid: " + date);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException If the currency is not supported
+     */
+    static Currency parseCurrency(String currency) {
+        if (currency == null || currency.isBlank()) throw new IllegalArgumentException("Currency not defined.");
+        try {
+            return Currency.valueOf(currency.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Currency not supported: " + currency);
+        }
+    }
+
+    /**
+     * @param amount Signed amount (negative for outcomes)
+     * @return Bank transfer without accounts.
+     */
+    static BankTransferVO toBankTransfer(LocalDateTime madeWhen, LocalDateTime applyWhen, String concept, String description,
+                                         long amount, Currency currency) {
+        return BankTransferVO.builder()
+            .madeWhen(madeWhen)
+            .applyWhen(applyWhen == null ? madeWhen : applyWhen)
+            .concept(truncate(concept == null ? "" : concept.trim(), Operation.CONCEPT_MAX_LENGTH))
+            .description(description == null ? null : truncate(description.trim(), Operation.DESCRIPTION_MAX_LENGTH))
+            .operationType(amount < 0 ? OperationType.OUTCOME : OperationType.INCOME)
+            .value(Math.abs(amount))
+            .fromCurrency(currency)
+            .toCurrency(currency)
+            .conversion(1F)
+            .build();
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+}
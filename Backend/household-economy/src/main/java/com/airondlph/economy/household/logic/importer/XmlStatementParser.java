@@ -0,0 +1,62 @@
+package com.airondlph.economy.household.logic.importer;
+
+import com.airondlph.economy.household.exception.ServerErrorException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * Base of the XML statement parsers. The file is read with StAX, one element at a time, never as a tree.
+ *
+ * @author adriandlph / airondlph
+ */
+public abstract class XmlStatementParser implements StatementParser {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createFactory();
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Statements come from outside, never resolve DTDs or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    @Override
+    public void parse(InputStream in, RowHandler handler) throws ServerErrorException, InterruptedException {
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            parse(reader, handler);
+        } catch (XMLStreamException ex) {
+            throw new ServerErrorException(2, "Statement XML not valid.", ex);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {}
+            }
+        }
+    }
+
+    protected abstract void parse(XMLStreamReader reader, RowHandler handler) throws XMLStreamException, ServerErrorException, InterruptedException;
+
+    /**
+     * @return Text of the current element and its children, without tags.
+     */
+    protected static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT) depth++;
+            else if (event == XMLStreamReader.END_ELEMENT) depth--;
+            else if (event == XMLStreamReader.CHARACTERS || event == XMLStreamReader.CDATA) text.append(reader.getText());
+        }
+        return text.toString().trim();
+    }
+
+}
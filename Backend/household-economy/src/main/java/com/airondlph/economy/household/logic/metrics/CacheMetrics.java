@@ -0,0 +1,135 @@
+package com.airondlph.economy.household.logic.metrics;
+
+import com.airondlph.economy.household.api.rest.ConcurrencyLimitFilter;
+import com.airondlph.economy.household.logic.financial.BankTransferFingerprintService;
+import com.airondlph.economy.household.logic.financial.ExchangeRateService;
+import com.airondlph.economy.household.logic.financial.NetWorthService;
+import com.airondlph.economy.household.logic.trace.TraceExporter;
+import com.airondlph.economy.household.logic.users.LoginRateLimiter;
+import com.airondlph.economy.household.logic.users.PasswordHashingService;
+import com.airondlph.economy.household.logic.users.PermissionService;
+import com.airondlph.economy.household.logic.users.TokenJobs;
+import com.airondlph.economy.household.logic.users.TokenStore;
+import com.airondlph.economy.household.logic.users.VerifiedTokenCache;
+import com.airondlph.economy.household.util.Tracer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Counters of the in-memory caches and filters (read when scraped):
+ *  - household.cache.hits / household.cache.misses / household.cache.size: cache (tokens, permissions, netWorth)
+ *  - household.fingerprint.rejections / household.fingerprint.lookups
+ *  - household.fx.rates
+ *  - household.tracing.exported / household.tracing.dropped
+ *  - household.requests.rejected / household.requests.active / household.requests.waiting: request limiter
+ *  - household.login.rejected / household.login.buckets: login rate limiter
+ *  - household.password.hashing.rejected / household.password.hashing.queued
+ *  - household.tokens.revoked / household.tokens.expired.deleted
+ *
+ * The Hibernate statistics (statements, second level cache) are bound by Spring Boot.
+ *
+ * @author adriandlph / airondlph
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+    @Autowired
+    private PermissionService permissionService;
+    @Autowired
+    private NetWorthService netWorthService;
+    @Autowired
+    private BankTransferFingerprintService fingerprintService;
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+    @Autowired
+    private TraceExporter traceExporter;
+    @Autowired
+    private ConcurrencyLimitFilter concurrencyLimitFilter;
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    @Autowired
+    private TokenStore tokenStore;
+    @Autowired
+    private TokenJobs tokenJobs;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCache(registry, "tokens", tokenCache, VerifiedTokenCache::getHits, VerifiedTokenCache::getMisses, VerifiedTokenCache::getSize);
+        bindCache(registry, "permissions", permissionService, PermissionService::getHits, PermissionService::getMisses, PermissionService::getSize);
+        bindCache(registry, "netWorth", netWorthService, NetWorthService::getHits, NetWorthService::getMisses, NetWorthService::getSize);
+        FunctionCounter.builder("household.cache.evictions", tokenCache, VerifiedTokenCache::getEvictions)
+            .tag("cache", "tokens")
+            .register(registry);
+
+        FunctionCounter.builder("household.fingerprint.rejections", fingerprintService, BankTransferFingerprintService::getFilterRejections)
+            .description("Bank transfer fingerprints discarded by the Bloom filters")
+            .register(registry);
+        FunctionCounter.builder("household.fingerprint.lookups", fingerprintService, BankTransferFingerprintService::getLookups)
+            .description("Bank transfer fingerprint queries")
+            .register(registry);
+
+        Gauge.builder("household.fx.rates", exchangeRateService, service -> service.getTable().size())
+            .description("Exchange rates in memory")
+            .register(registry);
+
+        FunctionCounter.builder("household.tracing.exported", traceExporter, TraceExporter::getExported)
+            .description("Trace records exported")
+            .register(registry);
+        FunctionCounter.builder("household.tracing.dropped", traceExporter, exporter -> Tracer.getBuffer().getDropped())
+            .description("Trace records overwritten before being exported")
+            .register(registry);
+
+        FunctionCounter.builder("household.requests.rejected", concurrencyLimitFilter, ConcurrencyLimitFilter::getRejected)
+            .description("Requests rejected (503) by the request limiter")
+            .register(registry);
+        Gauge.builder("household.requests.active", concurrencyLimitFilter, ConcurrencyLimitFilter::getActive)
+            .description("Requests running with a permit of the request limiter")
+            .register(registry);
+        Gauge.builder("household.requests.waiting", concurrencyLimitFilter, ConcurrencyLimitFilter::getWaiting)
+            .description("Requests waiting for a permit of the request limiter")
+            .register(registry);
+
+        FunctionCounter.builder("household.login.rejected", loginRateLimiter, LoginRateLimiter::getRejected)
+            .description("Login attempts rejected (429) by the login rate limiter")
+            .register(registry);
+        Gauge.builder("household.login.buckets", loginRateLimiter, LoginRateLimiter::getSize)
+            .description("Usernames and addresses with login attempts recently")
+            .register(registry);
+        FunctionCounter.builder("household.password.hashing.rejected", passwordHashingService, PasswordHashingService::getRejected)
+            .description("Password hashes not done because the hashing pool was busy")
+            .register(registry);
+        Gauge.builder("household.password.hashing.queued", passwordHashingService, PasswordHashingService::getQueued)
+            .description("Password hashes waiting for a thread")
+            .register(registry);
+
+        Gauge.builder("household.tokens.revoked", tokenStore, TokenStore::getRevokedSize)
+            .description("Revoked tokens not expired, kept in memory")
+            .register(registry);
+        FunctionCounter.builder("household.tokens.expired.deleted", tokenJobs, TokenJobs::getExpiredDeleted)
+            .description("Expired tokens deleted by the sweeper")
+            .register(registry);
+    }
+
+    private static <T> void bindCache(MeterRegistry registry, String cache, T source, ToDoubleFunction<T> hits, ToDoubleFunction<T> misses, ToDoubleFunction<T> size) {
+        FunctionCounter.builder("household.cache.hits", source, hits)
+            .tag("cache", cache)
+            .register(registry);
+        FunctionCounter.builder("household.cache.misses", source, misses)
+            .tag("cache", cache)
+            .register(registry);
+        Gauge.builder("household.cache.size", source, size)
+            .tag("cache", cache)
+            .register(registry);
+    }
+
+}
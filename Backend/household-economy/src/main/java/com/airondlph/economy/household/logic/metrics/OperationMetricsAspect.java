@@ -0,0 +1,106 @@
+package com.airondlph.economy.household.logic.metrics;
+
+import com.airondlph.economy.household.logic.data.Result;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency, throughput and error codes of every FinancialController and UsersController operation called from outside
+ * the controller:
+ *  - household.operation (timer): controller, operation, outcome (ok, error, exception)
+ *  - household.operation.errors (counter): controller, operation, code (Result error code or exception class)
+ *
+ * Histogram buckets are enabled by configuration (management.metrics.distribution). Meters are created once per
+ * operation, outcome and code.
+ *
+ * @author adriandlph / airondlph
+ */
+@Aspect
+@Component
+public class OperationMetricsAspect {
+
+    public static final String OPERATION_TIMER = "household.operation";
+    public static final String OPERATION_ERRORS = "household.operation.errors";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final ConcurrentHashMap<Method, OperationMeters> meters = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.airondlph.economy.household.logic.financial.FinancialController.*(..)) || " +
+        "execution(public * com.airondlph.economy.household.logic.users.UsersController.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        OperationMeters operationMeters = meters.computeIfAbsent(method, this::createMeters);
+
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            long duration = System.nanoTime() - start;
+
+            if (result instanceof Result<?> r && !r.isValid()) {
+                operationMeters.error.record(duration, TimeUnit.NANOSECONDS);
+                operationMeters.getErrorCounter(String.valueOf(r.getErrCode())).increment();
+            } else {
+                operationMeters.ok.record(duration, TimeUnit.NANOSECONDS);
+            }
+            return result;
+
+        } catch (Throwable ex) {
+            operationMeters.exception.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            operationMeters.getErrorCounter(ex.getClass().getSimpleName()).increment();
+            throw ex;
+        }
+    }
+
+    private OperationMeters createMeters(Method method) {
+        return new OperationMeters(method.getDeclaringClass().getSimpleName(), method.getName());
+    }
+
+    private final class OperationMeters {
+        private final String controller;
+        private final String operation;
+        private final Timer ok;
+        private final Timer error;
+        private final Timer exception;
+        private final ConcurrentHashMap<String, Counter> errors = new ConcurrentHashMap<>();
+
+        private OperationMeters(String controller, String operation) {
+            this.controller = controller;
+            this.operation = operation;
+            this.ok = timer("ok");
+            this.error = timer("error");
+            this.exception = timer("exception");
+        }
+
+        private Timer timer(String outcome) {
+            return Timer.builder(OPERATION_TIMER)
+                .description("Controller operations")
+                .tag("controller", controller)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry);
+        }
+
+        private Counter getErrorCounter(String code) {
+            return errors.computeIfAbsent(code, key -> Counter.builder(OPERATION_ERRORS)
+                .description("Controller operations that returned an error code or threw an exception")
+                .tag("controller", controller)
+                .tag("operation", operation)
+                .tag("code", key)
+                .register(registry));
+        }
+    }
+
+}
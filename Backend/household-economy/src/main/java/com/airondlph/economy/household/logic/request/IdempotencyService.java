@@ -0,0 +1,138 @@
+package com.airondlph.economy.household.logic.request;
+
+import com.airondlph.economy.household.data.entity.user.IdempotencyKey;
+import com.airondlph.economy.household.logic.data.Result;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.NoResultException;
+import jakarta.persistence.PersistenceException;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.time.LocalDateTime;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Stores the responses of the requests sent with an Idempotency-Key header.
+ *
+ * The key is stored (without response) before the request runs, so a retry sent while the first request is still
+ * running is rejected instead of running twice. Every method runs in its own transaction, apart from the request one.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Transactional
+@Slf4j
+public class IdempotencyService {
+
+    @Autowired
+    private EntityManager em;
+
+    @Value("${idempotency.ttlHours:24}")
+    private long ttlHours;
+
+    /**
+     * Starts a request with an idempotency key.
+     *
+     * @param userId User that sends the request
+     * @param key Idempotency key
+     * @param endpoint Method and path of the request
+     * @param requestHash Hash of the request body
+     *
+     * @return Key of the request. If it already has a response status, the request was already done and its response
+     * must be returned again. Otherwise, the request must run and its response must be stored with
+     * {@link #complete(Long, int, String, String)} (or the key released with {@link #release(Long)}).
+     *
+     * Error codes:
+     *      -1 -> Server error
+     *      10 -> Key not valid
+     *      11 -> Key already used with another request
+     *      12 -> Request with this key still running
+     */
+    public Result<IdempotencyKey> begin(Long userId, String key, String endpoint, String requestHash) {
+        if (key == null || key.isBlank() || key.length() > IdempotencyKey.KEY_MAX_LENGTH) return Result.create(10);
+        if (endpoint.length() > IdempotencyKey.ENDPOINT_MAX_LENGTH) endpoint = endpoint.substring(0, IdempotencyKey.ENDPOINT_MAX_LENGTH);
+
+        IdempotencyKey existing = find(userId, key);
+        if (existing != null) {
+            if (!existing.getEndpoint().equals(endpoint) || !existing.getRequestHash().equals(requestHash)) return Result.create(11);
+            if (existing.getResponseStatus() == null) return Result.create(12);
+            return Result.create(existing);
+        }
+
+        IdempotencyKey idempotencyKey = IdempotencyKey.builder()
+            .userId(userId)
+            .key(key)
+            .endpoint(endpoint)
+            .requestHash(requestHash)
+            .created(LocalDateTime.now())
+            .build();
+
+        try {
+            em.persist(idempotencyKey);
+            em.flush();
+        } catch (PersistenceException ex) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            // Hibernate's constraint violation is wrapped by the entity manager
+            if (!(ex instanceof ConstraintViolationException) && !(ex.getCause() instanceof ConstraintViolationException)) {
+                Error(log, "Error saving idempotency key.", null, ex.getMessage());
+                return Result.create(-1);
+            }
+            // Same key stored at the same time by another request
+            return Result.create(12);
+        } catch (Exception ex) {
+            Error(log, "Error saving idempotency key.", null, ex.getMessage());
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return Result.create(-1);
+        }
+
+        return Result.create(idempotencyKey);
+    }
+
+    /**
+     * Stores the response of a request.
+     */
+    public void complete(Long id, int responseStatus, String responseContentType, String responseBody) {
+        IdempotencyKey idempotencyKey = em.find(IdempotencyKey.class, id);
+        if (idempotencyKey == null) return;
+
+        idempotencyKey.setResponseStatus(responseStatus);
+        idempotencyKey.setResponseContentType(responseContentType);
+        idempotencyKey.setResponseBody(responseBody);
+    }
+
+    /**
+     * Removes the key of a request that failed, so it can be retried.
+     */
+    public void release(Long id) {
+        em.createQuery("DELETE FROM IdempotencyKey ik WHERE ik.id = :id")
+            .setParameter("id", id)
+            .executeUpdate();
+    }
+
+    private IdempotencyKey find(Long userId, String key) {
+        try {
+            return em.createQuery("SELECT ik FROM IdempotencyKey ik WHERE ik.userId = :userId AND ik.key = :key", IdempotencyKey.class)
+                .setParameter("userId", userId)
+                .setParameter("key", key)
+                .getSingleResult();
+        } catch (NoResultException ex) {
+            return null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup.fixedDelayMs:3600000}")
+    public void removeExpired() {
+        int n = em.createQuery("DELETE FROM IdempotencyKey ik WHERE ik.created < :limit")
+            .setParameter("limit", LocalDateTime.now().minusHours(ttlHours))
+            .executeUpdate();
+        if (n > 0) log.info("Expired idempotency keys removed: {}", n);
+    }
+
+}
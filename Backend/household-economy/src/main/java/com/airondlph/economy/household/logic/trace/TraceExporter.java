@@ -0,0 +1,167 @@
+package com.airondlph.economy.household.logic.trace;
+
+import com.airondlph.economy.household.util.TraceRingBuffer;
+import com.airondlph.economy.household.util.Tracer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Configures the {@link Tracer} and exports its records as JSON lines, one per span or event:
+ *      {"time":"2026-01-31T10:15:30.123456Z","level":"DEBUG","trace":12,"thread":48,"depth":1,"name":"createBankTransfer","durationUs":830}
+ *      {"time":"2026-01-31T10:15:30.124001Z","level":"ERROR","trace":12,"thread":48,"depth":2,"name":"Error creating bank transfer.","code":-1}
+ *
+ * The buffer is drained periodically by the scheduler, never by the threads that record. Records go to the traces
+ * file or, if it is not defined, to the "tracing" logger.
+ *
+ * @author adriandlph / airondlph
+ */
+@Component
+@Slf4j
+public class TraceExporter {
+
+    private static final Logger TRACES = LoggerFactory.getLogger("tracing");
+
+    @Value("${tracing.enabled:false}")
+    private boolean enabled;
+    @Value("${tracing.bufferSize:65536}")
+    private int bufferSize;
+    @Value("${tracing.sampleRate:1.0}")
+    private double sampleRate;
+    @Value("${tracing.level:DEBUG}")
+    private Level level;
+    @Value("${tracing.file:}")
+    private String file;
+
+    // Wall clock of the nanoTime origin, records only have nanoTime
+    private final long originEpochNanos;
+    private final long originNanoTime;
+
+    private final AtomicLong exported = new AtomicLong();
+    private final StringBuilder line = new StringBuilder(256);
+    private Writer writer;
+
+    public TraceExporter() {
+        Instant now = Instant.now();
+        originNanoTime = System.nanoTime();
+        originEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    @PostConstruct
+    public void init() {
+        Tracer.configure(enabled, bufferSize, sampleRate, level);
+        if (enabled) log.info("Tracing enabled, sample rate: {}, level: {}, buffer: {}", sampleRate, level, Tracer.getBuffer().getCapacity());
+    }
+
+    @Scheduled(fixedDelayString = "${tracing.drain.fixedDelayMs:1000}")
+    public synchronized void drain() {
+        if (!Tracer.isEnabled()) return;
+
+        try {
+            Writer out = getWriter();
+            int read = Tracer.getBuffer().drain(record -> write(out, record));
+            if (out != null && read > 0) out.flush();
+            exported.addAndGet(read);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Error exporting traces: {}", ex.getMessage());
+            close();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        drain();
+        close();
+    }
+
+    /**
+     * @return Number of records exported.
+     */
+    public long getExported() {
+        return exported.get();
+    }
+
+    private void write(Writer out, TraceRingBuffer.Record record) {
+        line.setLength(0);
+        line.append("{\"time\":\"").append(Instant.ofEpochSecond(0, originEpochNanos + (record.start - originNanoTime)))
+            .append("\",\"level\":\"").append(Level.intToLevel(record.level))
+            .append("\",\"trace\":").append(record.traceId)
+            .append(",\"thread\":").append(record.threadId)
+            .append(",\"depth\":").append(record.depth)
+            .append(",\"name\":");
+        appendString(record.name);
+        if (record.code != Tracer.NO_CODE) line.append(",\"code\":").append(record.code);
+        if (record.level == Level.DEBUG.toInt()) line.append(",\"durationUs\":").append(record.duration / 1000);
+        line.append('}');
+
+        if (out == null) {
+            TRACES.info("{}", line);
+            return;
+        }
+        try {
+            out.append(line).append('\n');
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void appendString(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) line.append(String.format("\\u%04x", (int) c));
+                    else line.append(c);
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private Writer getWriter() throws IOException {
+        if (file == null || file.isBlank()) return null;
+        if (writer == null) {
+            Path path = Path.of(file).toAbsolutePath();
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        return writer;
+    }
+
+    private void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException ex) {
+            log.warn("Error closing traces file: {}", ex.getMessage());
+        }
+        writer = null;
+    }
+
+}
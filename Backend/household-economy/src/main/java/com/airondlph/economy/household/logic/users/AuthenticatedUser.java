@@ -0,0 +1,33 @@
+package com.airondlph.economy.household.logic.users;
+
+import lombok.Getter;
+
+/**
+ * User that made the current request. It is resolved once per request by the authentication filter.
+ *
+ * @author adriandlph / airondlph
+ */
+@Getter
+public class AuthenticatedUser {
+
+    private final Long id;
+    private final String username;
+    private final UserPermissions permissions;
+
+    public AuthenticatedUser(Long id, String username, UserPermissions permissions) {
+        this.id = id;
+        this.username = username;
+        this.permissions = permissions;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("AuthenticatedUser{")
+            .append("id=").append(id)
+            .append(", username=").append(username)
+            .append(", permissions=").append(permissions)
+            .append('}')
+            .toString();
+    }
+
+}
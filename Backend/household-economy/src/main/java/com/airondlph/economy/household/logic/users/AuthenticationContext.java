@@ -0,0 +1,71 @@
+package com.airondlph.economy.household.logic.users;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Access to the authentication result of the current request.
+ *
+ * The result is stored as an attribute of the servlet request. Filters set and read it through the request, because
+ * they may run before Spring exposes the request to the thread ({@link RequestContextHolder}); handlers and services
+ * read it through the request of the current thread.
+ *
+ * Outside a request (scheduled jobs, console, tests) there is no authenticated user and every getter returns null.
+ *
+ * @author adriandlph / airondlph
+ */
+public final class AuthenticationContext {
+
+    private static final String USER_ATTRIBUTE = AuthenticationContext.class.getName() + ".user";
+    private static final String ERROR_ATTRIBUTE = AuthenticationContext.class.getName() + ".error";
+
+    private AuthenticationContext() {}
+
+    public static void setAuthenticatedUser(HttpServletRequest request, AuthenticatedUser user) {
+        request.setAttribute(USER_ATTRIBUTE, user);
+    }
+
+    /**
+     * @param error Why the user could not be authenticated
+     */
+    public static void setError(HttpServletRequest request, Exception error) {
+        request.setAttribute(ERROR_ATTRIBUTE, error);
+    }
+
+    /**
+     * @return User of the request or null if there is no authenticated user.
+     */
+    public static AuthenticatedUser getAuthenticatedUser(HttpServletRequest request) {
+        return (AuthenticatedUser) request.getAttribute(USER_ATTRIBUTE);
+    }
+
+    /**
+     * @return User of the current request or null if there is no authenticated user.
+     */
+    public static AuthenticatedUser getAuthenticatedUser() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) return null;
+        return (AuthenticatedUser) attributes.getAttribute(USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * @return Error authenticating the user of the current request or null.
+     */
+    public static Exception getError() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) return null;
+        return (Exception) attributes.getAttribute(ERROR_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * @param userId User id
+     * @return Authenticated user of the current request if it is the user with that id, null otherwise.
+     */
+    public static AuthenticatedUser getAuthenticatedUser(Long userId) {
+        AuthenticatedUser user = getAuthenticatedUser();
+        if (user == null || userId == null || !userId.equals(user.getId())) return null;
+        return user;
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.airondlph.economy.household.logic.users;
+
+import com.airondlph.economy.household.exception.ServerErrorException;
+import com.airondlph.economy.household.util.Crypton;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.airondlph.economy.household.util.LogUtils.Enter;
+import static com.airondlph.economy.household.util.LogUtils.Error;
+import static com.airondlph.economy.household.util.LogUtils.Exit;
+
+/**
+ * Keeps the login RSA key pair in memory.
+ *
+ * The PEM files are parsed once on startup and every time one of them changes on disk, so the keys can be
+ * rotated without restarting the server. The algorithm and the verifier are immutable and thread safe, so they
+ * are shared by every request.
+ *
+ * @author adriandlph / airondlph
+ */
+@Component
+@Slf4j
+public class LoginKeyStore {
+
+    @Value("${login.rsa.key.private.filename}")
+    private String loginPrvKeyFilename;
+    @Value("${login.rsa.key.public.filename}")
+    private String loginPubKeyFilename;
+
+    @Value("${token.login.issuer}")
+    private String LOGIN_TOKEN_ISSUER;
+
+    private volatile Keys keys;
+    private WatchService watchService;
+    private Thread watcher;
+
+    @PostConstruct
+    public void init() {
+        try {
+            reload();
+        } catch (ServerErrorException ex) {
+            log.warn("Login keys not loaded, they will be loaded when the key files are available.");
+        }
+        startWatcher();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (watcher != null) watcher.interrupt();
+        try {
+            if (watchService != null) watchService.close();
+        } catch (IOException ex) {
+            log.warn("Error closing login keys watcher: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * @return Algorithm to sign and verify login tokens.
+     */
+    public Algorithm getAlgorithm() throws ServerErrorException {
+        return getKeys().algorithm;
+    }
+
+    /**
+     * @return Verifier of login tokens.
+     */
+    public JWTVerifier getVerifier() throws ServerErrorException {
+        return getKeys().verifier;
+    }
+
+    /**
+     * @return Version of the loaded keys. It changes every time keys are reloaded.
+     */
+    public long getVersion() {
+        Keys current = keys;
+        return current == null ? 0 : current.version;
+    }
+
+    private Keys getKeys() throws ServerErrorException {
+        Keys current = keys;
+        if (current == null) throw new ServerErrorException(1, "Login keys not loaded.");
+        return current;
+    }
+
+    /**
+     * Reads the key files and replaces the keys in use. If the files cannot be read, the old keys are kept.
+     */
+    public synchronized void reload() throws ServerErrorException {
+        Enter(log, "reload");
+        try {
+            RSAPublicKey pubKey = Crypton.ReadX509PublicKey(loginPubKeyFilename);
+            RSAPrivateKey prvKey = Crypton.ReadPKCS8PrivateKey(loginPrvKeyFilename);
+            Algorithm algorithm = Algorithm.RSA256(pubKey, prvKey);
+            JWTVerifier verifier = JWT.require(algorithm)
+                .withIssuer(LOGIN_TOKEN_ISSUER)
+                .build();
+
+            keys = new Keys(algorithm, verifier, keys == null ? 1 : keys.version + 1);
+            log.info("Login keys loaded (version={}).", keys.version);
+
+        } catch (Exception ex) {
+            Error(log, "Error loading login keys.", 1, ex.getMessage());
+            throw new ServerErrorException(1, "Error loading login keys.", ex);
+
+        } finally {
+            Exit(log, "reload");
+        }
+    }
+
+    private void startWatcher() {
+        Path pubKeyPath = Paths.get(loginPubKeyFilename).toAbsolutePath().normalize();
+        Path prvKeyPath = Paths.get(loginPrvKeyFilename).toAbsolutePath().normalize();
+
+        Set<Path> directories = new HashSet<>();
+        directories.add(pubKeyPath.getParent());
+        directories.add(prvKeyPath.getParent());
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            for (Path directory : directories) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        } catch (IOException ex) {
+            log.warn("Login keys will not be reloaded on changes: {}", ex.getMessage());
+            return;
+        }
+
+        watcher = new Thread(() -> watch(pubKeyPath, prvKeyPath), "login-keys-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch(Path pubKeyPath, Path prvKeyPath) {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                return;
+            }
+
+            boolean changed = false;
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    changed = true;
+                    continue;
+                }
+                Path file = directory.resolve((Path) event.context());
+                if (file.equals(pubKeyPath) || file.equals(prvKeyPath)) changed = true;
+            }
+            key.reset();
+
+            if (!changed) continue;
+
+            try {
+                // Both files are usually replaced one after the other, give some time to finish
+                Thread.sleep(200);
+                reload();
+            } catch (InterruptedException ex) {
+                return;
+            } catch (ServerErrorException ex) {
+                log.warn("Login keys changed but could not be loaded, old keys are kept.");
+            }
+        }
+    }
+
+    private static final class Keys {
+        private final Algorithm algorithm;
+        private final JWTVerifier verifier;
+        private final long version;
+
+        private Keys(Algorithm algorithm, JWTVerifier verifier, long version) {
+            this.algorithm = algorithm;
+            this.verifier = verifier;
+            this.version = version;
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.airondlph.economy.household.logic.users;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Login attempts allowed per username and per remote address (token buckets in memory).
+ *
+ * Every attempt takes a token from the bucket of its username and from the bucket of its address, and it is rejected
+ * if any of them is empty. Buckets are refilled continuously up to their capacity (login.rateLimit.*.capacity tokens
+ * every minute), so a bucket not used for a minute is full and it is removed (the same as no bucket).
+ *
+ * Buckets are kept in bounded caches (login.rateLimit.maxBuckets usernames and as many addresses): attempts with
+ * many different usernames evict the buckets used least instead of growing the memory or the cost of every attempt.
+ *
+ * @author adriandlph / airondlph
+ */
+@Component
+public class LoginRateLimiter {
+
+    // A bucket not used for a minute is full again
+    private static final Duration REFILL_TIME = Duration.ofMinutes(1);
+
+    @Value("${login.rateLimit.enabled:true}")
+    private boolean enabled;
+    @Value("${login.rateLimit.username.capacity:10}")
+    private int usernameCapacity;
+    @Value("${login.rateLimit.address.capacity:60}")
+    private int addressCapacity;
+    @Value("${login.rateLimit.maxBuckets:100000}")
+    private int maxBuckets;
+
+    private Cache<String, Bucket> usernameBuckets;
+    private Cache<String, Bucket> addressBuckets;
+
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        usernameBuckets = createBuckets();
+        addressBuckets = createBuckets();
+    }
+
+    private Cache<String, Bucket> createBuckets() {
+        return Caffeine.newBuilder()
+            .maximumSize(Math.max(1, maxBuckets))
+            .expireAfterAccess(REFILL_TIME)
+            .build();
+    }
+
+    private static final class Bucket {
+        private final int capacity;
+        // Nanoseconds to get one token
+        private final long refillNanos;
+        private double tokens;
+        private long updatedAt;
+
+        private Bucket(int capacity) {
+            this.capacity = capacity;
+            this.refillNanos = REFILL_TIME.toNanos() / capacity;
+            this.tokens = capacity;
+            this.updatedAt = System.nanoTime();
+        }
+
+        private synchronized void refill(long now) {
+            // now may be older than the last update if it was read before waiting for the lock
+            if (now <= updatedAt) return;
+            tokens = Math.min(capacity, tokens + (double) (now - updatedAt) / refillNanos);
+            updatedAt = now;
+        }
+
+        private synchronized boolean tryTake(long now) {
+            refill(now);
+            if (tokens < 1) return false;
+            tokens--;
+            return true;
+        }
+
+        private synchronized long getSecondsToToken(long now) {
+            refill(now);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * refillNanos / 1_000_000_000.0);
+        }
+    }
+
+    /**
+     * Takes a login attempt.
+     *
+     * @param username Username of the attempt (not null)
+     * @param address Remote address of the attempt, null if unknown
+     * @return 0 if the attempt is allowed, seconds until the next attempt is allowed otherwise
+     */
+    public long tryAcquire(String username, String address) {
+        if (!enabled) return 0;
+
+        long now = System.nanoTime();
+
+        // Address first, attempts rejected by their address do not take the tokens of the username
+        if (address != null) {
+            Bucket addressBucket = addressBuckets.get(address, key -> new Bucket(Math.max(1, addressCapacity)));
+            if (!addressBucket.tryTake(now)) return reject(addressBucket, now);
+        }
+
+        // Same bucket whatever the case, in any default locale
+        Bucket usernameBucket = usernameBuckets.get(username.toLowerCase(Locale.ROOT), key -> new Bucket(Math.max(1, usernameCapacity)));
+        if (!usernameBucket.tryTake(now)) return reject(usernameBucket, now);
+
+        return 0;
+    }
+
+    private long reject(Bucket bucket, long now) {
+        rejected.increment();
+        return Math.max(1, bucket.getSecondsToToken(now));
+    }
+
+    /**
+     * Removes the expired buckets (full again) and the evicted ones, also when there are no login attempts.
+     */
+    @Scheduled(fixedDelayString = "${login.rateLimit.cleanup.fixedDelayMs:60000}")
+    public void cleanUp() {
+        usernameBuckets.cleanUp();
+        addressBuckets.cleanUp();
+    }
+
+    /**
+     * @return Login attempts rejected.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return Usernames and addresses with a bucket.
+     */
+    public int getSize() {
+        return (int) (usernameBuckets.estimatedSize() + addressBuckets.estimatedSize());
+    }
+
+}
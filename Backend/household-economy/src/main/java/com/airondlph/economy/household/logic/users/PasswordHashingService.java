@@ -0,0 +1,143 @@
+package com.airondlph.economy.household.logic.users;
+
+import com.airondlph.economy.household.exception.ServerErrorException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.airondlph.economy.household.util.LogUtils.Error;
+
+/**
+ * Hashes and checks user passwords (BCrypt) with one shared encoder.
+ *
+ * BCrypt is CPU bound on purpose, so hashing runs on its own bounded pool (password.hashing.threads, half of the
+ * processors by default) instead of the request threads: a burst of logins uses at most those processors and the
+ * other requests keep running. Requests wait for their hash up to password.hashing.timeoutMs. If the queue is full
+ * the password is not checked and a {@link ServerErrorException} with code {@link #BUSY} is thrown.
+ *
+ * Hashes created with another cost than password.bcrypt.strength must be replaced, see {@link #needsRehash(String)}.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    public static final int BUSY = 2;
+
+    @Value("${password.bcrypt.strength:10}")
+    private int strength;
+    @Value("${password.hashing.threads:0}")
+    private int threads;
+    @Value("${password.hashing.queueSize:256}")
+    private int queueSize;
+    @Value("${password.hashing.timeoutMs:5000}")
+    private long timeoutMs;
+
+    private BCryptPasswordEncoder encoder;
+    private ThreadPoolExecutor executor;
+
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        encoder = new BCryptPasswordEncoder(strength);
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueSize)), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Password hashing: BCrypt strength {}, threads: {}, queue: {}", strength, poolSize, queueSize);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param rawPassword Password (not null)
+     * @return Hash of the password with the configured cost
+     * @throws ServerErrorException If the hashing pool is busy ({@link #BUSY}) or the hash could not be created
+     */
+    public String encode(String rawPassword) throws ServerErrorException {
+        return run(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * @param rawPassword Password (not null)
+     * @param encodedPassword Stored hash
+     * @return True if the password matches the hash
+     * @throws ServerErrorException If the hashing pool is busy ({@link #BUSY}) or the password could not be checked
+     */
+    public boolean matches(String rawPassword, String encodedPassword) throws ServerErrorException {
+        return run(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * @param encodedPassword Stored hash (matched by the password)
+     * @return True if the hash was created with a lower cost than the configured one
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return encoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> task) throws ServerErrorException {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            log.warn("Password hashing queue full.");
+            throw new ServerErrorException(BUSY, "Password hashing busy.");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            rejected.increment();
+            log.warn("Password hashing timeout.");
+            throw new ServerErrorException(BUSY, "Password hashing busy.");
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServerErrorException(1, "Password hashing interrupted.", ex);
+        } catch (ExecutionException ex) {
+            Error(log, "Error hashing password.", 1, ex);
+            throw new ServerErrorException(1, "Error hashing password.", ex);
+        }
+    }
+
+    /**
+     * @return Hashes not done because the pool was busy.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return Hashes waiting for a thread.
+     */
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+}
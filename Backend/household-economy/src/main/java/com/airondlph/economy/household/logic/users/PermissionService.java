@@ -0,0 +1,196 @@
+package com.airondlph.economy.household.logic.users;
+
+import com.airondlph.economy.household.data.entity.user.User;
+import com.airondlph.economy.household.data.entity.user.UserPermission;
+import com.airondlph.economy.household.data.enumeration.Permission;
+import com.airondlph.economy.household.exception.ServerErrorException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Resolves the permissions of the users.
+ *
+ * Permissions are cached per user for a while (bounded, least used evicted). Changes made through this service only
+ * reach the cache when their transaction commits: the user is invalidated after the commit, and until then the
+ * transaction that made the change reads that user's permissions from the database. Every invalidation increments a
+ * generation, and a load that started before an invalidation is not cached, so a slow reader never puts back
+ * permissions read before the change.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Transactional
+@Slf4j
+public class PermissionService {
+
+    @Autowired
+    private EntityManager em;
+
+    @Value("${permissions.cache.ttlSeconds:300}")
+    private long ttlSeconds;
+    @Value("${permissions.cache.maxSize:10000}")
+    private long maxSize;
+
+    private Cache<Long, UserPermissions> cache;
+    private final AtomicLong generation = new AtomicLong();
+    // Users whose permissions the current transaction changed
+    private static final Object CHANGED_USERS_KEY = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .build();
+    }
+
+    /**
+     * @param user User (not null, with id)
+     * @return Permissions of the user
+     * @throws ServerErrorException If permissions cannot be loaded
+     */
+    public UserPermissions getUserPermissions(User user) throws ServerErrorException {
+        Long userId = user.getId();
+
+        // Not committed changes, only this transaction sees them
+        if (getChangedUsers(false).contains(userId)) return loadUserPermissions(userId);
+
+        UserPermissions permissions = cache.getIfPresent(userId);
+        if (permissions != null) {
+            hits.increment();
+            return permissions;
+        }
+        misses.increment();
+
+        long currentGeneration = generation.get();
+        permissions = loadUserPermissions(userId);
+        // Not cached if permissions changed while loading them
+        if (generation.get() == currentGeneration) cache.asMap().putIfAbsent(userId, permissions);
+        return permissions;
+    }
+
+    private UserPermissions loadUserPermissions(Long userId) throws ServerErrorException {
+        try {
+            List<Permission> permissions = em.createQuery("SELECT up.permission FROM UserPermission up WHERE up.user.id = :userId", Permission.class)
+                .setParameter("userId", userId)
+                .getResultList();
+            return UserPermissions.of(permissions);
+        } catch (Exception ex) {
+            Error(log, "Getting user permissions.", null, ex.getMessage());
+            throw new ServerErrorException("Error getting user permissions.");
+        }
+    }
+
+    /**
+     * Grants permissions to a user.
+     *
+     * @param user User (not null, already persisted)
+     * @param permissions Permissions to grant
+     */
+    public void grantPermissions(User user, Permission... permissions) {
+        Enter(log, "grantPermissions", "user, permissions");
+
+        for (Permission p : permissions) {
+            em.persist(UserPermission.builder()
+                .permission(p)
+                .user(user)
+                .build());
+        }
+        em.flush();
+
+        invalidateOnCommit(user.getId());
+
+        Exit(log, "grantPermissions");
+    }
+
+    /**
+     * Removes the cached permissions of a user.
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) return;
+        evict(userId);
+        invalidateOnCommit(userId);
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private void evict(Long userId) {
+        generation.incrementAndGet();
+        cache.invalidate(userId);
+    }
+
+    private void invalidateOnCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId);
+            return;
+        }
+        if (!getChangedUsers(true).add(userId)) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(userId);
+            }
+        });
+    }
+
+    /**
+     * @param create Create the set if the transaction has none
+     * @return Users whose permissions the current transaction changed (empty outside a transaction)
+     */
+    @SuppressWarnings("unchecked")
+    private static Set<Long> getChangedUsers(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return Set.of();
+        Set<Long> changedUsers = (Set<Long>) TransactionSynchronizationManager.getResource(CHANGED_USERS_KEY);
+        if (changedUsers != null || !create) return changedUsers == null ? Set.of() : changedUsers;
+
+        Set<Long> newChangedUsers = new HashSet<>();
+        TransactionSynchronizationManager.bindResource(CHANGED_USERS_KEY, newChangedUsers);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_USERS_KEY);
+            }
+        });
+        return newChangedUsers;
+    }
+
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public int getSize() {
+        return (int) cache.estimatedSize();
+    }
+
+}
@@ -5,13 +5,14 @@ import com.airondlph.economy.household.data.entity.user.User;
 import com.airondlph.economy.household.data.enumeration.TokenType;
 import com.airondlph.economy.household.data.model.TokenVO;
 import com.airondlph.economy.household.exception.ServerErrorException;
-import com.airondlph.economy.household.util.Crypton;
+import com.airondlph.economy.household.exception.TooManyRequestsException;
 import com.airondlph.economy.household.api.rest.exception.SecurityException;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import jakarta.persistence.EntityManager;
@@ -20,13 +21,11 @@ import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
@@ -35,6 +34,7 @@ import java.util.NoSuchElementException;
 import static com.airondlph.economy.household.util.LogUtils.Enter;
 import static com.airondlph.economy.household.util.LogUtils.Exit;
 import static com.airondlph.economy.household.util.LogUtils.Error;
+import static com.airondlph.economy.household.util.LogUtils.ErrorWarning;
 
 /**
  * @author adriandlph / airondlph
@@ -47,27 +47,55 @@ public class SecurityController {
 
     @Autowired
     private EntityManager em;
-
-    @Value("${login.rsa.key.private.filename}")
-    private String loginPrvKeyFilename;
-    @Value("${login.rsa.key.public.filename}")
-    private String loginPubKeyFilename;
+    @Autowired
+    private LoginKeyStore loginKeyStore;
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private TokenStore tokenStore;
 
     @Value("${token.login.validTimeSeconds}")
     private Integer LOGIN_TOKEN_VALID_TIME_SECONDS;
     @Value("${token.login.issuer}")
     private String LOGIN_TOKEN_ISSUER;
+    @Value("${token.refresh.validTimeSeconds}")
+    private Integer REFRESH_TOKEN_VALID_TIME_SECONDS;
 
-    public String encodeUserPassword(String plainTextPassword) {
-        return getPasswordEncoder().encode(plainTextPassword);
+    public String encodeUserPassword(String plainTextPassword) throws ServerErrorException {
+        return passwordHashingService.encode(plainTextPassword);
+    }
 
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public TokenVO authenticateUser(String username, String password) throws ServerErrorException, TooManyRequestsException {
+        return authenticateUser(username, password, null);
     }
 
-    public TokenVO authenticateUser(String username, String password) throws ServerErrorException {
+    /**
+     * Checks the user's password and creates a login token and a refresh token
+     * ({@link TokenVO#getRefreshTokenVO()}).
+     *
+     * Login tokens are short-lived and verified without database access, they are not stored. Refresh tokens are
+     * stored and used to get new tokens ({@link #refreshToken(String)}).
+     *
+     * It does not run in a transaction: the password is checked without holding a database connection, only the
+     * user query and the token creation use one. If the password hash was created with another cost it is replaced.
+     *
+     * @param address Remote address of the request, null if unknown
+     * @throws IllegalArgumentException Wrong username or password
+     * @throws TooManyRequestsException Too many login attempts of the username or the address
+     * @throws ServerErrorException Server error (code {@link PasswordHashingService#BUSY} if too many logins are running)
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public TokenVO authenticateUser(String username, String password, String address) throws ServerErrorException, TooManyRequestsException {
         User user;
-        Token token;
 
-        Enter(log, "authenticateUser", "username, password");
+        Enter(log, "authenticateUser", "username, password, address");
 
         if (username == null) {
             log.warn("Username username not defined.");
@@ -81,6 +109,13 @@ public class SecurityController {
             throw new IllegalArgumentException("Wrong username or password.");
         }
 
+        long retryAfterSeconds = loginRateLimiter.tryAcquire(username, address);
+        if (retryAfterSeconds > 0) {
+            log.warn("Too many login attempts.");
+            Exit(log, "authenticateUser");
+            throw new TooManyRequestsException(retryAfterSeconds, "Too many login attempts.");
+        }
+
         Query query = em.createQuery("SELECT u FROM User u WHERE u.username=:username ORDER BY u.id");
         query.setParameter("username", username);
         query.setMaxResults(1);
@@ -101,42 +136,149 @@ public class SecurityController {
             throw new IllegalArgumentException("Wrong username or password.");
         }
 
-        if (!passwordMatch(password, user.getPassword())) {
-            log.warn("Wrong password.");
+        String newPasswordHash;
+        try {
+            if (!passwordHashingService.matches(password, user.getPassword())) {
+                log.warn("Wrong password.");
+                throw new IllegalArgumentException("Wrong username or password.");
+            }
+            // Cost changed, the password is only known here
+            newPasswordHash = passwordHashingService.needsRehash(user.getPassword()) ? passwordHashingService.encode(password) : null;
+        } catch (ServerErrorException ex) {
             Exit(log, "authenticateUser");
-            throw new IllegalArgumentException("Wrong username or password.");
+            throw ex;
+        } catch (IllegalArgumentException ex) {
+            Exit(log, "authenticateUser");
+            throw ex;
         }
 
-        Calendar expires = Calendar.getInstance();
-        expires.add(Calendar.SECOND, LOGIN_TOKEN_VALID_TIME_SECONDS);
-
-        String tokenStr = createLoginToken(user, expires.getTime());
+        TokenVO tokenVO;
+        try {
+            tokenVO = createLoginTokenVO(user);
+        } catch (ServerErrorException ex) {
+            Exit(log, "authenticateUser");
+            throw ex;
+        }
 
-        token = Token.builder()
-            .token(tokenStr)
-            .expires(expires)
-            .user(user)
-            .type(TokenType.LOGIN_TOKEN)
-            .build();
+        Calendar refreshExpires = Calendar.getInstance();
+        refreshExpires.add(Calendar.SECOND, REFRESH_TOKEN_VALID_TIME_SECONDS);
 
+        User tokenUser = user;
+        Long userId = user.getId();
+        Token refreshToken;
         try {
-            em.persist(token);
+            refreshToken = new TransactionTemplate(transactionManager).execute(status -> {
+                if (newPasswordHash != null) {
+                    em.createQuery("UPDATE User u SET u.password = :password WHERE u.id = :userId")
+                        .setParameter("password", newPasswordHash)
+                        .setParameter("userId", userId)
+                        .executeUpdate();
+                    log.info("User's password hash updated to the current cost.");
+                }
+                return tokenStore.save(TokenStore.newRefreshToken(userId), tokenUser, refreshExpires, TokenType.REFRESH_TOKEN);
+            });
         } catch (Exception ex) {
             Error(log, "Error persisting token", null, ex.getMessage());
             Exit(log, "authenticateUser");
             throw new ServerErrorException(1, "Error creating token.", ex);
         }
 
-        return token.getVO();
+        tokenVO.setRefreshTokenVO(refreshToken.getVO());
+
+        Exit(log, "authenticateUser");
+        return tokenVO;
 
     }
 
-    private PasswordEncoder getPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    /**
+     * Uses a refresh token to create a new login token and a new refresh token ({@link TokenVO#getRefreshTokenVO()}).
+     * The refresh token used is revoked (rotation).
+     *
+     * If a revoked refresh token is used again it may have been stolen, so every refresh token of its user is revoked
+     * and the user must log in again.
+     *
+     * It does not run in a transaction: the new login token is signed without holding a database connection.
+     *
+     * @throws SecurityException Not valid, expired or revoked refresh token
+     * @throws ServerErrorException Server error
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public TokenVO refreshToken(String refreshToken) throws SecurityException, ServerErrorException {
+        Enter(log, "refreshToken");
+
+        Token stored;
+        try {
+            if (refreshToken == null) throw new SecurityException("Invalid token.");
+            if (refreshToken.isBlank()) throw new SecurityException("Invalid token.");
+            stored = tokenStore.findRefreshToken(refreshToken);
+            if (stored == null) throw new SecurityException("Not valid token.");
+        } catch (SecurityException ex) {
+            Exit(log, "refreshToken");
+            throw ex;
+        } catch (Exception ex) {
+            Error(log, "Error getting refresh token", null, ex.getMessage());
+            Exit(log, "refreshToken");
+            throw new ServerErrorException("Server error.");
+        }
+
+        User user = stored.getUser();
+        if ((stored.getExpires() == null) || !stored.getExpires().after(Calendar.getInstance())) {
+            log.warn("Refresh token is expired.");
+            Exit(log, "refreshToken");
+            throw new SecurityException("Token has expired.");
+        }
+
+        TokenVO tokenVO;
+        try {
+            tokenVO = createLoginTokenVO(user);
+        } catch (ServerErrorException ex) {
+            Exit(log, "refreshToken");
+            throw ex;
+        }
+
+        Calendar refreshExpires = Calendar.getInstance();
+        refreshExpires.add(Calendar.SECOND, REFRESH_TOKEN_VALID_TIME_SECONDS);
+
+        // The used token is revoked and the new one stored in the same transaction: if the new one can not be stored
+        // the used one is still valid. Null if the used token was already revoked.
+        Token newRefreshToken;
+        try {
+            newRefreshToken = new TransactionTemplate(transactionManager).execute(status -> {
+                if ((stored.getRevokedAt() != null) || !tokenStore.revokeIfNotRevoked(stored.getId())) return null;
+                return tokenStore.save(TokenStore.newRefreshToken(user.getId()), user, refreshExpires, TokenType.REFRESH_TOKEN);
+            });
+        } catch (Exception ex) {
+            Error(log, "Error persisting token", null, ex.getMessage());
+            Exit(log, "refreshToken");
+            throw new ServerErrorException(1, "Error creating token.", ex);
+        }
+
+        if (newRefreshToken == null) {
+            ErrorWarning(log, "Revoked refresh token used.", null, "Revoking every refresh token of the user.");
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> tokenStore.revokeRefreshTokens(user.getId()));
+            } catch (Exception ex) {
+                Error(log, "Error revoking refresh tokens", null, ex.getMessage());
+            }
+            Exit(log, "refreshToken");
+            throw new SecurityException("Token revoked.");
+        }
+
+        tokenVO.setRefreshTokenVO(newRefreshToken.getVO());
+
+        Exit(log, "refreshToken");
+        return tokenVO;
     }
 
-    private boolean passwordMatch(String raw, String encoded) {
-        return getPasswordEncoder().matches(raw, encoded);
+    private TokenVO createLoginTokenVO(User user) throws ServerErrorException {
+        Calendar expires = Calendar.getInstance();
+        expires.add(Calendar.SECOND, LOGIN_TOKEN_VALID_TIME_SECONDS);
+
+        return TokenVO.builder()
+            .token(createLoginToken(user, expires.getTime()))
+            .expires(expires)
+            .type(TokenType.LOGIN_TOKEN)
+            .build();
     }
 
     private String createLoginToken(User user, Date expires) throws ServerErrorException {
@@ -157,7 +299,7 @@ public class SecurityController {
         try {
             algorithm = getLoginEncryptionAlgorithm();
         } catch (ServerErrorException ex) {
-            log.error("Error getting encryption algorithm: {}\n{}", ex.getMessage(), ex.getStackTrace());
+            Error(log, "Error getting encryption algorithm.", ex);
             Exit(log, "createLoginToken");
             throw ex;
         }
@@ -171,7 +313,7 @@ public class SecurityController {
                 .sign(algorithm);
 
         } catch (JWTCreationException ex) {
-            log.error("Error creating token: {}\n{}", ex.getMessage(), ex.getStackTrace());
+            Error(log, "Error creating token.", null, ex);
             throw new ServerErrorException(1, "Error creating token.", ex);
         } finally {
             Exit(log, "createLoginToken");
@@ -181,12 +323,10 @@ public class SecurityController {
     private Algorithm getLoginEncryptionAlgorithm() throws ServerErrorException {
         Enter(log, "getLoginAlgorithm");
         try {
-            RSAPublicKey pubKey = Crypton.ReadX509PublicKey(loginPubKeyFilename);
-            RSAPrivateKey prvKey = Crypton.ReadPKCS8PrivateKey(loginPrvKeyFilename);
-            return Algorithm.RSA256(pubKey, prvKey);
+            return loginKeyStore.getAlgorithm();
 
         } catch (Exception ex) {
-            log.error("Error getting encryption algorithm: {}\n{}", ex.getMessage(), ex.getStackTrace());
+            Error(log, "Error getting encryption algorithm.", ex);
             throw new ServerErrorException(1, "Error getting encryption algorithm.", ex);
 
         } finally {
@@ -200,39 +340,45 @@ public class SecurityController {
         try {
             if (token == null) throw new SecurityException("Invalid token.");
             if (token.isBlank()) throw new SecurityException("Invalid token.");
+            if (tokenStore.isRevoked(token)) throw new SecurityException("Token revoked.");
         } catch (SecurityException ex) {
             Exit(log, "decodeToken");
             throw ex;
         }
 
-        Algorithm algorithm;
+        // Version must be read before the verifier, so a reload between both calls never tags a token verified
+        // with the old keys as verified with the new ones.
+        long keyVersion = loginKeyStore.getVersion();
+        Map<String, Claim> claims = verifiedTokenCache.get(token, keyVersion);
+        if (claims != null) {
+            Exit(log, "decodeToken");
+            return claims;
+        }
+
+        JWTVerifier verifier;
         try {
-            algorithm = getLoginEncryptionAlgorithm();
+            verifier = loginKeyStore.getVerifier();
         } catch (ServerErrorException ex) {
-            log.error("Error getting encryption algorithm: {}\n{}", ex.getMessage(), ex.getStackTrace());
+            Error(log, "Error getting token verifier.", ex);
             Exit(log, "decodeToken");
             throw ex;
         }
 
         try {
-            // Check if it is expired.
-            if(JWT.decode(token).getExpiresAt().before(new Date())) {
-                log.warn("Token is expired.");
-                throw new SecurityException("Token has expired.");
-            }
-
-            // Create verifier
-            JWTVerifier verifier = JWT.require(algorithm)
-                .withIssuer(LOGIN_TOKEN_ISSUER)
-                .build();
-
-            // Decode and verify token
+            // Decode and verify token (expiration included)
             DecodedJWT decodedJWT = verifier.verify(token);
 
             // Get token data
-            return decodedJWT.getClaims();
+            claims = decodedJWT.getClaims();
+            if (decodedJWT.getExpiresAt() != null) {
+                verifiedTokenCache.put(token, claims, decodedJWT.getClaim("userId").asLong(), decodedJWT.getExpiresAt().getTime(), keyVersion);
+            }
+            return claims;
+        } catch (TokenExpiredException ex) {
+            log.warn("Token is expired.");
+            throw new SecurityException("Token has expired.");
         } catch (JWTVerificationException ex) {
-            log.error("Exception: {}\n{}", ex.getMessage(), ex.getStackTrace());
+            ErrorWarning(log, "Not valid token.", null, ex.getMessage());
             throw new SecurityException("Not valid token.");
         } finally {
             Exit(log, "decodeToken");
@@ -240,4 +386,41 @@ public class SecurityController {
 
     }
 
+    /**
+     * Revokes a login token of a user, it is no longer accepted by any instance. Revoked tokens are checked before the
+     * verified token cache, so it does not need to be invalidated. The refresh token of the session is revoked too.
+     *
+     * @param refreshToken Refresh token of the user, null if not known
+     * @param userId Logged user
+     * @param token Login token of the user
+     * @throws SecurityException Token not valid or not of the user
+     * @throws ServerErrorException Server error
+     */
+    public void logout(Long userId, String token, String refreshToken) throws SecurityException, ServerErrorException {
+        Enter(log, "logout");
+
+        Map<String, Claim> claims;
+        try {
+            claims = decodeToken(token);
+            if (userId == null || !userId.equals(claims.get("userId").asLong())) throw new SecurityException("Not valid token.");
+        } catch (SecurityException | ServerErrorException ex) {
+            Exit(log, "logout");
+            throw ex;
+        }
+
+        Calendar expires = Calendar.getInstance();
+        if (claims.get("exp") == null) expires.add(Calendar.SECOND, LOGIN_TOKEN_VALID_TIME_SECONDS);
+        else expires.setTime(claims.get("exp").asDate());
+
+        try {
+            tokenStore.revoke(token, userId, expires);
+            if (refreshToken != null) tokenStore.revokeRefreshToken(userId, refreshToken);
+        } catch (Exception ex) {
+            Error(log, "Error revoking token", null, ex.getMessage());
+            throw new ServerErrorException(1, "Error revoking token.", ex);
+        } finally {
+            Exit(log, "logout");
+        }
+    }
+
 }
@@ -0,0 +1,85 @@
+package com.airondlph.economy.household.logic.users;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Calendar;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.airondlph.economy.household.util.LogUtils.Error;
+
+/**
+ * Scheduled token jobs:
+ *  - Deletes expired tokens, in batches with their own transaction so the table is never locked for long.
+ *  - Reads the tokens revoked by any instance into memory.
+ *
+ * @author adriandlph / airondlph
+ */
+@Component
+@Slf4j
+public class TokenJobs {
+
+    @Autowired
+    private TokenStore tokenStore;
+
+    @Value("${token.sweeper.batchSize:500}")
+    private int batchSize;
+    @Value("${token.sweeper.maxBatches:100}")
+    private int maxBatches;
+
+    // Revocations read until now, overlapped a bit so transactions committed late are not missed
+    private Calendar lastSync;
+    private static final int SYNC_OVERLAP_SECONDS = 60;
+
+    private final LongAdder expiredDeleted = new LongAdder();
+
+    @Scheduled(fixedDelayString = "${token.sweeper.fixedDelayMs:60000}", initialDelayString = "${token.sweeper.initialDelayMs:60000}")
+    public void deleteExpiredTokens() {
+        Calendar now = Calendar.getInstance();
+        int deleted = 0;
+        int batches = 0;
+        int batchDeleted;
+
+        try {
+            do {
+                batchDeleted = tokenStore.deleteExpired(now, batchSize);
+                deleted += batchDeleted;
+                expiredDeleted.add(batchDeleted);
+                batches++;
+            } while (batchDeleted == batchSize && batches < maxBatches);
+        } catch (RuntimeException ex) {
+            Error(log, "Error deleting expired tokens", null, ex.getMessage());
+        }
+
+        if (deleted > 0) log.info("Expired tokens deleted: {}", deleted);
+    }
+
+    @Scheduled(fixedDelayString = "${token.revocation.sync.fixedDelayMs:10000}")
+    public synchronized void syncRevokedTokens() {
+        Calendar now = Calendar.getInstance();
+        Calendar since;
+        if (lastSync == null) {
+            since = Calendar.getInstance();
+            since.setTimeInMillis(0);
+        } else {
+            since = (Calendar) lastSync.clone();
+            since.add(Calendar.SECOND, -SYNC_OVERLAP_SECONDS);
+        }
+
+        try {
+            int read = tokenStore.syncRevoked(since);
+            lastSync = now;
+            if (read > 0) log.debug("Revoked tokens read: {}", read);
+        } catch (RuntimeException ex) {
+            Error(log, "Error reading revoked tokens", null, ex.getMessage());
+        }
+    }
+
+    public long getExpiredDeleted() {
+        return expiredDeleted.sum();
+    }
+
+}
@@ -0,0 +1,282 @@
+package com.airondlph.economy.household.logic.users;
+
+import com.airondlph.economy.household.data.entity.user.Token;
+import com.airondlph.economy.household.data.entity.user.User;
+import com.airondlph.economy.household.data.enumeration.TokenType;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Calendar;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Stored tokens (login and refresh).
+ *
+ * Only the SHA-256 hash of every token is stored:
+ *  - Login (access) tokens are verified by their signature and are only stored when they are revoked (logout). Revoked
+ *    tokens that have not expired are kept in memory, so checking a token does not query the database. Tokens revoked
+ *    by other instances are read periodically ({@link #syncRevoked(Calendar)}).
+ *  - Refresh tokens are random ("userId.secret") and stored when created. They are revoked when used (rotation).
+ *
+ * Expired tokens are deleted in batches by {@link TokenJobs}.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Transactional
+@Slf4j
+public class TokenStore {
+
+    @Autowired
+    private EntityManager em;
+
+    // Token hash -> expiration (ms)
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int REFRESH_TOKEN_SECRET_BYTES = 32;
+
+    /**
+     * @param token Token (not null)
+     * @return SHA-256 of the token (hex, {@link Token#TOKEN_HASH_LENGTH} characters)
+     */
+    public static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JVM must support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @return New refresh token of a user (not stored)
+     */
+    public static String newRefreshToken(Long userId) {
+        byte[] secret = new byte[REFRESH_TOKEN_SECRET_BYTES];
+        RANDOM.nextBytes(secret);
+        return userId + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+    }
+
+    /**
+     * Stores a new token.
+     *
+     * @return Stored token, with the token itself (not stored)
+     */
+    public Token save(String token, User user, Calendar expires, TokenType type) {
+        Token entity = Token.builder()
+            .token(token)
+            .tokenHash(hash(token))
+            .expires(expires)
+            .user(user)
+            .type(type)
+            .build();
+        em.persist(entity);
+        return entity;
+    }
+
+    /**
+     * @param token Token (not null)
+     * @return True if the token has been revoked.
+     */
+    public boolean isRevoked(String token) {
+        // No hash needed while nothing is revoked
+        if (revoked.isEmpty()) return false;
+        return revoked.containsKey(hash(token));
+    }
+
+    /**
+     * Revokes a login token of a user. It is revoked in memory when the transaction commits, and stored (revoked) so
+     * other instances read it.
+     *
+     * @param token Login token (not null)
+     * @param userId Owner of the token
+     * @param expires Expiration of the token
+     * @return True if the token has been revoked, false if it was already revoked.
+     */
+    public boolean revoke(String token, Long userId, Calendar expires) {
+        Enter(log, "revoke");
+
+        String tokenHash = hash(token);
+        List<Token> tokens = em.createQuery("SELECT t FROM Token t WHERE t.user.id = :userId AND t.tokenHash = :tokenHash", Token.class)
+            .setParameter("userId", userId)
+            .setParameter("tokenHash", tokenHash)
+            .getResultList();
+
+        boolean revokedNow = false;
+        long expiresAt = expires.getTimeInMillis();
+        if (tokens.isEmpty()) {
+            em.persist(Token.builder()
+                .tokenHash(tokenHash)
+                .expires(expires)
+                .user(em.getReference(User.class, userId))
+                .type(TokenType.LOGIN_TOKEN)
+                .revokedAt(Calendar.getInstance())
+                .build());
+            revokedNow = true;
+        }
+        for (Token t : tokens) {
+            if (t.getRevokedAt() != null) continue;
+            t.setRevokedAt(Calendar.getInstance());
+            if (t.getExpires() != null) expiresAt = Math.max(expiresAt, t.getExpires().getTimeInMillis());
+            revokedNow = true;
+        }
+
+        addRevokedOnCommit(tokenHash, expiresAt);
+
+        Exit(log, "revoke");
+        return revokedNow;
+    }
+
+    /**
+     * @param refreshToken Refresh token
+     * @return Stored refresh token (with its user), null if it does not exist
+     */
+    public Token findRefreshToken(String refreshToken) {
+        Long userId = getRefreshTokenUserId(refreshToken);
+        if (userId == null) return null;
+
+        List<Token> tokens = em.createQuery("SELECT t FROM Token t JOIN FETCH t.user WHERE t.user.id = :userId AND t.tokenHash = :tokenHash AND t.type = :type", Token.class)
+            .setParameter("userId", userId)
+            .setParameter("tokenHash", hash(refreshToken))
+            .setParameter("type", TokenType.REFRESH_TOKEN)
+            .getResultList();
+        return tokens.isEmpty() ? null : tokens.getFirst();
+    }
+
+    /**
+     * Revokes a stored token if it was not revoked. Only one caller revokes it when it is used concurrently.
+     *
+     * @return True if the token has been revoked by this call
+     */
+    public boolean revokeIfNotRevoked(Long tokenId) {
+        return em.createQuery("UPDATE Token t SET t.revokedAt = :now WHERE t.id = :id AND t.revokedAt IS NULL")
+            .setParameter("now", Calendar.getInstance())
+            .setParameter("id", tokenId)
+            .executeUpdate() == 1;
+    }
+
+    /**
+     * Revokes a refresh token of a user.
+     *
+     * @return True if the token has been revoked
+     */
+    public boolean revokeRefreshToken(Long userId, String refreshToken) {
+        if (!userId.equals(getRefreshTokenUserId(refreshToken))) return false;
+        return em.createQuery("UPDATE Token t SET t.revokedAt = :now WHERE t.user.id = :userId AND t.tokenHash = :tokenHash AND t.type = :type AND t.revokedAt IS NULL")
+            .setParameter("now", Calendar.getInstance())
+            .setParameter("userId", userId)
+            .setParameter("tokenHash", hash(refreshToken))
+            .setParameter("type", TokenType.REFRESH_TOKEN)
+            .executeUpdate() > 0;
+    }
+
+    /**
+     * Revokes every refresh token of a user.
+     *
+     * @return Number of tokens revoked
+     */
+    public int revokeRefreshTokens(Long userId) {
+        return em.createQuery("UPDATE Token t SET t.revokedAt = :now WHERE t.user.id = :userId AND t.type = :type AND t.revokedAt IS NULL")
+            .setParameter("now", Calendar.getInstance())
+            .setParameter("userId", userId)
+            .setParameter("type", TokenType.REFRESH_TOKEN)
+            .executeUpdate();
+    }
+
+    /**
+     * Deletes every token of a user (the user is going to be deleted).
+     *
+     * @return Number of tokens deleted
+     */
+    public int deleteUserTokens(Long userId) {
+        return em.createQuery("DELETE FROM Token t WHERE t.user.id = :userId")
+            .setParameter("userId", userId)
+            .executeUpdate();
+    }
+
+    /**
+     * Deletes a batch of expired tokens.
+     *
+     * @param batchSize Maximum number of tokens deleted
+     * @return Number of tokens deleted
+     */
+    public int deleteExpired(Calendar now, int batchSize) {
+        List<Long> ids = em.createQuery("SELECT t.id FROM Token t WHERE t.expires < :now ORDER BY t.expires", Long.class)
+            .setParameter("now", now)
+            .setMaxResults(batchSize)
+            .getResultList();
+        if (ids.isEmpty()) return 0;
+
+        return em.createQuery("DELETE FROM Token t WHERE t.id IN :ids")
+            .setParameter("ids", ids)
+            .executeUpdate();
+    }
+
+    /**
+     * Reads the login tokens revoked since a date that have not expired, and removes the expired ones from memory.
+     *
+     * @param since Revocation date from which tokens are read
+     * @return Number of revoked tokens read
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public int syncRevoked(Calendar since) {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+        List<Object[]> rows = em.createQuery("SELECT t.tokenHash, t.expires FROM Token t WHERE t.revokedAt >= :since AND t.expires > :now AND t.type = :type", Object[].class)
+            .setParameter("since", since)
+            .setParameter("now", Calendar.getInstance())
+            .setParameter("type", TokenType.LOGIN_TOKEN)
+            .getResultList();
+        for (Object[] row : rows) {
+            revoked.put((String) row[0], ((Calendar) row[1]).getTimeInMillis());
+        }
+        return rows.size();
+    }
+
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public int getRevokedSize() {
+        return revoked.size();
+    }
+
+    private static Long getRefreshTokenUserId(String refreshToken) {
+        if (refreshToken == null) return null;
+        int separator = refreshToken.indexOf('.');
+        if (separator <= 0) return null;
+        try {
+            return Long.parseLong(refreshToken.substring(0, separator));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private void addRevokedOnCommit(String tokenHash, long expiresAt) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            revoked.put(tokenHash, expiresAt);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revoked.put(tokenHash, expiresAt);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.airondlph.economy.household.logic.users;
+
+import com.airondlph.economy.household.data.entity.user.User;
+import com.airondlph.economy.household.exception.ServerErrorException;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.airondlph.economy.household.util.LogUtils.*;
+
+/**
+ * Keeps the users hierarchy materialized in {@link User#getAncestorPath()}.
+ *
+ * The ancestor path of a user has the ids from the root user to the user itself ("/1/2/5/"), so checking if a user
+ * depends on other is a string search on an already loaded entity instead of loading every parent.
+ *
+ * @author adriandlph / airondlph
+ */
+@Service
+@Transactional
+@Slf4j
+public class UserHierarchyService {
+
+    private static final Long SYSTEM_USER_ID = 1L;
+    private static final char SEPARATOR = '/';
+
+    @Autowired
+    private EntityManager em;
+
+    /**
+     * Sets the ancestor path of a new user. It must be called after persisting the user, when it already has an id.
+     *
+     * @param user New user (not null, with id)
+     * @throws ServerErrorException If the path is too long to be stored
+     */
+    public void setAncestorPath(User user) throws ServerErrorException {
+        String path = buildAncestorPath(user, new HashMap<>());
+        if (path.length() > User.ANCESTOR_PATH_MAX_LENGTH) {
+            throw new ServerErrorException(1, "User hierarchy too deep.");
+        }
+        user.setAncestorPath(path);
+    }
+
+    /**
+     * @param ancestor User that may be the ancestor
+     * @param user User that may depend on ancestor
+     * @return True if user is ancestor or ancestor is one of its parents. System user is not considered an ancestor
+     * of other users.
+     */
+    public boolean isAncestor(User ancestor, User user) {
+        if (ancestor == null || user == null) return false;
+        if (user.equals(ancestor)) return true;
+        if (ancestor.getId() == null || ancestor.getId() <= SYSTEM_USER_ID) return false;
+
+        String path = user.getAncestorPath();
+        if (path == null) return isAncestorByParents(ancestor, user);
+
+        return containsId(path, ancestor.getId());
+    }
+
+    private static boolean containsId(String path, Long id) {
+        String idStr = id.toString();
+        int from = 0;
+        int index;
+        while ((index = path.indexOf(idStr, from)) >= 0) {
+            int end = index + idStr.length();
+            if (index > 0 && path.charAt(index - 1) == SEPARATOR && end < path.length() && path.charAt(end) == SEPARATOR) return true;
+            from = end;
+        }
+        return false;
+    }
+
+    /**
+     * Used for users that do not have their path yet (not persisted or not migrated).
+     */
+    private boolean isAncestorByParents(User ancestor, User user) {
+        User auxParent = user.getParentUser();
+
+        while (auxParent != null) {
+            if (auxParent.getId().equals(ancestor.getId())) return true;
+            if (auxParent.getAncestorPath() != null) return containsId(auxParent.getAncestorPath(), ancestor.getId());
+            auxParent = auxParent.getParentUser();
+        }
+
+        return false;
+    }
+
+    private String buildAncestorPath(User user, Map<Long, String> paths) {
+        String path = paths.get(user.getId());
+        if (path != null) return path;
+
+        User parent = user.getParentUser();
+        String parentPath;
+        if (parent == null) parentPath = String.valueOf(SEPARATOR);
+        else if (parent.getAncestorPath() != null) parentPath = parent.getAncestorPath();
+        else parentPath = buildAncestorPath(parent, paths);
+
+        path = parentPath + user.getId() + SEPARATOR;
+        paths.put(user.getId(), path);
+        return path;
+    }
+
+    /**
+     * Sets the ancestor path of the users created before it existed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillMissingAncestorPaths() {
+        Enter(log, "fillMissingAncestorPaths");
+
+        try {
+            List<User> users = em.createQuery("SELECT u FROM User u WHERE u.ancestorPath IS NULL ORDER BY u.id", User.class)
+                .getResultList();
+
+            Map<Long, String> paths = new HashMap<>();
+            for (User user : users) {
+                String path = buildAncestorPath(user, paths);
+                if (path.length() > User.ANCESTOR_PATH_MAX_LENGTH) {
+                    ErrorWarning(log, "Error setting ancestor path", 1, "User hierarchy too deep: " + user.getId());
+                    continue;
+                }
+                user.setAncestorPath(path);
+            }
+
+            if (!users.isEmpty()) log.info("Ancestor path set for {} users.", users.size());
+
+        } catch (Exception ex) {
+            Error(log, "Error setting users ancestor path", null, ex.getMessage());
+
+        } finally {
+            Exit(log, "fillMissingAncestorPaths");
+        }
+    }
+
+}
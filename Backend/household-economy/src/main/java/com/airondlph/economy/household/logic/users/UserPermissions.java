@@ -0,0 +1,121 @@
+package com.airondlph.economy.household.logic.users;
+
+import com.airondlph.economy.household.data.enumeration.Permission;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Immutable set of permissions of a user.
+ *
+ * Permissions are stored as a bitmask (bit = permission ordinal), so checks do not allocate anything.
+ *
+ * @author adriandlph / airondlph
+ */
+public final class UserPermissions {
+
+    static {
+        // Every permission must fit in the mask
+        if (Permission.values().length > Long.SIZE) throw new IllegalStateException("Too many permissions for a long mask.");
+    }
+
+    public static final UserPermissions EMPTY = new UserPermissions(0L);
+
+    private final long mask;
+
+    private UserPermissions(long mask) {
+        this.mask = mask;
+    }
+
+    public static UserPermissions of(Collection<Permission> permissions) {
+        long mask = 0L;
+        for (Permission p : permissions) mask |= bit(p);
+        return mask == 0L ? EMPTY : new UserPermissions(mask);
+    }
+
+    public static UserPermissions of(long mask) {
+        return mask == 0L ? EMPTY : new UserPermissions(mask);
+    }
+
+    /**
+     * @return Mask with the bits of the permissions. Useful to build constants for {@link #hasAny(long)}.
+     */
+    public static long mask(Permission... permissions) {
+        long mask = 0L;
+        for (Permission p : permissions) mask |= bit(p);
+        return mask;
+    }
+
+    private static long bit(Permission permission) {
+        return 1L << permission.ordinal();
+    }
+
+    public boolean contains(Permission permission) {
+        return (mask & bit(permission)) != 0L;
+    }
+
+    public boolean hasAny(Permission p1, Permission p2) {
+        return (mask & (bit(p1) | bit(p2))) != 0L;
+    }
+
+    public boolean hasAny(Permission p1, Permission p2, Permission p3) {
+        return (mask & (bit(p1) | bit(p2) | bit(p3))) != 0L;
+    }
+
+    public boolean hasAny(long permissionsMask) {
+        return (mask & permissionsMask) != 0L;
+    }
+
+    public boolean hasAll(long permissionsMask) {
+        return (mask & permissionsMask) == permissionsMask;
+    }
+
+    /**
+     * @return New user permissions with the permissions of both.
+     */
+    public UserPermissions with(long permissionsMask) {
+        return of(mask | permissionsMask);
+    }
+
+    public long getMask() {
+        return mask;
+    }
+
+    public boolean isEmpty() {
+        return mask == 0L;
+    }
+
+    public EnumSet<Permission> toEnumSet() {
+        EnumSet<Permission> permissions = EnumSet.noneOf(Permission.class);
+        for (Permission p : Permission.values()) {
+            if (contains(p)) permissions.add(p);
+        }
+        return permissions;
+    }
+
+    public List<Permission> toList() {
+        return new ArrayList<>(toEnumSet());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof UserPermissions that)) return false;
+        return mask == that.mask;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(mask);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("UserPermissions{")
+            .append(toEnumSet())
+            .append('}')
+            .toString();
+    }
+
+}
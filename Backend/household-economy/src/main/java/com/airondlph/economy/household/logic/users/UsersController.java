@@ -2,11 +2,11 @@ package com.airondlph.economy.household.logic.users;
 
 import com.airondlph.economy.household.logic.data.Result;
 import com.airondlph.economy.household.data.entity.user.User;
-import com.airondlph.economy.household.data.entity.user.UserPermission;
 import com.airondlph.economy.household.data.entity.user.UserValidation;
 import com.airondlph.economy.household.data.enumeration.Permission;
 import com.airondlph.economy.household.data.enumeration.UserValidationType;
 import com.airondlph.economy.household.data.model.UserVO;
+import com.airondlph.economy.household.api.rest.exception.SecurityException;
 import com.airondlph.economy.household.exception.ServerErrorException;
 import com.airondlph.economy.household.exception.ValidationException;
 import jakarta.persistence.EntityManager;
@@ -33,6 +33,14 @@ public class UsersController {
     private EntityManager em;
     @Autowired
     private SecurityController securityController;
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    @Autowired
+    private TokenStore tokenStore;
+    @Autowired
+    private PermissionService permissionService;
+    @Autowired
+    private UserHierarchyService userHierarchyService;
 
     private static final Long SYSTEM_USER_ID = 1L;
     private static final Integer USER_EMAIL_VALIDATION_EXPIRE_TIME_MINUTES = 24*60;
@@ -65,7 +73,7 @@ public class UsersController {
     public Result<UserVO> createUserOfOtherVO(Long operationUserId, UserVO userDataVO, Long parentUserId) {
         Enter(log, "createUserVO", "userDataVO");
 
-        User operationUser = (operationUserId == null) ? null : em.find(User.class, operationUserId);
+        User operationUser = getOperationUser(operationUserId);
         User parentUser = (parentUserId == null) ? null : em.find(User.class, parentUserId);
 
         User user = User.builder()
@@ -131,7 +139,7 @@ public class UsersController {
     private Result<User> createUser(User operationUser, User user) {
         Enter(log, "createUser", "operationUser, user");
 
-        List<Permission> userPermissions = null;
+        UserPermissions userPermissions = null;
         try {
             userPermissions = getUserPermissions(operationUser);
         } catch (ServerErrorException ex) {
@@ -172,6 +180,7 @@ public class UsersController {
             log.info("Creating user...");
             user.setPassword(securityController.encodeUserPassword(user.getPassword()));
             em.persist(user);
+            userHierarchyService.setAncestorPath(user);
 
             createUserBasicPermissions(user);
 
@@ -186,21 +195,12 @@ public class UsersController {
     }
 
     private void createUserBasicPermissions(User user) {
-        Permission[] basicUserPermissions = new Permission[] {
+        permissionService.grantPermissions(user,
             Permission.GET_USER,
             Permission.EDIT_USER,
             Permission.DELETE_USER,
             Permission.SEND_USER_EMAIL_VALIDATION_CODE
-        };
-
-        for (Permission p : basicUserPermissions) {
-            em.persist(UserPermission.builder()
-                .permission(p)
-                .user(user)
-                .build());
-        }
-
-        em.flush();
+        );
     }
 
     /**
@@ -223,7 +223,7 @@ public class UsersController {
      *   9 -> User's username or email already registered.
      *
      */
-    private void validateUserCreation(User operationUser, User userToCreate, List<Permission> operationUserPermissions) throws ValidationException {
+    private void validateUserCreation(User operationUser, User userToCreate, UserPermissions operationUserPermissions) throws ValidationException {
         if (operationUser == null) throw new ValidationException(1, "Operation user's data not defined.");
         if (userToCreate == null) throw new ValidationException(2, "User's data not defined.");
 
@@ -261,9 +261,9 @@ public class UsersController {
      * @return true if user can create this user, or else if cannot.
      *
      */
-    private boolean userHasCreationPermissions(User operationUser, User userToCreate, List<Permission> operationUserPermissions) {
+    private boolean userHasCreationPermissions(User operationUser, User userToCreate, UserPermissions operationUserPermissions) {
         // System or admin is the operation user
-        if (operationUserPermissions.contains(Permission.SYSTEM) || operationUserPermissions.contains(Permission.ADMIN)) return true;
+        if (operationUserPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         // All users can delete its own users, except system
         if (operationUser.getId().equals(userToCreate.getId())) return true;
@@ -276,7 +276,7 @@ public class UsersController {
     }
 
     public Result<UserVO> getUserByIdVO(Long operationUserId, Long userId) {
-        User operationUser = em.find(User.class, operationUserId);
+        User operationUser = getOperationUser(operationUserId);
 
         if (operationUser == null) return Result.create(1);
 
@@ -311,7 +311,7 @@ public class UsersController {
             return Result.create(2);
         }
 
-        List<Permission> userPermissions = null;
+        UserPermissions userPermissions = null;
         try {
             userPermissions = getUserPermissions(operationUser);
         } catch (ServerErrorException ex) {
@@ -347,9 +347,9 @@ public class UsersController {
      *
      * @return true -> has permission | false -> does not have permission
      */
-    private boolean userHasGetUserPermission(User operationUser, User userToGet, List<Permission> operationUserPermissions) {
+    private boolean userHasGetUserPermission(User operationUser, User userToGet, UserPermissions operationUserPermissions) {
         // System or admin is the operation user
-        if (operationUserPermissions.contains(Permission.SYSTEM) || operationUserPermissions.contains(Permission.ADMIN)) return true;
+        if (operationUserPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         // All users can delete its own users, except system
         if (operationUser.getId().equals(userToGet.getId())) return true;
@@ -363,7 +363,7 @@ public class UsersController {
 
 
     public Result<UserVO> setUserVO(Long operationUserId, UserVO userToEditData) {
-        User operationUser = (operationUserId == null) ? null : em.find(User.class, operationUserId);
+        User operationUser = getOperationUser(operationUserId);
 
         Result<User> userResult = setUser(operationUser, userToEditData);
 
@@ -415,7 +415,7 @@ public class UsersController {
         if (userToEdit == null) return Result.create(3);
 
 
-        List<Permission> userPermissions = null;
+        UserPermissions userPermissions = null;
         try {
             userPermissions = getUserPermissions(operationUser);
         } catch (ServerErrorException ex) {
@@ -496,7 +496,7 @@ public class UsersController {
      *   10 -> User's email already in use.
      *
      */
-    private void validateUserEdition(User operationUser, User userToEdit, UserVO userToEditVO, List<Permission> operationUserPermissions) throws ValidationException {
+    private void validateUserEdition(User operationUser, User userToEdit, UserVO userToEditVO, UserPermissions operationUserPermissions) throws ValidationException {
         if (operationUser == null) throw new ValidationException(1, "Operation user's data not defined.");
         if (userToEdit == null) throw new ValidationException(2, "User's data not defined.");
 
@@ -533,8 +533,7 @@ public class UsersController {
         } catch (NoSuchElementException ignore) {
             // All is okey
         } catch (Exception ex) {
-            log.error("{}", ex);
-            Error(log, "Error checking if user's username or email is in use (for edition)", -1, ex.getMessage());
+            Error(log, "Error checking if user's username or email is in use (for edition)", -1, ex);
             throw new ValidationException(-1, "Server error.");
         }
 
@@ -556,9 +555,9 @@ public class UsersController {
      * @return true if user can create this user, or else if cannot.
      *
      */
-    private boolean userHasEditionPermissions(User operationUser, User userToEdit, List<Permission> operationUserPermissions) {
+    private boolean userHasEditionPermissions(User operationUser, User userToEdit, UserPermissions operationUserPermissions) {
         // System or admin is the operation user
-        if (operationUserPermissions.contains(Permission.SYSTEM) || operationUserPermissions.contains(Permission.ADMIN)) return true;
+        if (operationUserPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         // All users can delete its own users, except system
         if (operationUser.getId().equals(userToEdit.getId())) return true;
@@ -611,7 +610,7 @@ public class UsersController {
             return Result.create(3);
         }
 
-        User operationUser = em.find(User.class, operationUserId);
+        User operationUser = getOperationUser(operationUserId);
         if (operationUser == null) {
             ErrorWarning(log, "Error deleting user", null, "operationUser not defined.");
             Exit(log, "deleteUser");
@@ -625,7 +624,7 @@ public class UsersController {
             return Result.create(3);
         }
 
-        List<Permission> operationUserPermissions = null;
+        UserPermissions operationUserPermissions = null;
         try {
             operationUserPermissions = getUserPermissions(operationUser);
         } catch (ServerErrorException ex) {
@@ -648,13 +647,11 @@ public class UsersController {
         }
 
         try {
-            Query deleteQuery;
-
             // Removing all user tokens
             log.info("Removing user's tokens...");
-            deleteQuery = em.createQuery("DELETE FROM Token t WHERE t.user.id=:userId");
-            deleteQuery.setParameter("userId", userToRemove.getId());
-            log.info("{} tokens removed.", deleteQuery.executeUpdate());
+            log.info("{} tokens removed.", tokenStore.deleteUserTokens(userToRemove.getId()));
+            verifiedTokenCache.invalidateUser(userToRemove.getId());
+            permissionService.invalidate(userToRemove.getId());
 
             // Removing user
             em.remove(userToRemove);
@@ -679,14 +676,14 @@ public class UsersController {
      *    3 -> System user cannot been deleted
      *    4 -> operationUser cannot delete userToDelete
      */
-    private void validateUserDeletion(User operationUser, User userToDelete, List<Permission> operationUserPermissions) throws ValidationException {
+    private void validateUserDeletion(User operationUser, User userToDelete, UserPermissions operationUserPermissions) throws ValidationException {
         if (operationUser == null) throw new ValidationException(1, "User's data not defined.");
         if (userToDelete == null) throw new ValidationException(2, "User's data not defined.");
 
         if (SYSTEM_USER_ID.equals(userToDelete.getId())) throw new ValidationException(3, "System user cannot been deleted.");
 
         // System or admin is the operation user
-        if (operationUserPermissions.contains(Permission.SYSTEM) || operationUserPermissions.contains(Permission.ADMIN)) return;
+        if (operationUserPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return;
 
         // All users can delete its own users, except system
         if (operationUser.getId().equals(userToDelete.getId())) return;
@@ -698,33 +695,65 @@ public class UsersController {
         throw new ValidationException(4, "User does not have permission to remove this user.");
     }
 
-    public List<Permission> getUserPermissions(User user) throws ServerErrorException {
-        List<Permission> userPermissions = new ArrayList<>();
+    /**
+     * Loads the user that made a request and its permissions.
+     *
+     * @param userId Id of the user of the token
+     *
+     * @throws SecurityException If the user does not exist
+     * @throws ServerErrorException If there is any error getting the user data
+     */
+    public AuthenticatedUser getAuthenticatedUser(Long userId) throws SecurityException, ServerErrorException {
+        Enter(log, "getAuthenticatedUser", "userId");
 
-        Query query = em.createQuery("SELECT up FROM UserPermission up WHERE up.user = :user")
-            .setParameter("user", user);
+        if (userId == null) {
+            Exit(log, "getAuthenticatedUser");
+            throw new SecurityException("User not defined.");
+        }
 
+        User user;
         try {
-            ((List<UserPermission>) query.getResultList()).forEach(p -> userPermissions.add(p.getPermission()));
+            user = em.find(User.class, userId);
         } catch (Exception ex) {
-            Error(log, "Getting user permissions.", null, ex.getMessage());
-            throw new ServerErrorException("Error getting user permissions.");
+            Error(log, "Getting authenticated user.", null, ex.getMessage());
+            Exit(log, "getAuthenticatedUser");
+            throw new ServerErrorException("Error getting user.");
         }
 
-        return userPermissions;
+        if (user == null) {
+            ErrorWarning(log, "Getting authenticated user.", null, "User not found.");
+            Exit(log, "getAuthenticatedUser");
+            throw new SecurityException("User not found.");
+        }
+
+        try {
+            return new AuthenticatedUser(user.getId(), user.getUsername(), getUserPermissions(user));
+        } finally {
+            Exit(log, "getAuthenticatedUser");
+        }
     }
 
-    private boolean isParent(User parent, User user) {
-        if (user.equals(parent)) return true;
+    /**
+     * @param operationUserId Id of the user that does the operation
+     * @return User that does the operation or null if it is not defined. The user of the request was already
+     * loaded by the authentication filter, so only a reference is returned for it instead of querying it again.
+     */
+    private User getOperationUser(Long operationUserId) {
+        if (operationUserId == null) return null;
+        if (AuthenticationContext.getAuthenticatedUser(operationUserId) != null) return em.getReference(User.class, operationUserId);
+        return em.find(User.class, operationUserId);
+    }
 
-        User auxParent = user.getParentUser();
+    public UserPermissions getUserPermissions(User user) throws ServerErrorException {
+        // Permissions of the user of the request were already loaded by the authentication filter
+        AuthenticatedUser authenticatedUser = AuthenticationContext.getAuthenticatedUser(user.getId());
+        if (authenticatedUser != null) return authenticatedUser.getPermissions();
 
-        while (auxParent != null && parent.getId() > 1) {
-            if (auxParent.getId().equals(parent.getId())) return true;
-            auxParent = auxParent.getParentUser();
-        }
+        return permissionService.getUserPermissions(user);
+    }
 
-        return false;
+    private boolean isParent(User parent, User user) {
+        return userHierarchyService.isAncestor(parent, user);
     }
 
     public boolean userDepends(User boss, User employee) {
@@ -735,7 +764,7 @@ public class UsersController {
     public Result<Void> sendValidateUserEmailCodeVO(Long operationUserId, Long userId){
         Enter(log, "sendValidateUserEmailCodeVO");
 
-        User operationUser = (operationUserId == null) ? null : em.find(User.class, operationUserId);
+        User operationUser = getOperationUser(operationUserId);
         User user = (userId == null) ? null : em.find(User.class, userId);
         Result<Void> result = sendValidateUserEmailCode(operationUser, user);
 
@@ -817,8 +846,8 @@ public class UsersController {
         return Result.create(null);
     }
 
-    private boolean hasPermissionToSendUserEmailValidationCode(User operationUser, User user, List<Permission> operationUserPermissions) {
-        if (operationUserPermissions.contains(Permission.SYSTEM) || operationUserPermissions.contains(Permission.ADMIN)) return true;
+    private boolean hasPermissionToSendUserEmailValidationCode(User operationUser, User user, UserPermissions operationUserPermissions) {
+        if (operationUserPermissions.hasAny(Permission.SYSTEM, Permission.ADMIN)) return true;
 
         // You have the permission to delete any user
         if (operationUserPermissions.contains(Permission.SEND_ALL_USER_EMAIL_VALIDATION_CODE)) return true;
@@ -0,0 +1,166 @@
+package com.airondlph.economy.household.logic.users;
+
+import com.auth0.jwt.interfaces.Claim;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of login tokens that have already been verified.
+ *
+ * Tokens are stored by their SHA-256 hash, so raw tokens are not kept in memory. An entry is valid until the token
+ * expires or the login keys are reloaded. When the cache is full the entries used least are evicted (Caffeine's
+ * approximate LRU/LFU), so reads do not take a global lock.
+ *
+ * @author adriandlph / airondlph
+ */
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+
+    @Value("${token.cache.maxSize:10000}")
+    private int maxSize;
+
+    private Cache<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        entries = Caffeine.newBuilder()
+            .maximumSize(Math.max(0, maxSize))
+            .expireAfter(new Expiry<String, Entry>() {
+                @Override
+                public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAt - System.currentTimeMillis()));
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                    return expireAfterCreate(key, entry, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .removalListener((String key, Entry entry, RemovalCause cause) -> {
+                if (cause == RemovalCause.SIZE) evictions.increment();
+            })
+            .build();
+    }
+
+    /**
+     * @param token Token (not null)
+     * @param keyVersion Version of the login keys in use
+     * @return Claims of the token if it was verified with the same keys and has not expired, null otherwise.
+     */
+    public Map<String, Claim> get(String token, long keyVersion) {
+        String key = TokenStore.hash(token);
+
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null && (entry.keyVersion != keyVersion || entry.expiresAt <= System.currentTimeMillis())) {
+            entries.asMap().remove(key, entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.claims;
+    }
+
+    /**
+     * Stores a verified token.
+     *
+     * @param token Token (not null)
+     * @param claims Claims of the verified token
+     * @param userId Owner of the token (null if unknown)
+     * @param expiresAt Expiration date of the token in milliseconds
+     * @param keyVersion Version of the login keys used to verify the token
+     */
+    public void put(String token, Map<String, Claim> claims, Long userId, long expiresAt, long keyVersion) {
+        if (maxSize <= 0) return;
+        if (expiresAt <= System.currentTimeMillis()) return;
+
+        entries.put(TokenStore.hash(token), new Entry(claims, userId, expiresAt, keyVersion));
+    }
+
+    /**
+     * Removes every cached token of a user.
+     *
+     * @param userId User id
+     * @return Number of removed tokens
+     */
+    public int invalidateUser(Long userId) {
+        if (userId == null) return 0;
+
+        AtomicInteger removed = new AtomicInteger();
+        entries.asMap().values().removeIf(entry -> {
+            if (!userId.equals(entry.userId)) return false;
+            removed.incrementAndGet();
+            return true;
+        });
+
+        log.info("{} cached tokens invalidated for user {}.", removed.get(), userId);
+        return removed.get();
+    }
+
+    /**
+     * Removes every cached token.
+     */
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getSize() {
+        return (int) entries.estimatedSize();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private static final class Entry {
+        private final Map<String, Claim> claims;
+        private final Long userId;
+        private final long expiresAt;
+        private final long keyVersion;
+
+        private Entry(Map<String, Claim> claims, Long userId, long expiresAt, long keyVersion) {
+            this.claims = claims;
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+            this.keyVersion = keyVersion;
+        }
+    }
+
+}
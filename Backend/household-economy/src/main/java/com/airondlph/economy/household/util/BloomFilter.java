@@ -0,0 +1,80 @@
+package com.airondlph.economy.household.util;
+
+/**
+ * Set membership test with false positives and no false negatives: {@link #mightContain(long, long)} returning false
+ * means the value was never added.
+ *
+ * Values are given as a 128 bit hash (two longs) that must already be uniformly distributed (a slice of a SHA-256,
+ * for example). Bit positions are derived from it with double hashing. It is thread safe.
+ *
+ * @author adriandlph / airondlph
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final long numBits;
+    private final int numHashes;
+    private final int capacity;
+    private int count;
+
+    /**
+     * @param capacity Number of values it is sized for. False positives grow over the given probability beyond it.
+     * @param falsePositiveProbability False positive probability with capacity values (0 < p < 1)
+     */
+    public BloomFilter(int capacity, double falsePositiveProbability) {
+        if (capacity < 1) capacity = 1;
+        long m = (long) Math.ceil(-capacity * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, (m + 63) / 64 * 64);
+
+        this.bits = new long[(int) (m / 64)];
+        this.numBits = m;
+        this.numHashes = Math.max(1, (int) Math.round((double) m / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    public synchronized void add(long hash1, long hash2) {
+        for (int i = 0; i < numHashes; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, numBits);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+        count++;
+    }
+
+    public synchronized boolean mightContain(long hash1, long hash2) {
+        for (int i = 0; i < numHashes; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, numBits);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of values added (repeated values are counted every time).
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return True if it has more values than it was sized for.
+     */
+    public synchronized boolean isFull() {
+        return count > capacity;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("BloomFilter{")
+            .append("numBits=").append(numBits)
+            .append(", numHashes=").append(numHashes)
+            .append(", capacity=").append(capacity)
+            .append(", count=").append(getCount())
+            .append('}')
+            .toString();
+    }
+
+}
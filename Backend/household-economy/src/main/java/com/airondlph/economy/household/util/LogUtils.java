@@ -2,38 +2,51 @@ package com.airondlph.economy.household.util;
 
 import com.airondlph.economy.household.exception.ServerErrorException;
 import org.slf4j.Logger;
+import org.slf4j.event.Level;
 
 /**
+ * Method entries and exits are recorded as spans by the {@link Tracer} (exported asynchronously) and only logged at
+ * TRACE level. Errors and warnings are logged and recorded as events of the current trace.
+ *
  * @author adriandlph / airondlph
  */
 public class LogUtils {
 
     public static void Enter(Logger log, String methodName) {
-        Enter(log, methodName, "");
+        Tracer.enter(methodName);
+        if (log.isTraceEnabled()) log.trace("---> {}()", methodName);
     }
 
     public static void Enter(Logger log, String methodName, String params) {
-        log.info("---> {}({})", methodName, params);
+        Tracer.enter(methodName);
+        if (log.isTraceEnabled()) log.trace("---> {}({})", methodName, params);
     }
 
     public static void Exit(Logger log, String methodName) {
-        log.info("<--- {}()", methodName);
+        Tracer.exit(methodName);
+        if (log.isTraceEnabled()) log.trace("<--- {}()", methodName);
     }
 
     public static void ErrorWarning(Logger log, String intro, Integer errCode, String errorMsg) {
         log.warn("{}\n\t-Code: {}\n\t-Message: {}", intro, errCode, errorMsg);
+        Tracer.event(Level.WARN, intro, errCode);
     }
 
     public static void Error(Logger log, String intro, Integer errCode, String errorMsg) {
         log.error("{}\n\t-Code: {}\n\t-Message: {}", intro, errCode, errorMsg);
+        Tracer.event(Level.ERROR, intro, errCode);
+    }
+
+    /**
+     * Logs the error with the stack trace of its cause.
+     */
+    public static void Error(Logger log, String intro, Integer errCode, Throwable ex) {
+        log.error("{}\n\t-Code: {}\n\t-Message: {}", intro, errCode, ex.getMessage(), ex);
+        Tracer.event(Level.ERROR, intro, errCode);
     }
 
     public static void Error(Logger log, String intro, Exception ex) {
-        if (ex instanceof ServerErrorException) {
-            ServerErrorException sEx = (ServerErrorException) ex;
-            Error(log, intro, sEx.getCode(), sEx.getMessage());
-        }
-        log.error("{}", ex);
+        Error(log, intro, ex instanceof ServerErrorException sEx ? sEx.getCode() : null, ex);
     }
 
 }
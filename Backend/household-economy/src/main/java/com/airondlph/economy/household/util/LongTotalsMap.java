@@ -0,0 +1,112 @@
+package com.airondlph.economy.household.util;
+
+/**
+ * Sum and count of values per long key (ids), stored in arrays with open addressing (linear probing), so adding a
+ * value never allocates and keys are not boxed.
+ *
+ * It is not thread safe: every thread fills its own map and they are merged afterwards ({@link #addAll(LongTotalsMap)}).
+ *
+ * @author adriandlph / airondlph
+ */
+public class LongTotalsMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] totals;
+    private long[] counts;
+    private boolean[] used;
+    private int size;
+
+    public LongTotalsMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize Number of keys it is sized for (it grows beyond it)
+     */
+    public LongTotalsMap(int expectedSize) {
+        allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1));
+    }
+
+    public void add(long key, long value) {
+        add(key, value, 1);
+    }
+
+    /**
+     * Adds the totals of another map to this one.
+     */
+    public void addAll(LongTotalsMap other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.used[i]) add(other.keys[i], other.totals[i], other.counts[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(Consumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) consumer.accept(keys[i], totals[i], counts[i]);
+        }
+    }
+
+    private void add(long key, long total, long count) {
+        int index = indexOf(key);
+        if (!used[index]) {
+            // Load factor 0.5
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                index = indexOf(key);
+            }
+            used[index] = true;
+            keys[index] = key;
+            size++;
+        }
+        totals[index] += total;
+        counts[index] += count;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (used[index] && keys[index] != key) index = (index + 1) & mask;
+        return index;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldTotals = totals;
+        long[] oldCounts = counts;
+        boolean[] oldUsed = used;
+
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (!oldUsed[i]) continue;
+            int index = indexOf(oldKeys[i]);
+            used[index] = true;
+            keys[index] = oldKeys[i];
+            totals[index] = oldTotals[i];
+            counts[index] = oldCounts[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        totals = new long[capacity];
+        counts = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(long key, long total, long count);
+    }
+
+}
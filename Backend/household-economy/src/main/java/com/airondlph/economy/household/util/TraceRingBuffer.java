@@ -0,0 +1,162 @@
+package com.airondlph.economy.household.util;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size buffer of trace records written by many threads without locks and read by a single thread.
+ *
+ * Writers never wait: every record takes the next sequence and its slot (sequence modulo capacity), overwriting the
+ * oldest record if the reader is too slow. Records are stored in preallocated arrays, so adding a record does not
+ * allocate. Every slot has the sequence of its record, set to -1 while it is written; the reader checks it before
+ * and after reading the slot and discards it if a writer has changed it meanwhile.
+ *
+ * @author adriandlph / airondlph
+ */
+public class TraceRingBuffer {
+
+    private static final long WRITING = -1;
+
+    private final int capacity;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLongArray sequences;
+    private final int[] levels;
+    private final int[] depths;
+    private final long[] traceIds;
+    private final long[] threadIds;
+    private final long[] codes;
+    private final long[] starts;
+    private final long[] durations;
+    private final String[] names;
+
+    // Only used by the reader
+    private long tail;
+    private volatile long dropped;
+
+    /**
+     * Record read from the buffer. The same instance is reused for every record of a read.
+     */
+    public static class Record {
+        public int level;
+        public int depth;
+        public long traceId;
+        public long threadId;
+        public long code;
+        public long start;
+        public long duration;
+        public String name;
+    }
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(Record record);
+    }
+
+    /**
+     * @param capacity Number of records (rounded up to a power of 2)
+     */
+    public TraceRingBuffer(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+
+        sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) sequences.set(i, i - (long) this.capacity); // Never written
+        levels = new int[this.capacity];
+        depths = new int[this.capacity];
+        traceIds = new long[this.capacity];
+        threadIds = new long[this.capacity];
+        codes = new long[this.capacity];
+        starts = new long[this.capacity];
+        durations = new long[this.capacity];
+        names = new String[this.capacity];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void add(int level, long traceId, long threadId, int depth, String name, long code, long start, long duration) {
+        long sequence = head.getAndIncrement();
+        int slot = (int) (sequence & mask);
+
+        sequences.setPlain(slot, WRITING);
+        VarHandle.storeStoreFence();
+
+        levels[slot] = level;
+        depths[slot] = depth;
+        traceIds[slot] = traceId;
+        threadIds[slot] = threadId;
+        codes[slot] = code;
+        starts[slot] = start;
+        durations[slot] = duration;
+        names[slot] = name;
+
+        sequences.setRelease(slot, sequence);
+    }
+
+    /**
+     * Reads every record published since the last read, oldest first. It must be called by one thread at a time.
+     *
+     * @return Number of records read.
+     */
+    public int drain(RecordConsumer consumer) {
+        Record record = new Record();
+        long end = head.get();
+        int read = 0;
+
+        while (tail < end) {
+            int slot = (int) (tail & mask);
+            long sequence = sequences.getAcquire(slot);
+
+            if (sequence > tail) {
+                // Overwritten by writers: continue from the oldest record still in the buffer
+                long oldest = Math.max(tail + 1, head.get() - capacity);
+                dropped += oldest - tail;
+                tail = oldest;
+                continue;
+            }
+            if (sequence != tail) break; // Still being written
+
+            record.level = levels[slot];
+            record.depth = depths[slot];
+            record.traceId = traceIds[slot];
+            record.threadId = threadIds[slot];
+            record.code = codes[slot];
+            record.start = starts[slot];
+            record.duration = durations[slot];
+            record.name = names[slot];
+
+            VarHandle.loadLoadFence();
+            if (sequences.getAcquire(slot) != sequence) {
+                // Overwritten while it was read
+                dropped++;
+                tail++;
+                continue;
+            }
+
+            tail++;
+            read++;
+            consumer.accept(record);
+        }
+
+        return read;
+    }
+
+    /**
+     * @return Number of records overwritten before being read.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return Number of records added.
+     */
+    public long getAdded() {
+        return head.get();
+    }
+
+}
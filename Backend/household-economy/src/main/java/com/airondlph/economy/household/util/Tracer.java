@@ -0,0 +1,138 @@
+package com.airondlph.economy.household.util;
+
+import org.slf4j.event.Level;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Method spans and error events recorded into a {@link TraceRingBuffer} and exported asynchronously (TraceExporter),
+ * instead of logging every method entry and exit.
+ *
+ * A span starts with {@link #enter(String)} and ends with {@link #exit(String)} (LogUtils.Enter / Exit). The spans of
+ * a thread are nested: the outermost one (the request) gets a trace id and decides if the whole trace is recorded
+ * (sample rate). An exit closes the last open span with its name and every span opened after it, so a missing exit
+ * does not break the nesting. Spans are DEBUG records, errors and warnings are recorded (not sampled) if their level
+ * reaches the minimum level.
+ *
+ * Nothing is allocated while tracing is disabled. Requests run on virtual threads (a new thread each one), so a thread
+ * only gets a depth counter for an unsampled trace and the span arrays are allocated the first time one of its traces
+ * is sampled. Recording a span only uses those arrays and the buffer.
+ *
+ * @author adriandlph / airondlph
+ */
+public final class Tracer {
+
+    public static final long NO_CODE = Long.MIN_VALUE;
+
+    private static final int MAX_DEPTH = 64;
+    private static final ThreadLocal<SpanStack> STACKS = new ThreadLocal<>();
+    private static final AtomicLong TRACE_IDS = new AtomicLong();
+
+    private static volatile boolean enabled = false;
+    private static volatile boolean spansEnabled = false;
+    private static volatile double sampleRate = 1.0;
+    private static volatile int minLevel = Level.DEBUG.toInt();
+    private static volatile TraceRingBuffer buffer = new TraceRingBuffer(2);
+
+    private Tracer() {}
+
+    private static final class SpanStack {
+        // Only allocated for sampled traces
+        private String[] names;
+        private long[] starts;
+        private int depth;
+        private long traceId;
+        private boolean sampled;
+    }
+
+    /**
+     * @param bufferSize Number of records kept until they are exported
+     * @param sampleRate Fraction of the traces recorded (0 - 1)
+     * @param level Minimum level recorded
+     */
+    public static void configure(boolean enabled, int bufferSize, double sampleRate, Level level) {
+        Tracer.buffer = new TraceRingBuffer(bufferSize);
+        Tracer.sampleRate = Math.max(0.0, Math.min(1.0, sampleRate));
+        Tracer.minLevel = level.toInt();
+        Tracer.spansEnabled = Level.DEBUG.toInt() >= level.toInt() && sampleRate > 0;
+        Tracer.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static TraceRingBuffer getBuffer() {
+        return buffer;
+    }
+
+    public static void enter(String name) {
+        if (!enabled) return;
+
+        SpanStack stack = STACKS.get();
+        if (stack == null || stack.depth == 0) {
+            double rate = sampleRate;
+            boolean sampled = spansEnabled && (rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate);
+            if (stack == null) {
+                stack = new SpanStack();
+                STACKS.set(stack);
+            }
+            if (sampled && stack.names == null) {
+                stack.names = new String[MAX_DEPTH];
+                stack.starts = new long[MAX_DEPTH];
+            }
+            stack.traceId = TRACE_IDS.incrementAndGet();
+            stack.sampled = sampled;
+        }
+
+        if (stack.sampled && stack.depth < MAX_DEPTH) {
+            stack.names[stack.depth] = name;
+            stack.starts[stack.depth] = System.nanoTime();
+        }
+        stack.depth++;
+    }
+
+    public static void exit(String name) {
+        if (!enabled) return;
+
+        SpanStack stack = STACKS.get();
+        if (stack == null || stack.depth == 0) return;
+        // Span names are not kept for unsampled traces, only the nesting
+        if (!stack.sampled || stack.depth > MAX_DEPTH) {
+            stack.depth--;
+            return;
+        }
+
+        int i = stack.depth - 1;
+        while (i >= 0 && !name.equals(stack.names[i])) i--;
+        if (i < 0) return; // Exit without enter
+
+        long start = stack.starts[i];
+        buffer.add(Level.DEBUG.toInt(), stack.traceId, Thread.currentThread().threadId(), i, name, NO_CODE, start, System.nanoTime() - start);
+        stack.depth = i;
+    }
+
+    /**
+     * Records an event (error, warning...) in the current trace.
+     */
+    public static void event(Level level, String message, Integer code) {
+        if (!enabled || level.toInt() < minLevel) return;
+
+        SpanStack stack = STACKS.get();
+        int depth = stack == null ? 0 : stack.depth;
+        buffer.add(level.toInt(), depth == 0 ? 0L : stack.traceId, Thread.currentThread().threadId(), Math.min(depth, MAX_DEPTH),
+            message, code == null ? NO_CODE : code, System.nanoTime(), 0L);
+    }
+
+    /**
+     * Closes every open span of the current thread without recording them (for threads reused after an unfinished
+     * trace).
+     */
+    public static void reset() {
+        if (!enabled) return;
+        SpanStack stack = STACKS.get();
+        if (stack != null) stack.depth = 0;
+    }
+
+}
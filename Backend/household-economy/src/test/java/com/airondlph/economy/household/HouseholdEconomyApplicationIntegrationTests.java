@@ -1,9 +1,7 @@
 package com.airondlph.economy.household;
 
 import org.junit.jupiter.api.Test;
-import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 class HouseholdEconomyApplicationIntegrationTests {
 
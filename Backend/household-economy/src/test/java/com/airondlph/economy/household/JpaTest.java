@@ -0,0 +1,40 @@
+package com.airondlph.economy.household;
+
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * JPA test ({@link DataJpaTest}) against its own in-memory H2 database (MySQL mode) with the schema created from the
+ * entities. The services tested are added with {@code @Import} and their dependencies with {@code @MockitoBean}.
+ *
+ * @author adriandlph / airondlph
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@DataJpaTest(properties = {
+    "spring.test.database.replace=none",
+    "spring.datasource.url=jdbc:h2:mem:${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE,MONTH,YEAR,USER",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+@ContextConfiguration(classes = JpaTest.Config.class)
+public @interface JpaTest {
+
+    // Own configuration, the application one runs the console menu
+    @AutoConfigurationPackage(basePackages = "com.airondlph.economy.household.data.entity")
+    class Config {
+    }
+
+}
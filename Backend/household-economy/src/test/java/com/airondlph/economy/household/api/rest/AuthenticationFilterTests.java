@@ -0,0 +1,92 @@
+package com.airondlph.economy.household.api.rest;
+
+import com.airondlph.economy.household.api.rest.exception.SecurityException;
+import com.airondlph.economy.household.exception.ServerErrorException;
+import com.airondlph.economy.household.logic.users.AuthenticatedUser;
+import com.airondlph.economy.household.logic.users.SecurityController;
+import com.airondlph.economy.household.logic.users.UsersController;
+import com.auth0.jwt.interfaces.Claim;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The user authenticated by the filter must reach the handlers. The filter runs without Spring's
+ * RequestContextFilter, as it does in the application (it is ordered before it).
+ *
+ * @author adriandlph / airondlph
+ */
+class AuthenticationFilterTests {
+
+    private static final String TOKEN = "valid-token";
+    private static final Long USER_ID = 7L;
+
+    @RestController
+    static class LoggedUserController {
+        @GetMapping("/loggedUser/")
+        public ResponseEntity<String> getLoggedUser() {
+            try {
+                return ResponseEntity.ok(String.valueOf(SecurityRESTController.getLoggedUser().getId()));
+            } catch (SecurityException ex) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ex.getMessage());
+            } catch (ServerErrorException ex) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ex.getMessage());
+            }
+        }
+    }
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Claim userIdClaim = mock(Claim.class);
+        when(userIdClaim.asLong()).thenReturn(USER_ID);
+
+        SecurityController securityController = mock(SecurityController.class);
+        when(securityController.decodeToken(TOKEN)).thenReturn(Map.of("userId", userIdClaim));
+        when(securityController.decodeToken("not-valid")).thenThrow(new SecurityException("Not Authorized."));
+
+        UsersController usersController = mock(UsersController.class);
+        when(usersController.getAuthenticatedUser(USER_ID)).thenReturn(new AuthenticatedUser(USER_ID, "user", null));
+
+        AuthenticationFilter filter = new AuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "securityController", securityController);
+        ReflectionTestUtils.setField(filter, "usersController", usersController);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new LoggedUserController()).addFilters(filter).build();
+    }
+
+    @Test
+    void validTokenReachesHandler() throws Exception {
+        mockMvc.perform(get("/loggedUser/").header("Authorization", "Bearer " + TOKEN))
+            .andExpect(status().isOk())
+            .andExpect(content().string(String.valueOf(USER_ID)));
+    }
+
+    @Test
+    void notValidTokenIsRejected() throws Exception {
+        mockMvc.perform(get("/loggedUser/").header("Authorization", "Bearer not-valid"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void noTokenIsRejected() throws Exception {
+        mockMvc.perform(get("/loggedUser/"))
+            .andExpect(status().isUnauthorized());
+    }
+
+}
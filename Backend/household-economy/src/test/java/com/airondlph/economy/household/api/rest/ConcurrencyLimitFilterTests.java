@@ -0,0 +1,54 @@
+package com.airondlph.economy.household.api.rest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Excluded paths must not take permits with or without the trailing slash.
+ *
+ * @author adriandlph / airondlph
+ */
+class ConcurrencyLimitFilterTests {
+
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new ConcurrencyLimitFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(filter, "excludedPaths", Set.of("/user/login/"));
+        filter.init();
+    }
+
+    @Test
+    void excludedPathWithTrailingSlash() {
+        assertTrue(filter.shouldNotFilter(request("/user/login/")));
+    }
+
+    @Test
+    void excludedPathWithoutTrailingSlash() {
+        assertTrue(filter.shouldNotFilter(request("/user/login")));
+    }
+
+    @Test
+    void otherPathsTakePermits() {
+        assertFalse(filter.shouldNotFilter(request("/user/")));
+        assertFalse(filter.shouldNotFilter(request("/user/login/other/")));
+        assertFalse(filter.shouldNotFilter(request("/")));
+    }
+
+    private static MockHttpServletRequest request(String servletPath) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", servletPath);
+        request.setServletPath(servletPath);
+        return request;
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.airondlph.economy.household.api.rest;
+
+import com.airondlph.economy.household.data.entity.user.IdempotencyKey;
+import com.airondlph.economy.household.logic.data.Result;
+import com.airondlph.economy.household.logic.request.IdempotencyService;
+import com.airondlph.economy.household.logic.users.AuthenticatedUser;
+import com.airondlph.economy.household.logic.users.SecurityController;
+import com.airondlph.economy.household.logic.users.UsersController;
+import com.auth0.jwt.interfaces.Claim;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A request sent again with the same Idempotency-Key must get the first response without running the handler again.
+ * The filters run as in the application: authentication first, without Spring's RequestContextFilter.
+ *
+ * @author adriandlph / airondlph
+ */
+class IdempotencyFilterTests {
+
+    private static final String TOKEN = "valid-token";
+    private static final Long USER_ID = 7L;
+    private static final String KEY = "3f0c6a52-5d0e-4f3b-9a55-6b1f1e2c7d10";
+
+    @RestController
+    static class CountingController {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @PostMapping("/counter/")
+        public ResponseEntity<String> increment(@RequestBody String body) {
+            return ResponseEntity.ok(body + ":" + calls.incrementAndGet());
+        }
+    }
+
+    private final CountingController controller = new CountingController();
+    // Stored key of the fake idempotency service
+    private final AtomicReference<IdempotencyKey> stored = new AtomicReference<>();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Claim userIdClaim = mock(Claim.class);
+        when(userIdClaim.asLong()).thenReturn(USER_ID);
+        SecurityController securityController = mock(SecurityController.class);
+        when(securityController.decodeToken(TOKEN)).thenReturn(Map.of("userId", userIdClaim));
+        UsersController usersController = mock(UsersController.class);
+        when(usersController.getAuthenticatedUser(USER_ID)).thenReturn(new AuthenticatedUser(USER_ID, "user", null));
+
+        AuthenticationFilter authenticationFilter = new AuthenticationFilter();
+        ReflectionTestUtils.setField(authenticationFilter, "securityController", securityController);
+        ReflectionTestUtils.setField(authenticationFilter, "usersController", usersController);
+
+        IdempotencyService idempotencyService = mock(IdempotencyService.class);
+        when(idempotencyService.begin(eq(USER_ID), eq(KEY), any(), any())).thenAnswer(invocation -> {
+            IdempotencyKey existing = stored.get();
+            if (existing != null) return Result.create(existing);
+            IdempotencyKey idempotencyKey = IdempotencyKey.builder().id(1L).userId(USER_ID).key(KEY).build();
+            stored.set(idempotencyKey);
+            return Result.create(idempotencyKey);
+        });
+        doAnswer(invocation -> {
+            IdempotencyKey idempotencyKey = stored.get();
+            idempotencyKey.setResponseStatus(invocation.getArgument(1));
+            idempotencyKey.setResponseContentType(invocation.getArgument(2));
+            idempotencyKey.setResponseBody(invocation.getArgument(3));
+            return null;
+        }).when(idempotencyService).complete(anyLong(), anyInt(), any(), any());
+
+        IdempotencyFilter idempotencyFilter = new IdempotencyFilter();
+        ReflectionTestUtils.setField(idempotencyFilter, "idempotencyService", idempotencyService);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).addFilters(authenticationFilter, idempotencyFilter).build();
+    }
+
+    @Test
+    void sameKeyIsReplayed() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/counter/")
+                    .header("Authorization", "Bearer " + TOKEN)
+                    .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, KEY)
+                    .contentType("text/plain")
+                    .content("request"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("request:1"));
+        }
+
+        assertEquals(1, controller.calls.get());
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.JpaTest;
+import com.airondlph.economy.household.data.entity.financial.Bank;
+import com.airondlph.economy.household.data.entity.financial.BankAccount;
+import com.airondlph.economy.household.data.entity.financial.BankAccountOwner;
+import com.airondlph.economy.household.data.entity.financial.BankAccountOwnerPK;
+import com.airondlph.economy.household.data.entity.user.User;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.Permission;
+import com.airondlph.economy.household.data.model.BankAccountCompleteVO;
+import com.airondlph.economy.household.data.model.BankAccountVO;
+import com.airondlph.economy.household.data.model.UserVO;
+import com.airondlph.economy.household.logic.data.Result;
+import com.airondlph.economy.household.logic.users.UserPermissions;
+import com.airondlph.economy.household.logic.users.UsersController;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * The complete bank account (account, bank and owners) must be loaded with the same number of statements whatever
+ * the number of owners.
+ *
+ * @author adriandlph / airondlph
+ */
+@JpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(FinancialControllerImpl.class)
+class BankAccountCompleteStatementCountTests {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private FinancialController financialController;
+
+    @MockitoBean
+    private UsersController usersController;
+    @MockitoBean
+    private LedgerService ledgerService;
+    @MockitoBean
+    private OperationViewService operationViewService;
+    @MockitoBean
+    private OperationRollupService operationRollupService;
+    @MockitoBean
+    private ExchangeRateService exchangeRateService;
+    @MockitoBean
+    private NetWorthService netWorthService;
+    @MockitoBean
+    private BankTransferFingerprintService fingerprintService;
+    @MockitoBean
+    private SpendingReportService spendingReportService;
+
+    private Statistics statistics;
+    private int users = 0;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(usersController.getUserPermissions(any())).thenReturn(UserPermissions.of(UserPermissions.mask(Permission.GET_BANK_ACCOUNT)));
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void statementCountDoesNotDependOnOwners() {
+        long oneOwner = countStatements(1);
+        long manyOwners = countStatements(20);
+
+        assertEquals(oneOwner, manyOwners);
+        assertTrue(oneOwner <= 2, "User and bank account queries expected, executed: " + oneOwner);
+    }
+
+    private long countStatements(int owners) {
+        Bank bank = Bank.builder().name("Bank " + owners).build();
+        em.persist(bank);
+
+        BankAccount bankAccount = BankAccount.builder()
+            .bankAccountNumber("ES00" + owners)
+            .balance(0L)
+            .currency(Currency.EUR)
+            .lastUpdate(LocalDateTime.now())
+            .bank(bank)
+            .build();
+        em.persist(bankAccount);
+
+        User firstOwner = null;
+        for (int i = 0; i < owners; i++) {
+            User owner = createUser();
+            if (firstOwner == null) firstOwner = owner;
+            em.persist(BankAccountOwner.builder().id(new BankAccountOwnerPK(bankAccount, owner)).build());
+        }
+        em.flush();
+        em.clear();
+
+        statistics.clear();
+        Result<BankAccountCompleteVO> result = financialController.getBankAccountCompleteVO(UserVO.builder().id(firstOwner.getId()).build(),
+            BankAccountVO.builder().id(bankAccount.getId()).build());
+
+        assertTrue(result.isValid(), "Error code: " + result.getErrCode());
+        assertEquals(owners, result.getResult().getOwnersVO().size());
+        assertEquals(bank.getName(), result.getResult().getBankVO().getName());
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User createUser() {
+        users++;
+        User user = User.builder()
+            .username("user" + users)
+            .password("password")
+            .firstName("User " + users)
+            .email("user" + users + "@household.test")
+            .build();
+        em.persist(user);
+        return user;
+    }
+
+}
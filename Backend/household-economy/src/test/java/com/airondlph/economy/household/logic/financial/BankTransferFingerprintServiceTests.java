@@ -0,0 +1,119 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.JpaTest;
+import com.airondlph.economy.household.data.entity.financial.Bank;
+import com.airondlph.economy.household.data.entity.financial.BankAccount;
+import com.airondlph.economy.household.data.entity.financial.BankTransfer;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bank transfers created after the account filter is loaded must be found once they are registered: the filter must
+ * never discard an existing fingerprint.
+ *
+ * @author adriandlph / airondlph
+ */
+@JpaTest
+@Import(BankTransferFingerprintService.class)
+class BankTransferFingerprintServiceTests {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private BankTransferFingerprintService fingerprintService;
+
+    private BankAccount account;
+    private BankAccount other;
+
+    @BeforeEach
+    void setUp() {
+        fingerprintService.clear();
+
+        Bank bank = Bank.builder().name("Bank").build();
+        em.persist(bank);
+        account = createBankAccount(bank, "ES001");
+        other = createBankAccount(bank, "ES002");
+    }
+
+    @Test
+    void registeredFingerprintsAreFound() {
+        // Loads the (empty) filter of the account
+        assertTrue(fingerprintService.findExisting(account.getId(), List.of(fingerprint(0))).isEmpty());
+
+        List<String> fingerprints = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String fingerprint = fingerprint(i);
+            BankTransfer bankTransfer = createBankTransfer(i, fingerprint);
+            em.flush();
+            fingerprintService.register(account.getId(), fingerprint);
+            fingerprints.add(fingerprint);
+            ids.add(bankTransfer.getId());
+        }
+
+        Map<String, Long> existing = fingerprintService.findExisting(account.getId(), fingerprints);
+        assertEquals(fingerprints.size(), existing.size());
+        for (int i = 0; i < fingerprints.size(); i++) assertEquals(ids.get(i), existing.get(fingerprints.get(i)));
+    }
+
+    @Test
+    void fingerprintsOfTheDatabaseAreFound() {
+        String fingerprint = fingerprint(1);
+        BankTransfer bankTransfer = createBankTransfer(1, fingerprint);
+        em.flush();
+
+        // Filter loaded from the database, not registered
+        assertEquals(bankTransfer.getId(), fingerprintService.findExisting(account.getId(), List.of(fingerprint)).get(fingerprint));
+    }
+
+    private String fingerprint(int i) {
+        return BankTransferFingerprintService.getFingerprint(account.getId(), OperationType.OUTCOME, 100L + i, Currency.EUR,
+            LocalDateTime.of(2024, 1, 1, 0, 0), "Concept " + i);
+    }
+
+    private BankAccount createBankAccount(Bank bank, String number) {
+        BankAccount bankAccount = BankAccount.builder()
+            .bankAccountNumber(number)
+            .balance(0L)
+            .currency(Currency.EUR)
+            .lastUpdate(LocalDateTime.now())
+            .bank(bank)
+            .build();
+        em.persist(bankAccount);
+        return bankAccount;
+    }
+
+    private BankTransfer createBankTransfer(int i, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        BankTransfer bankTransfer = BankTransfer.builder()
+            .me(account)
+            .other(other)
+            .concept("Concept " + i)
+            .value(100L + i)
+            .fromCurrency(Currency.EUR)
+            .toCurrency(Currency.EUR)
+            .conversion(1F)
+            .operationType(OperationType.OUTCOME)
+            .madeWhen(now)
+            .applyWhen(LocalDateTime.of(2024, 1, 1, 0, 0))
+            .fingerprint(fingerprint)
+            .lastModification(now)
+            .build();
+        em.persist(bankTransfer);
+        return bankTransfer;
+    }
+
+}
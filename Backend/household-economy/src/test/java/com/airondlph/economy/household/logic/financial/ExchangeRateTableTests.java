@@ -0,0 +1,137 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.data.entity.financial.ExchangeRate;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.exception.ServerErrorException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Conversions must be exact: half even rounding of the ties, overflow rejected and inverse rates of the pairs without
+ * own rates.
+ *
+ * @author adriandlph / airondlph
+ */
+class ExchangeRateTableTests {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void tiesAreRoundedHalfEven() throws Exception {
+        ExchangeRateTable table = table(rate(Currency.EUR, Currency.USD, "0.5", DAY));
+
+        assertEquals(0, table.convert(1, Currency.EUR, Currency.USD, DAY));
+        assertEquals(2, table.convert(3, Currency.EUR, Currency.USD, DAY));
+        assertEquals(2, table.convert(5, Currency.EUR, Currency.USD, DAY));
+        assertEquals(4, table.convert(7, Currency.EUR, Currency.USD, DAY));
+        assertEquals(-2, table.convert(-3, Currency.EUR, Currency.USD, DAY));
+        assertEquals(-2, table.convert(-5, Currency.EUR, Currency.USD, DAY));
+    }
+
+    @Test
+    void notTiesAreRoundedToTheNearest() throws Exception {
+        ExchangeRateTable table = table(rate(Currency.EUR, Currency.USD, "1.085", DAY));
+
+        assertEquals(108, table.convert(100, Currency.EUR, Currency.USD, DAY)); // 108.5
+        assertEquals(110, table.convert(101, Currency.EUR, Currency.USD, DAY)); // 109.585
+        assertEquals(-110, table.convert(-101, Currency.EUR, Currency.USD, DAY));
+    }
+
+    @Test
+    void productsOverLongAreExact() throws Exception {
+        ExchangeRateTable table = table(rate(Currency.EUR, Currency.USD, "0.5", DAY));
+
+        // Long.MAX_VALUE * 0.5 = 4611686018427387903.5
+        assertEquals(4611686018427387904L, table.convert(Long.MAX_VALUE, Currency.EUR, Currency.USD, DAY));
+        assertEquals(-4611686018427387904L, table.convert(Long.MIN_VALUE, Currency.EUR, Currency.USD, DAY));
+    }
+
+    @Test
+    void overflowIsRejected() {
+        ExchangeRateTable table = table(rate(Currency.EUR, Currency.USD, "2", DAY));
+
+        ServerErrorException ex = assertThrows(ServerErrorException.class, () -> table.convert(Long.MAX_VALUE, Currency.EUR, Currency.USD, DAY));
+        assertEquals(2, ex.getCode());
+        ex = assertThrows(ServerErrorException.class, () -> table.convert(new long[] { 1, Long.MIN_VALUE },
+            new Currency[] { Currency.EUR, Currency.EUR }, new LocalDate[] { DAY, DAY }, Currency.USD));
+        assertEquals(2, ex.getCode());
+    }
+
+    @Test
+    void inversePairIsUsedWithoutOwnRates() throws Exception {
+        ExchangeRateTable table = table(rate(Currency.EUR, Currency.USD, "0.8", DAY));
+
+        assertEquals(0, new BigDecimal("1.25").compareTo(table.getRate(Currency.USD, Currency.EUR, DAY)));
+        assertEquals(125, table.convert(100, Currency.USD, Currency.EUR, DAY));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void ownRatesAreUsedBeforeInverse() throws Exception {
+        ExchangeRateTable table = table(
+            rate(Currency.EUR, Currency.GBP, "0.5", DAY),
+            rate(Currency.GBP, Currency.EUR, "1.9", DAY));
+
+        assertEquals(0, new BigDecimal("1.9").compareTo(table.getRate(Currency.GBP, Currency.EUR, DAY)));
+        assertEquals(190, table.convert(100, Currency.GBP, Currency.EUR, DAY));
+    }
+
+    @Test
+    void rateOfTheDateIsTheLastValidOne() throws Exception {
+        ExchangeRateTable table = table(
+            rate(Currency.EUR, Currency.USD, "1.1", DAY),
+            rate(Currency.EUR, Currency.USD, "1.2", DAY.plusDays(10)));
+
+        assertEquals(110, table.convert(100, Currency.EUR, Currency.USD, DAY.plusDays(9)));
+        assertEquals(120, table.convert(100, Currency.EUR, Currency.USD, DAY.plusDays(10)));
+        assertEquals(120, table.convert(100, Currency.EUR, Currency.USD, DAY.plusDays(100)));
+    }
+
+    @Test
+    void missingRateIsRejected() {
+        ExchangeRateTable table = table(rate(Currency.EUR, Currency.USD, "1.1", DAY));
+
+        assertNull(table.getRate(Currency.EUR, Currency.CHF, DAY));
+        ServerErrorException ex = assertThrows(ServerErrorException.class, () -> table.convert(100, Currency.EUR, Currency.CHF, DAY));
+        assertEquals(1, ex.getCode());
+        ex = assertThrows(ServerErrorException.class, () -> table.convert(100, Currency.EUR, Currency.USD, DAY.minusDays(1)));
+        assertEquals(1, ex.getCode());
+    }
+
+    @Test
+    void batchConversionMatchesSingleConversions() throws Exception {
+        ExchangeRateTable table = table(
+            rate(Currency.USD, Currency.EUR, "0.9", DAY),
+            rate(Currency.GBP, Currency.EUR, "1.15", DAY));
+
+        long[] values = { 100, 101, 0, 250, -333, 7 };
+        Currency[] currencies = { Currency.USD, Currency.USD, Currency.GBP, Currency.EUR, Currency.GBP, Currency.GBP };
+        LocalDate[] dates = { DAY, DAY, DAY, DAY, DAY.plusDays(1), DAY.plusDays(1) };
+
+        long[] expected = new long[values.length];
+        for (int i = 0; i < values.length; i++) expected[i] = table.convert(values[i], currencies[i], Currency.EUR, dates[i]);
+        assertArrayEquals(expected, table.convert(values, currencies, dates, Currency.EUR));
+    }
+
+    private static ExchangeRateTable table(ExchangeRate... rates) {
+        return new ExchangeRateTable(List.of(rates));
+    }
+
+    private static ExchangeRate rate(Currency from, Currency to, String rate, LocalDate validFrom) {
+        return ExchangeRate.builder()
+            .fromCurrency(from)
+            .toCurrency(to)
+            .rate(new BigDecimal(rate))
+            .validFrom(validFrom)
+            .build();
+    }
+
+}
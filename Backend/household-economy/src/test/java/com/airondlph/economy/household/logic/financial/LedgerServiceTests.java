@@ -0,0 +1,89 @@
+package com.airondlph.economy.household.logic.financial;
+
+import com.airondlph.economy.household.JpaTest;
+import com.airondlph.economy.household.data.entity.financial.Bank;
+import com.airondlph.economy.household.data.entity.financial.BankAccount;
+import com.airondlph.economy.household.data.entity.financial.BankTransfer;
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.OperationType;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every operation applied to an account in the same transaction must be added to its balance.
+ *
+ * @author adriandlph / airondlph
+ */
+@JpaTest
+@Import(LedgerService.class)
+class LedgerServiceTests {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private LedgerService ledgerService;
+
+    @MockitoBean
+    private OperationViewService operationViewService;
+    @MockitoBean
+    private NetWorthService netWorthService;
+
+    @Test
+    void operationsOfTheSameAccountInOneTransactionAreAllApplied() throws Exception {
+        Bank bank = Bank.builder().name("Bank").build();
+        em.persist(bank);
+        BankAccount account = createBankAccount(bank, "ES001");
+        BankAccount other = createBankAccount(bank, "ES002");
+
+        BankTransfer income = createBankTransfer(account, other, OperationType.INCOME, 1000L);
+        BankTransfer outcome = createBankTransfer(account, other, OperationType.OUTCOME, 300L);
+        em.flush();
+        em.clear();
+
+        assertTrue(ledgerService.applyPendingOperation(income.getId()));
+        assertTrue(ledgerService.applyPendingOperation(outcome.getId()));
+        em.flush();
+        em.clear();
+
+        assertEquals(700L, em.find(BankAccount.class, account.getId()).getBalance());
+    }
+
+    private BankAccount createBankAccount(Bank bank, String number) {
+        BankAccount bankAccount = BankAccount.builder()
+            .bankAccountNumber(number)
+            .balance(0L)
+            .currency(Currency.EUR)
+            .lastUpdate(LocalDateTime.now())
+            .bank(bank)
+            .build();
+        em.persist(bankAccount);
+        return bankAccount;
+    }
+
+    private BankTransfer createBankTransfer(BankAccount me, BankAccount other, OperationType operationType, long value) {
+        LocalDateTime now = LocalDateTime.now();
+        BankTransfer bankTransfer = BankTransfer.builder()
+            .me(me)
+            .other(other)
+            .value(value)
+            .fromCurrency(Currency.EUR)
+            .toCurrency(Currency.EUR)
+            .conversion(1F)
+            .operationType(operationType)
+            .madeWhen(now)
+            .applyWhen(now.minusMinutes(1))
+            .lastModification(now)
+            .build();
+        em.persist(bankTransfer);
+        return bankTransfer;
+    }
+
+}
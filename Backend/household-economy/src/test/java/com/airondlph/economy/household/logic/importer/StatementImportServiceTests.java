@@ -0,0 +1,131 @@
+package com.airondlph.economy.household.logic.importer;
+
+import com.airondlph.economy.household.data.enumeration.Currency;
+import com.airondlph.economy.household.data.enumeration.ImportJobStatus;
+import com.airondlph.economy.household.data.enumeration.StatementFormat;
+import com.airondlph.economy.household.data.model.BankAccountCompleteVO;
+import com.airondlph.economy.household.data.model.BankAccountVO;
+import com.airondlph.economy.household.data.model.BankTransferBulkItemVO;
+import com.airondlph.economy.household.data.model.BankTransferVO;
+import com.airondlph.economy.household.data.model.StatementImportJobVO;
+import com.airondlph.economy.household.data.model.UserVO;
+import com.airondlph.economy.household.logic.data.Result;
+import com.airondlph.economy.household.logic.financial.FinancialController;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rows that already exist are not counted as created: importing the same statement twice creates nothing the second
+ * time.
+ *
+ * @author adriandlph / airondlph
+ */
+class StatementImportServiceTests {
+
+    private static final UserVO USER = UserVO.builder().id(1L).build();
+    private static final long TIMEOUT_MS = 10_000;
+
+    @TempDir
+    private Path importDir;
+
+    private StatementImportService statementImportService;
+    // Bank transfers created by the mocked bulk creation: concept|value|date -> id
+    private final Map<String, Long> created = new HashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.writeString(importDir.resolve("statement.csv"), """
+            date,concept,amount
+            2024-01-05,Salary,2500.00
+            2024-01-07,Rent,-900.00
+            2024-01-09,Groceries,-75.40
+            """);
+
+        FinancialController financialController = mock(FinancialController.class);
+        when(financialController.getBankAccountCompleteVO(any(), any()))
+            .thenReturn(Result.create(new BankAccountCompleteVO(BankAccountVO.builder().id(10L).currency(Currency.EUR).build())));
+        when(financialController.createBankTransfersVO(any(), any())).thenAnswer(invocation -> {
+            List<BankTransferVO> bankTransfers = invocation.getArgument(1);
+            return Result.create(createBankTransfers(bankTransfers));
+        });
+
+        statementImportService = new StatementImportService();
+        ReflectionTestUtils.setField(statementImportService, "financialController", financialController);
+        ReflectionTestUtils.setField(statementImportService, "importDir", importDir.toString());
+        ReflectionTestUtils.setField(statementImportService, "queueSize", 10);
+        ReflectionTestUtils.setField(statementImportService, "chunkSize", 2);
+        ReflectionTestUtils.setField(statementImportService, "maxRunningJobs", 2);
+        ReflectionTestUtils.setField(statementImportService, "retentionMinutes", 60L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statementImportService.destroy();
+    }
+
+    @Test
+    void secondImportOfTheSameStatementOnlyHasDuplicates() throws Exception {
+        StatementImportJobVO first = importStatement();
+        assertEquals(ImportJobStatus.FINISHED, first.getStatus());
+        assertEquals(3, first.getRowsCreated());
+        assertEquals(0, first.getRowsDuplicated());
+        assertEquals(0, first.getRowsFailed());
+
+        StatementImportJobVO second = importStatement();
+        assertEquals(ImportJobStatus.FINISHED, second.getStatus());
+        assertEquals(0, second.getRowsCreated());
+        assertEquals(3, second.getRowsDuplicated());
+        assertEquals(0, second.getRowsFailed());
+
+        assertEquals(3, created.size());
+    }
+
+    private StatementImportJobVO importStatement() throws InterruptedException {
+        Result<StatementImportJobVO> started = statementImportService.startImport(USER, StatementImportJobVO.builder()
+            .file("statement.csv")
+            .format(StatementFormat.CSV)
+            .bankAccountId(10L)
+            .otherBankAccountId(20L)
+            .build());
+        assertTrue(started.isValid());
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        StatementImportJobVO job;
+        do {
+            Thread.sleep(10);
+            job = statementImportService.getImport(USER, started.getResult().getId()).getResult();
+        } while (job.getFinishedWhen() == null && System.currentTimeMillis() < deadline);
+        return job;
+    }
+
+    // Existing bank transfers (same concept, value and date) are returned as duplicates, like the fingerprint check
+    private synchronized List<BankTransferBulkItemVO> createBankTransfers(List<BankTransferVO> bankTransfers) {
+        List<BankTransferBulkItemVO> items = new ArrayList<>(bankTransfers.size());
+        for (int i = 0; i < bankTransfers.size(); i++) {
+            BankTransferVO bankTransfer = bankTransfers.get(i);
+            String key = bankTransfer.getConcept() + "|" + bankTransfer.getValue() + "|" + bankTransfer.getApplyWhen();
+            Long existingId = created.get(key);
+            Long id = existingId != null ? existingId : Long.valueOf(created.size() + 1);
+            if (existingId == null) created.put(key, id);
+            items.add(BankTransferBulkItemVO.builder().index(i).id(id).duplicate(existingId != null).build());
+        }
+        return items;
+    }
+
+}
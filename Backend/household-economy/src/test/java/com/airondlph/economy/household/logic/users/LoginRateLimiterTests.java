@@ -0,0 +1,66 @@
+package com.airondlph.economy.household.logic.users;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Attempts with many different usernames must not grow the buckets over their limit, and the username bucket must
+ * not depend on the case or the default locale.
+ *
+ * @author adriandlph / airondlph
+ */
+class LoginRateLimiterTests {
+
+    private static final int USERNAME_CAPACITY = 10;
+    private static final int MAX_BUCKETS = 1000;
+
+    private LoginRateLimiter loginRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        loginRateLimiter = new LoginRateLimiter();
+        ReflectionTestUtils.setField(loginRateLimiter, "enabled", true);
+        ReflectionTestUtils.setField(loginRateLimiter, "usernameCapacity", USERNAME_CAPACITY);
+        ReflectionTestUtils.setField(loginRateLimiter, "addressCapacity", 60);
+        ReflectionTestUtils.setField(loginRateLimiter, "maxBuckets", MAX_BUCKETS);
+        loginRateLimiter.init();
+    }
+
+    @Test
+    void floodOfUsernamesIsBounded() {
+        for (int i = 0; i < 100 * MAX_BUCKETS; i++) assertEquals(0, loginRateLimiter.tryAcquire("user" + i, null));
+        loginRateLimiter.cleanUp();
+
+        assertTrue(loginRateLimiter.getSize() <= MAX_BUCKETS, "Buckets: " + loginRateLimiter.getSize());
+        assertEquals(0, loginRateLimiter.getRejected());
+    }
+
+    @Test
+    void usernameIsLimited() {
+        for (int i = 0; i < USERNAME_CAPACITY; i++) assertEquals(0, loginRateLimiter.tryAcquire("user", null));
+
+        assertTrue(loginRateLimiter.tryAcquire("user", null) > 0);
+        assertEquals(1, loginRateLimiter.getRejected());
+    }
+
+    @Test
+    void usernameCaseDoesNotDependOnTheLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            // "I".toLowerCase() is a dotless i in Turkish
+            Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+            for (int i = 0; i < USERNAME_CAPACITY; i++) assertEquals(0, loginRateLimiter.tryAcquire("ADMIN", null));
+
+            assertTrue(loginRateLimiter.tryAcquire("admin", null) > 0);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.airondlph.economy.household.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Added values are always found (no false negatives) and false positives stay close to the given probability.
+ *
+ * @author adriandlph / airondlph
+ */
+class BloomFilterTests {
+
+    private static final int CAPACITY = 10_000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    @Test
+    void addedValuesAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(CAPACITY, FALSE_POSITIVE_PROBABILITY);
+        long[][] values = randomValues(new SplittableRandom(1), CAPACITY);
+
+        for (long[] value : values) filter.add(value[0], value[1]);
+        for (long[] value : values) assertTrue(filter.mightContain(value[0], value[1]));
+    }
+
+    @Test
+    void falsePositivesAreNearTheProbability() {
+        BloomFilter filter = new BloomFilter(CAPACITY, FALSE_POSITIVE_PROBABILITY);
+        for (long[] value : randomValues(new SplittableRandom(1), CAPACITY)) filter.add(value[0], value[1]);
+
+        int tests = 100_000;
+        int falsePositives = 0;
+        for (long[] value : randomValues(new SplittableRandom(2), tests)) {
+            if (filter.mightContain(value[0], value[1])) falsePositives++;
+        }
+        assertTrue(falsePositives < tests * FALSE_POSITIVE_PROBABILITY * 2, "False positives: " + falsePositives);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(CAPACITY, FALSE_POSITIVE_PROBABILITY);
+        for (long[] value : randomValues(new SplittableRandom(3), 1000)) assertFalse(filter.mightContain(value[0], value[1]));
+    }
+
+    @Test
+    void fullOverCapacity() {
+        BloomFilter filter = new BloomFilter(2, FALSE_POSITIVE_PROBABILITY);
+        filter.add(1L, 2L);
+        filter.add(3L, 4L);
+        assertFalse(filter.isFull());
+        filter.add(5L, 6L);
+        assertTrue(filter.isFull());
+    }
+
+    private static long[][] randomValues(SplittableRandom random, int count) {
+        long[][] values = new long[count][];
+        for (int i = 0; i < count; i++) values[i] = new long[] { random.nextLong(), random.nextLong() };
+        return values;
+    }
+
+}